@@ -0,0 +1,60 @@
+package org.zeto.assignment.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zeto.assignment.services.edf.BaseService;
+
+/**
+ * Benchmarks of the shared {@link BaseService} helpers used for every header field.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BaseServiceBenchmark {
+
+    private final BaseService baseService = new BaseService() {
+    };
+
+    @Benchmark
+    public byte[] readBytes(Input input) throws IOException {
+        return baseService.readBytes(new ByteArrayInputStream(input.data), input.numBytes);
+    }
+
+    @Benchmark
+    public LocalDateTime formatDate() {
+        return baseService.formatDate("01.09.25", "10.00.00");
+    }
+
+    /**
+     * Input of {@link #readBytes(Input)}: a general header and a large signal header block.
+     */
+    @State(Scope.Benchmark)
+    public static class Input {
+        @Param({"256", "65536"})
+        int numBytes;
+
+        byte[] data;
+
+        @Setup
+        public void setUp() {
+            data = new byte[numBytes];
+        }
+    }
+}
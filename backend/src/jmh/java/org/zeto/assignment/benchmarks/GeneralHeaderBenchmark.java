@@ -0,0 +1,54 @@
+package org.zeto.assignment.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zeto.assignment.benchmarks.SyntheticEdf.AnnotationDensity;
+import org.zeto.assignment.models.edf.GeneralHeader;
+import org.zeto.assignment.services.edf.GeneralHeaderServiceImpl;
+
+/**
+ * Benchmarks of {@link GeneralHeaderServiceImpl#read} on a stream and on a buffer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GeneralHeaderBenchmark {
+
+    private final GeneralHeaderServiceImpl service = new GeneralHeaderServiceImpl();
+
+    private byte[] edf;
+
+    @Setup
+    public void setUp() throws IOException {
+        edf = SyntheticEdf.build(8, 1, 1, AnnotationDensity.SPARSE);
+        if (!"0".equals(readBuffer().getIdentifier())) {
+            throw new IllegalStateException("Synthetic general header could not be decoded");
+        }
+    }
+
+    @Benchmark
+    public GeneralHeader readStream() throws IOException {
+        return service.read(new ByteArrayInputStream(edf));
+    }
+
+    @Benchmark
+    public GeneralHeader readBuffer() throws IOException {
+        return service.read(ByteBuffer.wrap(edf));
+    }
+}
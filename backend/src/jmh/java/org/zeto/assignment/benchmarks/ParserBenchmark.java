@@ -0,0 +1,70 @@
+package org.zeto.assignment.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zeto.assignment.benchmarks.SyntheticEdf.AnnotationDensity;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.services.edf.GeneralHeaderServiceImpl;
+import org.zeto.assignment.services.edf.ParserMetrics;
+import org.zeto.assignment.services.edf.ParserServiceImpl;
+import org.zeto.assignment.services.edf.SignalHeaderServiceImpl;
+
+/**
+ * End-to-end benchmark of {@link ParserServiceImpl#parse(File)} for every read backend, including opening the file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParserBenchmark {
+
+    private static final int SAMPLES_PER_RECORD = 256;
+
+    @Param({"STREAM", "CHANNEL", "MAPPED"})
+    EdfProperties.ParserBackend backend;
+
+    @Param({"8", "64"})
+    int numSignals;
+
+    @Param({"60", "3600"})
+    int numDataRecords;
+
+    @Param({"NONE", "DENSE"})
+    AnnotationDensity annotations;
+
+    private ParserServiceImpl parserService;
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        var properties = new EdfProperties();
+        properties.getParser().setBackend(backend);
+        parserService = new ParserServiceImpl(new GeneralHeaderServiceImpl(), new SignalHeaderServiceImpl(new EdfProperties()), properties, ParserMetrics.NONE);
+        file = SyntheticEdf.write(SyntheticEdf.build(numSignals, numDataRecords, SAMPLES_PER_RECORD, annotations)).toFile();
+
+        if (!parse().isValid()) {
+            throw new IllegalStateException("Synthetic EDF file could not be parsed");
+        }
+    }
+
+    @Benchmark
+    public FileInfo parse() {
+        return parserService.parse(file);
+    }
+}
@@ -0,0 +1,92 @@
+package org.zeto.assignment.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zeto.assignment.benchmarks.SyntheticEdf.AnnotationDensity;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.GeneralHeader;
+import org.zeto.assignment.models.edf.SignalHeader;
+import org.zeto.assignment.services.edf.GeneralHeaderServiceImpl;
+import org.zeto.assignment.services.edf.SignalHeaderServiceImpl;
+
+/**
+ * Benchmarks of {@link SignalHeaderServiceImpl} for plain EDF files and EDF+ files of increasing annotation
+ * density. Besides decoding the signal headers, EDF+ variants scan the annotation signal of every data record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SignalHeaderBenchmark {
+
+    private static final int GENERAL_HEADER_BYTES = 256;
+    private static final int SAMPLES_PER_RECORD = 256;
+
+    private final SignalHeaderServiceImpl service = new SignalHeaderServiceImpl(new EdfProperties());
+
+    @Param({"8", "64"})
+    int numSignals;
+
+    @Param({"60", "3600"})
+    int numDataRecords;
+
+    @Param({"NONE", "SPARSE", "DENSE"})
+    AnnotationDensity annotations;
+
+    private byte[] edf;
+    private GeneralHeader generalHeader;
+    private FileChannel channel;
+
+    @Setup
+    public void setUp() throws IOException {
+        edf = SyntheticEdf.build(numSignals, numDataRecords, SAMPLES_PER_RECORD, annotations);
+        generalHeader = new GeneralHeaderServiceImpl().read(ByteBuffer.wrap(edf));
+        channel = FileChannel.open(SyntheticEdf.write(edf), StandardOpenOption.READ);
+
+        var expected = numDataRecords * annotations.getAnnotationsPerRecord();
+        for (var signalHeader : new SignalHeader[]{readStream(), readChannel(), readMapped()}) {
+            if (signalHeader.getAnnotationIndex().size() != Math.max(0, expected)) {
+                throw new IllegalStateException("Synthetic signal headers decoded to an unexpected number of annotations");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        channel.close();
+    }
+
+    @Benchmark
+    public SignalHeader readStream() throws IOException {
+        return service.read(new ByteArrayInputStream(edf, GENERAL_HEADER_BYTES, edf.length - GENERAL_HEADER_BYTES), generalHeader);
+    }
+
+    @Benchmark
+    public SignalHeader readChannel() throws IOException {
+        return service.read(channel, generalHeader);
+    }
+
+    @Benchmark
+    public SignalHeader readMapped() throws IOException {
+        return service.readMapped(channel, generalHeader);
+    }
+}
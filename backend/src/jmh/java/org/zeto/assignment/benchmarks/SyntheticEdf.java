@@ -0,0 +1,124 @@
+package org.zeto.assignment.benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Builds synthetic EDF and EDF+ files with a given number of signals, data records and annotations, so that
+ * benchmarks do not depend on recordings checked into the repository.
+ * <p>
+ * Every data signal has {@code samplesPerRecord} samples per one-second data record. EDF+ files get an additional
+ * "EDF Annotations" signal whose records start with a time-keeping TAL followed by the requested number of
+ * annotation TALs.
+ */
+public final class SyntheticEdf {
+    private static final int HEADER_BYTES = 256;
+    private static final int ANNOTATION_BYTES_PER_TAL = 48;
+
+    /**
+     * Number of annotations written per data record.
+     */
+    public enum AnnotationDensity {
+        /**
+         * Plain EDF without an annotation signal.
+         */
+        NONE(-1),
+        /**
+         * EDF+ with an annotation signal holding only time-keeping TALs.
+         */
+        EMPTY(0),
+        SPARSE(1),
+        DENSE(8);
+
+        private final int annotationsPerRecord;
+
+        AnnotationDensity(int annotationsPerRecord) {
+            this.annotationsPerRecord = annotationsPerRecord;
+        }
+
+        /**
+         * @return The number of annotations per data record, or -1 for plain EDF.
+         */
+        int getAnnotationsPerRecord() {
+            return annotationsPerRecord;
+        }
+    }
+
+    private SyntheticEdf() {
+    }
+
+    public static byte[] build(int numDataSignals, int numDataRecords, int samplesPerRecord, AnnotationDensity density) {
+        var annotationChannel = density != AnnotationDensity.NONE;
+        var numSignals = numDataSignals + (annotationChannel ? 1 : 0);
+        var annotationSamples = annotationChannel ? (ANNOTATION_BYTES_PER_TAL * (density.annotationsPerRecord + 1)) / 2 : 0;
+        var recordBytes = 2 * (numDataSignals * samplesPerRecord + annotationSamples);
+        var buffer = ByteBuffer.allocate(HEADER_BYTES * (numSignals + 1) + numDataRecords * recordBytes).order(ByteOrder.LITTLE_ENDIAN);
+
+        ascii(buffer, "0", 8);
+        ascii(buffer, "X F 01-JAN-1970 Synthetic_Patient", 80);
+        ascii(buffer, "Startdate 01-SEP-2025 X X X", 80);
+        ascii(buffer, "01.09.25", 8);
+        ascii(buffer, "10.00.00", 8);
+        ascii(buffer, Integer.toString(HEADER_BYTES * (numSignals + 1)), 8);
+        ascii(buffer, annotationChannel ? "EDF+C" : "", 44);
+        ascii(buffer, Integer.toString(numDataRecords), 8);
+        ascii(buffer, "1", 8);
+        ascii(buffer, Integer.toString(numSignals), 4);
+
+        for (var i = 0; i < numSignals; i++) ascii(buffer, isAnnotation(i, numDataSignals) ? "EDF Annotations" : "EEG " + i, 16);
+        for (var i = 0; i < numSignals; i++) ascii(buffer, isAnnotation(i, numDataSignals) ? "" : "AgAgCl electrode", 80);
+        for (var i = 0; i < numSignals; i++) ascii(buffer, isAnnotation(i, numDataSignals) ? "" : "uV", 8);
+        for (var i = 0; i < numSignals; i++) ascii(buffer, isAnnotation(i, numDataSignals) ? "-1" : "-3200", 8);
+        for (var i = 0; i < numSignals; i++) ascii(buffer, isAnnotation(i, numDataSignals) ? "1" : "3200", 8);
+        for (var i = 0; i < numSignals; i++) ascii(buffer, "-32768", 8);
+        for (var i = 0; i < numSignals; i++) ascii(buffer, "32767", 8);
+        for (var i = 0; i < numSignals; i++) ascii(buffer, isAnnotation(i, numDataSignals) ? "" : "HP:0.1Hz LP:75Hz", 80);
+        for (var i = 0; i < numSignals; i++) ascii(buffer, Integer.toString(isAnnotation(i, numDataSignals) ? annotationSamples : samplesPerRecord), 8);
+        for (var i = 0; i < numSignals; i++) ascii(buffer, "", 32);
+
+        for (var record = 0; record < numDataRecords; record++) {
+            for (var signal = 0; signal < numDataSignals; signal++) {
+                for (var sample = 0; sample < samplesPerRecord; sample++) {
+                    buffer.putShort((short) ((record * 7919 + signal * 104729 + sample * 31) % 4096 - 2048));
+                }
+            }
+            if (annotationChannel) {
+                writeAnnotations(buffer, record, density.annotationsPerRecord, annotationSamples * 2);
+            }
+        }
+
+        return buffer.array();
+    }
+
+    public static Path write(byte[] edf) throws IOException {
+        var file = Files.createTempFile("synthetic", ".edf");
+        file.toFile().deleteOnExit();
+        return Files.write(file, edf);
+    }
+
+    private static boolean isAnnotation(int signal, int numDataSignals) {
+        return signal == numDataSignals;
+    }
+
+    private static void writeAnnotations(ByteBuffer buffer, int record, int annotationsPerRecord, int length) {
+        var tals = new StringBuilder("+").append(record).append("\u0014\u0014\u0000");
+        for (var i = 0; i < annotationsPerRecord; i++) {
+            tals.append('+').append(record).append('.').append(i + 1).append("\u00150.5\u0014Event ").append(i).append("\u0014\u0000");
+        }
+
+        var bytes = tals.toString().getBytes(StandardCharsets.UTF_8);
+        buffer.put(bytes);
+        buffer.position(buffer.position() + length - bytes.length);
+    }
+
+    private static void ascii(ByteBuffer buffer, String value, int length) {
+        var bytes = value.getBytes(StandardCharsets.US_ASCII);
+        for (var i = 0; i < length; i++) {
+            buffer.put(i < bytes.length ? bytes[i] : (byte) ' ');
+        }
+    }
+}
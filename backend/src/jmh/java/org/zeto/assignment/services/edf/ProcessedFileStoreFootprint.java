@@ -0,0 +1,103 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jol.info.GraphLayout;
+import org.zeto.assignment.benchmarks.SyntheticEdf;
+import org.zeto.assignment.benchmarks.SyntheticEdf.AnnotationDensity;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.FileInfo;
+
+/**
+ * Measures the retained heap per ingested file of the {@link ProcessedFileStore} and of the in-memory entries of
+ * the {@link MetadataCacheServiceImpl}, compared with keeping the parsed {@link FileInfo}s themselves, for a
+ * corpus of files recorded with the same montage.
+ * <p>
+ * Every file is parsed separately, so it carries its own strings just like files ingested from disk. Sizes are
+ * the deep sizes of the object graphs reachable from the stored files and their paths, as reported by JOL.
+ * Run with:
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=org.zeto.assignment.services.edf.ProcessedFileStoreFootprint -Djmh.args="[files] [signals...]"
+ * </pre>
+ */
+public final class ProcessedFileStoreFootprint {
+    private static final int DEFAULT_FILES = 1000;
+    private static final int[] DEFAULT_SIGNALS = {8, 64};
+    private static final int NUM_DATA_RECORDS = 60;
+    private static final int SAMPLES_PER_RECORD = 256;
+
+    private ProcessedFileStoreFootprint() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        // Records hide their field offsets from Unsafe; JOL can still find them by probing
+        System.setProperty("jol.magicFieldOffset", "true");
+
+        var files = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FILES;
+        var signals = DEFAULT_SIGNALS;
+        if (args.length > 1) {
+            signals = new int[args.length - 1];
+            for (var i = 1; i < args.length; i++) {
+                signals[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.printf("%8s %8s %16s %16s %8s %16s%n", "files", "signals", "parsed B/file", "store B/file", "ratio", "cache B/file");
+        for (var numSignals : signals) {
+            var file = SyntheticEdf.write(SyntheticEdf.build(numSignals, NUM_DATA_RECORDS, SAMPLES_PER_RECORD, AnnotationDensity.NONE));
+            var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            var parsed = parse(file, files);
+            var paths = parsed.stream().map(fileInfo -> Path.of("/data", fileInfo.getFileName())).toList();
+
+            var store = new ProcessedFileStore();
+            var cache = createCache();
+            for (var i = 0; i < files; i++) {
+                store.put(paths.get(i), parsed.get(i));
+                cache.store(paths.get(i), attributes, parsed.get(i));
+            }
+
+            var parsedBytes = GraphLayout.parseInstance(parsed, paths).totalSize() / files;
+            var storeBytes = GraphLayout.parseInstance(store).totalSize() / files;
+            var cacheBytes = GraphLayout.parseInstance(cache).totalSize() / files;
+            System.out.printf("%8d %8d %16d %16d %7.1fx %16d%n", files, numSignals, parsedBytes, storeBytes, (double) parsedBytes / storeBytes, cacheBytes);
+        }
+    }
+
+    private static MetadataCacheServiceImpl createCache() throws IOException {
+        var directory = Files.createTempDirectory("footprint");
+        directory.toFile().deleteOnExit();
+
+        var properties = new EdfProperties();
+        properties.getMetadataCache().setFile(directory.resolve("edf-metadata.cache").toString());
+        var cache = new MetadataCacheServiceImpl(properties);
+        cache.load(directory);
+        return cache;
+    }
+
+    private static List<FileInfo> parse(Path file, int files) {
+        var parserService = new ParserServiceImpl(new GeneralHeaderServiceImpl(), new SignalHeaderServiceImpl(new EdfProperties()), new EdfProperties(), ParserMetrics.NONE);
+
+        var parsed = new ArrayList<FileInfo>(files);
+        for (var i = 0; i < files; i++) {
+            var fileInfo = parserService.parse(file.toFile());
+            parsed.add(FileInfo.builder()
+                               .fileName(String.format("recording-%06d.edf", i))
+                               .valid(fileInfo.isValid())
+                               .identifier(fileInfo.getIdentifier())
+                               .patientName(fileInfo.getPatientName())
+                               .recordingDate(fileInfo.getRecordingDate().plusHours(i))
+                               .recordingLengthSeconds(fileInfo.getRecordingLengthSeconds())
+                               .numberOfAnnotations(fileInfo.getNumberOfAnnotations())
+                               .channels(fileInfo.getChannels())
+                               .annotationIndex(fileInfo.getAnnotationIndex())
+                               .dataRecordLayout(fileInfo.getDataRecordLayout())
+                               .build());
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,218 @@
+package org.zeto.assignment.configuration;
+
+import java.time.Duration;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Externalized configuration for EDF processing, bound from the {@code edf.*} properties.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "edf")
+public class EdfProperties {
+    /**
+     * Directory holding the EDF files. When empty, the {@code edf} directory on the classpath is used.
+     */
+    private String dataDirectory;
+    private Ingestion ingestion = new Ingestion();
+    private Watch watch = new Watch();
+    private Parser parser = new Parser();
+    private MetadataCache metadataCache = new MetadataCache();
+    private Envelope envelope = new Envelope();
+    private RecordIndex recordIndex = new RecordIndex();
+    private ColumnarExport columnarExport = new ColumnarExport();
+    private BandPower bandPower = new BandPower();
+    private SignalCache signalCache = new SignalCache();
+    private Listing listing = new Listing();
+
+    /**
+     * I/O strategies available for reading EDF files.
+     */
+    public enum ParserBackend {
+        /**
+         * Sequential reads through a {@link java.io.InputStream}.
+         */
+        STREAM,
+        /**
+         * Positional {@link java.nio.channels.FileChannel} reads into reusable buffers.
+         */
+        CHANNEL,
+        /**
+         * Memory-mapped {@link java.nio.MappedByteBuffer} regions decoded in place.
+         */
+        MAPPED
+    }
+
+    /**
+     * Settings controlling how EDF files are ingested at startup.
+     */
+    @Getter
+    @Setter
+    public static class Ingestion {
+        /**
+         * Maximum number of files parsed at the same time. A value of 1 parses files sequentially.
+         */
+        private int maxConcurrency = Runtime.getRuntime().availableProcessors();
+        /**
+         * Number of threads scanning the data records of ingested files for EDF+ annotations in the background.
+         */
+        private int annotationScanThreads = 2;
+        /**
+         * Whether the startup scan of the EDF directory runs in the background, so that the application, and the
+         * streamed file listing, are available while files are still being ingested.
+         */
+        private boolean backgroundStartup;
+    }
+
+    /**
+     * Settings controlling how individual EDF files are read.
+     */
+    @Getter
+    @Setter
+    public static class Parser {
+        /**
+         * I/O strategy used by the parser.
+         */
+        private ParserBackend backend = ParserBackend.CHANNEL;
+        /**
+         * Number of threads of the fork/join pool that scans the annotations of large files in parallel chunks.
+         */
+        private int annotationScanParallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Settings for the persistent cache of parsed file metadata.
+     */
+    @Getter
+    @Setter
+    public static class MetadataCache {
+        /**
+         * Whether parsed metadata is persisted and reused across restarts.
+         */
+        private boolean enabled = true;
+        /**
+         * Location of the cache file. When empty, {@code edf-metadata.cache} next to the EDF directory is used.
+         */
+        private String file;
+    }
+
+    /**
+     * Settings for watching the EDF directory for added, changed and removed files.
+     */
+    @Getter
+    @Setter
+    public static class Watch {
+        /**
+         * Whether the EDF directory is watched after the startup scan.
+         */
+        private boolean enabled = true;
+        /**
+         * Quiet period after the last file system event before pending changes are ingested.
+         */
+        private Duration debounce = Duration.ofMillis(500);
+    }
+
+    /**
+     * Settings for the precomputed min/max envelope pyramids used to render zoomed-out signal overviews.
+     */
+    @Getter
+    @Setter
+    public static class Envelope {
+        /**
+         * Whether envelope pyramids are built in the background after files are ingested.
+         */
+        private boolean enabled = true;
+        /**
+         * Directory holding the envelope sidecar files. When empty, {@code edf-envelopes} next to the EDF directory is used.
+         */
+        private String directory;
+    }
+
+    /**
+     * Settings for the per-file indexes of data record onsets used to locate points in time.
+     */
+    @Getter
+    @Setter
+    public static class RecordIndex {
+        /**
+         * Whether record indexes of EDF+ files are built in the background after files are ingested.
+         */
+        private boolean enabled = true;
+        /**
+         * Directory holding the record index sidecar files. When empty, {@code edf-record-index} next to the EDF directory is used.
+         */
+        private String directory;
+    }
+
+    /**
+     * Settings for the columnar exports that serve single-channel queries without reading the interleaved data records.
+     */
+    @Getter
+    @Setter
+    public static class ColumnarExport {
+        /**
+         * Directory holding the columnar export files. When empty, {@code edf-columns} next to the EDF directory is used.
+         */
+        private String directory;
+    }
+
+    /**
+     * Settings for the spectral band power of the data channels, estimated with Welch's method.
+     */
+    @Getter
+    @Setter
+    public static class BandPower {
+        /**
+         * Bands reported when a request names none, as a comma-separated list of {@code name:low-high} in Hz.
+         */
+        private String bands = "delta:0.5-4,theta:4-8,alpha:8-13,beta:13-30";
+        /**
+         * Length of the windows whose spectra are averaged, in seconds. Longer windows resolve finer frequencies.
+         */
+        private double segmentSeconds = 4;
+        /**
+         * Fraction by which consecutive windows overlap, from 0 (none) to below 1.
+         */
+        private double overlap = 0.5;
+        /**
+         * Number of threads of the fork/join pool that channels and windows are distributed across.
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Settings for the in-memory cache of decoded sample blocks that serves repeated and neighbouring signal windows.
+     */
+    @Getter
+    @Setter
+    public static class SignalCache {
+        /**
+         * Whether decoded samples are cached.
+         */
+        private boolean enabled = true;
+        /**
+         * Maximum heap taken by the cached samples. The least recently used blocks are evicted beyond it.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+        /**
+         * Whether the block next to a requested window, in the direction the viewer scrolls, is decoded in the background.
+         */
+        private boolean prefetch = true;
+    }
+
+    /**
+     * Settings for the streamed listing of the processed files.
+     */
+    @Getter
+    @Setter
+    public static class Listing {
+        /**
+         * Maximum time a streamed listing stays open while following ingestion. The response ends once it elapses.
+         */
+        private Duration streamTimeout = Duration.ofMinutes(30);
+    }
+}
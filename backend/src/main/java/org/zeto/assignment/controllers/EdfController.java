@@ -1,32 +1,315 @@
 package org.zeto.assignment.controllers;
 
-import java.util.Comparator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.regex.Pattern;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.AnnotationPage;
+import org.zeto.assignment.models.edf.FileBandPower;
 import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.models.edf.FilePage;
+import org.zeto.assignment.models.edf.FileStatistics;
+import org.zeto.assignment.models.edf.FrequencyBand;
+import org.zeto.assignment.models.edf.RecordLocation;
+import org.zeto.assignment.models.edf.SignalEnvelope;
+import org.zeto.assignment.models.edf.SignalWindow;
+import org.zeto.assignment.services.edf.BandPowerService;
+import org.zeto.assignment.services.edf.ColumnarExportService;
+import org.zeto.assignment.services.edf.EnvelopeNotReadyException;
+import org.zeto.assignment.services.edf.EnvelopeService;
+import org.zeto.assignment.services.edf.FileListingService;
+import org.zeto.assignment.services.edf.FileListingService.StreamFormat;
 import org.zeto.assignment.services.edf.FileProcessingService;
+import org.zeto.assignment.services.edf.FileUploadService;
+import org.zeto.assignment.services.edf.RecordIndexService;
+import org.zeto.assignment.services.edf.SignalDataService;
+import org.zeto.assignment.services.edf.StatisticsService;
 
 @RestController
 @RequestMapping("/api/edf-files")
 @CrossOrigin(origins = "http://localhost:4200")
 public class EdfController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String GZIP_ENCODING = "gzip";
+    private static final Pattern ZERO_QUALITY = Pattern.compile("q\\s*=\\s*0(\\.0*)?");
+    private static final Pattern EDF_FILE_NAME = Pattern.compile("[\\w\\- ][\\w\\-. ]*\\.edf", Pattern.CASE_INSENSITIVE);
+    private static final String ENVELOPE_RETRY_AFTER_SECONDS = "5";
+
     private final FileProcessingService edfProcessingService;
+    private final FileListingService fileListingService;
+    private final SignalDataService signalDataService;
+    private final EnvelopeService envelopeService;
+    private final FileUploadService fileUploadService;
+    private final RecordIndexService recordIndexService;
+    private final StatisticsService statisticsService;
+    private final ColumnarExportService columnarExportService;
+    private final BandPowerService bandPowerService;
+    private final Duration streamTimeout;
 
-    public EdfController(FileProcessingService edfProcessingService) {
+    public EdfController(FileProcessingService edfProcessingService, FileListingService fileListingService,
+                         SignalDataService signalDataService, EnvelopeService envelopeService,
+                         FileUploadService fileUploadService, RecordIndexService recordIndexService,
+                         StatisticsService statisticsService, ColumnarExportService columnarExportService,
+                         BandPowerService bandPowerService, EdfProperties properties) {
         this.edfProcessingService = edfProcessingService;
+        this.fileListingService = fileListingService;
+        this.signalDataService = signalDataService;
+        this.envelopeService = envelopeService;
+        this.fileUploadService = fileUploadService;
+        this.recordIndexService = recordIndexService;
+        this.statisticsService = statisticsService;
+        this.columnarExportService = columnarExportService;
+        this.bandPowerService = bandPowerService;
+        this.streamTimeout = properties.getListing().getStreamTimeout();
     }
 
+    /**
+     * Without query parameters, returns the metadata of all processed EDF files, sorted by recording date, as
+     * pre-serialized JSON. Clients accepting gzip get the pre-compressed bytes. The response carries a strong ETag,
+     * so a request whose {@code If-None-Match} matches it is answered with 304 by Spring's conditional request handling.
+     * <p>
+     * With any of the {@link FileSearchParameters}, returns a {@link FilePage} of the matching files instead.
+     * Responds with 400 when the sort key is unknown or the date range is reversed.
+     */
     @GetMapping
-    public List<FileInfo> getAllEdfFiles() {
-        return edfProcessingService.getProcessedFiles()
-                                   .stream()
-                                   .sorted(Comparator.comparing(FileInfo::getRecordingDate, Comparator.nullsLast(Comparator.naturalOrder())))
-                                   .collect(Collectors.toList());
+    public ResponseEntity<?> getAllEdfFiles(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                            FileSearchParameters search) throws IOException {
+        if (!search.isEmpty()) {
+            return search.toQuery(MAX_PAGE_SIZE)
+                         .map(query -> ResponseEntity.ok(edfProcessingService.queryProcessedFiles(query)))
+                         .orElseGet(() -> ResponseEntity.badRequest().build());
+        }
+
+        var listing = fileListingService.getListing();
+        var response = ResponseEntity.ok()
+                                     .contentType(MediaType.APPLICATION_JSON)
+                                     .varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+        if (acceptsGzip(acceptEncoding)) {
+            return response.eTag(listing.getGzipEtag())
+                           .header(HttpHeaders.CONTENT_ENCODING, GZIP_ENCODING)
+                           .body(listing.getGzip());
+        }
+        return response.eTag(listing.getEtag()).body(listing.getJson());
+    }
+
+    /**
+     * Streams the metadata of all processed EDF files, sorted by recording date, as newline-delimited JSON or as
+     * Server-Sent Events, depending on the {@code Accept} header. Files are written and flushed in chunks as they are
+     * read from the store, so the response starts immediately and takes constant memory. While files are still
+     * being ingested, the stream stays open and also carries files added or updated in the meantime, for at most
+     * {@code edf.listing.stream-timeout}.
+     * <p>
+     * Every stream is written by a virtual thread of its own, so streams waiting on ingestion do not hold the threads
+     * of a shared pool, and the timeout applies to this response only. The thread is interrupted when the response
+     * times out or fails.
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public ResponseEntity<ResponseBodyEmitter> streamEdfFiles(@RequestHeader(HttpHeaders.ACCEPT) String accept) {
+        var format = MediaType.parseMediaTypes(accept).stream().anyMatch(MediaType.TEXT_EVENT_STREAM::equalsTypeAndSubtype)
+                ? StreamFormat.SSE
+                : StreamFormat.NDJSON;
+
+        var emitter = new ResponseBodyEmitter(streamTimeout.toMillis());
+        var writer = Thread.ofVirtual().name("edf-listing-stream").start(() -> {
+            var out = new EmitterOutputStream(emitter);
+            try {
+                fileListingService.streamListing(out, format);
+                out.close();
+            } catch (IOException | RuntimeException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        emitter.onTimeout(writer::interrupt);
+        emitter.onError(e -> writer.interrupt());
+
+        return ResponseEntity.ok()
+                             .contentType(format == StreamFormat.SSE ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON)
+                             .cacheControl(CacheControl.noStore())
+                             .body(emitter);
+    }
+
+    /**
+     * Stores the EDF file streamed as the request body under {@code fileName} in the EDF directory, parsing it while
+     * it is written, and returns its metadata with 201. The body is read straight from the request, never buffered
+     * as a whole. Responds with 400 when the name is not a plain {@code .edf} file name, with 409 when a file of
+     * that name exists, and with 422 when the content is not a complete EDF file, which is then discarded.
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<FileInfo> uploadEdfFile(@RequestParam String fileName, InputStream body) throws IOException {
+        if (!EDF_FILE_NAME.matcher(fileName).matches()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return fileUploadService.upload(fileName, body)
+                                .map(fileInfo -> fileInfo.isValid()
+                                        ? ResponseEntity.status(HttpStatus.CREATED).body(fileInfo)
+                                        : ResponseEntity.unprocessableEntity().body(fileInfo))
+                                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    /**
+     * Schedules the export of every processed EDF file to the columnar format and returns the number of files
+     * scheduled with 202. Exports are built in the background; files whose export is up to date are skipped.
+     */
+    @PostMapping("/export")
+    public ResponseEntity<Integer> exportAllEdfFiles() {
+        return ResponseEntity.accepted().body(columnarExportService.exportAll());
+    }
+
+    /**
+     * Schedules the export of an EDF file to the columnar format, which serves its samples and statistics once
+     * built, and responds with 202. Responds with 404 when the file has not been processed or is invalid.
+     */
+    @PostMapping("/{fileName}/export")
+    public ResponseEntity<Void> exportEdfFile(@PathVariable String fileName) {
+        return columnarExportService.export(fileName)
+                ? ResponseEntity.accepted().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Returns a page of the annotations of an EDF file whose onset, in seconds from the start of the
+     * recording, lies in {@code [from, to)}. Responds with 404 when the file has not been processed.
+     */
+    @GetMapping("/{fileName}/annotations")
+    public ResponseEntity<AnnotationPage> getAnnotations(@PathVariable String fileName,
+                                                         @RequestParam(defaultValue = "-Infinity") double from,
+                                                         @RequestParam(defaultValue = "Infinity") double to,
+                                                         @RequestParam(defaultValue = "0") int page,
+                                                         @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.of(edfProcessingService.getAnnotations(fileName, from, to, Math.max(0, page), Math.clamp(size, 1, MAX_PAGE_SIZE)));
+    }
+
+    /**
+     * Locates the data record of an EDF file holding the given time, in seconds from the start of the recording:
+     * its index, the byte position of its first sample and its onset. Responds with 404 when the file has not
+     * been processed or has no data records, and with 400 when the time is not a number.
+     */
+    @GetMapping("/{fileName}/records")
+    public ResponseEntity<RecordLocation> locateRecord(@PathVariable String fileName, @RequestParam double at) throws IOException {
+        if (Double.isNaN(at)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.of(recordIndexService.locate(fileName, at));
+    }
+
+    /**
+     * Returns quality-control statistics of every data channel of an EDF file: min, max, mean and RMS in physical
+     * units, and the clipping and flat-line indicators. Responds with 404 when the file has not been processed.
+     */
+    @GetMapping("/{fileName}/statistics")
+    public ResponseEntity<FileStatistics> getStatistics(@PathVariable String fileName) throws IOException {
+        return ResponseEntity.of(statisticsService.getStatistics(fileName));
+    }
+
+    /**
+     * Returns the power of every data channel of every valid processed EDF file in each band of {@code bands}, a
+     * comma-separated list of {@code name:low-high} in Hz, or the configured bands when omitted. Files are computed in
+     * parallel, but within this request: on a large corpus without cached results, the response waits for every file
+     * to be read. Responds with 400 when the bands are malformed.
+     */
+    @GetMapping("/band-power")
+    public ResponseEntity<List<FileBandPower>> getAllBandPower(@RequestParam(required = false) String bands) {
+        return parseBands(bands).map(parsed -> ResponseEntity.ok(bandPowerService.getAllBandPower(parsed)))
+                                .orElseGet(() -> ResponseEntity.badRequest().build());
+    }
+
+    /**
+     * Returns the power of every data channel of an EDF file in each band of {@code bands}, a comma-separated list
+     * of {@code name:low-high} in Hz, or the configured bands when omitted. Responds with 404 when the file has not
+     * been processed, and with 400 when the bands are malformed.
+     */
+    @GetMapping("/{fileName}/band-power")
+    public ResponseEntity<FileBandPower> getBandPower(@PathVariable String fileName,
+                                                      @RequestParam(required = false) String bands) throws IOException {
+        var parsed = parseBands(bands);
+        if (parsed.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.of(bandPowerService.getBandPower(fileName, parsed.get()));
+    }
+
+    /**
+     * Returns the physical values of one data channel of an EDF file for the samples whose time, in seconds
+     * from the start of the recording, lies in {@code [start, end)}. At most 1,048,576 samples are returned; the
+     * {@code truncated} flag of a longer window is set, and the next window starts after its last sample. Responds
+     * with 404 when the file has not been processed or has no such channel, and with 400 when the window is not a
+     * valid time range.
+     */
+    @GetMapping("/{fileName}/channels/{label}/samples")
+    public ResponseEntity<SignalWindow> getSamples(@PathVariable String fileName,
+                                                   @PathVariable String label,
+                                                   @RequestParam double start,
+                                                   @RequestParam double end) throws IOException {
+        if (Double.isNaN(start) || Double.isNaN(end) || end < start) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.of(signalDataService.getSamples(fileName, label, start, end));
+    }
+
+    /**
+     * Returns the min/max envelope of one data channel of an EDF file over {@code [start, end)} seconds, folded into
+     * at most {@code width} buckets (one per pixel). Without a window, the whole recording is returned. Responds with
+     * 404 when the file has not been processed or has no such channel, and with 400 when the window is not a valid time range.
+     * Responds with 503 and a {@code Retry-After} header while the envelope pyramid the window needs is being built,
+     * and with 404 if it needs one while pyramids are disabled.
+     */
+    @GetMapping("/{fileName}/channels/{label}/envelope")
+    public ResponseEntity<SignalEnvelope> getEnvelope(@PathVariable String fileName,
+                                                      @PathVariable String label,
+                                                      @RequestParam(defaultValue = "0") double start,
+                                                      @RequestParam(defaultValue = "Infinity") double end,
+                                                      @RequestParam(defaultValue = "1000") int width) throws IOException {
+        if (Double.isNaN(start) || Double.isNaN(end) || end < start) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.of(envelopeService.getEnvelope(fileName, label, start, end, width));
+        } catch (EnvelopeNotReadyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                 .header(HttpHeaders.RETRY_AFTER, ENVELOPE_RETRY_AFTER_SECONDS)
+                                 .build();
+        }
+    }
+
+    private Optional<List<FrequencyBand>> parseBands(String bands) {
+        return bands == null ? Optional.of(bandPowerService.getDefaultBands()) : FrequencyBand.parseList(bands);
+    }
+
+    /**
+     * @return Whether an {@code Accept-Encoding} header lists gzip without excluding it with {@code q=0}.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        for (var coding : acceptEncoding.split(",")) {
+            var parameters = coding.split(";");
+            if (parameters[0].trim().equalsIgnoreCase(GZIP_ENCODING)) {
+                return parameters.length == 1 || !ZERO_QUALITY.matcher(parameters[1].trim()).matches();
+            }
+        }
+        return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,50 @@
+package org.zeto.assignment.controllers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+/**
+ * {@link OutputStream} over a {@link ResponseBodyEmitter}: bytes are buffered until {@link #flush()}, which sends them
+ * to the client, and {@link #close()} completes the response. Writing after the response was completed, e.g. because
+ * it timed out or the client went away, fails with an {@link IOException}. Instances are not thread-safe.
+ */
+class EmitterOutputStream extends OutputStream {
+    private final ResponseBodyEmitter emitter;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    EmitterOutputStream(ResponseBodyEmitter emitter) {
+        this.emitter = emitter;
+    }
+
+    @Override
+    public void write(int b) {
+        buffer.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        buffer.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (buffer.size() == 0) {
+            return;
+        }
+        try {
+            emitter.send(buffer.toByteArray());
+        } catch (IllegalStateException e) {
+            throw new IOException("The response has already completed", e);
+        }
+        buffer.reset();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        emitter.complete();
+    }
+}
@@ -0,0 +1,57 @@
+package org.zeto.assignment.controllers;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.zeto.assignment.models.edf.FileQuery;
+import org.zeto.assignment.models.edf.FileSortKey;
+
+/**
+ * Query parameters of {@code GET /api/edf-files}. Without any of them the complete listing is returned;
+ * with at least one, the listing is filtered, sorted and paginated.
+ *
+ * @param from    Inclusive lower bound of the recording date, as ISO date-time.
+ * @param to      Exclusive upper bound of the recording date, as ISO date-time.
+ * @param patient Case-insensitive prefix of the patient name.
+ * @param channel Label of a data channel the file must contain.
+ * @param sort    {@code recordingDate}, {@code fileName} or {@code patientName}, prefixed with {@code -} for descending order.
+ */
+public record FileSearchParameters(Integer page,
+                                   Integer size,
+                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                   String patient,
+                                   String channel,
+                                   Boolean valid,
+                                   String sort) {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final String DESCENDING_PREFIX = "-";
+
+    boolean isEmpty() {
+        return page == null && size == null && from == null && to == null && patient == null && channel == null && valid == null && sort == null;
+    }
+
+    /**
+     * @return The query, or an empty {@link Optional} if the sort key is unknown or the date range is reversed.
+     */
+    Optional<FileQuery> toQuery(int maxPageSize) {
+        var descending = sort != null && sort.startsWith(DESCENDING_PREFIX);
+        var sortKey = sort == null ? Optional.of(FileSortKey.RECORDING_DATE) : FileSortKey.fromParameterName(descending ? sort.substring(1) : sort);
+        if (sortKey.isEmpty() || from != null && to != null && to.isBefore(from)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(FileQuery.builder()
+                                    .from(from)
+                                    .to(to)
+                                    .patientPrefix(patient)
+                                    .channel(channel)
+                                    .valid(valid)
+                                    .sortKey(sortKey.get())
+                                    .descending(descending)
+                                    .page(page == null ? 0 : Math.max(0, page))
+                                    .size(Math.clamp(size == null ? DEFAULT_PAGE_SIZE : size, 1, maxPageSize))
+                                    .build());
+    }
+}
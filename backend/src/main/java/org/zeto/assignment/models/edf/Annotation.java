@@ -0,0 +1,11 @@
+package org.zeto.assignment.models.edf;
+
+/**
+ * A single EDF+ annotation decoded from a Time-stamped Annotation List (TAL).
+ *
+ * @param onset    Onset in seconds relative to the start of the recording.
+ * @param duration Duration in seconds, or {@code null} when the TAL does not specify one.
+ * @param text     The annotation text.
+ */
+public record Annotation(double onset, Double duration, String text) {
+}
@@ -0,0 +1,226 @@
+package org.zeto.assignment.models.edf;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Compact, immutable index over the annotations of a single EDF+ file.
+ * <p>
+ * Annotations are stored column-wise: onsets and durations in primitive arrays sorted by onset, and all
+ * annotation texts as UTF-8 in one shared byte array addressed by an offsets array. A file with thousands
+ * of annotations therefore costs a handful of arrays instead of thousands of objects, and {@link String}s are
+ * only created for the annotations that are actually returned by {@link #query(double, double, int, int)}.
+ * <p>
+ * Range lookups use binary search on the onsets, so a query costs {@code O(log n + size)}.
+ */
+public final class AnnotationIndex {
+    public static final AnnotationIndex EMPTY = new AnnotationIndex(new double[0], new double[0], new int[]{0}, new byte[0]);
+
+    private final double[] onsets;
+    private final double[] durations;
+    private final int[] textOffsets;
+    private final byte[] texts;
+
+    private AnnotationIndex(double[] onsets, double[] durations, int[] textOffsets, byte[] texts) {
+        this.onsets = onsets;
+        this.durations = durations;
+        this.textOffsets = textOffsets;
+        this.texts = texts;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return The number of annotations in this index.
+     */
+    public int size() {
+        return onsets.length;
+    }
+
+    /**
+     * Returns the annotation at the given position in onset order.
+     */
+    public Annotation get(int i) {
+        var duration = Double.isNaN(durations[i]) ? null : durations[i];
+        var text = new String(texts, textOffsets[i], textOffsets[i + 1] - textOffsets[i], StandardCharsets.UTF_8);
+        return new Annotation(onsets[i], duration, text);
+    }
+
+    /**
+     * Returns a page of the annotations whose onset lies in {@code [from, to)}.
+     *
+     * @param from Inclusive lower bound of the onset, in seconds.
+     * @param to   Exclusive upper bound of the onset, in seconds.
+     * @param page Zero-based page number.
+     * @param size Maximum number of annotations per page.
+     * @return The requested page together with the total number of annotations in the range.
+     */
+    public AnnotationPage query(double from, double to, int page, int size) {
+        var lower = lowerBound(from);
+        var upper = Math.max(lower, lowerBound(to));
+        var start = (int) Math.min(upper, lower + (long) page * size);
+        var end = (int) Math.min(upper, (long) start + size);
+
+        return AnnotationPage.builder()
+                             .annotations(IntStream.range(start, end).mapToObj(this::get).toList())
+                             .page(page)
+                             .size(size)
+                             .totalElements(upper - lower)
+                             .build();
+    }
+
+    /**
+     * Writes this index in a compact binary form that can be read back with {@link #readFrom(DataInput)}.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(onsets.length);
+        for (var i = 0; i < onsets.length; i++) {
+            out.writeDouble(onsets[i]);
+            out.writeDouble(durations[i]);
+            out.writeInt(textOffsets[i + 1]);
+        }
+        out.writeInt(texts.length);
+        out.write(texts);
+    }
+
+    /**
+     * Reads an index previously written with {@link #writeTo(DataOutput)}.
+     */
+    public static AnnotationIndex readFrom(DataInput in) throws IOException {
+        var size = in.readInt();
+        if (size == 0) {
+            in.skipBytes(in.readInt());
+            return EMPTY;
+        }
+
+        var onsets = new double[size];
+        var durations = new double[size];
+        var textOffsets = new int[size + 1];
+        for (var i = 0; i < size; i++) {
+            onsets[i] = in.readDouble();
+            durations[i] = in.readDouble();
+            textOffsets[i + 1] = in.readInt();
+        }
+        var texts = new byte[in.readInt()];
+        in.readFully(texts);
+        return new AnnotationIndex(onsets, durations, textOffsets, texts);
+    }
+
+    /**
+     * Index of the first annotation with an onset greater than or equal to {@code onset}.
+     */
+    private int lowerBound(double onset) {
+        var low = 0;
+        var high = onsets.length;
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            if (onsets[mid] < onset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Accumulates annotations in arrival order and produces an {@link AnnotationIndex} sorted by onset.
+     * Annotation text is copied straight from the source buffer, so no intermediate {@link String} is created.
+     * Builders are not thread-safe.
+     */
+    public static final class Builder {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private double[] onsets = new double[INITIAL_CAPACITY];
+        private double[] durations = new double[INITIAL_CAPACITY];
+        private int[] textOffsets = new int[INITIAL_CAPACITY + 1];
+        private byte[] texts = new byte[INITIAL_CAPACITY * INITIAL_CAPACITY];
+        private int size;
+
+        private Builder() {
+        }
+
+        /**
+         * Appends an annotation whose UTF-8 text is held in {@code source} at {@code [textOffset, textOffset + textLength)}.
+         *
+         * @param onset    Onset in seconds relative to the start of the recording.
+         * @param duration Duration in seconds, or {@link Double#NaN} when unspecified.
+         */
+        public Builder add(double onset, double duration, ByteBuffer source, int textOffset, int textLength) {
+            ensureCapacity(textLength);
+            source.get(textOffset, texts, textOffsets[size], textLength);
+            onsets[size] = onset;
+            durations[size] = duration;
+            textOffsets[size + 1] = textOffsets[size] + textLength;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Appends all annotations of {@code other}, in its arrival order.
+         */
+        public Builder addAll(Builder other) {
+            var source = ByteBuffer.wrap(other.texts);
+            for (var i = 0; i < other.size; i++) {
+                add(other.onsets[i], other.durations[i], source, other.textOffsets[i], other.textOffsets[i + 1] - other.textOffsets[i]);
+            }
+            return this;
+        }
+
+        public AnnotationIndex build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            if (isSortedByOnset()) {
+                return new AnnotationIndex(Arrays.copyOf(onsets, size), Arrays.copyOf(durations, size),
+                                           Arrays.copyOf(textOffsets, size + 1), Arrays.copyOf(texts, textOffsets[size]));
+            }
+            return buildSorted();
+        }
+
+        private boolean isSortedByOnset() {
+            for (var i = 1; i < size; i++) {
+                if (onsets[i] < onsets[i - 1]) return false;
+            }
+            return true;
+        }
+
+        private AnnotationIndex buildSorted() {
+            var order = new ArrayList<Integer>(size);
+            for (var i = 0; i < size; i++) order.add(i);
+            order.sort((a, b) -> Double.compare(onsets[a], onsets[b]));
+
+            var sorted = new Builder();
+            var source = ByteBuffer.wrap(texts);
+            for (var i : order) {
+                sorted.add(onsets[i], durations[i], source, textOffsets[i], textOffsets[i + 1] - textOffsets[i]);
+            }
+            return sorted.build();
+        }
+
+        private void ensureCapacity(int textLength) {
+            if (size == onsets.length) {
+                var capacity = size * 2;
+                onsets = Arrays.copyOf(onsets, capacity);
+                durations = Arrays.copyOf(durations, capacity);
+                textOffsets = Arrays.copyOf(textOffsets, capacity + 1);
+            }
+            var requiredTextBytes = textOffsets[size] + textLength;
+            if (requiredTextBytes > texts.length) {
+                texts = Arrays.copyOf(texts, Math.max(requiredTextBytes, texts.length * 2));
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.zeto.assignment.models.edf;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * DTO representing one page of annotations whose onsets fall into a requested time range.
+ */
+@Getter
+@Builder
+public class AnnotationPage {
+    private final List<Annotation> annotations;
+    private final int page;
+    private final int size;
+    private final int totalElements;
+}
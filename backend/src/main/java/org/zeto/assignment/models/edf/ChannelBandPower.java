@@ -0,0 +1,23 @@
+package org.zeto.assignment.models.edf;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * DTO holding the power of one data channel in each requested {@link FrequencyBand}, estimated with Welch's method.
+ * <p>
+ * {@code power} is the absolute band power in squared physical units (e.g. uV&sup2;), in the order of the bands of
+ * the enclosing {@link FileBandPower}; {@code relativePower} is the same power as a fraction of the total power of
+ * the channel above 0 Hz. {@code segments} is the number of averaged windows; channels shorter than one window have
+ * none and report zero power.
+ */
+@Getter
+@Builder
+public class ChannelBandPower {
+    private final String label;
+    private final String physicalDimension;
+    private final double sampleRate;
+    private final long segments;
+    private final double[] power;
+    private final double[] relativePower;
+}
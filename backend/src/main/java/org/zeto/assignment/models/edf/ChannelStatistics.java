@@ -0,0 +1,28 @@
+package org.zeto.assignment.models.edf;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * DTO holding quality-control statistics of all samples of one data channel, in physical units.
+ * <p>
+ * {@code clippedSamples} counts samples stored at the digital minimum or maximum of the channel, where the
+ * amplifier or the converter saturated. {@code longestFlatLineSeconds} is the longest run of identical
+ * consecutive samples, a sign of a disconnected electrode. {@code clipping} and {@code flatLine} flag channels
+ * whose values exceed the thresholds of the statistics service.
+ */
+@Getter
+@Builder
+public class ChannelStatistics {
+    private final String label;
+    private final String physicalDimension;
+    private final long sampleCount;
+    private final double min;
+    private final double max;
+    private final double mean;
+    private final double rms;
+    private final long clippedSamples;
+    private final double longestFlatLineSeconds;
+    private final boolean clipping;
+    private final boolean flatLine;
+}
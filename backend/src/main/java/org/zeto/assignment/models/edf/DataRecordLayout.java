@@ -0,0 +1,297 @@
+package org.zeto.assignment.models.edf;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable description of how the samples of an EDF file are laid out in its data records, together with
+ * the per-signal calibration needed to turn stored digital values into physical values.
+ * <p>
+ * A data record holds {@code samplesPerRecord[i]} little-endian int16 samples of every signal {@code i},
+ * signal after signal, and covers {@code recordDurationSec} seconds of the recording. The byte position of
+ * any sample is therefore a closed-form expression, which lets readers seek straight to a time window
+ * without touching the records before it.
+ * <p>
+ * The per-signal part of a layout is typically identical for every file recorded with the same montage.
+ * {@link #withRecords(long, int, double)} derives the layout of another such file without copying it, and
+ * {@link #hasSameSignals(DataRecordLayout)} and {@link #signalsHashCode()} let stores deduplicate it.
+ */
+public final class DataRecordLayout {
+    public static final int BYTES_PER_SAMPLE = 2;
+
+    private final long dataOffset;
+    private final int numDataRecords;
+    private final double recordDurationSec;
+    private final String[] labels;
+    private final String[] physicalDimensions;
+    private final int[] samplesPerRecord;
+    private final double[] physicalMinimums;
+    private final double[] physicalMaximums;
+    private final int[] digitalMinimums;
+    private final int[] digitalMaximums;
+    private final int[] sampleOffsets;
+    private final int recordBytes;
+
+    public DataRecordLayout(long dataOffset, int numDataRecords, double recordDurationSec, String[] labels, String[] physicalDimensions,
+                            int[] samplesPerRecord, double[] physicalMinimums, double[] physicalMaximums,
+                            int[] digitalMinimums, int[] digitalMaximums) {
+        this.dataOffset = dataOffset;
+        this.numDataRecords = numDataRecords;
+        this.recordDurationSec = recordDurationSec;
+        this.labels = labels;
+        this.physicalDimensions = physicalDimensions;
+        this.samplesPerRecord = samplesPerRecord;
+        this.physicalMinimums = physicalMinimums;
+        this.physicalMaximums = physicalMaximums;
+        this.digitalMinimums = digitalMinimums;
+        this.digitalMaximums = digitalMaximums;
+        this.sampleOffsets = new int[samplesPerRecord.length];
+
+        var samples = 0;
+        for (var i = 0; i < samplesPerRecord.length; i++) {
+            sampleOffsets[i] = samples;
+            samples += samplesPerRecord[i];
+        }
+        this.recordBytes = samples * BYTES_PER_SAMPLE;
+    }
+
+    private DataRecordLayout(DataRecordLayout signals, long dataOffset, int numDataRecords, double recordDurationSec,
+                             String[] labels, String[] physicalDimensions) {
+        this.dataOffset = dataOffset;
+        this.numDataRecords = numDataRecords;
+        this.recordDurationSec = recordDurationSec;
+        this.labels = labels;
+        this.physicalDimensions = physicalDimensions;
+        this.samplesPerRecord = signals.samplesPerRecord;
+        this.physicalMinimums = signals.physicalMinimums;
+        this.physicalMaximums = signals.physicalMaximums;
+        this.digitalMinimums = signals.digitalMinimums;
+        this.digitalMaximums = signals.digitalMaximums;
+        this.sampleOffsets = signals.sampleOffsets;
+        this.recordBytes = signals.recordBytes;
+    }
+
+    /**
+     * Builds the layout described by the headers of an EDF file.
+     */
+    public static DataRecordLayout of(GeneralHeader generalHeader, SignalHeader signalHeader, long dataOffset) {
+        return new DataRecordLayout(dataOffset,
+                                    generalHeader.getNumDataRecords(),
+                                    generalHeader.getRecordDurationSec(),
+                                    signalHeader.getLabels().toArray(String[]::new),
+                                    signalHeader.getPhysicalDimensions().toArray(String[]::new),
+                                    signalHeader.getSamplesPerRecord(),
+                                    signalHeader.getPhysicalMinimums(),
+                                    signalHeader.getPhysicalMaximums(),
+                                    signalHeader.getDigitalMinimums(),
+                                    signalHeader.getDigitalMaximums());
+    }
+
+    /**
+     * @return A layout of the same signals whose data records start at {@code dataOffset}, sharing the
+     * per-signal arrays of this layout.
+     */
+    public DataRecordLayout withRecords(long dataOffset, int numDataRecords, double recordDurationSec) {
+        return new DataRecordLayout(this, dataOffset, numDataRecords, recordDurationSec, labels, physicalDimensions);
+    }
+
+    /**
+     * @return A copy of this layout whose labels and physical dimensions are replaced by {@code names} applied
+     * to them, e.g. to share equal strings between layouts.
+     */
+    public DataRecordLayout withSignalNames(UnaryOperator<String> names) {
+        return new DataRecordLayout(this, dataOffset, numDataRecords, recordDurationSec,
+                                    Arrays.stream(labels).map(names).toArray(String[]::new),
+                                    Arrays.stream(physicalDimensions).map(names).toArray(String[]::new));
+    }
+
+    /**
+     * @return Whether {@code other} describes the same signals with the same calibration, regardless of where
+     * its data records are and how many there are.
+     */
+    public boolean hasSameSignals(DataRecordLayout other) {
+        return Arrays.equals(labels, other.labels)
+                && Arrays.equals(physicalDimensions, other.physicalDimensions)
+                && Arrays.equals(samplesPerRecord, other.samplesPerRecord)
+                && Arrays.equals(physicalMinimums, other.physicalMinimums)
+                && Arrays.equals(physicalMaximums, other.physicalMaximums)
+                && Arrays.equals(digitalMinimums, other.digitalMinimums)
+                && Arrays.equals(digitalMaximums, other.digitalMaximums);
+    }
+
+    /**
+     * @return A hash code consistent with {@link #hasSameSignals(DataRecordLayout)}.
+     */
+    public int signalsHashCode() {
+        return Objects.hash(Arrays.hashCode(labels), Arrays.hashCode(physicalDimensions), Arrays.hashCode(samplesPerRecord),
+                            Arrays.hashCode(physicalMinimums), Arrays.hashCode(physicalMaximums),
+                            Arrays.hashCode(digitalMinimums), Arrays.hashCode(digitalMaximums));
+    }
+
+    /**
+     * @return The index of the first signal labelled {@code label} that is not an EDF+ annotation channel, or -1.
+     */
+    public int indexOfDataChannel(String label) {
+        if (SignalHeader.ANNOTATION_CHANNEL_LABEL.equals(label)) {
+            return -1;
+        }
+        for (var i = 0; i < labels.length; i++) {
+            if (labels[i].equals(label)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The index of the last signal labelled as EDF+ annotation channel, or -1.
+     */
+    public int indexOfAnnotationChannel() {
+        for (var i = labels.length - 1; i >= 0; i--) {
+            if (SignalHeader.ANNOTATION_CHANNEL_LABEL.equals(labels[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public long getDataOffset() {
+        return dataOffset;
+    }
+
+    public int getNumDataRecords() {
+        return numDataRecords;
+    }
+
+    public double getRecordDurationSec() {
+        return recordDurationSec;
+    }
+
+    public int getNumSignals() {
+        return labels.length;
+    }
+
+    public String getLabel(int signal) {
+        return labels[signal];
+    }
+
+    public String getPhysicalDimension(int signal) {
+        return physicalDimensions[signal];
+    }
+
+    public int getSamplesPerRecord(int signal) {
+        return samplesPerRecord[signal];
+    }
+
+    /**
+     * @return The size of one data record in bytes.
+     */
+    public int getRecordBytes() {
+        return recordBytes;
+    }
+
+    /**
+     * @return The byte offset of the first sample of {@code signal} within a data record.
+     */
+    public int getSignalOffsetBytes(int signal) {
+        return sampleOffsets[signal] * BYTES_PER_SAMPLE;
+    }
+
+    /**
+     * @return The absolute file position of data record {@code record}.
+     */
+    public long getRecordPosition(long record) {
+        return dataOffset + record * recordBytes;
+    }
+
+    /**
+     * @return The number of samples of {@code signal} per second, or {@code 0} if the file has no time base.
+     */
+    public double getSampleRate(int signal) {
+        return recordDurationSec > 0 ? samplesPerRecord[signal] / recordDurationSec : 0;
+    }
+
+    public int getDigitalMinimum(int signal) {
+        return digitalMinimums[signal];
+    }
+
+    public int getDigitalMaximum(int signal) {
+        return digitalMaximums[signal];
+    }
+
+    /**
+     * Physical value per digital unit of {@code signal}. Signals with an unusable calibration are returned
+     * as raw digital values, i.e. with a gain of 1 and an offset of 0.
+     */
+    public double getGain(int signal) {
+        return isCalibrated(signal) ? rawGain(signal) : 1;
+    }
+
+    /**
+     * Physical value of digital value 0 of {@code signal}, so that {@code physical = gain * digital + offset}.
+     */
+    public double getOffset(int signal) {
+        return isCalibrated(signal) ? physicalMinimums[signal] - rawGain(signal) * digitalMinimums[signal] : 0;
+    }
+
+    private boolean isCalibrated(int signal) {
+        var gain = rawGain(signal);
+        return Double.isFinite(gain) && gain != 0;
+    }
+
+    private double rawGain(int signal) {
+        return (physicalMaximums[signal] - physicalMinimums[signal]) / ((double) digitalMaximums[signal] - digitalMinimums[signal]);
+    }
+
+    /**
+     * Writes this layout in a compact binary form that can be read back with {@link #readFrom(DataInput)}.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(dataOffset);
+        out.writeInt(numDataRecords);
+        out.writeDouble(recordDurationSec);
+        out.writeInt(labels.length);
+        for (var i = 0; i < labels.length; i++) {
+            out.writeUTF(labels[i]);
+            out.writeUTF(physicalDimensions[i]);
+            out.writeInt(samplesPerRecord[i]);
+            out.writeDouble(physicalMinimums[i]);
+            out.writeDouble(physicalMaximums[i]);
+            out.writeInt(digitalMinimums[i]);
+            out.writeInt(digitalMaximums[i]);
+        }
+    }
+
+    /**
+     * Reads a layout previously written with {@link #writeTo(DataOutput)}.
+     */
+    public static DataRecordLayout readFrom(DataInput in) throws IOException {
+        var dataOffset = in.readLong();
+        var numDataRecords = in.readInt();
+        var recordDurationSec = in.readDouble();
+        var numSignals = in.readInt();
+
+        var labels = new String[numSignals];
+        var physicalDimensions = new String[numSignals];
+        var samplesPerRecord = new int[numSignals];
+        var physicalMinimums = new double[numSignals];
+        var physicalMaximums = new double[numSignals];
+        var digitalMinimums = new int[numSignals];
+        var digitalMaximums = new int[numSignals];
+        for (var i = 0; i < numSignals; i++) {
+            labels[i] = in.readUTF();
+            physicalDimensions[i] = in.readUTF();
+            samplesPerRecord[i] = in.readInt();
+            physicalMinimums[i] = in.readDouble();
+            physicalMaximums[i] = in.readDouble();
+            digitalMinimums[i] = in.readInt();
+            digitalMaximums[i] = in.readInt();
+        }
+        return new DataRecordLayout(dataOffset, numDataRecords, recordDurationSec, labels, physicalDimensions, samplesPerRecord,
+                                    physicalMinimums, physicalMaximums, digitalMinimums, digitalMaximums);
+    }
+}
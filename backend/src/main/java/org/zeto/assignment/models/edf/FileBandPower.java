@@ -0,0 +1,21 @@
+package org.zeto.assignment.models.edf;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * DTO holding the {@link ChannelBandPower} of every data channel of one EDF file, together with the bands and the
+ * Welch parameters they were computed with: the window length in seconds and the fraction by which consecutive
+ * windows overlap.
+ */
+@Getter
+@Builder
+public class FileBandPower {
+    private final String fileName;
+    private final double segmentSeconds;
+    private final double overlap;
+    private final List<FrequencyBand> bands;
+    private final List<ChannelBandPower> channels;
+}
@@ -3,6 +3,7 @@ package org.zeto.assignment.models.edf;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -26,4 +27,13 @@ public class FileInfo {
     private boolean valid;
     private double recordingLengthSeconds;
     private int numberOfAnnotations;
+    @Builder.Default
+    private IngestionState ingestionState = IngestionState.COMPLETE;
+    @JsonIgnore
+    @ToString.Exclude
+    @Builder.Default
+    private AnnotationIndex annotationIndex = AnnotationIndex.EMPTY;
+    @JsonIgnore
+    @ToString.Exclude
+    private DataRecordLayout dataRecordLayout;
 }
@@ -0,0 +1,81 @@
+package org.zeto.assignment.models.edf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The JSON listing of all processed EDF files, serialized once and kept as bytes together with its gzip
+ * encoding and a strong ETag derived from the JSON content.
+ * <p>
+ * The identity and gzip representations carry different ETags, as required for strong validators of
+ * different content codings.
+ */
+public final class FileListing {
+    private static final int ETAG_HASH_BYTES = 16;
+    private static final String GZIP_ETAG_SUFFIX = "-gzip";
+
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+    private final String gzipEtag;
+
+    private FileListing(byte[] json, byte[] gzip, String hash) {
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = '"' + hash + '"';
+        this.gzipEtag = '"' + hash + GZIP_ETAG_SUFFIX + '"';
+    }
+
+    /**
+     * Creates the listing for the given serialized JSON, compressing it and hashing it for the ETag.
+     */
+    public static FileListing of(byte[] json) {
+        return new FileListing(json, gzip(json), HexFormat.of().formatHex(sha256(json), 0, ETAG_HASH_BYTES));
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    /**
+     * @return The quoted ETag of the identity representation.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * @return The quoted ETag of the gzip representation.
+     */
+    public String getGzipEtag() {
+        return gzipEtag;
+    }
+
+    private static byte[] gzip(byte[] json) {
+        var bytes = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (var out = new GZIPOutputStream(bytes)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] sha256(byte[] json) {
+        try {
+            return Arrays.copyOf(MessageDigest.getInstance("SHA-256").digest(json), ETAG_HASH_BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
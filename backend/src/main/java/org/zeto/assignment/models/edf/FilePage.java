@@ -0,0 +1,18 @@
+package org.zeto.assignment.models.edf;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * DTO representing one page of processed EDF files matching a {@link FileQuery}.
+ */
+@Getter
+@Builder
+public class FilePage {
+    private final List<FileInfo> files;
+    private final int page;
+    private final int size;
+    private final int totalElements;
+}
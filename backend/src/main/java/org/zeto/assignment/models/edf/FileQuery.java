@@ -0,0 +1,40 @@
+package org.zeto.assignment.models.edf;
+
+import java.time.LocalDateTime;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * DTO describing a page of processed EDF files to look up. Filters left {@code null} match every file.
+ */
+@Getter
+@Builder
+public class FileQuery {
+    /**
+     * Inclusive lower bound of the recording date. Files without a recording date never match a date range.
+     */
+    private final LocalDateTime from;
+    /**
+     * Exclusive upper bound of the recording date.
+     */
+    private final LocalDateTime to;
+    /**
+     * Case-insensitive prefix of the patient name.
+     */
+    private final String patientPrefix;
+    /**
+     * Label of a data channel the file must contain.
+     */
+    private final String channel;
+    private final Boolean valid;
+    @Builder.Default
+    private final FileSortKey sortKey = FileSortKey.RECORDING_DATE;
+    private final boolean descending;
+    private final int page;
+    private final int size;
+
+    public boolean hasDateRange() {
+        return from != null || to != null;
+    }
+}
@@ -0,0 +1,35 @@
+package org.zeto.assignment.models.edf;
+
+import java.util.Optional;
+
+/**
+ * Keys the processed EDF files can be sorted by. Ties are broken by recording date, then by file name.
+ */
+public enum FileSortKey {
+    RECORDING_DATE("recordingDate"),
+    FILE_NAME("fileName"),
+    PATIENT_NAME("patientName");
+
+    private final String parameterName;
+
+    FileSortKey(String parameterName) {
+        this.parameterName = parameterName;
+    }
+
+    public String getParameterName() {
+        return parameterName;
+    }
+
+    /**
+     * @param parameterName The name of the key as used in request parameters, e.g. {@code fileName}.
+     * @return The key, or an empty {@link Optional} if there is no key with that name.
+     */
+    public static Optional<FileSortKey> fromParameterName(String parameterName) {
+        for (var key : values()) {
+            if (key.parameterName.equals(parameterName)) {
+                return Optional.of(key);
+            }
+        }
+        return Optional.empty();
+    }
+}
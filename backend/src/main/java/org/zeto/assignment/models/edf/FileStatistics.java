@@ -0,0 +1,19 @@
+package org.zeto.assignment.models.edf;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * DTO holding the {@link ChannelStatistics} of every data channel of one EDF file, computed from the data
+ * records present on disk.
+ */
+@Getter
+@Builder
+public class FileStatistics {
+    private final String fileName;
+    private final long dataRecords;
+    private final String engine;
+    private final List<ChannelStatistics> channels;
+}
@@ -0,0 +1,48 @@
+package org.zeto.assignment.models.edf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * DTO naming a frequency band {@code [low, high)} in Hz, such as the alpha band from 8 to 13 Hz.
+ */
+@Getter
+@Builder
+@EqualsAndHashCode
+public class FrequencyBand {
+    private static final Pattern BAND = Pattern.compile("\\s*([^:,]*[^:,\\s])\\s*:\\s*(\\d+(?:\\.\\d+)?)\\s*-\\s*(\\d+(?:\\.\\d+)?)\\s*");
+
+    private final String name;
+    private final double low;
+    private final double high;
+
+    /**
+     * Parses a comma-separated list of bands written as {@code name:low-high}, e.g. {@code delta:0.5-4,theta:4-8}.
+     *
+     * @return The bands in the given order, or an empty {@link Optional} if the list is empty, a band is malformed or
+     * its upper bound is not above its lower bound.
+     */
+    public static Optional<List<FrequencyBand>> parseList(String bands) {
+        var result = new ArrayList<FrequencyBand>();
+        for (var band : bands.split(",", -1)) {
+            var matcher = BAND.matcher(band);
+            if (!matcher.matches()) {
+                return Optional.empty();
+            }
+
+            var low = Double.parseDouble(matcher.group(2));
+            var high = Double.parseDouble(matcher.group(3));
+            if (high <= low) {
+                return Optional.empty();
+            }
+            result.add(FrequencyBand.builder().name(matcher.group(1)).low(low).high(high).build());
+        }
+        return Optional.of(List.copyOf(result));
+    }
+}
@@ -0,0 +1,22 @@
+package org.zeto.assignment.models.edf;
+
+/**
+ * How far the ingestion of an EDF file has progressed.
+ * <p>
+ * Files are listed as soon as their headers are read; scanning the data records for EDF+ annotations
+ * happens afterwards in the background.
+ */
+public enum IngestionState {
+    /**
+     * The headers are read; the annotations are still being scanned and {@code numberOfAnnotations} is not final.
+     */
+    PENDING,
+    /**
+     * All metadata of the file is available.
+     */
+    COMPLETE,
+    /**
+     * The headers are read, but the annotations could not be scanned, e.g. because the file is truncated.
+     */
+    FAILED
+}
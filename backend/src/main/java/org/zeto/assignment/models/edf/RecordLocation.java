@@ -0,0 +1,18 @@
+package org.zeto.assignment.models.edf;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * DTO locating the data record of an EDF file that holds a point in time: the record's index, the absolute byte
+ * position of its first sample and its onset in seconds from the start of the recording.
+ */
+@Getter
+@Builder
+public class RecordLocation {
+    private final String fileName;
+    private final int record;
+    private final long offset;
+    private final double onset;
+    private final double duration;
+}
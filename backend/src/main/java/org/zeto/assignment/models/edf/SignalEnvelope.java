@@ -0,0 +1,20 @@
+package org.zeto.assignment.models.edf;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * DTO representing the min/max envelope of one channel within a requested time window, with one bucket per pixel.
+ */
+@Getter
+@Builder
+public class SignalEnvelope {
+    private final String fileName;
+    private final String label;
+    private final String physicalDimension;
+    private final double start;
+    private final double bucketDuration;
+    private final int decimation;
+    private final float[] minimums;
+    private final float[] maximums;
+}
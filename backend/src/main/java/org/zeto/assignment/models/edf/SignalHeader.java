@@ -7,18 +7,28 @@ import lombok.Builder;
 import lombok.Getter;
 
 /**
- * DTO representing parsed values from EDF per-signal headers.
+ * DTO representing parsed values from EDF per-signal headers. Numeric fields are kept as primitive arrays
+ * indexed by signal.
  */
 @Getter
 @Builder
 public class SignalHeader {
+    public static final String ANNOTATION_CHANNEL_LABEL = "EDF Annotations";
+
     private final int numSignals;
     private final List<String> labels;
     private final List<String> transducerTypes;
-    private final List<Integer> samplesPerRecord;
+    private final List<String> physicalDimensions;
+    private final double[] physicalMinimums;
+    private final double[] physicalMaximums;
+    private final int[] digitalMinimums;
+    private final int[] digitalMaximums;
+    private final int[] samplesPerRecord;
     private final List<String> dataChannelNames;
     private final List<String> dataChannelTransducerTypes;
     private final int annotationChannelIndex;
+    @Builder.Default
+    private final AnnotationIndex annotationIndex = AnnotationIndex.EMPTY;
 
     public List<Channel> getChannels() {
         return IntStream.range(0, dataChannelNames.size())
@@ -0,0 +1,23 @@
+package org.zeto.assignment.models.edf;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * DTO representing the physical sample values of one channel within a requested time window.
+ */
+@Getter
+@Builder
+public class SignalWindow {
+    private final String fileName;
+    private final String label;
+    private final String physicalDimension;
+    private final double sampleRate;
+    private final double start;
+    private final float[] samples;
+    /**
+     * Whether the window held more samples than a single response returns, so that {@link #samples} ends before the
+     * requested end rather than at the end of the recording.
+     */
+    private final boolean truncated;
+}
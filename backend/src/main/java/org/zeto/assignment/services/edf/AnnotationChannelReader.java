@@ -0,0 +1,107 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Seek-based reader that visits only the EDF+ annotation channel bytes of a range of data records.
+ * <p>
+ * Data records interleave all signals, so the annotation samples of consecutive records are separated by
+ * the samples of every other channel. Instead of reading whole records, this reader computes the absolute
+ * file position of each record's annotation bytes from the known record layout and reads just those bytes
+ * with positional {@link FileChannel} reads. Reads are grouped in batches: the annotation bytes of up to
+ * {@value #BATCH_BYTES} bytes worth of records are gathered into one reusable direct buffer before the
+ * visitor is called for each record.
+ * <p>
+ * When the bytes between two annotation slices are smaller than {@value #MIN_STRIDE_SKIP_BYTES} (for example,
+ * recordings with very few or very slow signals), a separate read per record costs more than reading the gap,
+ * so whole records are read contiguously instead. The visitor sees the same slices in both modes.
+ * <p>
+ * Instances are not thread-safe; use one reader per thread.
+ */
+final class AnnotationChannelReader implements BaseService {
+
+    private static final int BATCH_BYTES = 64 * 1024;
+    private static final int MIN_STRIDE_SKIP_BYTES = 4 * 1024;
+
+    private final FileChannel channel;
+    private final long dataOffset;
+    private final int recordBytes;
+    private final int annotationOffsetBytes;
+    private final int annotationLengthBytes;
+    private final boolean strided;
+    private final int recordsPerBatch;
+    private final ByteBuffer batch;
+
+    /**
+     * Callback receiving the annotation bytes of a single data record.
+     */
+    @FunctionalInterface
+    interface AnnotationVisitor {
+        /**
+         * @param record The zero-based index of the data record.
+         * @param buffer The buffer holding the annotation bytes; only the given range may be read.
+         * @param offset The absolute index of the first annotation byte in {@code buffer}.
+         * @param length The number of annotation bytes of this record.
+         */
+        void visit(int record, ByteBuffer buffer, int offset, int length) throws IOException;
+    }
+
+    AnnotationChannelReader(FileChannel channel, long dataOffset, int recordBytes, int annotationOffsetBytes, int annotationLengthBytes) {
+        this.channel = channel;
+        this.dataOffset = dataOffset;
+        this.recordBytes = recordBytes;
+        this.annotationOffsetBytes = annotationOffsetBytes;
+        this.annotationLengthBytes = annotationLengthBytes;
+        this.strided = recordBytes - annotationLengthBytes >= MIN_STRIDE_SKIP_BYTES;
+
+        var bytesPerRecord = strided ? annotationLengthBytes : recordBytes;
+        this.recordsPerBatch = Math.max(1, BATCH_BYTES / Math.max(1, bytesPerRecord));
+        this.batch = ByteBuffer.allocateDirect(recordsPerBatch * bytesPerRecord);
+    }
+
+    /**
+     * Visits the annotation bytes of data records {@code fromRecord} (inclusive) to {@code toRecord} (exclusive) in order.
+     *
+     * @return The number of bytes read from the channel, which covers whole records when they are read contiguously.
+     * @throws IOException If an I/O error occurs or the file ends before the requested records.
+     */
+    long scan(int fromRecord, int toRecord, AnnotationVisitor visitor) throws IOException {
+        var bytesRead = 0L;
+        for (var first = fromRecord; first < toRecord; first += recordsPerBatch) {
+            var records = Math.min(recordsPerBatch, toRecord - first);
+
+            bytesRead += strided
+                    ? scanStrided(first, records, visitor)
+                    : scanContiguous(first, records, visitor);
+        }
+        return bytesRead;
+    }
+
+    private long scanStrided(int first, int records, AnnotationVisitor visitor) throws IOException {
+        for (var i = 0; i < records; i++) {
+            var slice = batch.limit((i + 1) * annotationLengthBytes).position(i * annotationLengthBytes);
+            readFully(channel, recordPosition(first + i) + annotationOffsetBytes, slice);
+        }
+
+        for (var i = 0; i < records; i++) {
+            visitor.visit(first + i, batch, i * annotationLengthBytes, annotationLengthBytes);
+        }
+        return (long) records * annotationLengthBytes;
+    }
+
+    private long scanContiguous(int first, int records, AnnotationVisitor visitor) throws IOException {
+        readFully(channel, recordPosition(first), batch.limit(records * recordBytes).position(0));
+
+        for (var i = 0; i < records; i++) {
+            visitor.visit(first + i, batch, i * recordBytes + annotationOffsetBytes, annotationLengthBytes);
+        }
+        return (long) records * recordBytes;
+    }
+
+    private long recordPosition(int record) {
+        return dataOffset + (long) record * recordBytes;
+    }
+
+}
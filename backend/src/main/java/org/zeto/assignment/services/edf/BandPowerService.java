@@ -0,0 +1,38 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import org.zeto.assignment.models.edf.FileBandPower;
+import org.zeto.assignment.models.edf.FrequencyBand;
+
+/**
+ * Service for estimating the power of the data channels of processed EDF files in frequency bands.
+ */
+public interface BandPowerService {
+    /**
+     * @return The bands configured with {@code edf.band-power.bands}, used when a request names none.
+     */
+    List<FrequencyBand> getDefaultBands();
+
+    /**
+     * Estimates the power of every data channel of a file in each of the given bands.
+     *
+     * @param fileName The name of the EDF file, including its extension.
+     * @param bands    The bands, in the order their powers are reported.
+     * @return The band power, or an empty {@link Optional} if the file does not exist or is invalid.
+     * @throws IOException If the file cannot be read.
+     */
+    Optional<FileBandPower> getBandPower(String fileName, List<FrequencyBand> bands) throws IOException;
+
+    /**
+     * Estimates the band power of every valid processed file, computing files in parallel. Files that cannot be
+     * read are left out. The call returns once every file not cached yet has been read completely, which on a large
+     * corpus takes as long as reading all of it.
+     *
+     * @param bands The bands, in the order their powers are reported.
+     * @return The band power of each file, in the order of {@link FileProcessingService#getProcessedFiles()}.
+     */
+    List<FileBandPower> getAllBandPower(List<FrequencyBand> bands);
+}
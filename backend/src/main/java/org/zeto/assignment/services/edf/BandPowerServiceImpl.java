@@ -0,0 +1,411 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.ChannelBandPower;
+import org.zeto.assignment.models.edf.DataRecordLayout;
+import org.zeto.assignment.models.edf.FileBandPower;
+import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.models.edf.FrequencyBand;
+import org.zeto.assignment.models.edf.SignalHeader;
+
+/**
+ * {@link BandPowerService} estimating the power spectral density of each data channel with a {@link WelchEstimator}.
+ * <p>
+ * All work runs on a dedicated {@link ForkJoinPool}. The files of a corpus request are split into tasks, and so are
+ * the windows of a channel, which are transformed {@value #BLOCK_SEGMENTS} at a time, so a single long recording
+ * keeps every core busy as well as many short ones, and memory does not grow with the length of the recording.
+ * <p>
+ * Without a columnar export, the data records of a file are read once, in order, and the samples of every channel
+ * are fed from each batch of them, as for the statistics: each byte is read, or inflated, a single time however many
+ * channels the file has. When the file has an up-to-date columnar export (see {@link ColumnarExportService}), each
+ * channel reads only its own column instead, and channels are read in parallel.
+ * <p>
+ * Results for the configured default bands are cached per file together with the size and modification time they
+ * were computed from, and dropped when the file is ingested again or removed (see {@link FileIngestedEvent} and
+ * {@link FileRemovedEvent}). Other lists of bands come from requests, so caching them would let clients grow the
+ * cache without bound; they are computed every time.
+ */
+@Service
+@Slf4j
+public class BandPowerServiceImpl implements BandPowerService {
+    private static final String LOG_INFO_BAND_POWER_COMPUTED = "Computed band power of EDF file {} in {} ms";
+    private static final String LOG_WARN_BAND_POWER_NOT_COMPUTED = "Could not compute band power of EDF file {}: {}";
+    private static final String INVALID_BANDS_MESSAGE = "Invalid edf.band-power.bands: %s";
+
+    /**
+     * Number of windows of a channel read and transformed at a time.
+     */
+    static final int BLOCK_SEGMENTS = 256;
+
+    private final FileProcessingService fileProcessingService;
+    private final ColumnarExportService columnarExportService;
+    private final List<FrequencyBand> defaultBands;
+    private final double segmentSeconds;
+    private final double overlap;
+    private final ForkJoinPool pool;
+    private final Map<String, CachedBandPower> cache = new ConcurrentHashMap<>();
+
+    public BandPowerServiceImpl(FileProcessingService fileProcessingService, ColumnarExportService columnarExportService,
+                                EdfProperties properties) {
+        var settings = properties.getBandPower();
+        this.fileProcessingService = fileProcessingService;
+        this.columnarExportService = columnarExportService;
+        this.defaultBands = FrequencyBand.parseList(settings.getBands())
+                                         .orElseThrow(() -> new IllegalArgumentException(INVALID_BANDS_MESSAGE.formatted(settings.getBands())));
+        this.segmentSeconds = settings.getSegmentSeconds();
+        this.overlap = Math.clamp(settings.getOverlap(), 0, 0.99);
+        this.pool = new ForkJoinPool(Math.max(1, settings.getParallelism()));
+    }
+
+    @EventListener
+    public void onFileIngested(FileIngestedEvent event) {
+        cache.remove(event.fileInfo().getFileName());
+    }
+
+    @EventListener
+    public void onFileRemoved(FileRemovedEvent event) {
+        cache.remove(event.fileName());
+    }
+
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    @Override
+    public List<FrequencyBand> getDefaultBands() {
+        return defaultBands;
+    }
+
+    @Override
+    public Optional<FileBandPower> getBandPower(String fileName, List<FrequencyBand> bands) throws IOException {
+        var layout = fileProcessingService.getProcessedFile(fileName)
+                                          .filter(FileInfo::isValid)
+                                          .map(FileInfo::getDataRecordLayout);
+        var path = fileProcessingService.getProcessedFilePath(fileName);
+        if (layout.isEmpty() || path.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(pool.invoke(new FileTask(fileName, path.get(), layout.get(), bands)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public List<FileBandPower> getAllBandPower(List<FrequencyBand> bands) {
+        var tasks = new ArrayList<ForkJoinTask<FileBandPower>>();
+        for (var fileInfo : fileProcessingService.getProcessedFiles()) {
+            var path = fileProcessingService.getProcessedFilePath(fileInfo.getFileName());
+            if (fileInfo.isValid() && fileInfo.getDataRecordLayout() != null && path.isPresent()) {
+                var task = new FileTask(fileInfo.getFileName(), path.get(), fileInfo.getDataRecordLayout(), bands);
+                tasks.add(ForkJoinTask.adapt(() -> computeOrSkip(task)));
+            }
+        }
+
+        return pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)
+                                                                .stream()
+                                                                .map(ForkJoinTask::join)
+                                                                .filter(Objects::nonNull)
+                                                                .toList()));
+    }
+
+    /**
+     * @return The band power computed by {@code task}, or {@code null} if the file cannot be read.
+     */
+    private static FileBandPower computeOrSkip(FileTask task) {
+        try {
+            return task.invoke();
+        } catch (UncheckedIOException | IllegalArgumentException e) {
+            log.warn(LOG_WARN_BAND_POWER_NOT_COMPUTED, task.fileName, e.getMessage());
+            return null;
+        }
+    }
+
+    private record CachedBandPower(long size, long lastModified, FileBandPower bandPower) {
+        boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+        }
+    }
+
+    /**
+     * Computes the band power of every data channel of one file, unless it is cached for the default bands.
+     */
+    private final class FileTask extends RecursiveTask<FileBandPower> {
+        private final String fileName;
+        private final Path path;
+        private final DataRecordLayout layout;
+        private final List<FrequencyBand> bands;
+
+        private FileTask(String fileName, Path path, DataRecordLayout layout, List<FrequencyBand> bands) {
+            this.fileName = fileName;
+            this.path = path;
+            this.layout = layout;
+            this.bands = bands;
+        }
+
+        @Override
+        protected FileBandPower compute() {
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            var cacheable = bands.equals(defaultBands);
+            var cached = cacheable ? cache.get(fileName) : null;
+            if (cached != null && cached.matches(attributes)) {
+                return cached.bandPower();
+            }
+
+            var start = System.nanoTime();
+            var signals = new ArrayList<Integer>();
+            for (var signal = 0; signal < layout.getNumSignals(); signal++) {
+                if (!SignalHeader.ANNOTATION_CHANNEL_LABEL.equals(layout.getLabel(signal))) {
+                    signals.add(signal);
+                }
+            }
+
+            List<ChannelBandPower> channels;
+            try {
+                channels = hasColumnarExport() ? readColumns(signals) : scanRecords(signals);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            var bandPower = FileBandPower.builder()
+                                         .fileName(fileName)
+                                         .segmentSeconds(segmentSeconds)
+                                         .overlap(overlap)
+                                         .bands(bands)
+                                         .channels(channels)
+                                         .build();
+            log.info(LOG_INFO_BAND_POWER_COMPUTED, fileName, (System.nanoTime() - start) / 1_000_000);
+
+            if (cacheable) {
+                cache.put(fileName, new CachedBandPower(attributes.size(), attributes.lastModifiedTime().toMillis(), bandPower));
+            }
+            return bandPower;
+        }
+
+        private boolean hasColumnarExport() throws IOException {
+            var export = columnarExportService.open(fileName);
+            if (export.isEmpty()) {
+                return false;
+            }
+            export.get().close();
+            return true;
+        }
+
+        /**
+         * Reads each channel from its own column of the export, channels in parallel.
+         */
+        private List<ChannelBandPower> readColumns(List<Integer> signals) {
+            var tasks = signals.stream().map(signal -> new ChannelTask(this, signal)).toList();
+            return invokeAll(tasks).stream().map(ForkJoinTask::join).toList();
+        }
+
+        /**
+         * Reads the data records once, feeding the windows of every channel from each of them.
+         */
+        private List<ChannelBandPower> scanRecords(List<Integer> signals) throws IOException {
+            try (var channel = CompressedEdfFiles.openChannel(path)) {
+                var reader = new SampleReader(channel, layout);
+                var records = reader.getAvailableRecords();
+                var spectra = signals.stream().map(signal -> new ChannelSpectrum(this, signal, records)).toList();
+
+                reader.scan(0, records, (record, samples, recordStart) -> {
+                    for (var spectrum : spectra) {
+                        spectrum.append(reader, samples, recordStart);
+                    }
+                });
+                return spectra.stream().map(ChannelSpectrum::finish).toList();
+            }
+        }
+    }
+
+    /**
+     * Estimates the power spectral density of one channel read from the columnar export.
+     */
+    private final class ChannelTask extends RecursiveTask<ChannelBandPower> {
+        private final FileTask file;
+        private final int signal;
+
+        private ChannelTask(FileTask file, int signal) {
+            this.file = file;
+            this.signal = signal;
+        }
+
+        @Override
+        protected ChannelBandPower compute() {
+            try (var samples = ChannelSamples.open(columnarExportService, file.fileName, file.path, file.layout)) {
+                var records = samples.getRecords();
+                var spectrum = new ChannelSpectrum(file, signal, records);
+                spectrum.read(samples, records);
+                return spectrum.finish();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Welch sums of one channel, fed with its samples in order. Samples are collected in a block of
+     * {@value #BLOCK_SEGMENTS} windows, which is transformed, windows in parallel, whenever it is full; the samples
+     * that the next windows overlap are then moved to its start.
+     */
+    private final class ChannelSpectrum {
+        private final FileTask file;
+        private final int signal;
+        /**
+         * {@code null} when the channel is too slow or too fast for a window of {@code segmentSeconds}.
+         */
+        private final WelchEstimator estimator;
+        private final double[] sum;
+        private final float[] block;
+        private int filled;
+        private long segments;
+
+        private ChannelSpectrum(FileTask file, int signal, long records) {
+            this.file = file;
+            this.signal = signal;
+
+            var layout = file.layout;
+            var sampleRate = layout.getSampleRate(signal);
+            var segmentLength = Double.isFinite(sampleRate) ? Math.round(segmentSeconds * sampleRate) : 0;
+            if (segmentLength < 2 || segmentLength > Integer.MAX_VALUE / 2) {
+                this.estimator = null;
+                this.sum = null;
+                this.block = null;
+                return;
+            }
+
+            this.estimator = new WelchEstimator(sampleRate, (int) segmentLength, (int) Math.max(1, Math.round(segmentLength * (1 - overlap))));
+            var totalSegments = estimator.countSegments(records * layout.getSamplesPerRecord(signal));
+            this.sum = new double[estimator.getBins()];
+            this.block = new float[(int) (Math.min(BLOCK_SEGMENTS, Math.max(1, totalSegments)) - 1) * estimator.getStep() + estimator.getSegmentLength()];
+        }
+
+        /**
+         * Appends the samples of the channel in one data record.
+         */
+        void append(SampleReader reader, ShortBuffer samples, int recordStart) {
+            if (estimator == null) {
+                return;
+            }
+
+            var samplesPerRecord = file.layout.getSamplesPerRecord(signal);
+            for (var from = 0; from < samplesPerRecord; ) {
+                var length = Math.min(samplesPerRecord - from, block.length - filled);
+                reader.decode(samples, recordStart, signal, from, length, block, filled);
+                from += length;
+                fill(length);
+            }
+        }
+
+        /**
+         * Appends all samples of the channel in the first {@code records} data records, a block at a time.
+         */
+        void read(ChannelSamples samples, long records) throws IOException {
+            if (estimator == null) {
+                return;
+            }
+
+            var total = records * file.layout.getSamplesPerRecord(signal);
+            for (var first = 0L; first < total; ) {
+                var length = (int) Math.min(block.length - filled, total - first);
+                samples.read(signal, first, length, block, filled);
+                first += length;
+                fill(length);
+            }
+        }
+
+        /**
+         * Transforms the remaining windows and integrates the density over the bands.
+         */
+        ChannelBandPower finish() {
+            var layout = file.layout;
+            var bandPower = ChannelBandPower.builder()
+                                            .label(layout.getLabel(signal))
+                                            .physicalDimension(layout.getPhysicalDimension(signal))
+                                            .sampleRate(layout.getSampleRate(signal));
+            if (estimator == null) {
+                return bandPower.power(new double[file.bands.size()]).relativePower(new double[file.bands.size()]).build();
+            }
+
+            transform();
+            return integrate(bandPower.segments(segments), estimator.toDensity(sum, segments));
+        }
+
+        private void fill(int length) {
+            filled += length;
+            if (filled == block.length) {
+                transform();
+            }
+        }
+
+        private void transform() {
+            var count = (int) estimator.countSegments(filled);
+            if (count == 0) {
+                return;
+            }
+
+            var blockSum = estimator.sum(block, count);
+            for (var k = 0; k < sum.length; k++) {
+                sum[k] += blockSum[k];
+            }
+            segments += count;
+
+            var consumed = count * estimator.getStep();
+            System.arraycopy(block, consumed, block, 0, filled - consumed);
+            filled -= consumed;
+        }
+
+        /**
+         * Sums the density over the bins of each band, {@code low <= f < high}, and over all bins above 0 Hz.
+         */
+        private ChannelBandPower integrate(ChannelBandPower.ChannelBandPowerBuilder bandPower, double[] density) {
+            var resolution = estimator.getFrequencyResolution();
+            var total = 0.0;
+            for (var k = 1; k < density.length; k++) {
+                total += density[k] * resolution;
+            }
+
+            var power = new double[file.bands.size()];
+            var relativePower = new double[power.length];
+            for (var b = 0; b < power.length; b++) {
+                var band = file.bands.get(b);
+                for (var k = (int) Math.ceil(band.getLow() / resolution); k < density.length && k * resolution < band.getHigh(); k++) {
+                    power[b] += density[k] * resolution;
+                }
+                relativePower[b] = total > 0 ? power[b] / total : 0;
+            }
+
+            return bandPower.power(power).relativePower(relativePower).build();
+        }
+    }
+}
@@ -2,16 +2,42 @@ package org.zeto.assignment.services.edf;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 
 /**
  * Provides common utility methods for services involved in processing EDF files.
  * This interface defines default methods that can be reused by various EDF-related services
- * for tasks such as reading specific amounts of data from an input stream and formatting date/time strings.
+ * for tasks such as reading specific amounts of data from an input stream and decoding header fields.
+ * <p>
+ * Header fields are decoded straight from the bytes of the header: numbers and the recording start are parsed
+ * without creating intermediate {@link String}s, so only fields that are exposed as text allocate.
  */
 public interface BaseService {
     String UNEXPECTED_END_OF_FILE_MESSAGE = "Unexpected end of file. Expected %d bytes, but got %d";
+    int GENERAL_HEADER_BYTES = 256;
+    int SIGNAL_HEADER_BYTES = 256;
+    String INVALID_DATE_FORMAT_MESSAGE = "Invalid date format: %s %s";
+    byte ASCII_SPACE = ' ';
+    int DATE_TIME_FIELD_LENGTH = 8;
+    int CENTURY_PIVOT_YEAR = 84;
+    int MAX_INT_DIGITS = 10;
+    int MAX_EXACT_DECIMAL_DIGITS = 15;
+
+    /**
+     * Computes the file position of the first data record, which directly follows the general header
+     * and the {@code numSignals} signal headers.
+     *
+     * @param numSignals The number of signals declared in the general header.
+     * @return The byte offset of the first data record.
+     */
+    default long getDataOffset(int numSignals) {
+        return GENERAL_HEADER_BYTES + (long) numSignals * SIGNAL_HEADER_BYTES;
+    }
 
     /**
      * Reads a specified number of bytes from an {@link InputStream}, ensuring that the exact amount is read.
@@ -38,25 +64,244 @@ public interface BaseService {
     }
 
     /**
-     * Formats a date and time string pair into a standard "YYYY-MM-DD HH:MM:SS" format.
-     * It attempts to parse the date from "DD.MM.YY" format and time from "HH.MM.SS" format.
-     * For the year, it applies a heuristic: if the two-digit year is greater than 84, it's prefixed with "19";
-     * otherwise, it's prefixed with "20".
-     * If any parsing error occurs, the original date and time strings are concatenated and returned.
+     * Reads exactly {@code numBytes} bytes from a {@link FileChannel} starting at the given absolute position,
+     * without changing the channel's own position.
+     *
+     * @param channel  The {@link FileChannel} to read bytes from.
+     * @param position The absolute file position of the first byte to read.
+     * @param numBytes The exact number of bytes to read.
+     * @return A heap {@link ByteBuffer} positioned at zero containing the {@code numBytes} read from the channel.
+     * @throws IOException If an I/O error occurs or the file ends before all {@code numBytes} are read.
+     */
+    default ByteBuffer readBytes(FileChannel channel, long position, int numBytes) throws IOException {
+        var buffer = ByteBuffer.allocate(numBytes);
+        readFully(channel, position, buffer);
+        return buffer.flip();
+    }
+
+    /**
+     * Fills the remaining space of {@code buffer} with bytes read from {@code channel} at the given absolute position.
+     * The buffer is not flipped, so callers that reuse a buffer across reads control its position and limit.
+     *
+     * @param channel  The {@link FileChannel} to read bytes from.
+     * @param position The absolute file position of the first byte to read.
+     * @param buffer   The buffer to fill; exactly {@code buffer.remaining()} bytes are read.
+     * @throws IOException If an I/O error occurs or the file ends before the buffer is full.
+     */
+    default void readFully(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        var expected = buffer.remaining();
+        var offset = 0;
+        while (buffer.hasRemaining()) {
+            var n = channel.read(buffer, position + offset);
+            if (n == -1) {
+                throw new IOException(UNEXPECTED_END_OF_FILE_MESSAGE.formatted(expected, offset));
+            }
+            offset += n;
+        }
+    }
+
+    /**
+     * Decodes a space-padded ASCII field directly from a {@link ByteBuffer} using absolute indexing, so the
+     * buffer's position is left untouched. Leading and trailing spaces are skipped before the {@link String}
+     * is created, which avoids copying the padding.
+     *
+     * @param buffer The buffer to read from; may be a heap, direct or memory-mapped buffer.
+     * @param offset The absolute index of the first byte of the field.
+     * @param length The length of the field in bytes.
+     * @return The trimmed field value.
+     */
+    default String readAscii(ByteBuffer buffer, int offset, int length) {
+        var start = skipLeadingSpaces(buffer, offset, offset + length);
+        var end = skipTrailingSpaces(buffer, start, offset + length);
+
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, end - start, StandardCharsets.US_ASCII);
+        }
+
+        var bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Decodes a space-padded ASCII integer field directly from a {@link ByteBuffer} using absolute indexing,
+     * without creating a {@link String}. An optional sign followed by decimal digits is accepted.
+     *
+     * @param buffer The buffer to read from; may be a heap, direct or memory-mapped buffer.
+     * @param offset The absolute index of the first byte of the field.
+     * @param length The length of the field in bytes.
+     * @return The field value.
+     * @throws NumberFormatException If the trimmed field is not an integer that fits an {@code int}.
+     */
+    default int readAsciiInt(ByteBuffer buffer, int offset, int length) {
+        var start = skipLeadingSpaces(buffer, offset, offset + length);
+        var end = skipTrailingSpaces(buffer, start, offset + length);
+        var negative = start < end && buffer.get(start) == '-';
+        var i = start < end && (negative || buffer.get(start) == '+') ? start + 1 : start;
+
+        var value = 0L;
+        var digits = 0;
+        for (; i < end; i++) {
+            var digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9 || ++digits > MAX_INT_DIGITS) {
+                throw invalidNumber(buffer, start, end);
+            }
+            value = value * 10 + digit;
+        }
+
+        value = negative ? -value : value;
+        if (digits == 0 || value != (int) value) {
+            throw invalidNumber(buffer, start, end);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Decodes a space-padded ASCII decimal field directly from a {@link ByteBuffer} using absolute indexing.
+     * The plain {@code [sign] digits [. digits]} form used by EDF headers is decoded without allocating;
+     * anything else, such as exponents, falls back to {@link Double#parseDouble(String)}.
+     *
+     * @param buffer The buffer to read from; may be a heap, direct or memory-mapped buffer.
+     * @param offset The absolute index of the first byte of the field.
+     * @param length The length of the field in bytes.
+     * @return The field value, or {@link Double#NaN} if the trimmed field is not a number.
+     */
+    default double readAsciiDecimal(ByteBuffer buffer, int offset, int length) {
+        var start = skipLeadingSpaces(buffer, offset, offset + length);
+        var end = skipTrailingSpaces(buffer, start, offset + length);
+        var negative = start < end && buffer.get(start) == '-';
+        var i = start < end && (negative || buffer.get(start) == '+') ? start + 1 : start;
+
+        var mantissa = 0L;
+        var digits = 0;
+        var fraction = false;
+        var divisor = 1.0;
+        for (; i < end; i++) {
+            var b = buffer.get(i);
+            if (b == '.' && !fraction) {
+                fraction = true;
+            } else if (b >= '0' && b <= '9' && digits < MAX_EXACT_DECIMAL_DIGITS) {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                divisor *= fraction ? 10 : 1;
+            } else {
+                return parseDecimal(readAscii(buffer, start, end - start));
+            }
+        }
+
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        // Mantissa and divisor stay below 2^53 and are exact, so the quotient is the correctly rounded value
+        var value = mantissa / divisor;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Decodes the "dd.mm.yy" start date and "hh.mm.ss" start time fields of an EDF general header directly
+     * from a {@link ByteBuffer}, applying the EDF century rule: years 85-99 are 1985-1999, all others 20yy.
+     *
+     * @param buffer     The buffer to read from; may be a heap, direct or memory-mapped buffer.
+     * @param dateOffset The absolute index of the 8-byte start date field.
+     * @param timeOffset The absolute index of the 8-byte start time field.
+     * @return The recording start.
+     * @throws IllegalArgumentException If either field is malformed or does not denote a valid date or time.
+     */
+    default LocalDateTime readDateTime(ByteBuffer buffer, int dateOffset, int timeOffset) {
+        var dateStart = skipLeadingSpaces(buffer, dateOffset, dateOffset + DATE_TIME_FIELD_LENGTH);
+        var dateEnd = skipTrailingSpaces(buffer, dateStart, dateOffset + DATE_TIME_FIELD_LENGTH);
+        var timeStart = skipLeadingSpaces(buffer, timeOffset, timeOffset + DATE_TIME_FIELD_LENGTH);
+        var timeEnd = skipTrailingSpaces(buffer, timeStart, timeOffset + DATE_TIME_FIELD_LENGTH);
+
+        var dateTime = dateEnd - dateStart == DATE_TIME_FIELD_LENGTH && timeEnd - timeStart == DATE_TIME_FIELD_LENGTH
+                ? decodeDateTime(buffer, dateStart, timeStart)
+                : null;
+        if (dateTime == null) {
+            throw new IllegalArgumentException(INVALID_DATE_FORMAT_MESSAGE.formatted(readAscii(buffer, dateStart, dateEnd - dateStart),
+                                                                                      readAscii(buffer, timeStart, timeEnd - timeStart)));
+        }
+        return dateTime;
+    }
+
+    /**
+     * Converts a "DD.MM.YY" date and "HH.MM.SS" time pair into a {@link LocalDateTime}, with the same rules as
+     * {@link #readDateTime(ByteBuffer, int, int)}.
      *
      * @param date The date string, expected in "DD.MM.YY" format (e.g., "19.09.25").
      * @param time The time string, expected in "HH.MM.SS" format (e.g., "12.30.00").
-     * @return A formatted date-time string in "YYYY-MM-DD HH:MM:SS" format,
-     * or the concatenated original date and time strings if formatting fails.
+     * @return The date and time.
+     * @throws IllegalArgumentException If either string is malformed or does not denote a valid date or time.
      */
     default LocalDateTime formatDate(String date, String time) {
+        var dateBytes = date.getBytes(StandardCharsets.US_ASCII);
+        var timeBytes = time.getBytes(StandardCharsets.US_ASCII);
+        if (dateBytes.length > DATE_TIME_FIELD_LENGTH || timeBytes.length > DATE_TIME_FIELD_LENGTH) {
+            throw new IllegalArgumentException(INVALID_DATE_FORMAT_MESSAGE.formatted(date, time));
+        }
+
+        var bytes = new byte[2 * DATE_TIME_FIELD_LENGTH];
+        Arrays.fill(bytes, ASCII_SPACE);
+        System.arraycopy(dateBytes, 0, bytes, 0, dateBytes.length);
+        System.arraycopy(timeBytes, 0, bytes, DATE_TIME_FIELD_LENGTH, timeBytes.length);
+        return readDateTime(ByteBuffer.wrap(bytes), 0, DATE_TIME_FIELD_LENGTH);
+    }
+
+    private static int skipLeadingSpaces(ByteBuffer buffer, int start, int end) {
+        while (start < end && (buffer.get(start) & 0xFF) <= ASCII_SPACE) start++;
+        return start;
+    }
+
+    private static int skipTrailingSpaces(ByteBuffer buffer, int start, int end) {
+        while (end > start && (buffer.get(end - 1) & 0xFF) <= ASCII_SPACE) end--;
+        return end;
+    }
+
+    private NumberFormatException invalidNumber(ByteBuffer buffer, int start, int end) {
+        return new NumberFormatException("For input string: \"" + readAscii(buffer, start, end - start) + "\"");
+    }
+
+    private static double parseDecimal(String value) {
         try {
-            var dateParts = date.split("\\.");
-            var year = Integer.parseInt(dateParts[2]) > 84 ? "19" + dateParts[2] : "20" + dateParts[2];
-            var formattedDateTime = String.format("%s-%s-%s %s", year, dateParts[1], dateParts[0], time.replace('.', ':'));
-            return LocalDateTime.parse(formattedDateTime, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Invalid date format: " + date + " " + time, e);
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * @return The date and time, or {@code null} if the fields are malformed or out of range.
+     */
+    private static LocalDateTime decodeDateTime(ByteBuffer buffer, int date, int time) {
+        var day = readTwoDigits(buffer, date);
+        var month = readTwoDigits(buffer, date + 3);
+        var year = readTwoDigits(buffer, date + 6);
+        var hour = readTwoDigits(buffer, time);
+        var minute = readTwoDigits(buffer, time + 3);
+        var second = readTwoDigits(buffer, time + 6);
+
+        if ((day | month | year | hour | minute | second) < 0
+                || buffer.get(date + 2) != '.' || buffer.get(date + 5) != '.'
+                || !isTimeSeparator(buffer.get(time + 2)) || !isTimeSeparator(buffer.get(time + 5))) {
+            return null;
         }
+
+        try {
+            return LocalDateTime.of(year > CENTURY_PIVOT_YEAR ? 1900 + year : 2000 + year, month, day, hour, minute, second);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The value of the two ASCII digits at {@code index}, or -1 if either is not a digit.
+     */
+    private static int readTwoDigits(ByteBuffer buffer, int index) {
+        var tens = buffer.get(index) - '0';
+        var ones = buffer.get(index + 1) - '0';
+        return tens >= 0 && tens <= 9 && ones >= 0 && ones <= 9 ? tens * 10 + ones : -1;
+    }
+
+    private static boolean isTimeSeparator(byte b) {
+        return b == '.' || b == ':';
     }
 }
@@ -0,0 +1,70 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.zeto.assignment.models.edf.DataRecordLayout;
+
+/**
+ * Physical samples of the channels of one open EDF file, decoded from its columnar export when it is up to date
+ * (see {@link ColumnarExportService}) and from the data records otherwise. Instances are not thread-safe.
+ */
+interface ChannelSamples extends Closeable {
+    /**
+     * @return The number of data records present in the file.
+     */
+    long getRecords() throws IOException;
+
+    /**
+     * Decodes {@code length} samples of a channel, starting at sample {@code first}, into {@code target} from index
+     * {@code targetOffset}.
+     */
+    void read(int signal, long first, int length, float[] target, int targetOffset) throws IOException;
+
+    /**
+     * Opens the samples of a processed file, preferring its columnar export.
+     */
+    static ChannelSamples open(ColumnarExportService columnarExportService, String fileName, Path path,
+                               DataRecordLayout layout) throws IOException {
+        var export = columnarExportService.open(fileName);
+        if (export.isPresent()) {
+            var columns = export.get();
+            return new ChannelSamples() {
+                @Override
+                public long getRecords() {
+                    return columns.getRecords();
+                }
+
+                @Override
+                public void read(int signal, long first, int length, float[] target, int targetOffset) throws IOException {
+                    columns.read(signal, first, length, target, targetOffset);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    columns.close();
+                }
+            };
+        }
+
+        var channel = CompressedEdfFiles.openChannel(path);
+        var reader = new SampleReader(channel, layout);
+        return new ChannelSamples() {
+            @Override
+            public long getRecords() throws IOException {
+                return reader.getAvailableRecords();
+            }
+
+            @Override
+            public void read(int signal, long first, int length, float[] target, int targetOffset) throws IOException {
+                reader.read(signal, first, length, target, targetOffset);
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+}
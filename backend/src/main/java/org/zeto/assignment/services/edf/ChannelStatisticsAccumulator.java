@@ -0,0 +1,95 @@
+package org.zeto.assignment.services.edf;
+
+import org.zeto.assignment.models.edf.ChannelStatistics;
+import org.zeto.assignment.models.edf.DataRecordLayout;
+
+/**
+ * Running statistics of the digital values of one channel, fed record by record by a {@link StatisticsKernel}.
+ * <p>
+ * Sums are kept as exact integers of digital values, so the order in which kernels add samples does not change
+ * the result; calibration is applied once in {@link #toStatistics(DataRecordLayout, int, double, double)}. Runs of
+ * identical values are tracked across records, so a flat line spanning many records is measured as one run.
+ */
+final class ChannelStatisticsAccumulator {
+    private static final int NO_VALUE = Integer.MIN_VALUE;
+
+    /**
+     * Values at or beyond these bounds count as clipped. Channels without a usable digital range never clip.
+     */
+    final int clipLow;
+    final int clipHigh;
+
+    long count;
+    long sum;
+    long sumOfSquares;
+    int min = Short.MAX_VALUE;
+    int max = Short.MIN_VALUE;
+    long clipped;
+    int previous = NO_VALUE;
+    long run;
+    long longestRun;
+
+    ChannelStatisticsAccumulator(int digitalMinimum, int digitalMaximum) {
+        var usable = digitalMinimum < digitalMaximum;
+        this.clipLow = usable ? digitalMinimum : Integer.MIN_VALUE;
+        this.clipHigh = usable ? digitalMaximum : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Adds a single value; kernels use it for the values they do not process in bulk.
+     */
+    void add(int value) {
+        count++;
+        sum += value;
+        sumOfSquares += value * value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (value <= clipLow || value >= clipHigh) {
+            clipped++;
+        }
+        if (value == previous) {
+            run++;
+        } else {
+            longestRun = Math.max(longestRun, run);
+            run = 1;
+        }
+        previous = value;
+    }
+
+    /**
+     * @param flatLineSeconds  Minimum duration of a run of identical values for the channel to be flagged as flat.
+     * @param clippingFraction Minimum fraction of clipped samples for the channel to be flagged as clipping.
+     */
+    ChannelStatistics toStatistics(DataRecordLayout layout, int signal, double flatLineSeconds, double clippingFraction) {
+        var gain = layout.getGain(signal);
+        var offset = layout.getOffset(signal);
+        var sampleRate = layout.getSampleRate(signal);
+        var longest = Math.max(longestRun, run);
+        var longestSeconds = sampleRate > 0 ? longest / sampleRate : 0;
+
+        var builder = ChannelStatistics.builder()
+                                       .label(layout.getLabel(signal))
+                                       .physicalDimension(layout.getPhysicalDimension(signal))
+                                       .sampleCount(count)
+                                       .clippedSamples(clipped)
+                                       .longestFlatLineSeconds(longestSeconds)
+                                       .clipping(count > 0 && clipped >= clippingFraction * count)
+                                       .flatLine(count > 0 && longestSeconds >= flatLineSeconds);
+        if (count == 0) {
+            return builder.build();
+        }
+
+        var meanDigital = (double) sum / count;
+        var meanSquareDigital = (double) sumOfSquares / count;
+        // E[(g x + o)^2] = g^2 E[x^2] + 2 g o E[x] + o^2
+        var meanSquare = gain * gain * meanSquareDigital + 2 * gain * offset * meanDigital + offset * offset;
+        var a = gain * min + offset;
+        var b = gain * max + offset;
+
+        return builder.min(Math.min(a, b))
+                      .max(Math.max(a, b))
+                      .mean(gain * meanDigital + offset)
+                      .rms(Math.sqrt(Math.max(0, meanSquare)))
+                      .build();
+    }
+}
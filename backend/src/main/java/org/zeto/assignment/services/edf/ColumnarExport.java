@@ -0,0 +1,42 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Open columnar export of one EDF file, see {@link ColumnarExportService}.
+ * <p>
+ * Signals are addressed by their index in the file's data records, as in the {@link org.zeto.assignment.models.edf.DataRecordLayout}.
+ * Every signal except EDF+ annotation channels is exported. Exports are not thread-safe.
+ */
+public interface ColumnarExport extends Closeable {
+    /**
+     * @return The number of data records exported.
+     */
+    long getRecords();
+
+    /**
+     * Decodes {@code length} consecutive samples of {@code signal} into {@code target} as physical values, reading
+     * only the chunks of that signal that hold them.
+     *
+     * @param firstSample The index of the first sample, counted across data records from the first one.
+     * @throws IllegalArgumentException If the signal is not exported.
+     */
+    void read(int signal, long firstSample, int length, float[] target, int targetOffset) throws IOException;
+
+    /**
+     * Visits all digital values of {@code signal} in order, one chunk at a time.
+     *
+     * @throws IllegalArgumentException If the signal is not exported.
+     */
+    void scan(int signal, DigitalValuesVisitor visitor) throws IOException;
+
+    @FunctionalInterface
+    interface DigitalValuesVisitor {
+        /**
+         * @param values The digital values of one chunk, valid only during the call.
+         * @param length The number of values in {@code values}.
+         */
+        void visit(short[] values, int length) throws IOException;
+    }
+}
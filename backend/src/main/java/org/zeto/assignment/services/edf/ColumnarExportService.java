@@ -0,0 +1,37 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Service for exporting processed EDF files to a chunked, compressed columnar format and reading them back.
+ * <p>
+ * EDF data records interleave all channels, so reading one channel of a file reads all of it. An export stores
+ * every channel separately, so single-channel queries read only the bytes of that channel.
+ */
+public interface ColumnarExportService {
+    /**
+     * Schedules the export of a processed file in the background. An export that is up to date is kept.
+     *
+     * @param fileName The name of the EDF file, including its extension.
+     * @return Whether the export was scheduled; {@code false} if the file does not exist or is invalid.
+     */
+    boolean export(String fileName);
+
+    /**
+     * Schedules the export of every valid processed file in the background.
+     *
+     * @return The number of files scheduled.
+     */
+    int exportAll();
+
+    /**
+     * Opens the export of a file for reading. Callers close it.
+     *
+     * @param fileName The name of the EDF file, including its extension.
+     * @return The export, or an empty {@link Optional} if the file does not exist, is invalid, or its export is
+     * missing or does not match the current file.
+     * @throws IOException If the file or its export cannot be read.
+     */
+    Optional<ColumnarExport> open(String fileName) throws IOException;
+}
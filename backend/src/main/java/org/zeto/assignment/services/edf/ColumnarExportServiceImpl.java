@@ -0,0 +1,159 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.FileInfo;
+
+/**
+ * {@link ColumnarExportService} writing one {@link ColumnarFile} per EDF file.
+ * <p>
+ * Exports are requested explicitly and built one file at a time on a single background thread; exports that still
+ * match their EDF file are kept across restarts. When an exported file is ingested again (see
+ * {@link FileIngestedEvent}), its export is rebuilt, and until then readers fall back to the data records.
+ */
+@Service
+@Slf4j
+public class ColumnarExportServiceImpl implements ColumnarExportService {
+    private static final String LOG_INFO_EXPORT_BUILT = "Exported EDF file {} to columnar format in {} ms";
+    private static final String LOG_WARN_EXPORT_NOT_BUILT = "Could not export EDF file {} to columnar format: {}";
+    private static final String LOG_WARN_EXPORT_NOT_DELETED = "Could not delete columnar export of EDF file {}: {}";
+    private static final String DEFAULT_DIRECTORY_NAME = "edf-columns";
+    private static final String EXPORT_EXTENSION = ".columns";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private final FileProcessingService fileProcessingService;
+    private final EdfProperties properties;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("edf-columnar-exporter").daemon().factory());
+    private final Set<Path> scheduledFiles = ConcurrentHashMap.newKeySet();
+
+    public ColumnarExportServiceImpl(FileProcessingService fileProcessingService, EdfProperties properties) {
+        this.fileProcessingService = fileProcessingService;
+        this.properties = properties;
+    }
+
+    /**
+     * Rebuilds the export of a file that was exported before it changed.
+     */
+    @EventListener
+    public void onFileIngested(FileIngestedEvent event) {
+        if (Files.isRegularFile(getExportFile(event.fileInfo().getFileName()).getFile())) {
+            schedule(event.path(), event.fileInfo());
+        }
+    }
+
+    /**
+     * Deletes the export of a removed file, on the exporter thread so that it follows any export already queued.
+     */
+    @EventListener
+    public void onFileRemoved(FileRemovedEvent event) {
+        executor.execute(() -> delete(event.fileName()));
+    }
+
+    /**
+     * Interrupts a running export and waits for it to remove its temporary file.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public boolean export(String fileName) {
+        var fileInfo = fileProcessingService.getProcessedFile(fileName);
+        var path = fileProcessingService.getProcessedFilePath(fileName);
+        return fileInfo.isPresent() && path.isPresent() && schedule(path.get(), fileInfo.get());
+    }
+
+    @Override
+    public int exportAll() {
+        var scheduled = 0;
+        for (var fileInfo : fileProcessingService.getProcessedFiles()) {
+            var path = fileProcessingService.getProcessedFilePath(fileInfo.getFileName());
+            if (path.isPresent() && schedule(path.get(), fileInfo)) {
+                scheduled++;
+            }
+        }
+        return scheduled;
+    }
+
+    @Override
+    public Optional<ColumnarExport> open(String fileName) throws IOException {
+        var valid = fileProcessingService.getProcessedFile(fileName).filter(FileInfo::isValid);
+        var path = fileProcessingService.getProcessedFilePath(fileName);
+        if (valid.isEmpty() || path.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return getExportFile(fileName).open(Files.readAttributes(path.get(), BasicFileAttributes.class));
+    }
+
+    /**
+     * @return Whether the file can be exported; it is scheduled unless it already is.
+     */
+    private boolean schedule(Path path, FileInfo fileInfo) {
+        if (!fileInfo.isValid() || fileInfo.getDataRecordLayout() == null) {
+            return false;
+        }
+
+        if (scheduledFiles.add(path)) {
+            executor.execute(() -> {
+                // Unmark first, so that a change arriving while this export runs schedules another one
+                scheduledFiles.remove(path);
+                build(path, fileInfo);
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Exports a file unless its export is up to date. Failures are logged and leave readers on the data records.
+     */
+    void build(Path path, FileInfo fileInfo) {
+        try {
+            var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            var export = getExportFile(fileInfo.getFileName());
+            if (export.matches(attributes)) {
+                return;
+            }
+
+            var start = System.nanoTime();
+            Files.createDirectories(export.getFile().toAbsolutePath().getParent());
+            export.write(path, attributes, fileInfo.getDataRecordLayout());
+            log.info(LOG_INFO_EXPORT_BUILT, fileInfo.getFileName(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn(LOG_WARN_EXPORT_NOT_BUILT, fileInfo.getFileName(), e.getMessage());
+        }
+    }
+
+    private void delete(String fileName) {
+        try {
+            Files.deleteIfExists(getExportFile(fileName).getFile());
+        } catch (IOException e) {
+            log.warn(LOG_WARN_EXPORT_NOT_DELETED, fileName, e.getMessage());
+        }
+    }
+
+    private ColumnarFile getExportFile(String fileName) {
+        var configured = properties.getColumnarExport().getDirectory();
+        var directory = configured != null && !configured.isBlank()
+                ? Paths.get(configured)
+                : fileProcessingService.getDataDirectory().toAbsolutePath().resolveSibling(DEFAULT_DIRECTORY_NAME);
+        return new ColumnarFile(directory.resolve(fileName + EXPORT_EXTENSION));
+    }
+}
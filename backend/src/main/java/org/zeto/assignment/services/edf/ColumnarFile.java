@@ -0,0 +1,450 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.zeto.assignment.models.edf.DataRecordLayout;
+import org.zeto.assignment.models.edf.SignalHeader;
+
+/**
+ * Columnar export of the data channels of one EDF file.
+ * <p>
+ * The digital values of every signal except EDF+ annotation channels are cut into chunks of whole data records
+ * holding about {@value #CHUNK_SAMPLES} samples. A chunk is stored as the little-endian int16 differences between
+ * consecutive values, compressed with {@link Deflater}; slowly varying signals turn into small differences that
+ * compress well, and the encoding stays lossless. Chunks whose values are all equal, such as disconnected
+ * electrodes, take no bytes at all. Chunks are written as soon as they are full, so the export is produced in a
+ * single pass over the data records.
+ * <p>
+ * The footer at the end of the file is self-describing: the size and modification time of the EDF file the export
+ * was built from, the number of records, the {@link DataRecordLayout} with the calibration of every signal, and per
+ * signal a table of its chunks with their position, compressed length and digital min/max. A fixed trailer points
+ * at the footer. An export that does not match the current EDF file is treated as missing.
+ */
+final class ColumnarFile implements BaseService {
+    static final int CHUNK_SAMPLES = 1 << 16;
+
+    private static final int MAGIC = 0x45444643;
+    private static final int FORMAT_VERSION = 1;
+    private static final int PRELUDE_BYTES = 2 * Integer.BYTES;
+    private static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+    private static final String CORRUPT_CHUNK_MESSAGE = "Corrupt chunk %d of signal %d in %s";
+
+    private final Path file;
+
+    ColumnarFile(Path file) {
+        this.file = file;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Exports the data channels of {@code source} and atomically replaces the export file.
+     *
+     * @param attributes The attributes of {@code source} as they were before the export was built.
+     */
+    void write(Path source, BasicFileAttributes attributes, DataRecordLayout layout) throws IOException {
+        var tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        var encoder = new ChunkEncoder();
+
+        try (var in = CompressedEdfFiles.openChannel(source);
+             var out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            var reader = new SampleReader(in, layout);
+            var records = reader.getAvailableRecords();
+            var columns = new ArrayList<ColumnWriter>();
+            for (var signal = 0; signal < layout.getNumSignals(); signal++) {
+                if (!SignalHeader.ANNOTATION_CHANNEL_LABEL.equals(layout.getLabel(signal))) {
+                    columns.add(new ColumnWriter(signal, layout.getSamplesPerRecord(signal)));
+                }
+            }
+
+            writeFully(out, ByteBuffer.allocate(PRELUDE_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION).flip(), 0);
+            var position = new long[]{PRELUDE_BYTES};
+
+            reader.scan(0, records, (record, samples, recordStart) -> {
+                for (var column : columns) {
+                    if (column.samplesPerRecord > 0) {
+                        reader.readDigital(samples, recordStart, column.signal, 0, column.samplesPerRecord, column.values, column.count);
+                        column.count += column.samplesPerRecord;
+                        if (column.count == column.values.length) {
+                            position[0] = column.flush(out, position[0], encoder);
+                        }
+                    }
+                }
+            });
+            for (var column : columns) {
+                if (column.count > 0) {
+                    position[0] = column.flush(out, position[0], encoder);
+                }
+            }
+
+            var footer = writeFooter(attributes, layout, records, columns);
+            writeFully(out, ByteBuffer.wrap(footer), position[0]);
+            writeFully(out, ByteBuffer.allocate(TRAILER_BYTES).putLong(position[0]).putInt(MAGIC).flip(), position[0] + footer.length);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        } finally {
+            encoder.deflater.end();
+        }
+
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return Whether the export exists and was built from a file with the given attributes.
+     */
+    boolean matches(BasicFileAttributes sourceAttributes) {
+        try {
+            var export = open(sourceAttributes);
+            if (export.isEmpty()) {
+                return false;
+            }
+            export.get().close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Opens the export and reads its footer.
+     *
+     * @return The export, or an empty {@link Optional} if the file is missing, stale or truncated.
+     */
+    Optional<ColumnarExport> open(BasicFileAttributes sourceAttributes) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        var channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            var export = readFooter(channel, sourceAttributes);
+            if (export != null) {
+                return Optional.of(export);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        channel.close();
+        return Optional.empty();
+    }
+
+    /**
+     * @return The export described by the footer, or {@code null} if the file does not match {@code sourceAttributes}
+     * or is truncated.
+     */
+    private Reader readFooter(FileChannel channel, BasicFileAttributes sourceAttributes) throws IOException {
+        var size = channel.size();
+        if (size < PRELUDE_BYTES + TRAILER_BYTES) {
+            return null;
+        }
+
+        var prelude = readBytes(channel, 0, PRELUDE_BYTES);
+        var trailer = readBytes(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+        var footerOffset = trailer.getLong();
+        if (prelude.getInt() != MAGIC || prelude.getInt() != FORMAT_VERSION || trailer.getInt() != MAGIC
+                || footerOffset < PRELUDE_BYTES || footerOffset > size - TRAILER_BYTES) {
+            return null;
+        }
+
+        var footer = readBytes(channel, footerOffset, (int) (size - TRAILER_BYTES - footerOffset));
+        var in = new DataInputStream(new ByteArrayInputStream(footer.array()));
+        if (in.readLong() != sourceAttributes.size() || in.readLong() != sourceAttributes.lastModifiedTime().toMillis()) {
+            return null;
+        }
+
+        var records = in.readLong();
+        var layout = DataRecordLayout.readFrom(in);
+        var columns = new Column[layout.getNumSignals()];
+        var numColumns = in.readInt();
+        for (var c = 0; c < numColumns; c++) {
+            var signal = in.readInt();
+            var recordsPerChunk = in.readInt();
+            var chunks = in.readInt();
+            var column = new Column(layout.getSamplesPerRecord(signal), recordsPerChunk,
+                                    new long[chunks], new int[chunks], new short[chunks], new short[chunks]);
+            for (var chunk = 0; chunk < chunks; chunk++) {
+                column.offsets()[chunk] = in.readLong();
+                column.lengths()[chunk] = in.readInt();
+                column.minimums()[chunk] = in.readShort();
+                column.maximums()[chunk] = in.readShort();
+            }
+            columns[signal] = column;
+        }
+
+        return new Reader(file, channel, layout, records, columns);
+    }
+
+    private static byte[] writeFooter(BasicFileAttributes attributes, DataRecordLayout layout, long records,
+                                      List<ColumnWriter> columns) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+
+        out.writeLong(attributes.size());
+        out.writeLong(attributes.lastModifiedTime().toMillis());
+        out.writeLong(records);
+        layout.writeTo(out);
+
+        out.writeInt(columns.size());
+        for (var column : columns) {
+            out.writeInt(column.signal);
+            out.writeInt(column.recordsPerChunk);
+            out.writeInt(column.chunks.size());
+            for (var chunk : column.chunks) {
+                out.writeLong(chunk.offset());
+                out.writeInt(chunk.length());
+                out.writeShort(chunk.min());
+                out.writeShort(chunk.max());
+            }
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer, position);
+        }
+    }
+
+    /**
+     * Chunk table of one signal; chunk {@code i} holds the records {@code [i * recordsPerChunk, (i + 1) * recordsPerChunk)}.
+     */
+    private record Column(int samplesPerRecord, int recordsPerChunk, long[] offsets, int[] lengths, short[] minimums, short[] maximums) {
+    }
+
+    private record Chunk(long offset, int length, short min, short max) {
+    }
+
+    /**
+     * Delta-encodes and compresses chunks into buffers reused across chunks and signals.
+     */
+    private static final class ChunkEncoder {
+        private final Deflater deflater = new Deflater();
+        private byte[] encoded = new byte[0];
+        private byte[] compressed = new byte[0];
+
+        /**
+         * @return A buffer holding the compressed chunk, valid until the next call.
+         */
+        ByteBuffer encode(short[] values, int count) {
+            var length = count * Short.BYTES;
+            if (encoded.length < length) {
+                encoded = new byte[length];
+                compressed = new byte[length];
+            }
+
+            var deltas = ByteBuffer.wrap(encoded).order(ByteOrder.LITTLE_ENDIAN);
+            var previous = (short) 0;
+            for (var i = 0; i < count; i++) {
+                deltas.putShort(i * Short.BYTES, (short) (values[i] - previous));
+                previous = values[i];
+            }
+
+            deflater.reset();
+            deflater.setInput(encoded, 0, length);
+            deflater.finish();
+            var compressedLength = 0;
+            while (!deflater.finished()) {
+                if (compressedLength == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, 2 * compressed.length);
+                }
+                compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+            }
+            return ByteBuffer.wrap(compressed, 0, compressedLength);
+        }
+    }
+
+    /**
+     * Collects the values of one signal until a chunk is full and streams it to the export.
+     */
+    private static final class ColumnWriter {
+        private final int signal;
+        private final int samplesPerRecord;
+        private final int recordsPerChunk;
+        private final short[] values;
+        private final List<Chunk> chunks = new ArrayList<>();
+        private int count;
+
+        private ColumnWriter(int signal, int samplesPerRecord) {
+            this.signal = signal;
+            this.samplesPerRecord = samplesPerRecord;
+            this.recordsPerChunk = samplesPerRecord > 0 ? Math.max(1, CHUNK_SAMPLES / samplesPerRecord) : 1;
+            this.values = new short[recordsPerChunk * samplesPerRecord];
+        }
+
+        /**
+         * Writes the collected values as one chunk at {@code position}.
+         *
+         * @return The position after the chunk.
+         */
+        long flush(FileChannel out, long position, ChunkEncoder encoder) throws IOException {
+            var min = Short.MAX_VALUE;
+            var max = Short.MIN_VALUE;
+            for (var i = 0; i < count; i++) {
+                min = values[i] < min ? values[i] : min;
+                max = values[i] > max ? values[i] : max;
+            }
+
+            var length = 0;
+            if (min != max) {
+                var compressed = encoder.encode(values, count);
+                length = compressed.remaining();
+                writeFully(out, compressed, position);
+            }
+
+            chunks.add(new Chunk(position, length, min, max));
+            count = 0;
+            return position + length;
+        }
+    }
+
+    /**
+     * Decodes chunks of an open export into buffers reused across reads.
+     */
+    private static final class Reader implements ColumnarExport, BaseService {
+        private final Path file;
+        private final FileChannel channel;
+        private final DataRecordLayout layout;
+        private final long records;
+        private final Column[] columns;
+        private final Inflater inflater = new Inflater();
+        private ByteBuffer compressed = ByteBuffer.allocate(0);
+        private byte[] encoded = new byte[0];
+        private short[] values = new short[0];
+
+        private Reader(Path file, FileChannel channel, DataRecordLayout layout, long records, Column[] columns) {
+            this.file = file;
+            this.channel = channel;
+            this.layout = layout;
+            this.records = records;
+            this.columns = columns;
+        }
+
+        @Override
+        public long getRecords() {
+            return records;
+        }
+
+        @Override
+        public void read(int signal, long firstSample, int length, float[] target, int targetOffset) throws IOException {
+            var column = getColumn(signal);
+            Objects.checkFromIndexSize(firstSample, length, records * column.samplesPerRecord());
+            if (length == 0) {
+                return;
+            }
+
+            var gain = layout.getGain(signal);
+            var offset = layout.getOffset(signal);
+            var chunkSamples = (long) column.recordsPerChunk() * column.samplesPerRecord();
+            var lastChunk = (int) ((firstSample + length - 1) / chunkSamples);
+
+            for (var chunk = (int) (firstSample / chunkSamples); chunk <= lastChunk; chunk++) {
+                var count = decode(signal, column, chunk);
+                var chunkFirstSample = chunk * chunkSamples;
+                var from = (int) Math.max(0, firstSample - chunkFirstSample);
+                var to = (int) Math.min(count, firstSample + length - chunkFirstSample);
+                var at = targetOffset + (int) (chunkFirstSample + from - firstSample);
+
+                for (var k = from; k < to; k++) {
+                    target[at + k - from] = (float) (gain * values[k] + offset);
+                }
+            }
+        }
+
+        @Override
+        public void scan(int signal, DigitalValuesVisitor visitor) throws IOException {
+            var column = getColumn(signal);
+            for (var chunk = 0; chunk < column.offsets().length; chunk++) {
+                var count = decode(signal, column, chunk);
+                visitor.visit(values, count);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflater.end();
+            channel.close();
+        }
+
+        private Column getColumn(int signal) {
+            if (signal < 0 || signal >= columns.length || columns[signal] == null) {
+                throw new IllegalArgumentException("Signal %d is not exported".formatted(signal));
+            }
+            return columns[signal];
+        }
+
+        /**
+         * Decodes one chunk into {@link #values}.
+         *
+         * @return The number of values in the chunk.
+         */
+        private int decode(int signal, Column column, int chunk) throws IOException {
+            var firstRecord = (long) chunk * column.recordsPerChunk();
+            var count = (int) (Math.min(column.recordsPerChunk(), records - firstRecord) * column.samplesPerRecord());
+            if (values.length < count) {
+                values = new short[count];
+                encoded = new byte[count * Short.BYTES];
+            }
+
+            var length = column.lengths()[chunk];
+            if (length == 0) {
+                Arrays.fill(values, 0, count, column.minimums()[chunk]);
+                return count;
+            }
+
+            if (compressed.capacity() < length) {
+                compressed = ByteBuffer.allocate(length);
+            }
+            compressed.clear().limit(length);
+            readFully(channel, column.offsets()[chunk], compressed);
+
+            inflater.reset();
+            inflater.setInput(compressed.array(), 0, length);
+            try {
+                var inflated = 0;
+                while (inflated < count * Short.BYTES) {
+                    var n = inflater.inflate(encoded, inflated, count * Short.BYTES - inflated);
+                    if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                        throw new IOException(CORRUPT_CHUNK_MESSAGE.formatted(chunk, signal, file));
+                    }
+                    inflated += n;
+                }
+            } catch (DataFormatException e) {
+                throw new IOException(CORRUPT_CHUNK_MESSAGE.formatted(chunk, signal, file), e);
+            }
+
+            var deltas = ByteBuffer.wrap(encoded).order(ByteOrder.LITTLE_ENDIAN);
+            var previous = (short) 0;
+            for (var i = 0; i < count; i++) {
+                previous = (short) (previous + deltas.getShort(i * Short.BYTES));
+                values[i] = previous;
+            }
+            return count;
+        }
+    }
+}
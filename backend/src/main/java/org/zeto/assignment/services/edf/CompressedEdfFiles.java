@@ -0,0 +1,272 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Access to EDF files stored as they are ({@code .edf}), gzip-compressed ({@code .edf.gz}) or as an entry of a zip
+ * archive ({@code .zip}, whose first {@code .edf} entry is the recording).
+ * <p>
+ * {@link #openStream(Path)} decompresses a file sequentially, for parsing it in one forward pass, and
+ * {@link #openChannel(Path)} returns a {@link FileChannel} of the uncompressed content for positional reads of data
+ * records. Neither extracts the file to disk. Random access to gzip files starts at the closest of their
+ * {@link GzipCheckpoints}, which are recorded once per version of a file while it is ingested and kept in memory until
+ * the file is removed; random access to zip entries is cheap for stored entries and restarts decompression at the
+ * entry for deflated ones.
+ */
+final class CompressedEdfFiles {
+    static final String EDF_EXTENSION = ".edf";
+    static final String GZIP_EXTENSION = ".edf.gz";
+    static final String ZIP_EXTENSION = ".zip";
+
+    /**
+     * Minimum distance between gzip checkpoints, in uncompressed bytes.
+     */
+    static final long CHECKPOINT_SPACING = 4L << 20;
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final String NO_EDF_ENTRY_MESSAGE = "No .edf entry in %s";
+    private static final Map<Path, CachedCheckpoints> CHECKPOINTS = new ConcurrentHashMap<>();
+
+    private CompressedEdfFiles() {
+    }
+
+    /**
+     * @return Whether the name of {@code path} ends with one of the supported extensions, ignoring case.
+     */
+    static boolean isEdfFile(Path path) {
+        var name = lowerCaseName(path);
+        return name.endsWith(EDF_EXTENSION) || name.endsWith(GZIP_EXTENSION) || name.endsWith(ZIP_EXTENSION);
+    }
+
+    static boolean isCompressed(Path path) {
+        var name = lowerCaseName(path);
+        return name.endsWith(GZIP_EXTENSION) || name.endsWith(ZIP_EXTENSION);
+    }
+
+    /**
+     * Closing the stream of a gzip file decompresses what was left unread and keeps the {@link GzipCheckpoints}
+     * recorded along the way, so that the pass that parses the file also prepares it for {@link #openChannel(Path)}.
+     *
+     * @return The uncompressed content of the file, to be read once from start to end.
+     * @throws ZipException If a zip archive has no {@code .edf} entry.
+     */
+    static InputStream openStream(Path path) throws IOException {
+        var name = lowerCaseName(path);
+        var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        var in = new BufferedInputStream(Files.newInputStream(path), BUFFER_BYTES);
+        try {
+            if (name.endsWith(GZIP_EXTENSION)) {
+                return new RecordingStream(path, attributes, new GzipCheckpoints.Recorder(in, CHECKPOINT_SPACING));
+            }
+            if (name.endsWith(ZIP_EXTENSION)) {
+                var zip = new ZipInputStream(in);
+                for (var entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                    if (isEdfEntry(entry)) {
+                        return zip;
+                    }
+                }
+                throw new ZipException(NO_EDF_ENTRY_MESSAGE.formatted(path.getFileName()));
+            }
+            return in;
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return A read-only channel of the uncompressed content of the file.
+     * @throws ZipException If a zip archive has no {@code .edf} entry, or a gzip file is corrupt.
+     */
+    static FileChannel openChannel(Path path) throws IOException {
+        var name = lowerCaseName(path);
+        if (name.endsWith(GZIP_EXTENSION)) {
+            var channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                return new InflatingFileChannel(new GzipSource(channel, getCheckpoints(path, channel)));
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+        if (name.endsWith(ZIP_EXTENSION)) {
+            var zip = new ZipFile(path.toFile());
+            try {
+                var entry = zip.stream()
+                               .filter(CompressedEdfFiles::isEdfEntry)
+                               .findFirst()
+                               .orElseThrow(() -> new ZipException(NO_EDF_ENTRY_MESSAGE.formatted(path.getFileName())));
+                return new InflatingFileChannel(new ZipSource(zip, entry));
+            } catch (IOException | RuntimeException e) {
+                zip.close();
+                throw e;
+            }
+        }
+        return FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /**
+     * The size of a gzip file comes from its checkpoints, which are normally recorded while the file is ingested;
+     * otherwise it takes decompressing the whole file.
+     *
+     * @param attributes The current attributes of {@code path}.
+     * @return The size of the uncompressed content of the file.
+     */
+    static long getSize(Path path, BasicFileAttributes attributes) throws IOException {
+        if (!isCompressed(path)) {
+            return attributes.size();
+        }
+        try (var channel = openChannel(path)) {
+            return channel.size();
+        }
+    }
+
+    /**
+     * @param attributes The attributes of {@code path} when it was read.
+     * @return Whether {@code path} is a gzip file whose checkpoints for that version have not been recorded yet.
+     */
+    static boolean needsCheckpoints(Path path, BasicFileAttributes attributes) {
+        if (!lowerCaseName(path).endsWith(GZIP_EXTENSION)) {
+            return false;
+        }
+        var cached = CHECKPOINTS.get(path);
+        return cached == null || !cached.matches(attributes);
+    }
+
+    /**
+     * Records the checkpoints of a gzip file that was not read with {@link #openStream(Path)}, e.g. because its
+     * metadata came from a cache.
+     *
+     * @throws ZipException If the gzip file is corrupt.
+     */
+    static void buildCheckpoints(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            getCheckpoints(path, channel);
+        }
+    }
+
+    /**
+     * Drops the checkpoints of a removed or replaced file.
+     */
+    static void evict(Path path) {
+        CHECKPOINTS.remove(path);
+    }
+
+    private static GzipCheckpoints getCheckpoints(Path path, FileChannel channel) throws IOException {
+        var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        var cached = CHECKPOINTS.get(path);
+        if (cached != null && cached.matches(attributes)) {
+            return cached.checkpoints();
+        }
+
+        var checkpoints = GzipCheckpoints.build(channel, CHECKPOINT_SPACING);
+        cache(path, attributes, checkpoints);
+        return checkpoints;
+    }
+
+    private static void cache(Path path, BasicFileAttributes attributes, GzipCheckpoints checkpoints) {
+        CHECKPOINTS.put(path, new CachedCheckpoints(attributes.size(), attributes.lastModifiedTime().toMillis(), checkpoints));
+    }
+
+    private static boolean isEdfEntry(ZipEntry entry) {
+        return !entry.isDirectory() && entry.getName().toLowerCase(Locale.ROOT).endsWith(EDF_EXTENSION);
+    }
+
+    private static String lowerCaseName(Path path) {
+        return path.getFileName().toString().toLowerCase(Locale.ROOT);
+    }
+
+    private record CachedCheckpoints(long size, long lastModified, GzipCheckpoints checkpoints) {
+        boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+        }
+    }
+
+    /**
+     * Stream of a gzip file that keeps its checkpoints when closed. A file that turns out to be corrupt past the
+     * bytes read keeps none; its checkpoints are then built, and the error reported, on random access.
+     */
+    private static final class RecordingStream extends FilterInputStream {
+        private final Path path;
+        private final BasicFileAttributes attributes;
+        private final GzipCheckpoints.Recorder recorder;
+
+        private RecordingStream(Path path, BasicFileAttributes attributes, GzipCheckpoints.Recorder recorder) {
+            super(recorder);
+            this.path = path;
+            this.attributes = attributes;
+            this.recorder = recorder;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (recorder) {
+                cache(path, attributes, recorder.finish());
+            } catch (IOException e) {
+                // Left to openChannel
+            }
+        }
+    }
+
+    private record GzipSource(FileChannel channel, GzipCheckpoints checkpoints) implements InflatingFileChannel.Source {
+        @Override
+        public long size() {
+            return checkpoints.getUncompressedSize();
+        }
+
+        @Override
+        public long checkpointAt(long position) {
+            return checkpoints.getUncompressedOffset(checkpoints.indexAt(position));
+        }
+
+        @Override
+        public InputStream open(long checkpoint) throws IOException {
+            return checkpoints.open(channel, checkpoints.indexAt(checkpoint));
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Zip entries are only entered at their start. Skipping forward in a stored entry does not read the skipped bytes.
+     */
+    private record ZipSource(ZipFile zip, ZipEntry entry) implements InflatingFileChannel.Source {
+        @Override
+        public long size() {
+            return entry.getSize();
+        }
+
+        @Override
+        public long checkpointAt(long position) {
+            return 0;
+        }
+
+        @Override
+        public InputStream open(long checkpoint) throws IOException {
+            return zip.getInputStream(entry);
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.close();
+        }
+    }
+}
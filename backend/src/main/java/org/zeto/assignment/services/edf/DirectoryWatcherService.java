@@ -0,0 +1,36 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Service watching the EDF directory tree for files being added, modified or removed.
+ */
+public interface DirectoryWatcherService {
+    /**
+     * Starts watching {@code directory} and all of its subdirectories. File system events are debounced and
+     * coalesced per path, and delivered to {@code listener} as batches on a background thread.
+     *
+     * @param directory The directory to watch.
+     * @param listener  Receives each batch of coalesced changes.
+     * @throws IOException If the directory cannot be registered with the file system's watch service.
+     */
+    void start(Path directory, Consumer<DirectoryChanges> listener) throws IOException;
+
+    /**
+     * Stops watching; pending changes that were not delivered yet are discarded.
+     */
+    void stop();
+
+    /**
+     * A batch of coalesced file system changes.
+     *
+     * @param changed  Regular files that were created or modified and still exist.
+     * @param deleted  Paths that were removed.
+     * @param overflow Whether events were lost, in which case the whole directory must be rescanned.
+     */
+    record DirectoryChanges(Set<Path> changed, Set<Path> deleted, boolean overflow) {
+    }
+}
@@ -0,0 +1,188 @@
+package org.zeto.assignment.services.edf;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.zeto.assignment.configuration.EdfProperties;
+
+/**
+ * {@link DirectoryWatcherService} built on {@link java.nio.file.WatchService}.
+ * <p>
+ * A single daemon thread collects events for the watched tree. Events are coalesced into a set of
+ * affected paths; once no new event has arrived for the configured debounce period (or the oldest
+ * pending event is ten debounce periods old, so a continuously written file cannot delay ingestion
+ * forever), the set is split into existing and removed files and handed to the listener. Whether a
+ * path was created, modified several times or created and deleted again therefore only matters by
+ * its final state. New subdirectories are registered as they appear.
+ */
+@Service
+@Slf4j
+public class DirectoryWatcherServiceImpl implements DirectoryWatcherService {
+    private static final String LOG_INFO_WATCHING_DIRECTORY = "Watching EDF directory for changes: {}";
+    private static final String LOG_WARN_LISTENER_FAILED = "Failed to apply EDF directory changes: {}";
+    private static final String LOG_WARN_REGISTER_FAILED = "Could not watch directory {}: {}";
+    private static final String WATCHER_THREAD_NAME = "edf-directory-watcher";
+    private static final int MAX_DEBOUNCE_PERIODS = 10;
+
+    private final EdfProperties properties;
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    public DirectoryWatcherServiceImpl(EdfProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public synchronized void start(Path directory, Consumer<DirectoryChanges> listener) throws IOException {
+        if (!properties.getWatch().isEnabled()) {
+            return;
+        }
+
+        stop();
+        watchService = directory.getFileSystem().newWatchService();
+        registerRecursively(watchService, directory, new HashSet<>());
+
+        var service = watchService;
+        watcherThread = Thread.ofPlatform()
+                              .name(WATCHER_THREAD_NAME)
+                              .daemon()
+                              .start(() -> watch(service, listener));
+        log.info(LOG_INFO_WATCHING_DIRECTORY, directory);
+    }
+
+    @Override
+    @PreDestroy
+    public synchronized void stop() {
+        if (watchService == null) {
+            return;
+        }
+
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.debug(e.getMessage(), e);
+        }
+        watcherThread.interrupt();
+        watchService = null;
+        watcherThread = null;
+    }
+
+    private void watch(WatchService service, Consumer<DirectoryChanges> listener) {
+        var debounceNanos = properties.getWatch().getDebounce().toNanos();
+        var pending = new LinkedHashSet<Path>();
+        var overflow = false;
+        var firstPendingNanos = 0L;
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                var key = pending.isEmpty() && !overflow ? service.take() : service.poll(debounceNanos, TimeUnit.NANOSECONDS);
+
+                if (key != null) {
+                    if (pending.isEmpty() && !overflow) {
+                        firstPendingNanos = System.nanoTime();
+                    }
+                    overflow |= collectEvents(service, key, pending);
+                }
+
+                var quiet = key == null;
+                var overdue = System.nanoTime() - firstPendingNanos >= MAX_DEBOUNCE_PERIODS * debounceNanos;
+                if ((quiet || overdue) && (overflow || !pending.isEmpty())) {
+                    deliver(listener, pending, overflow);
+                    pending = new LinkedHashSet<>();
+                    overflow = false;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Adds the paths affected by the events of {@code key} to {@code pending}.
+     *
+     * @return Whether the watch service reported lost events.
+     */
+    private boolean collectEvents(WatchService service, WatchKey key, Set<Path> pending) {
+        var directory = (Path) key.watchable();
+        var overflow = false;
+
+        for (var event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                overflow = true;
+                continue;
+            }
+
+            var path = directory.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+                registerRecursively(service, path, pending);
+            } else {
+                pending.add(path);
+            }
+        }
+
+        key.reset();
+        return overflow;
+    }
+
+    private static void deliver(Consumer<DirectoryChanges> listener, Set<Path> pending, boolean overflow) {
+        var changed = new LinkedHashSet<Path>();
+        var deleted = new LinkedHashSet<Path>();
+
+        for (var path : pending) {
+            if (Files.isRegularFile(path)) {
+                changed.add(path);
+            } else if (!Files.exists(path)) {
+                deleted.add(path);
+            }
+        }
+
+        try {
+            listener.accept(new DirectoryChanges(changed, deleted, overflow));
+        } catch (RuntimeException e) {
+            log.warn(LOG_WARN_LISTENER_FAILED, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Registers {@code directory} and its subdirectories. Files already present in newly created
+     * subdirectories are added to {@code pending}, since their creation events may precede the registration.
+     */
+    private static void registerRecursively(WatchService service, Path directory, Set<Path> pending) {
+        try (var paths = Files.walk(directory)) {
+            paths.forEach(path -> {
+                if (Files.isDirectory(path)) {
+                    register(service, path);
+                } else {
+                    pending.add(path);
+                }
+            });
+        } catch (IOException e) {
+            log.warn(LOG_WARN_REGISTER_FAILED, directory, e.getMessage());
+        }
+    }
+
+    private static void register(WatchService service, Path directory) {
+        try {
+            directory.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        } catch (IOException e) {
+            log.warn(LOG_WARN_REGISTER_FAILED, directory, e.getMessage());
+        }
+    }
+}
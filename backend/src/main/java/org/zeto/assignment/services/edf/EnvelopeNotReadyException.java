@@ -0,0 +1,12 @@
+package org.zeto.assignment.services.edf;
+
+/**
+ * Thrown when an envelope needs a level of the pyramid of a file that is not built yet. The build is scheduled
+ * before this is thrown, so the request can be retried.
+ */
+public class EnvelopeNotReadyException extends Exception {
+
+    public EnvelopeNotReadyException(String fileName) {
+        super("The envelope pyramid of EDF file %s is not built yet".formatted(fileName));
+    }
+}
@@ -0,0 +1,29 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.zeto.assignment.models.edf.SignalEnvelope;
+
+/**
+ * Service for building and querying multi-resolution min/max envelopes of the channels of processed EDF files.
+ */
+public interface EnvelopeService {
+    /**
+     * Returns the min/max envelope of one channel for the samples whose time lies in {@code [start, end)},
+     * folded into at most {@code width} buckets. The coarsest precomputed level that still provides at least
+     * {@code width} bins is used; raw samples are only read when even the finest level has fewer bins.
+     *
+     * @param fileName The name of the EDF file, including its extension.
+     * @param label    The label of the data channel.
+     * @param start    Inclusive start of the window, in seconds from the start of the recording.
+     * @param end      Exclusive end of the window, in seconds from the start of the recording.
+     * @param width    The number of buckets to fill, typically the width of the plot in pixels.
+     * @return The envelope, or an empty {@link Optional} if the file or channel does not exist, or if the window
+     * needs a level while pyramids are disabled.
+     * @throws IOException                If the file or its envelope cannot be read.
+     * @throws EnvelopeNotReadyException If the window needs a level of a pyramid that is not built yet.
+     */
+    Optional<SignalEnvelope> getEnvelope(String fileName, String label, double start, double end, int width)
+            throws IOException, EnvelopeNotReadyException;
+}
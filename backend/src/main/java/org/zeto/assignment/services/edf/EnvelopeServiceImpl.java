@@ -0,0 +1,304 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.DataRecordLayout;
+import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.models.edf.SignalEnvelope;
+
+/**
+ * {@link EnvelopeService} backed by per-file {@link EnvelopeSidecar}s.
+ * <p>
+ * Pyramids are built one file at a time on a single background thread, for every file present once the
+ * application is ready and for every file ingested afterwards (see {@link FileIngestedEvent}). Sidecars that still
+ * match their EDF file are kept, so restarts only build pyramids of new or changed files.
+ * <p>
+ * A query reads only the bins of the chosen level that overlap the requested window, at most ten times the
+ * requested width, so an overview of a whole recording costs kilobytes regardless of the size of the file. Raw
+ * samples are only folded for windows too short for any level; until the level a window needs is built, queries
+ * fail with {@link EnvelopeNotReadyException} rather than reading a large window sample by sample.
+ */
+@Service
+@Slf4j
+public class EnvelopeServiceImpl implements EnvelopeService {
+    static final int MAX_WIDTH = 10_000;
+    private static final String LOG_INFO_ENVELOPE_BUILT = "Built envelope pyramid of EDF file {} in {} ms";
+    private static final String LOG_WARN_ENVELOPE_NOT_BUILT = "Could not build envelope pyramid of EDF file {}: {}";
+    private static final String LOG_WARN_ENVELOPE_NOT_DELETED = "Could not delete envelope pyramid of EDF file {}: {}";
+    private static final String DEFAULT_DIRECTORY_NAME = "edf-envelopes";
+    private static final String SIDECAR_EXTENSION = ".envelope";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private final FileProcessingService fileProcessingService;
+    private final RecordIndexService recordIndexService;
+    private final EdfProperties properties;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("edf-envelope-builder").daemon().factory());
+    private final Set<Path> scheduledFiles = ConcurrentHashMap.newKeySet();
+
+    public EnvelopeServiceImpl(FileProcessingService fileProcessingService, RecordIndexService recordIndexService,
+                               EdfProperties properties) {
+        this.fileProcessingService = fileProcessingService;
+        this.recordIndexService = recordIndexService;
+        this.properties = properties;
+    }
+
+    /**
+     * Schedules the pyramids of all files ingested during startup, before any listener was registered.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleProcessedFiles() {
+        for (var fileInfo : fileProcessingService.getProcessedFiles()) {
+            fileProcessingService.getProcessedFilePath(fileInfo.getFileName()).ifPresent(path -> schedule(path, fileInfo));
+        }
+    }
+
+    @EventListener
+    public void onFileIngested(FileIngestedEvent event) {
+        schedule(event.path(), event.fileInfo());
+    }
+
+    /**
+     * Deletes the pyramid of a removed file. It is queued behind pending builds, so a build of the file scheduled
+     * before the removal cannot leave a sidecar behind.
+     */
+    @EventListener
+    public void onFileRemoved(FileRemovedEvent event) {
+        executor.execute(() -> delete(event.fileName()));
+    }
+
+    /**
+     * Interrupts a running build and waits for it to remove its temporary file.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void schedule(Path path, FileInfo fileInfo) {
+        if (!properties.getEnvelope().isEnabled() || !fileInfo.isValid() || fileInfo.getDataRecordLayout() == null) {
+            return;
+        }
+
+        if (scheduledFiles.add(path)) {
+            executor.execute(() -> {
+                // Unmark first, so that a change arriving while this build runs schedules another one
+                scheduledFiles.remove(path);
+                build(path, fileInfo);
+            });
+        }
+    }
+
+    /**
+     * Builds the pyramid of a file unless its sidecar is up to date. Failures are logged and leave queries
+     * on the raw-sample fallback.
+     */
+    void build(Path path, FileInfo fileInfo) {
+        try {
+            var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            var sidecar = getSidecar(fileInfo.getFileName());
+            if (sidecar.matches(attributes)) {
+                return;
+            }
+
+            var start = System.nanoTime();
+            Files.createDirectories(sidecar.getFile().toAbsolutePath().getParent());
+            sidecar.write(path, attributes, fileInfo.getDataRecordLayout());
+            log.info(LOG_INFO_ENVELOPE_BUILT, fileInfo.getFileName(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn(LOG_WARN_ENVELOPE_NOT_BUILT, fileInfo.getFileName(), e.getMessage());
+        }
+    }
+
+    @Override
+    public Optional<SignalEnvelope> getEnvelope(String fileName, String label, double start, double end, int width)
+            throws IOException, EnvelopeNotReadyException {
+        var fileInfo = fileProcessingService.getProcessedFile(fileName)
+                                            .filter(FileInfo::isValid)
+                                            .filter(file -> file.getDataRecordLayout() != null);
+        var path = fileProcessingService.getProcessedFilePath(fileName);
+        if (fileInfo.isEmpty() || path.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var signal = fileInfo.get().getDataRecordLayout().indexOfDataChannel(label);
+        if (signal == -1) {
+            return Optional.empty();
+        }
+
+        return readEnvelope(path.get(), fileInfo.get(), signal, start, end, Math.clamp(width, 1, MAX_WIDTH));
+    }
+
+    /**
+     * Folds the window from the level chosen by {@link #chooseDecimationFactor(long, int)}, or from the raw samples
+     * when no level is coarse enough to be worth it. A missing or stale level schedules the build of the pyramid.
+     * <p>
+     * The bounds are located with the {@link RecordIndexService}, as for sample windows, so the window of a
+     * discontinuous EDF+ recording starts at the record actually holding {@code start} and spans the records up to
+     * the one holding {@code end}, back to back.
+     */
+    private Optional<SignalEnvelope> readEnvelope(Path path, FileInfo fileInfo, int signal, double start, double end, int width)
+            throws IOException, EnvelopeNotReadyException {
+        var fileName = fileInfo.getFileName();
+        var layout = fileInfo.getDataRecordLayout();
+        var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        var sampleRate = layout.getSampleRate(signal);
+        var totalSamples = sampleRate > 0 ? SampleReader.getAvailableRecords(layout, CompressedEdfFiles.getSize(path, attributes)) * layout.getSamplesPerRecord(signal) : 0;
+        var from = recordIndexService.locate(fileName, start).orElse(null);
+        var to = recordIndexService.locate(fileName, end).orElse(null);
+        var samplesPerRecord = layout.getSamplesPerRecord(signal);
+        var first = Math.clamp(SignalDataServiceImpl.sampleAt(from, start, samplesPerRecord, sampleRate), 0, totalSamples);
+        var last = Math.clamp(SignalDataServiceImpl.sampleAt(to, end, samplesPerRecord, sampleRate), first, totalSamples);
+
+        var factor = chooseDecimationFactor(last - first, width);
+        var level = Optional.<EnvelopeSidecar.Level>empty();
+        if (factor > 1) {
+            if (!properties.getEnvelope().isEnabled()) {
+                return Optional.empty();
+            }
+
+            level = getSidecar(fileName).findLevel(attributes, layout.getLabel(signal), factor);
+            if (level.isEmpty()) {
+                schedule(path, fileInfo);
+                throw new EnvelopeNotReadyException(fileName);
+            }
+        }
+
+        var buckets = level.isPresent()
+                ? foldLevel(getSidecar(fileName), level.get(), layout, signal, first, last, width)
+                : foldSamples(path, layout, signal, first, last, width);
+
+        var envelope = SignalEnvelope.builder()
+                                     .fileName(fileName)
+                                     .label(layout.getLabel(signal))
+                                     .physicalDimension(layout.getPhysicalDimension(signal))
+                                     .start(from == null || sampleRate == 0 ? 0 : from.getOnset() + (first - (long) from.getRecord() * samplesPerRecord) / sampleRate)
+                                     .bucketDuration(buckets.size() > 0 ? (last - first) / sampleRate / buckets.size() : 0)
+                                     .decimation(level.map(EnvelopeSidecar.Level::factor).orElse(1))
+                                     .minimums(buckets.minimums)
+                                     .maximums(buckets.maximums)
+                                     .build();
+        return Optional.of(envelope);
+    }
+
+    /**
+     * @return The largest decimation factor that still leaves at least {@code width} bins for {@code samples}
+     * samples, or 1 if even the finest level has fewer bins.
+     */
+    static int chooseDecimationFactor(long samples, int width) {
+        var factors = EnvelopeSidecar.DECIMATION_FACTORS;
+        for (var i = factors.length - 1; i >= 0; i--) {
+            if (samples / factors[i] >= width) {
+                return factors[i];
+            }
+        }
+        return 1;
+    }
+
+    private static Buckets foldLevel(EnvelopeSidecar sidecar, EnvelopeSidecar.Level level, DataRecordLayout layout, int signal,
+                                     long first, long last, int width) throws IOException {
+        var fromBin = first / level.factor();
+        var toBin = Math.min(level.binCount(), (last + level.factor() - 1) / level.factor());
+        var count = (int) (toBin - fromBin);
+        var bins = sidecar.readBins(level, fromBin, count);
+        var buckets = new Buckets(count, width);
+        var gain = layout.getGain(signal);
+        var offset = layout.getOffset(signal);
+
+        for (var i = 0; i < count; i++) {
+            var a = (float) (gain * bins.getShort() + offset);
+            var b = (float) (gain * bins.getShort() + offset);
+            // A negative gain swaps the digital minimum and maximum
+            buckets.add(i, Math.min(a, b), Math.max(a, b));
+        }
+        return buckets;
+    }
+
+    private static Buckets foldSamples(Path path, DataRecordLayout layout, int signal, long first, long last, int width) throws IOException {
+        var count = last - first;
+        var buckets = new Buckets(count, width);
+        if (count == 0) {
+            return buckets;
+        }
+
+        var samplesPerRecord = layout.getSamplesPerRecord(signal);
+        var samples = new float[samplesPerRecord];
+
+        try (var channel = CompressedEdfFiles.openChannel(path)) {
+            var reader = new SampleReader(channel, layout);
+
+            reader.scan(first / samplesPerRecord, (last - 1) / samplesPerRecord + 1, (record, window, recordStart) -> {
+                var recordFirstSample = record * samplesPerRecord;
+                var from = (int) Math.max(0, first - recordFirstSample);
+                var to = (int) Math.min(samplesPerRecord, last - recordFirstSample);
+
+                reader.decode(window, recordStart, signal, from, to - from, samples, 0);
+                for (var k = 0; k < to - from; k++) {
+                    buckets.add(recordFirstSample + from + k - first, samples[k], samples[k]);
+                }
+            });
+        }
+        return buckets;
+    }
+
+    private void delete(String fileName) {
+        try {
+            Files.deleteIfExists(getSidecar(fileName).getFile());
+        } catch (IOException e) {
+            log.warn(LOG_WARN_ENVELOPE_NOT_DELETED, fileName, e.getMessage());
+        }
+    }
+
+    private EnvelopeSidecar getSidecar(String fileName) {
+        var configured = properties.getEnvelope().getDirectory();
+        var directory = configured != null && !configured.isBlank()
+                ? Paths.get(configured)
+                : fileProcessingService.getDataDirectory().toAbsolutePath().resolveSibling(DEFAULT_DIRECTORY_NAME);
+        return new EnvelopeSidecar(directory.resolve(fileName + SIDECAR_EXTENSION));
+    }
+
+    /**
+     * Folds {@code items} consecutive (min, max) pairs into {@code min(items, width)} buckets of nearly equal size.
+     */
+    private static final class Buckets {
+        private final long items;
+        private final float[] minimums;
+        private final float[] maximums;
+
+        private Buckets(long items, int width) {
+            var size = (int) Math.min(items, width);
+            this.items = items;
+            this.minimums = new float[size];
+            this.maximums = new float[size];
+            Arrays.fill(minimums, Float.POSITIVE_INFINITY);
+            Arrays.fill(maximums, Float.NEGATIVE_INFINITY);
+        }
+
+        int size() {
+            return minimums.length;
+        }
+
+        void add(long item, float min, float max) {
+            var bucket = (int) (item * minimums.length / items);
+            minimums[bucket] = Math.min(minimums[bucket], min);
+            maximums[bucket] = Math.max(maximums[bucket], max);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.zeto.assignment.models.edf.DataRecordLayout;
+
+/**
+ * Sidecar file holding the min/max envelope pyramid of the data channels of one EDF file.
+ * <p>
+ * For every data channel and every factor of {@link #DECIMATION_FACTORS}, the sidecar stores one (min, max)
+ * pair of digital values per bin of {@code factor} consecutive samples. Digital values are the int16 samples
+ * exactly as stored in the EDF file, so bins cost four bytes and stay lossless; readers apply the channel's
+ * calibration. Each level is built by folding {@value #FOLD} bins of the next finer level, so the whole pyramid
+ * is produced in a single pass over the data records. The number of bins of every level follows from the {@link DataRecordLayout}, so the header, a table of
+ * contents pointing at each level, is written first and levels are streamed to their final positions.
+ * <p>
+ * The header records the size and modification time of the EDF file the pyramid was built from; a sidecar that
+ * does not match the current file is treated as missing. Levels are stored as little-endian int16 pairs and read
+ * with positional reads of just the requested bins.
+ */
+final class EnvelopeSidecar implements BaseService {
+    static final int[] DECIMATION_FACTORS = {10, 100, 1000};
+
+    private static final int FOLD = 10;
+    private static final int MAGIC = 0x45444645;
+    private static final int FORMAT_VERSION = 1;
+    private static final int BIN_BYTES = 2 * Short.BYTES;
+    private static final int WRITE_BUFFER_BYTES = 8192;
+
+    private final Path file;
+
+    EnvelopeSidecar(Path file) {
+        this.file = file;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Builds the pyramid of {@code source} and atomically replaces the sidecar file with it.
+     *
+     * @param attributes The attributes of {@code source} as they were before the pyramid was built.
+     */
+    void write(Path source, BasicFileAttributes attributes, DataRecordLayout layout) throws IOException {
+        var tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+
+        try (var in = CompressedEdfFiles.openChannel(source);
+             var out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            var reader = new SampleReader(in, layout);
+            var records = reader.getAvailableRecords();
+            var channels = getDataChannels(layout);
+
+            var header = writeHeader(attributes, layout, channels, records, 0);
+            header = writeHeader(attributes, layout, channels, records, header.length);
+            writeFully(out, ByteBuffer.wrap(header), 0);
+
+            var writers = createLevelWriters(out, layout, channels, records, header.length);
+            var samples = new short[channels.stream().mapToInt(layout::getSamplesPerRecord).max().orElse(0)];
+
+            reader.scan(0, records, (record, window, recordStart) -> {
+                for (var c = 0; c < channels.size(); c++) {
+                    var signal = channels.get(c);
+                    var samplesPerRecord = layout.getSamplesPerRecord(signal);
+
+                    reader.readDigital(window, recordStart, signal, 0, samplesPerRecord, samples);
+                    for (var k = 0; k < samplesPerRecord; k++) {
+                        writers.get(c).add(samples[k], samples[k]);
+                    }
+                }
+            });
+
+            for (var writer : writers) {
+                writer.finish();
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return Whether the sidecar exists and was built from a file with the given attributes.
+     */
+    boolean matches(BasicFileAttributes sourceAttributes) {
+        try (var in = openHeader()) {
+            return in != null && readSourceMatches(in, sourceAttributes);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Locates the level of a channel with the given decimation factor.
+     *
+     * @return The level, or an empty {@link Optional} if the sidecar is missing, stale, or has no such channel or level.
+     */
+    Optional<Level> findLevel(BasicFileAttributes sourceAttributes, String label, int factor) throws IOException {
+        try (var in = openHeader()) {
+            if (in == null || !readSourceMatches(in, sourceAttributes)) {
+                return Optional.empty();
+            }
+
+            var factors = new int[in.readInt()];
+            for (var i = 0; i < factors.length; i++) {
+                factors[i] = in.readInt();
+            }
+
+            var numChannels = in.readInt();
+            for (var c = 0; c < numChannels; c++) {
+                var channelLabel = in.readUTF();
+                for (var f : factors) {
+                    var level = new Level(f, in.readLong(), in.readLong());
+                    if (f == factor && channelLabel.equals(label)) {
+                        return Optional.of(level);
+                    }
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Reads the bins {@code [fromBin, fromBin + count)} of a level with one positional read.
+     *
+     * @return A little-endian buffer holding {@code count} (min, max) pairs of digital values.
+     */
+    ByteBuffer readBins(Level level, long fromBin, int count) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readBytes(channel, level.dataOffset() + fromBin * BIN_BYTES, count * BIN_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    private DataInputStream openHeader() throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            in.close();
+            return null;
+        }
+        return in;
+    }
+
+    private static boolean readSourceMatches(DataInputStream in, BasicFileAttributes sourceAttributes) throws IOException {
+        return in.readLong() == sourceAttributes.size() && in.readLong() == sourceAttributes.lastModifiedTime().toMillis();
+    }
+
+    /**
+     * Signals whose envelope is stored: every labelled signal except annotation channels and repeated labels.
+     */
+    private static List<Integer> getDataChannels(DataRecordLayout layout) {
+        var channels = new ArrayList<Integer>();
+        for (var signal = 0; signal < layout.getNumSignals(); signal++) {
+            if (layout.indexOfDataChannel(layout.getLabel(signal)) == signal) {
+                channels.add(signal);
+            }
+        }
+        return channels;
+    }
+
+    private static byte[] writeHeader(BasicFileAttributes attributes, DataRecordLayout layout, List<Integer> channels,
+                                      long records, long dataOffset) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(attributes.size());
+        out.writeLong(attributes.lastModifiedTime().toMillis());
+        out.writeInt(DECIMATION_FACTORS.length);
+        for (var factor : DECIMATION_FACTORS) {
+            out.writeInt(factor);
+        }
+
+        out.writeInt(channels.size());
+        var position = dataOffset;
+        for (var signal : channels) {
+            out.writeUTF(layout.getLabel(signal));
+            for (var factor : DECIMATION_FACTORS) {
+                var bins = binCount(records * layout.getSamplesPerRecord(signal), factor);
+                out.writeLong(bins);
+                out.writeLong(position);
+                position += bins * BIN_BYTES;
+            }
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static List<LevelWriter> createLevelWriters(FileChannel out, DataRecordLayout layout, List<Integer> channels,
+                                                        long records, long dataOffset) {
+        var writers = new ArrayList<LevelWriter>(channels.size());
+        var position = dataOffset;
+
+        for (var signal : channels) {
+            var samples = records * layout.getSamplesPerRecord(signal);
+            LevelWriter coarser = null;
+            var levelPosition = position;
+            var positions = new long[DECIMATION_FACTORS.length];
+            for (var i = 0; i < DECIMATION_FACTORS.length; i++) {
+                positions[i] = levelPosition;
+                levelPosition += binCount(samples, DECIMATION_FACTORS[i]) * BIN_BYTES;
+            }
+            for (var i = DECIMATION_FACTORS.length - 1; i >= 0; i--) {
+                coarser = new LevelWriter(out, positions[i], coarser);
+            }
+            writers.add(coarser);
+            position = levelPosition;
+        }
+
+        return writers;
+    }
+
+    private static long binCount(long samples, int factor) {
+        return (samples + factor - 1) / factor;
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer, position);
+        }
+    }
+
+    /**
+     * Location of one level of one channel: {@code binCount} bins of {@code factor} samples starting at {@code dataOffset}.
+     */
+    record Level(int factor, long binCount, long dataOffset) {
+    }
+
+    /**
+     * Folds incoming (min, max) pairs into bins of {@value #FOLD}, streams completed bins to the sidecar and
+     * passes them on to the next coarser level.
+     */
+    private static final class LevelWriter {
+        private final FileChannel out;
+        private final LevelWriter coarser;
+        private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private long position;
+        private short min = Short.MAX_VALUE;
+        private short max = Short.MIN_VALUE;
+        private int count;
+
+        private LevelWriter(FileChannel out, long position, LevelWriter coarser) {
+            this.out = out;
+            this.position = position;
+            this.coarser = coarser;
+        }
+
+        void add(short binMin, short binMax) throws IOException {
+            min = binMin < min ? binMin : min;
+            max = binMax > max ? binMax : max;
+            if (++count == FOLD) {
+                emit();
+            }
+        }
+
+        void finish() throws IOException {
+            if (count > 0) {
+                emit();
+            }
+            flush();
+            if (coarser != null) {
+                coarser.finish();
+            }
+        }
+
+        private void emit() throws IOException {
+            buffer.putShort(min).putShort(max);
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            if (coarser != null) {
+                coarser.add(min, max);
+            }
+            min = Short.MAX_VALUE;
+            max = Short.MIN_VALUE;
+            count = 0;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            var bytes = buffer.remaining();
+            writeFully(out, buffer, position);
+            position += bytes;
+            buffer.clear();
+        }
+    }
+}
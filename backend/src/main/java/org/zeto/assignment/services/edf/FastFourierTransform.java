@@ -0,0 +1,79 @@
+package org.zeto.assignment.services.edf;
+
+/**
+ * In-place iterative radix-2 fast Fourier transform of a fixed power-of-two size.
+ * <p>
+ * The twiddle factors and the bit-reversal permutation are computed once, so a transform is
+ * {@code O(n log n)} multiplications without any trigonometric call. Instances are immutable and shared between
+ * threads; the arrays being transformed belong to the caller.
+ */
+final class FastFourierTransform {
+    private final int size;
+    private final double[] cos;
+    private final double[] sin;
+    private final int[] reversed;
+
+    /**
+     * @throws IllegalArgumentException If {@code size} is not a positive power of two.
+     */
+    FastFourierTransform(int size) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two: " + size);
+        }
+
+        this.size = size;
+        this.cos = new double[size / 2];
+        this.sin = new double[size / 2];
+        for (var k = 0; k < size / 2; k++) {
+            cos[k] = Math.cos(2 * Math.PI * k / size);
+            sin[k] = -Math.sin(2 * Math.PI * k / size);
+        }
+
+        this.reversed = new int[size];
+        var bits = Integer.numberOfTrailingZeros(size);
+        for (var i = 0; i < size; i++) {
+            reversed[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (Integer.SIZE - bits);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Replaces {@code re} and {@code im}, both of length {@link #size()}, with their discrete Fourier transform
+     * {@code X[k] = sum x[n] e^(-2 pi i k n / size)}.
+     */
+    void transform(double[] re, double[] im) {
+        for (var i = 0; i < size; i++) {
+            var j = reversed[i];
+            if (j > i) {
+                var t = re[i];
+                re[i] = re[j];
+                re[j] = t;
+                t = im[i];
+                im[i] = im[j];
+                im[j] = t;
+            }
+        }
+
+        for (var length = 2; length <= size; length <<= 1) {
+            var half = length >>> 1;
+            var stride = size / length;
+            for (var start = 0; start < size; start += length) {
+                for (var k = 0; k < half; k++) {
+                    var wr = cos[k * stride];
+                    var wi = sin[k * stride];
+                    var a = start + k;
+                    var b = a + half;
+                    var xr = re[b] * wr - im[b] * wi;
+                    var xi = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - xr;
+                    im[b] = im[a] - xi;
+                    re[a] += xr;
+                    im[a] += xi;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package org.zeto.assignment.services.edf;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+import org.zeto.assignment.models.edf.Channel;
+import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.models.edf.FilePage;
+import org.zeto.assignment.models.edf.FileQuery;
+import org.zeto.assignment.models.edf.FileSortKey;
+
+/**
+ * Immutable snapshot of the processed files together with the indexes answering {@link FileQuery}s.
+ * <p>
+ * Files are numbered by their position in recording-date order, which makes the date index a binary search
+ * over that order. Patient names are indexed by a {@link PatientNameTrie} over the lower-cased names,
+ * channel labels and the validity flag by posting lists of file numbers in ascending order, and the
+ * file-name and patient-name sort orders by precomputed permutations.
+ * <p>
+ * A query is driven by the most selective of its filters: the candidates of that index are checked against
+ * the other filters, which all take constant or logarithmic time per file. A query with at most one filter
+ * whose index is already in the requested order jumps straight to the requested page, costing
+ * {@code O(log n + page size)}.
+ * <p>
+ * A snapshot only needs rebuilding when files are added, replaced or removed: the annotations found later by the
+ * background scan are not indexed, so the files of a page are looked up again when the page is built.
+ */
+final class FileIndex {
+    static final FileIndex EMPTY = new FileIndex(-1, List.of());
+
+    private final long version;
+    private final FileInfo[] files;
+    private final int datedFiles;
+    private final Ordering byRecordingDate;
+    private final Ordering byFileName;
+    private final Ordering byPatientName;
+    private final PatientNameTrie patientNames;
+    private final Map<String, int[]> filesByChannel;
+    private final int[] validFiles;
+    private final int[] invalidFiles;
+
+    /**
+     * @param version            The files version of the store the files were taken from.
+     * @param filesByRecordingDate All processed files in recording-date order, undated files last.
+     */
+    FileIndex(long version, List<FileInfo> filesByRecordingDate) {
+        this.version = version;
+        this.files = filesByRecordingDate.toArray(FileInfo[]::new);
+        this.datedFiles = (int) filesByRecordingDate.stream().filter(fileInfo -> fileInfo.getRecordingDate() != null).count();
+        this.byRecordingDate = new Ordering(IntStream.range(0, files.length).toArray());
+        this.byFileName = sortBy(FileInfo::getFileName);
+        this.byPatientName = sortBy(fileInfo -> normalize(fileInfo.getPatientName()));
+        this.patientNames = new PatientNameTrie(Arrays.stream(byPatientName.files()).mapToObj(i -> normalize(files[i].getPatientName())).toArray(String[]::new));
+        this.filesByChannel = indexChannels(files);
+        this.validFiles = IntStream.range(0, files.length).filter(i -> files[i].isValid()).toArray();
+        this.invalidFiles = IntStream.range(0, files.length).filter(i -> !files[i].isValid()).toArray();
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Answers a query from the indexed files. The files of the page are passed through {@code current}, which may
+     * replace them with a later version that differs only in fields that are not indexed, such as the annotations.
+     */
+    FilePage query(FileQuery query, UnaryOperator<FileInfo> current) {
+        var filter = new Filter(query);
+        var ordering = getOrdering(query.getSortKey());
+        var driver = filter.driver(ordering);
+        var offset = (long) query.getPage() * query.getSize();
+
+        // With a single filter, every candidate of its index matches
+        var matches = filter.count <= 1 && driver.ordering() == ordering ? driver : filter.collect(driver, ordering);
+        var total = matches.size();
+
+        var page = new ArrayList<FileInfo>(Math.clamp(total - offset, 0, query.getSize()));
+        for (var k = offset; k < Math.min(total, offset + query.getSize()); k++) {
+            page.add(current.apply(files[matches.file(matches.from() + (int) (query.isDescending() ? total - 1 - k : k))]));
+        }
+
+        return FilePage.builder()
+                       .files(Collections.unmodifiableList(page))
+                       .page(query.getPage())
+                       .size(query.getSize())
+                       .totalElements(total)
+                       .build();
+    }
+
+    private Ordering getOrdering(FileSortKey sortKey) {
+        return switch (sortKey) {
+            case RECORDING_DATE -> byRecordingDate;
+            case FILE_NAME -> byFileName;
+            case PATIENT_NAME -> byPatientName;
+        };
+    }
+
+    /**
+     * Orders the files by {@code key}, breaking ties by recording date.
+     */
+    private Ordering sortBy(Function<FileInfo, String> key) {
+        var comparator = Comparator.comparing((Integer i) -> key.apply(files[i]), Comparator.nullsLast(Comparator.naturalOrder()))
+                                   .thenComparingInt(i -> i);
+        return new Ordering(IntStream.range(0, files.length).boxed().sorted(comparator).mapToInt(Integer::intValue).toArray());
+    }
+
+    private static Map<String, int[]> indexChannels(FileInfo[] files) {
+        var postings = new HashMap<String, List<Integer>>();
+        for (var i = 0; i < files.length; i++) {
+            var channels = files[i].getChannels();
+            if (channels == null) {
+                continue;
+            }
+
+            for (var label : channels.stream().map(Channel::name).distinct().toList()) {
+                postings.computeIfAbsent(label, l -> new ArrayList<>()).add(i);
+            }
+        }
+
+        var filesByChannel = new HashMap<String, int[]>(postings.size());
+        postings.forEach((label, posting) -> filesByChannel.put(label, posting.stream().mapToInt(Integer::intValue).toArray()));
+        return filesByChannel;
+    }
+
+    private static String normalize(String patientName) {
+        return patientName == null ? "" : patientName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return The number of dated files recorded before {@code date}.
+     */
+    private int countRecordedBefore(LocalDateTime date) {
+        var low = 0;
+        var high = datedFiles;
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            if (files[mid].getRecordingDate().isBefore(date)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return The index of the first element of the ascending {@code values} that is not less than {@code value}.
+     */
+    private static int lowerBound(int[] values, int value) {
+        var index = Arrays.binarySearch(values, value);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * A sort order of the files: {@code files[rank]} is the file number at {@code rank}, {@code ranks[file]}
+     * the rank of a file number.
+     */
+    private record Ordering(int[] files, int[] ranks) {
+        Ordering(int[] files) {
+            this(files, new int[files.length]);
+            for (var rank = 0; rank < files.length; rank++) {
+                ranks[files[rank]] = rank;
+            }
+        }
+    }
+
+    /**
+     * Candidates of one index: the ranks {@code [from, to)} of {@code ordering}, or the ranks stored in
+     * {@code ranks[from, to)} when {@code ranks} is not {@code null}.
+     */
+    private record Candidates(Ordering ordering, int[] ranks, int from, int to) {
+        int size() {
+            return to - from;
+        }
+
+        int file(int index) {
+            return ordering.files()[ranks == null ? index : ranks[index]];
+        }
+    }
+
+    /**
+     * The filters of one query, resolved against the indexes.
+     */
+    private final class Filter {
+        private final int recordedFrom;
+        private final int recordedTo;
+        private final PatientNameTrie.Range patients;
+        private final int[] channelFiles;
+        private final Boolean valid;
+        private final List<Candidates> candidates = new ArrayList<>();
+        private final int count;
+
+        Filter(FileQuery query) {
+            if (query.hasDateRange()) {
+                recordedFrom = query.getFrom() == null ? 0 : countRecordedBefore(query.getFrom());
+                recordedTo = Math.max(recordedFrom, query.getTo() == null ? datedFiles : countRecordedBefore(query.getTo()));
+                candidates.add(new Candidates(byRecordingDate, null, recordedFrom, recordedTo));
+            } else {
+                recordedFrom = 0;
+                recordedTo = files.length;
+            }
+
+            if (query.getPatientPrefix() != null) {
+                patients = patientNames.range(normalize(query.getPatientPrefix()));
+                candidates.add(new Candidates(byPatientName, null, patients.start(), patients.end()));
+            } else {
+                patients = null;
+            }
+
+            if (query.getChannel() != null) {
+                channelFiles = filesByChannel.getOrDefault(query.getChannel(), new int[0]);
+                candidates.add(postingCandidates(channelFiles));
+            } else {
+                channelFiles = null;
+            }
+
+            valid = query.getValid();
+            if (valid != null) {
+                candidates.add(postingCandidates(valid ? validFiles : invalidFiles));
+            }
+
+            count = candidates.size();
+        }
+
+        /**
+         * @return The smallest candidates, preferring those already in the requested order; all files in the
+         * requested order if the query has no filter.
+         */
+        Candidates driver(Ordering ordering) {
+            var driver = new Candidates(ordering, null, 0, files.length);
+            for (var c : candidates) {
+                if (c.size() < driver.size() || c.size() == driver.size() && c.ordering() == ordering) {
+                    driver = c;
+                }
+            }
+            return driver;
+        }
+
+        /**
+         * @return The candidates of {@code driver} that pass every filter, in {@code ordering}.
+         */
+        Candidates collect(Candidates driver, Ordering ordering) {
+            var ranks = new int[driver.size()];
+            var matches = 0;
+            for (var index = driver.from(); index < driver.to(); index++) {
+                var file = driver.file(index);
+                if (matches(file)) {
+                    ranks[matches++] = ordering.ranks()[file];
+                }
+            }
+
+            if (driver.ordering() != ordering) {
+                Arrays.sort(ranks, 0, matches);
+            }
+            return new Candidates(ordering, ranks, 0, matches);
+        }
+
+        private boolean matches(int file) {
+            if (file < recordedFrom || file >= recordedTo) {
+                return false;
+            }
+            if (patients != null) {
+                var rank = byPatientName.ranks()[file];
+                if (rank < patients.start() || rank >= patients.end()) {
+                    return false;
+                }
+            }
+            return (channelFiles == null || Arrays.binarySearch(channelFiles, file) >= 0)
+                    && (valid == null || files[file].isValid() == valid);
+        }
+
+        /**
+         * Posting lists hold file numbers, which are ranks in recording-date order; only those within the date
+         * range are candidates.
+         */
+        private Candidates postingCandidates(int[] posting) {
+            return new Candidates(byRecordingDate, posting, lowerBound(posting, recordedFrom), lowerBound(posting, recordedTo));
+        }
+    }
+}
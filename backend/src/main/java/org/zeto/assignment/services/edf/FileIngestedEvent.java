@@ -0,0 +1,15 @@
+package org.zeto.assignment.services.edf;
+
+import java.nio.file.Path;
+
+import org.zeto.assignment.models.edf.FileInfo;
+
+/**
+ * Application event published after an EDF file has been parsed (or taken from the metadata cache)
+ * and added to the processed files.
+ *
+ * @param path     The location of the EDF file.
+ * @param fileInfo The metadata of the file.
+ */
+public record FileIngestedEvent(Path path, FileInfo fileInfo) {
+}
@@ -0,0 +1,49 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.zeto.assignment.models.edf.FileListing;
+
+/**
+ * Service providing the serialized listing of all processed EDF files.
+ */
+public interface FileListingService {
+    /**
+     * Framings of the streamed listing.
+     */
+    enum StreamFormat {
+        /**
+         * Newline-delimited JSON: one JSON object per line.
+         */
+        NDJSON,
+        /**
+         * Server-Sent Events: one {@code message} event per file, followed by an {@code end} event.
+         */
+        SSE
+    }
+
+    /**
+     * Returns the listing of all processed EDF files, sorted by recording date. The listing is serialized
+     * again only after the set of processed files has changed.
+     *
+     * @return The current {@link FileListing}.
+     * @throws IOException If the listing cannot be serialized.
+     */
+    FileListing getListing() throws IOException;
+
+    /**
+     * Streams the metadata of all processed EDF files, sorted by recording date, one message per file. Files are
+     * serialized and written in chunks, and the output is flushed after every chunk, so the first files are sent
+     * before the others are read and memory use does not depend on the number of files.
+     * <p>
+     * While files are being ingested (see {@link FileProcessingService#isIngesting()}), the stream stays open and
+     * files are sent again whenever they are added or change, until ingestion is over. A file may therefore appear
+     * more than once; later messages supersede earlier ones.
+     *
+     * @param out    The stream to write to; it is flushed but not closed.
+     * @param format The framing of the messages.
+     * @throws IOException If a file cannot be serialized or written, e.g. because the client went away.
+     */
+    void streamListing(OutputStream out, StreamFormat format) throws IOException;
+}
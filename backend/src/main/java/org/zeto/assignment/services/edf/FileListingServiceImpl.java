@@ -0,0 +1,130 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.models.edf.FileListing;
+
+/**
+ * {@link FileListingService} that caches the serialized listing and compares the version of the processed
+ * files (see {@link FileProcessingService#getProcessedFilesVersion()}) on every request. As long as no file
+ * was added, replaced or removed, a request costs one volatile read. Concurrent requests after a change
+ * serialize the listing only once.
+ * <p>
+ * The streamed listing is not cached: it walks the processed files in chunks of {@value #STREAM_CHUNK_SIZE}, and
+ * while files are being ingested, polls the version of the processed files every {@value #FOLLOW_POLL_MILLIS} ms
+ * and sends the files changed since the previous walk.
+ */
+@Service
+public class FileListingServiceImpl implements FileListingService {
+    static final int STREAM_CHUNK_SIZE = 100;
+    static final long FOLLOW_POLL_MILLIS = 100;
+    private static final byte[] NEWLINE = {'\n'};
+    private static final byte[] SSE_DATA = "data: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SSE_MESSAGE_END = "\n\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SSE_END_EVENT = "event: end\ndata:\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final FileProcessingService fileProcessingService;
+    private final ObjectMapper objectMapper;
+    private volatile Snapshot snapshot;
+
+    public FileListingServiceImpl(FileProcessingService fileProcessingService, ObjectMapper objectMapper) {
+        this.fileProcessingService = fileProcessingService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public FileListing getListing() throws IOException {
+        var current = snapshot;
+        var version = fileProcessingService.getProcessedFilesVersion();
+        return current != null && current.version() == version ? current.listing() : rebuild(version);
+    }
+
+    @Override
+    public void streamListing(OutputStream out, StreamFormat format) throws IOException {
+        var since = Long.MIN_VALUE;
+
+        while (true) {
+            // Read before walking the files, so that the last walk starts after ingestion was over
+            var ingesting = fileProcessingService.isIngesting();
+            var version = fileProcessingService.getProcessedFilesVersion();
+
+            writeChangedFiles(out, format, since);
+            since = version;
+
+            if (!ingesting || !awaitChange(since)) {
+                break;
+            }
+        }
+
+        if (format == StreamFormat.SSE) {
+            out.write(SSE_END_EVENT);
+        }
+        out.flush();
+    }
+
+    private void writeChangedFiles(OutputStream out, StreamFormat format, long since) throws IOException {
+        FileInfo after = null;
+        List<FileInfo> chunk;
+        do {
+            chunk = fileProcessingService.getProcessedFilesChangedSince(since, after, STREAM_CHUNK_SIZE);
+            for (var fileInfo : chunk) {
+                writeMessage(out, format, objectMapper.writeValueAsBytes(fileInfo));
+            }
+            out.flush();
+            after = chunk.isEmpty() ? after : chunk.getLast();
+        } while (chunk.size() == STREAM_CHUNK_SIZE);
+    }
+
+    private static void writeMessage(OutputStream out, StreamFormat format, byte[] json) throws IOException {
+        switch (format) {
+            case NDJSON -> {
+                out.write(json);
+                out.write(NEWLINE);
+            }
+            case SSE -> {
+                // Serialized JSON holds no raw line breaks, so every file fits on one data line
+                out.write(SSE_DATA);
+                out.write(json);
+                out.write(SSE_MESSAGE_END);
+            }
+        }
+    }
+
+    /**
+     * Waits until the processed files change after {@code version} or ingestion is over.
+     *
+     * @return Whether to walk the files again; {@code false} if the thread was interrupted.
+     */
+    private boolean awaitChange(long version) {
+        try {
+            while (fileProcessingService.getProcessedFilesVersion() == version && fileProcessingService.isIngesting()) {
+                Thread.sleep(FOLLOW_POLL_MILLIS);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private synchronized FileListing rebuild(long version) throws IOException {
+        var current = snapshot;
+        if (current != null && current.version() == version) {
+            return current.listing();
+        }
+
+        // The version is read before the files, so a change racing with this rebuild triggers another one
+        var listing = FileListing.of(objectMapper.writeValueAsBytes(fileProcessingService.getProcessedFiles()));
+        snapshot = new Snapshot(version, listing);
+        return listing;
+    }
+
+    private record Snapshot(long version, FileListing listing) {
+    }
+}
@@ -1,22 +1,103 @@
 package org.zeto.assignment.services.edf;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
 
+import org.zeto.assignment.models.edf.AnnotationPage;
 import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.models.edf.FilePage;
+import org.zeto.assignment.models.edf.FileQuery;
 
 /**
- * Service interface for processing EDF files located on the application's classpath.
+ * Service interface for processing EDF files located in the EDF directory.
  * Implementations of this interface are responsible for locating, parsing, and
- * providing structured information about EDF files found in the classpath resources.
+ * providing structured information about EDF files found in that directory.
  */
 public interface FileProcessingService {
     /**
      * Retrieves a list of processed {@link FileInfo} objects for all EDF files
-     * found on the classpath. Each {@link FileInfo} object contains parsed metadata
+     * found in the EDF directory, sorted by recording date. Each {@link FileInfo} object contains parsed metadata
      * and validation status for a single EDF file.
      *
      * @return A {@link List} of {@link FileInfo} objects, representing the
      * structured information of processed EDF files.
      */
     List<FileInfo> getProcessedFiles();
+
+    /**
+     * @return A counter that changes whenever a processed file is added, replaced or removed, so views
+     * derived from {@link #getProcessedFiles()} can be cached until it changes.
+     */
+    long getProcessedFilesVersion();
+
+    /**
+     * Returns the next chunk of processed files added or changed after a version of the processed files, sorted by
+     * recording date. Walking the files chunk by chunk costs memory for one chunk only, however many files there are.
+     *
+     * @param version A value of {@link #getProcessedFilesVersion()}, or {@link Long#MIN_VALUE} for all files.
+     * @param after   The last file of the previous chunk, or {@code null} for the first chunk.
+     * @param limit   The maximum number of files to return; fewer files mean that the last chunk was reached.
+     * @return The files changed after {@code version} that sort after {@code after}.
+     */
+    List<FileInfo> getProcessedFilesChangedSince(long version, FileInfo after, int limit);
+
+    /**
+     * @return Whether files are still being ingested: the startup scan of the EDF directory is running, or the
+     * annotations of ingested files are still being scanned.
+     */
+    boolean isIngesting();
+
+    /**
+     * Returns one page of the processed EDF files matching the filters of {@code query}, in the requested order.
+     *
+     * @param query The filters, sort order and page to return.
+     * @return The requested {@link FilePage}.
+     */
+    FilePage queryProcessedFiles(FileQuery query);
+
+    /**
+     * Looks up a processed EDF file by its file name.
+     *
+     * @param fileName The name of the EDF file, including its extension.
+     * @return The {@link FileInfo} of the file, or an empty {@link Optional} if no such file was processed.
+     */
+    Optional<FileInfo> getProcessedFile(String fileName);
+
+    /**
+     * @return The EDF directory being processed, or {@code null} before the startup scan.
+     */
+    Path getDataDirectory();
+
+    /**
+     * Looks up the location of a processed EDF file by its file name.
+     *
+     * @param fileName The name of the EDF file, including its extension.
+     * @return The path of the file, or an empty {@link Optional} if no such file was processed.
+     */
+    Optional<Path> getProcessedFilePath(String fileName);
+
+    /**
+     * Adds a file of the EDF directory whose metadata was parsed while the file was written, such as an upload,
+     * without reading the file again. The change notification the directory watcher delivers for the new file is
+     * ignored as long as the file keeps its size and modification time.
+     *
+     * @param path     The path of the file in the EDF directory.
+     * @param fileInfo The complete metadata of the file.
+     * @throws IOException If the attributes of the file cannot be read.
+     */
+    void ingest(Path path, FileInfo fileInfo) throws IOException;
+
+    /**
+     * Returns one page of the annotations of a processed EDF file whose onset lies in {@code [from, to)}.
+     *
+     * @param fileName The name of the EDF file, including its extension.
+     * @param from     Inclusive lower bound of the annotation onset, in seconds from the start of the recording.
+     * @param to       Exclusive upper bound of the annotation onset, in seconds from the start of the recording.
+     * @param page     Zero-based page number.
+     * @param size     Maximum number of annotations per page.
+     * @return The requested {@link AnnotationPage}, or an empty {@link Optional} if no such file was processed.
+     */
+    Optional<AnnotationPage> getAnnotations(String fileName, double from, double to, int page, int size);
 }
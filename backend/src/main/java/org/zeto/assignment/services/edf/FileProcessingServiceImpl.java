@@ -2,66 +2,466 @@ package org.zeto.assignment.services.edf;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Collections;
-import java.util.Comparator;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.AnnotationIndex;
+import org.zeto.assignment.models.edf.AnnotationPage;
 import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.models.edf.FilePage;
+import org.zeto.assignment.models.edf.FileQuery;
+import org.zeto.assignment.models.edf.IngestionState;
+import org.zeto.assignment.services.edf.DirectoryWatcherService.DirectoryChanges;
 
 /**
  * Service implementation for processing EDF (European Data Format) files found
- * on the classpath at application startup. This service scans a specified directory,
+ * in the EDF directory. At application startup this service scans the directory,
  * identifies EDF files, parses them using a {@link ParserService}, and maintains
- * a list of {@link FileInfo} objects for all successfully processed files.
+ * the {@link FileInfo} objects of all processed files. Afterwards, the directory is
+ * watched and added, changed or removed files are ingested incrementally.
+ * <p>
+ * The directory is {@code edf.data-directory}, or the {@code edf} directory on the classpath when not configured.
+ * Files are parsed on virtual threads; a semaphore limits how many parses are in flight
+ * at once so that disk queue depth stays bounded (see {@code edf.ingestion.max-concurrency}).
+ * Gzip-compressed files ({@code .edf.gz}) and zip archives holding an EDF file are ingested as well, by decompressing
+ * them on the fly (see {@link CompressedEdfFiles}). Files whose size and modification time match an entry of the
+ * {@link MetadataCacheService} are not parsed again. A {@link FileIngestedEvent} is published for every file added
+ * to the processed files.
+ * <p>
+ * Ingestion is progressive: only the headers of a file are parsed before it is listed, and the data records of
+ * EDF+ files are scanned for annotations in the background afterwards (see
+ * {@code edf.ingestion.annotation-scan-threads}). Until then the file is listed as
+ * {@link IngestionState#PENDING}. Files are stored in the metadata cache once complete, and the cache is
+ * persisted whenever the background scans have drained.
+ * <p>
+ * Files are listed as soon as their headers are parsed, so the listing grows while the directory is scanned. With
+ * {@code edf.ingestion.background-startup}, the startup scan runs on a background thread and the application is
+ * served while it is in progress.
+ * <p>
+ * The number of processed files is exported as the {@code edf.files.processed} gauge.
+ * <p>
+ * Queries are answered from a {@link FileIndex} snapshot, which is rebuilt by the first query after a file was
+ * added, replaced or removed. Completed annotation scans do not invalidate it; the files of each page are read from
+ * the store instead.
  */
 @Service
 @Slf4j
 public class FileProcessingServiceImpl implements FileProcessingService {
     private static final String LOG_INFO_SCANNING_EDF_DIRECTORY = "Scanning EDF directory: {}";
-    private static final String LOG_INFO_EDF_FILE_PROCESSED = "Successfully processed EDF file: {}";
-    private static final String EDF_FILE_EXTENSION = ".edf";
+    private static final String LOG_INFO_EDF_FILE_PROCESSED = "Successfully processed EDF file: {} in {} ms";
+    private static final String LOG_INFO_EDF_FILE_CACHED = "Reusing cached metadata of EDF file: {}";
+    private static final String LOG_INFO_EDF_DIRECTORY_PROCESSED = "Processed {} EDF files ({} from cache) in {} ms with concurrency {}";
+    private static final String LOG_INFO_EDF_DIRECTORY_CHANGED = "Applied EDF directory changes: {} files updated, {} files removed";
+    private static final String LOG_WARN_ANNOTATIONS_NOT_PARSED = "Could not parse annotations of EDF file {}: {}";
+    private static final String LOG_WARN_CHECKPOINTS_NOT_BUILT = "Could not build the gzip checkpoints of EDF file {}: {}";
+    private static final String LOG_WARN_DUPLICATE_FILE_NAME = "Ignoring EDF file {}: its name is already taken by {}";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
     private static final String EDF_FILES_DIRECTORY = "edf";
-    private final List<FileInfo> processedFiles = new CopyOnWriteArrayList<>();
+    private final ProcessedFileStore processedFiles = new ProcessedFileStore();
     private final ParserService parserService;
+    private final MetadataCacheService metadataCacheService;
+    private final DirectoryWatcherService directoryWatcherService;
+    private final EdfProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExecutorService annotationScanner;
+    private final AtomicInteger pendingScans = new AtomicInteger();
+    private final Map<Path, FileVersion> ingestedFiles = new ConcurrentHashMap<>();
+    private volatile Path dataDirectory;
+    private volatile boolean startupScanRunning;
+    private volatile Thread startupScan;
+    private volatile FileIndex fileIndex = FileIndex.EMPTY;
 
-    public FileProcessingServiceImpl(ParserService parserService) {
+    public FileProcessingServiceImpl(ParserService parserService, MetadataCacheService metadataCacheService,
+                                     DirectoryWatcherService directoryWatcherService, EdfProperties properties,
+                                     ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
         this.parserService = parserService;
+        this.metadataCacheService = metadataCacheService;
+        this.directoryWatcherService = directoryWatcherService;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.annotationScanner = Executors.newFixedThreadPool(Math.max(1, properties.getIngestion().getAnnotationScanThreads()),
+                                                              Thread.ofPlatform().name("edf-annotation-scanner-", 0).daemon().factory());
+        Gauge.builder("edf.files.processed", processedFiles, ProcessedFileStore::size)
+             .description("EDF files currently listed")
+             .register(meterRegistry);
+    }
+
+    /**
+     * Interrupts a background startup scan and the running annotation scans, and drops the queued ones.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        var scan = startupScan;
+        if (scan != null) {
+            scan.interrupt();
+        }
+        annotationScanner.shutdownNow();
+        annotationScanner.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
     }
 
     /**
      * Scans the configured EDF directory path for EDF files and processes them.
      * This method is automatically invoked after dependency injection is complete due to
-     * the {@code @PostConstruct} annotation. It filters for regular files ending with ".edf"
-     * (case-insensitive) and parses each one, storing the resulting {@link FileInfo}.
+     * the {@code @PostConstruct} annotation. It filters for regular files ending with ".edf",
+     * ".edf.gz" or ".zip" (case-insensitive) and parses them concurrently, storing the resulting {@link FileInfo}
+     * objects sorted by recording date. Watching starts before the scan, so files changed
+     * while the scan is running are ingested again afterwards. With {@code edf.ingestion.background-startup},
+     * the scan is started on a background thread and this method returns immediately.
      *
-     * @throws IOException If an I/O error occurs during directory traversal or file access.
+     * @throws IOException          If an I/O error occurs during directory traversal or file access.
+     * @throws InterruptedException If the thread is interrupted while waiting for parsing to finish.
      */
     @PostConstruct
-    public void scanAndProcessFilesOnStartup() throws IOException {
-        log.info(LOG_INFO_SCANNING_EDF_DIRECTORY, getClassPathDirectory());
+    public void scanAndProcessFilesOnStartup() throws IOException, InterruptedException {
+        dataDirectory = resolveDataDirectory();
+        log.info(LOG_INFO_SCANNING_EDF_DIRECTORY, dataDirectory);
+
+        directoryWatcherService.start(dataDirectory, this::applyChanges);
+        startupScanRunning = true;
+
+        if (properties.getIngestion().isBackgroundStartup()) {
+            startupScan = Thread.ofPlatform().name("edf-startup-scan").daemon().start(this::scanDataDirectoryInBackground);
+        } else {
+            scanDataDirectory();
+        }
+    }
+
+    private void scanDataDirectory() throws IOException, InterruptedException {
+        try {
+            var start = System.nanoTime();
+            var cachedFiles = new AtomicInteger();
+
+            metadataCacheService.load(dataDirectory);
+            var parsedFiles = parseConcurrently(listEdfFiles(dataDirectory), cachedFiles);
+            metadataCacheService.persist();
+
+            log.info(LOG_INFO_EDF_DIRECTORY_PROCESSED, parsedFiles, cachedFiles.get(), (System.nanoTime() - start) / 1_000_000, getMaxConcurrency());
+        } finally {
+            startupScanRunning = false;
+        }
+    }
+
+    private void scanDataDirectoryInBackground() {
+        try {
+            scanDataDirectory();
+        } catch (IOException e) {
+            log.error(e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Incrementally ingests a batch of directory changes: changed EDF files are parsed (or taken from the
+     * metadata cache) and replace their previous entry, removed files are dropped and announced with a
+     * {@link FileRemovedEvent}. When the watcher lost events, the whole directory is listed again and compared
+     * with the store.
+     */
+    void applyChanges(DirectoryChanges changes) {
+        try {
+            Collection<Path> changed = changes.changed().stream()
+                                              .filter(FileProcessingServiceImpl::isEdfFile)
+                                              .filter(path -> !isIngestedVersion(path))
+                                              .toList();
+            var removed = 0;
+
+            for (var path : changes.deleted()) {
+                ingestedFiles.remove(path);
+                removed += publishRemoved(processedFiles.remove(path));
+                metadataCacheService.evict(path);
+            }
+
+            if (changes.overflow()) {
+                changed = listEdfFiles(dataDirectory);
+                var existing = new HashSet<>(changed);
+                removed += publishRemoved(processedFiles.removeIf(path -> !existing.contains(path)));
+            }
+
+            var parsedFiles = parseConcurrently(changed, new AtomicInteger());
+            metadataCacheService.persist();
+
+            log.info(LOG_INFO_EDF_DIRECTORY_CHANGED, parsedFiles, removed);
+        } catch (IOException e) {
+            log.error(e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void ingest(Path path, FileInfo fileInfo) throws IOException {
+        var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        ingestedFiles.put(path, FileVersion.of(attributes));
+        metadataCacheService.store(path, attributes, fileInfo);
+        metadataCacheService.persist();
+        var parsedFile = new ParsedFile(path, attributes, fileInfo);
+        if (store(parsedFile)) {
+            publishIngested(parsedFile);
+        }
+    }
+
+    /**
+     * @return Whether {@code path} is a file added by {@link #ingest(Path, FileInfo)} that has not changed since.
+     * Either way, the file is only recognized once.
+     */
+    private boolean isIngestedVersion(Path path) {
+        var ingested = ingestedFiles.remove(path);
+        if (ingested == null) {
+            return false;
+        }
+
+        try {
+            return ingested.equals(FileVersion.of(Files.readAttributes(path, BasicFileAttributes.class)));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Adds a parsed file to the processed files and schedules the scan of its annotations, or the build of the gzip
+     * checkpoints of a compressed file whose metadata came from the cache. The caller publishes its
+     * {@link FileIngestedEvent}.
+     * <p>
+     * Processed files, their sidecars and the endpoints are keyed by file name, so a file in a subdirectory whose name
+     * is already taken by a file at another path is logged and left out; the file stored first keeps the name.
+     *
+     * @return Whether the file was stored.
+     */
+    private boolean store(ParsedFile parsedFile) {
+        var fileInfo = parsedFile.fileInfo();
+        var stored = processedFiles.put(parsedFile.path(), fileInfo);
+        if (stored.isEmpty()) {
+            log.warn(LOG_WARN_DUPLICATE_FILE_NAME, parsedFile.path(), processedFiles.getPath(fileInfo.getFileName()).orElse(null));
+            CompressedEdfFiles.evict(parsedFile.path());
+            return false;
+        }
+
+        if (parsedFile.attributes() == null || !fileInfo.isValid()) {
+            CompressedEdfFiles.evict(parsedFile.path());
+        } else if (CompressedEdfFiles.needsCheckpoints(parsedFile.path(), parsedFile.attributes())) {
+            try {
+                annotationScanner.execute(() -> buildCheckpoints(parsedFile.path()));
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+            }
+        }
+
+        var stamp = stored.getAsLong();
+        if (fileInfo.getIngestionState() == IngestionState.PENDING) {
+            // Queue no reference to the parsed FileInfo: the store holds its deduplicated copy until the scan runs
+            var scan = new AnnotationScan(parsedFile.path(), parsedFile.attributes(), fileInfo.getFileName(), stamp);
+            pendingScans.incrementAndGet();
+            try {
+                annotationScanner.execute(() -> scanAnnotations(scan));
+            } catch (RejectedExecutionException e) {
+                pendingScans.decrementAndGet();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Second ingestion phase: parses the annotations of a file listed with its headers only, with the data record
+     * layout of the stored file. The scan is skipped, and its result dropped, if the file was changed or removed in
+     * the meantime. A file whose annotations cannot be parsed keeps its header metadata and is marked
+     * {@link IngestionState#FAILED}.
+     */
+    private void scanAnnotations(AnnotationScan scan) {
+        var fileName = scan.fileName();
+        var stamp = scan.stamp();
+        try {
+            var stored = processedFiles.get(fileName, stamp);
+            if (stored.isEmpty()) {
+                return;
+            }
+
+            AnnotationIndex annotationIndex;
+            IngestionState state;
+            try {
+                annotationIndex = parserService.parseAnnotations(scan.path().toFile(), stored.get().getDataRecordLayout());
+                state = IngestionState.COMPLETE;
+            } catch (IOException | RuntimeException e) {
+                log.warn(LOG_WARN_ANNOTATIONS_NOT_PARSED, fileName, e.getMessage());
+                annotationIndex = AnnotationIndex.EMPTY;
+                state = IngestionState.FAILED;
+            }
+
+            var completed = processedFiles.setAnnotations(fileName, stamp, annotationIndex, state);
+            if (completed.isPresent() && state == IngestionState.COMPLETE && scan.attributes() != null) {
+                metadataCacheService.store(scan.path(), scan.attributes(), completed.get());
+            }
+        } finally {
+            if (pendingScans.decrementAndGet() == 0) {
+                metadataCacheService.persist();
+            }
+        }
+    }
 
-        try (var paths = Files.walk(Paths.get(getClassPathDirectory()))) {
-            paths.filter(Files::isRegularFile)
-                 .filter(path -> path.toString().toLowerCase().endsWith(EDF_FILE_EXTENSION))
-                 .forEach(path -> {
-                     processedFiles.add(parserService.parse(path.toFile()));
-                     log.info(LOG_INFO_EDF_FILE_PROCESSED, path.getFileName());
-                 });
+    /**
+     * Builds the gzip checkpoints of a compressed file off the request threads, which would otherwise decompress the
+     * whole file on its first random access.
+     */
+    private void buildCheckpoints(Path path) {
+        try {
+            CompressedEdfFiles.buildCheckpoints(path);
+        } catch (IOException e) {
+            log.warn(LOG_WARN_CHECKPOINTS_NOT_BUILT, path.getFileName(), e.getMessage());
+        }
+    }
+
+    private static List<Path> listEdfFiles(Path directory) throws IOException {
+        try (var paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile)
+                        .filter(FileProcessingServiceImpl::isEdfFile)
+                        .toList();
+        }
+    }
+
+    private static boolean isEdfFile(Path path) {
+        return CompressedEdfFiles.isEdfFile(path);
+    }
+
+    /**
+     * Parses the given files on virtual threads, allowing at most {@link #getMaxConcurrency()}
+     * parses to run at the same time, and stores every file as soon as it is parsed.
+     * <p>
+     * The {@link FileIngestedEvent}s of stored files are published by the calling thread while it waits for
+     * permits: during startup it is creating the application context, and listeners looked up from another
+     * thread would wait for it.
+     *
+     * @return The number of files stored, once every file has been parsed.
+     */
+    private int parseConcurrently(Collection<Path> edfFiles, AtomicInteger cachedFiles) throws InterruptedException {
+        var stored = new ConcurrentLinkedQueue<ParsedFile>();
+        var permits = new Semaphore(getMaxConcurrency());
+        var count = 0;
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var path : edfFiles) {
+                permits.acquire();
+                count += publishIngested(stored);
+                executor.execute(() -> {
+                    try {
+                        var parsedFile = parseOrReuseCached(path, cachedFiles);
+                        if (store(parsedFile)) {
+                            stored.add(parsedFile);
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
         }
 
-        processedFiles.sort(Comparator.comparing(FileInfo::getRecordingDate, Comparator.nullsLast(Comparator.naturalOrder())));
+        return count + publishIngested(stored);
+    }
+
+    /**
+     * Publishes the {@link FileIngestedEvent}s of the stored files taken from {@code stored}.
+     *
+     * @return The number of published events.
+     */
+    private int publishIngested(ConcurrentLinkedQueue<ParsedFile> stored) {
+        var count = 0;
+        for (var parsedFile = stored.poll(); parsedFile != null; parsedFile = stored.poll()) {
+            publishIngested(parsedFile);
+            count++;
+        }
+        return count;
+    }
+
+    private void publishIngested(ParsedFile parsedFile) {
+        eventPublisher.publishEvent(new FileIngestedEvent(parsedFile.path(), parsedFile.fileInfo()));
+    }
+
+    /**
+     * Publishes a {@link FileRemovedEvent} for each of the {@code removed} files.
+     *
+     * @return The number of published events.
+     */
+    private int publishRemoved(List<Path> removed) {
+        for (var path : removed) {
+            CompressedEdfFiles.evict(path);
+            eventPublisher.publishEvent(new FileRemovedEvent(path, path.getFileName().toString()));
+        }
+        return removed.size();
+    }
+
+    /**
+     * Takes the metadata of a file from the cache, or parses its headers. Files still pending their annotations
+     * are stored in the cache by their annotation scan.
+     */
+    private ParsedFile parseOrReuseCached(Path path, AtomicInteger cachedFiles) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return new ParsedFile(path, null, parse(path));
+        }
+
+        var cached = metadataCacheService.lookup(path, attributes);
+        if (cached.isPresent()) {
+            cachedFiles.incrementAndGet();
+            log.info(LOG_INFO_EDF_FILE_CACHED, path.getFileName());
+            return new ParsedFile(path, attributes, cached.get());
+        }
+
+        var start = System.nanoTime();
+        var fileInfo = parse(path);
+        if (fileInfo.getIngestionState() == IngestionState.COMPLETE) {
+            metadataCacheService.store(path, attributes, fileInfo);
+        }
+        log.info(LOG_INFO_EDF_FILE_PROCESSED, path.getFileName(), (System.nanoTime() - start) / 1_000_000);
+        return new ParsedFile(path, attributes, fileInfo);
+    }
+
+    /**
+     * Parses the headers of a plain EDF file, leaving its annotations to the background scan, or a compressed file
+     * in one decompressing pass.
+     */
+    private FileInfo parse(Path path) {
+        return CompressedEdfFiles.isCompressed(path) ? parserService.parseCompressed(path.toFile()) : parserService.parseHeaders(path.toFile());
+    }
+
+    private int getMaxConcurrency() {
+        return Math.max(1, properties.getIngestion().getMaxConcurrency());
+    }
+
+    private Path resolveDataDirectory() throws IOException {
+        var configured = properties.getDataDirectory();
+        if (configured == null || configured.isBlank()) {
+            return getClassPathDirectory();
+        }
+        return Files.createDirectories(Paths.get(configured)).toAbsolutePath();
     }
 
     @SneakyThrows
-    private String getClassPathDirectory() {
-        return Paths.get(Objects.requireNonNull(getClass().getClassLoader().getResource(EDF_FILES_DIRECTORY)).toURI()).toString();
+    private Path getClassPathDirectory() {
+        return Paths.get(Objects.requireNonNull(getClass().getClassLoader().getResource(EDF_FILES_DIRECTORY)).toURI());
     }
 
 
@@ -70,10 +470,87 @@ public class FileProcessingServiceImpl implements FileProcessingService {
      * EDF files that have been scanned and processed by this service.
      *
      * @return An unmodifiable {@link List} of {@link FileInfo} objects,
-     * each representing a parsed EDF file.
+     * each representing a parsed EDF file, sorted by recording date.
      */
     @Override
     public List<FileInfo> getProcessedFiles() {
-        return Collections.unmodifiableList(processedFiles);
+        return processedFiles.list();
+    }
+
+    @Override
+    public long getProcessedFilesVersion() {
+        return processedFiles.version();
+    }
+
+    @Override
+    public List<FileInfo> getProcessedFilesChangedSince(long version, FileInfo after, int limit) {
+        return processedFiles.listChangedSince(version, after, limit);
+    }
+
+    @Override
+    public boolean isIngesting() {
+        return startupScanRunning || pendingScans.get() > 0;
+    }
+
+    @Override
+    public FilePage queryProcessedFiles(FileQuery query) {
+        return getFileIndex().query(query, fileInfo -> processedFiles.get(fileInfo.getFileName()).orElse(fileInfo));
+    }
+
+    private FileIndex getFileIndex() {
+        var index = fileIndex;
+        return index.getVersion() == processedFiles.filesVersion() ? index : rebuildFileIndex();
+    }
+
+    private synchronized FileIndex rebuildFileIndex() {
+        // The version is read before the files, so a change racing with this rebuild triggers another one
+        var version = processedFiles.filesVersion();
+        if (fileIndex.getVersion() != version) {
+            fileIndex = new FileIndex(version, processedFiles.list());
+        }
+        return fileIndex;
+    }
+
+    @Override
+    public Optional<FileInfo> getProcessedFile(String fileName) {
+        return processedFiles.get(fileName);
+    }
+
+    @Override
+    public Path getDataDirectory() {
+        return dataDirectory;
+    }
+
+    @Override
+    public Optional<Path> getProcessedFilePath(String fileName) {
+        return processedFiles.getPath(fileName);
+    }
+
+    @Override
+    public Optional<AnnotationPage> getAnnotations(String fileName, double from, double to, int page, int size) {
+        return getProcessedFile(fileName).map(fileInfo -> fileInfo.getAnnotationIndex().query(from, to, page, size));
+    }
+
+    /**
+     * Size and modification time identifying one version of a file.
+     */
+    private record FileVersion(long size, long lastModified) {
+        static FileVersion of(BasicFileAttributes attributes) {
+            return new FileVersion(attributes.size(), attributes.lastModifiedTime().toMillis());
+        }
+    }
+
+    /**
+     * @param attributes The attributes the file had when parsed, or {@code null} if they could not be read.
+     */
+    private record ParsedFile(Path path, BasicFileAttributes attributes, FileInfo fileInfo) {
+    }
+
+    /**
+     * A queued annotation scan: only what is needed to find the stamped version of the file in the store.
+     *
+     * @param attributes The attributes the file had when parsed, or {@code null} if they could not be read.
+     */
+    private record AnnotationScan(Path path, BasicFileAttributes attributes, String fileName, long stamp) {
     }
-}
\ No newline at end of file
+}
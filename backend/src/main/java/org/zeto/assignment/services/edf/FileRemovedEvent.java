@@ -0,0 +1,13 @@
+package org.zeto.assignment.services.edf;
+
+import java.nio.file.Path;
+
+/**
+ * Application event published after an EDF file has been deleted from the data directory and dropped from the
+ * processed files.
+ *
+ * @param path     The former location of the EDF file.
+ * @param fileName The name the file was listed under.
+ */
+public record FileRemovedEvent(Path path, String fileName) {
+}
@@ -0,0 +1,24 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+import org.zeto.assignment.models.edf.FileInfo;
+
+/**
+ * Service for adding EDF files to the EDF directory from uploaded content.
+ */
+public interface FileUploadService {
+    /**
+     * Writes an uploaded EDF file to the EDF directory, parsing it while it is written, and adds it to the
+     * processed files. The content is read exactly once; invalid content is discarded.
+     *
+     * @param fileName The name of the EDF file, including its extension, without any directory.
+     * @param body     The content of the file.
+     * @return The metadata of the file, invalid if the content is not a complete EDF file, or an empty
+     * {@link Optional} if a file with this name already exists or is being uploaded.
+     * @throws IOException If the upload cannot be read or written.
+     */
+    Optional<FileInfo> upload(String fileName, InputStream body) throws IOException;
+}
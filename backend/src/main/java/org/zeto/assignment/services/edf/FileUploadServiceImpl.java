@@ -0,0 +1,116 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.zeto.assignment.models.edf.FileInfo;
+
+/**
+ * Service implementation storing uploaded EDF files in the EDF directory of the {@link FileProcessingService}.
+ * <p>
+ * The upload is streamed through a {@link TeeInputStream}: the {@link ParserService} reads the headers and the
+ * annotations from it while every byte it consumes, skipped samples included, is written to a hidden
+ * {@value #PART_EXTENSION} file next to the target. The bytes after the last annotation are then copied
+ * without parsing. Nothing is buffered beyond two {@value #BUFFER_BYTES} byte buffers, and the file is never
+ * read back: once complete, it is linked under its final name and handed to
+ * {@link FileProcessingService#ingest(Path, FileInfo)} with the metadata parsed on the way. Unlike a rename, the
+ * link fails if a file of that name appeared in the directory during the upload, so it is never replaced.
+ * <p>
+ * Uploads that are not valid EDF files, or that end before the data records their headers declare, are
+ * deleted. Partial files never carry the {@code .edf} extension, so the directory watcher ignores them.
+ */
+@Service
+@Slf4j
+public class FileUploadServiceImpl implements FileUploadService {
+    private static final String LOG_INFO_EDF_FILE_UPLOADED = "Uploaded EDF file {} ({} bytes) in {} ms";
+    private static final String LOG_WARN_EDF_FILE_REJECTED = "Rejected upload of EDF file {}: {}";
+    private static final String LOG_WARN_EDF_FILE_APPEARED = "Discarded upload of EDF file {}: a file of that name appeared during the upload";
+    private static final String PART_EXTENSION = ".part";
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final ParserService parserService;
+    private final FileProcessingService fileProcessingService;
+    private final Set<String> uploadsInProgress = ConcurrentHashMap.newKeySet();
+
+    public FileUploadServiceImpl(ParserService parserService, FileProcessingService fileProcessingService) {
+        this.parserService = parserService;
+        this.fileProcessingService = fileProcessingService;
+    }
+
+    @Override
+    public Optional<FileInfo> upload(String fileName, InputStream body) throws IOException {
+        if (!uploadsInProgress.add(fileName)) {
+            return Optional.empty();
+        }
+
+        try {
+            var directory = fileProcessingService.getDataDirectory();
+            var target = directory.resolve(fileName);
+            if (Files.exists(target) || fileProcessingService.getProcessedFile(fileName).isPresent()) {
+                return Optional.empty();
+            }
+
+            var start = System.nanoTime();
+            // One upload per name at a time, so a partial file of this name can only be left over from a failed upload
+            var part = directory.resolve("." + fileName + PART_EXTENSION);
+            try {
+                var fileInfo = write(fileName, body, part);
+                if (!fileInfo.isValid()) {
+                    return Optional.of(fileInfo);
+                }
+
+                var size = Files.size(part);
+                try {
+                    Files.createLink(target, part);
+                } catch (FileAlreadyExistsException e) {
+                    log.warn(LOG_WARN_EDF_FILE_APPEARED, fileName);
+                    return Optional.empty();
+                }
+                fileProcessingService.ingest(target, fileInfo);
+                log.info(LOG_INFO_EDF_FILE_UPLOADED, fileName, size, (System.nanoTime() - start) / 1_000_000);
+                return Optional.of(fileInfo);
+            } finally {
+                Files.deleteIfExists(part);
+            }
+        } finally {
+            uploadsInProgress.remove(fileName);
+        }
+    }
+
+    /**
+     * Parses the upload while writing it to {@code part}, then copies the rest of the upload.
+     *
+     * @return The parsed metadata, invalid if the file ended before its last data record.
+     */
+    private FileInfo write(String fileName, InputStream body, Path part) throws IOException {
+        try (var out = new BufferedOutputStream(Files.newOutputStream(part), BUFFER_BYTES)) {
+            var in = new BufferedInputStream(body, BUFFER_BYTES);
+            var fileInfo = parserService.parse(fileName, new TeeInputStream(in, out));
+            if (!fileInfo.isValid()) {
+                log.warn(LOG_WARN_EDF_FILE_REJECTED, fileName, "not a valid EDF file");
+                return fileInfo;
+            }
+
+            in.transferTo(out);
+            out.flush();
+
+            var size = Files.size(part);
+            var expectedSize = fileInfo.getDataRecordLayout().getRecordPosition(fileInfo.getDataRecordLayout().getNumDataRecords());
+            if (size < expectedSize) {
+                log.warn(LOG_WARN_EDF_FILE_REJECTED, fileName, "expected %d bytes, but got %d".formatted(expectedSize, size));
+                return FileInfo.builder().fileName(fileName).valid(false).build();
+            }
+            return fileInfo;
+        }
+    }
+}
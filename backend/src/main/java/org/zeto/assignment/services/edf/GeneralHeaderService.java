@@ -2,6 +2,7 @@ package org.zeto.assignment.services.edf;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import org.zeto.assignment.models.edf.GeneralHeader;
 
@@ -21,4 +22,15 @@ public interface GeneralHeaderService extends BaseService {
      *                     stream ends unexpectedly before all header bytes can be read.
      */
     GeneralHeader read(InputStream is) throws IOException;
+
+    /**
+     * Decodes the general header (256 bytes) directly from a buffer, without copying it to an intermediate array.
+     * The header is read starting at the buffer's current position, which is advanced past the header.
+     *
+     * @param buffer The buffer holding the general header, e.g. a heap buffer filled by a positional read
+     *               or a memory-mapped region of the file.
+     * @return A {@link GeneralHeader} object containing the parsed information from the EDF general header.
+     * @throws IOException If fewer than 256 bytes remain in the buffer.
+     */
+    GeneralHeader read(ByteBuffer buffer) throws IOException;
 }
@@ -1,12 +1,8 @@
 package org.zeto.assignment.services.edf;
 
-import static java.lang.Double.parseDouble;
-import static java.lang.Integer.parseInt;
-
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
-import java.time.LocalDateTime;
+import java.nio.ByteBuffer;
 
 import org.springframework.stereotype.Service;
 import org.zeto.assignment.models.edf.GeneralHeader;
@@ -25,8 +21,8 @@ import org.zeto.assignment.models.edf.GeneralHeader;
  * - Number of signals in the data.
  * <p>
  * This class relies on specific fixed offsets and lengths to read relevant data
- * from the EDF header. Data is read as ASCII characters from byte arrays and
- * converted to their respective types (e.g., integer, double, or string).
+ * from the EDF header. Numeric fields and the recording start are decoded straight
+ * from the ASCII bytes; only the identifier and patient name become strings.
  */
 @Service
 public class GeneralHeaderServiceImpl implements GeneralHeaderService {
@@ -39,13 +35,10 @@ public class GeneralHeaderServiceImpl implements GeneralHeaderService {
     private static final int GH_PATIENT_INFO_OFFSET = 8;
     private static final int GH_RECORD_DURATION_LEN = 8;
     private static final int GH_RECORD_DURATION_OFFSET = 244;
-    private static final int GH_START_DATE_LEN = 8;
     private static final int GH_START_DATE_OFFSET = 168;
-    private static final int GH_START_TIME_LEN = 8;
     private static final int GH_START_TIME_OFFSET = 176;
     private static final int GH_VERSION_LEN = 8;
     private static final int GH_VERSION_OFFSET = 0;
-    private static final int HEADER_GENERAL_BYTES = 256;
 
     /**
      * Reads and parses the general header information from an InputStream representing an EDF file.
@@ -58,24 +51,42 @@ public class GeneralHeaderServiceImpl implements GeneralHeaderService {
      */
     @Override
     public GeneralHeader read(InputStream is) throws IOException {
-        var generalHeader = readBytes(is, HEADER_GENERAL_BYTES);
-
-        return GeneralHeader.builder()
-                            .identifier(readAscii(generalHeader, GH_VERSION_OFFSET, GH_VERSION_LEN))
-                            .patientName(readAscii(generalHeader, GH_PATIENT_INFO_OFFSET, GH_PATIENT_INFO_LEN))
-                            .recordingDate(readRecordingDate(generalHeader))
-                            .numDataRecords(parseInt(readAscii(generalHeader, GH_NUM_DATA_RECORDS_OFFSET, GH_NUM_DATA_RECORDS_LEN)))
-                            .recordDurationSec(parseDouble(readAscii(generalHeader, GH_RECORD_DURATION_OFFSET, GH_RECORD_DURATION_LEN)))
-                            .numSignals(parseInt(readAscii(generalHeader, GH_NUM_SIGNALS_OFFSET, GH_NUM_SIGNALS_LEN)))
-                            .build();
+        return read(ByteBuffer.wrap(readBytes(is, GENERAL_HEADER_BYTES)));
     }
 
-    private LocalDateTime readRecordingDate(byte[] generalHeader) {
-        return formatDate(readAscii(generalHeader, GH_START_DATE_OFFSET, GH_START_DATE_LEN),
-                          readAscii(generalHeader, GH_START_TIME_OFFSET, GH_START_TIME_LEN));
+    /**
+     * Decodes the general header fields straight from the buffer using absolute offsets relative to
+     * the buffer's current position, then advances the position past the 256 header bytes.
+     *
+     * @param buffer The buffer holding the EDF general header at its current position.
+     * @return A GeneralHeader object containing the parsed metadata from the EDF file.
+     * @throws IOException If the buffer does not contain the full general header.
+     */
+    @Override
+    public GeneralHeader read(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < GENERAL_HEADER_BYTES) {
+            throw new IOException(UNEXPECTED_END_OF_FILE_MESSAGE.formatted(GENERAL_HEADER_BYTES, buffer.remaining()));
+        }
+
+        var base = buffer.position();
+        var generalHeader = GeneralHeader.builder()
+                                         .identifier(readAscii(buffer, base + GH_VERSION_OFFSET, GH_VERSION_LEN))
+                                         .patientName(readAscii(buffer, base + GH_PATIENT_INFO_OFFSET, GH_PATIENT_INFO_LEN))
+                                         .recordingDate(readDateTime(buffer, base + GH_START_DATE_OFFSET, base + GH_START_TIME_OFFSET))
+                                         .numDataRecords(readAsciiInt(buffer, base + GH_NUM_DATA_RECORDS_OFFSET, GH_NUM_DATA_RECORDS_LEN))
+                                         .recordDurationSec(readRecordDuration(buffer, base))
+                                         .numSignals(readAsciiInt(buffer, base + GH_NUM_SIGNALS_OFFSET, GH_NUM_SIGNALS_LEN))
+                                         .build();
+
+        buffer.position(base + GENERAL_HEADER_BYTES);
+        return generalHeader;
     }
 
-    private static String readAscii(byte[] source, int offset, int length) {
-        return new String(source, offset, length, StandardCharsets.US_ASCII).trim();
+    private double readRecordDuration(ByteBuffer buffer, int base) {
+        var duration = readAsciiDecimal(buffer, base + GH_RECORD_DURATION_OFFSET, GH_RECORD_DURATION_LEN);
+        if (Double.isNaN(duration)) {
+            throw new NumberFormatException("Invalid record duration: " + readAscii(buffer, base + GH_RECORD_DURATION_OFFSET, GH_RECORD_DURATION_LEN));
+        }
+        return duration;
     }
 }
@@ -0,0 +1,327 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Positions in a gzip file at which decompression can start, so that a read of the uncompressed content at some
+ * offset only decompresses from the closest checkpoint before it instead of from the start of the file.
+ * <p>
+ * A deflate stream can only be entered at the start of a gzip member: inside a member, blocks start at arbitrary
+ * bit positions and depend on the preceding 32 KiB of output, and {@link Inflater} can neither prime bits nor
+ * expose its state. Checkpoints are therefore the member boundaries, at least {@code spacing} uncompressed bytes
+ * apart. Block-gzipped files (bgzip, or {@code pigz} with {@code --blocksize} and independent members) get a
+ * checkpoint every few megabytes; a file compressed as a single member has just the one at its start.
+ * <p>
+ * Building the checkpoints decompresses the whole file once, without keeping its content, and also yields the
+ * uncompressed size, which the gzip trailer only records modulo 2^32. A {@link Recorder} builds them while the file
+ * is read for another purpose, such as parsing it.
+ */
+final class GzipCheckpoints {
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int DEFLATE_METHOD = 8;
+    private static final int TRAILER_BYTES = 8;
+    private static final int FLAG_HEADER_CRC = 2;
+    private static final int FLAG_EXTRA = 4;
+    private static final int FLAG_NAME = 8;
+    private static final int FLAG_COMMENT = 16;
+
+    private final long[] compressedOffsets;
+    private final long[] uncompressedOffsets;
+    private final long uncompressedSize;
+
+    private GzipCheckpoints(long[] compressedOffsets, long[] uncompressedOffsets, long uncompressedSize) {
+        this.compressedOffsets = compressedOffsets;
+        this.uncompressedOffsets = uncompressedOffsets;
+        this.uncompressedSize = uncompressedSize;
+    }
+
+    /**
+     * Decompresses {@code channel} from its start and records a checkpoint at every member boundary that lies at
+     * least {@code spacing} uncompressed bytes after the previous checkpoint. Bytes after the last member that do not
+     * start another member are ignored, as {@link GZIPInputStream} does.
+     *
+     * @throws ZipException If the file does not start with a gzip member or a member is corrupt.
+     */
+    static GzipCheckpoints build(FileChannel channel, long spacing) throws IOException {
+        try (var recorder = new Recorder(new ChannelInput(channel, 0), spacing)) {
+            return recorder.finish();
+        }
+    }
+
+    long getUncompressedSize() {
+        return uncompressedSize;
+    }
+
+    int size() {
+        return compressedOffsets.length;
+    }
+
+    /**
+     * @return The index of the last checkpoint at or before the uncompressed {@code position}.
+     */
+    int indexAt(long position) {
+        var index = Arrays.binarySearch(uncompressedOffsets, position);
+        return index >= 0 ? index : Math.max(0, -index - 2);
+    }
+
+    long getUncompressedOffset(int checkpoint) {
+        return uncompressedOffsets[checkpoint];
+    }
+
+    /**
+     * @return The uncompressed content of {@code channel}, starting at {@code checkpoint}. Closing the stream leaves
+     * the channel open.
+     */
+    InputStream open(FileChannel channel, int checkpoint) throws IOException {
+        return new GZIPInputStream(new ChannelInput(channel, compressedOffsets[checkpoint]), BUFFER_BYTES);
+    }
+
+    private static int inflate(Inflater inflater, byte[] output, int off, int len) throws ZipException {
+        try {
+            return inflater.inflate(output, off, len);
+        } catch (DataFormatException e) {
+            throw new ZipException(e.getMessage());
+        }
+    }
+
+    /**
+     * Skips the header of a gzip member.
+     *
+     * @return The length of the header, or -1 if there is no further member.
+     * @throws ZipException If the first member does not start with a gzip header.
+     */
+    private static int readHeader(PushbackInputStream in, boolean first) throws IOException {
+        var magic = in.read() | in.read() << 8;
+        if (magic != GZIP_MAGIC || in.read() != DEFLATE_METHOD) {
+            if (first) {
+                throw new ZipException("Not in GZIP format");
+            }
+            return -1;
+        }
+
+        var flags = in.read();
+        in.skipNBytes(6);
+        var length = 10;
+        if ((flags & FLAG_EXTRA) != 0) {
+            var extra = in.read() | in.read() << 8;
+            in.skipNBytes(extra);
+            length += 2 + extra;
+        }
+        if ((flags & FLAG_NAME) != 0) {
+            length += skipZeroTerminated(in);
+        }
+        if ((flags & FLAG_COMMENT) != 0) {
+            length += skipZeroTerminated(in);
+        }
+        if ((flags & FLAG_HEADER_CRC) != 0) {
+            in.skipNBytes(2);
+            length += 2;
+        }
+        return length;
+    }
+
+    private static int skipZeroTerminated(InputStream in) throws IOException {
+        var length = 1;
+        for (var b = in.read(); b != 0; b = in.read(), length++) {
+            if (b == -1) {
+                throw new EOFException("Unexpected end of gzip header");
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Uncompressed content of a gzip file, read once from start to end, that records the checkpoints of the file
+     * along the way, so that the pass that parses a file also yields its checkpoints. Like {@link GZIPInputStream},
+     * it checks the CRC and length of every member against its trailer.
+     */
+    static final class Recorder extends InputStream {
+        private final PushbackInputStream in;
+        private final long spacing;
+        private final Inflater inflater = new Inflater(true);
+        private final CRC32 crc = new CRC32();
+        private final byte[] input = new byte[BUFFER_BYTES];
+        private long[] compressedOffsets = new long[16];
+        private long[] uncompressedOffsets = new long[16];
+        private int checkpoints;
+        private long compressed;
+        private long uncompressed;
+        private long memberStart;
+        private int read;
+        private boolean inMember;
+        private boolean ended;
+
+        /**
+         * @param in The compressed content, from the start of the file. Closing the recorder closes it.
+         */
+        Recorder(InputStream in, long spacing) {
+            this.in = new PushbackInputStream(new BufferedInputStream(in, BUFFER_BYTES), BUFFER_BYTES);
+            this.spacing = spacing;
+        }
+
+        @Override
+        public int read() throws IOException {
+            var b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        /**
+         * @throws ZipException If the file does not start with a gzip member or a member is corrupt.
+         */
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+            if (len == 0) {
+                return 0;
+            }
+
+            while (!ended) {
+                if (!inMember) {
+                    startMember();
+                    continue;
+                }
+                if (inflater.finished()) {
+                    endMember();
+                    continue;
+                }
+                if (inflater.needsInput()) {
+                    read = in.read(input);
+                    if (read == -1) {
+                        throw new EOFException("Unexpected end of gzip member");
+                    }
+                    inflater.setInput(input, 0, read);
+                    compressed += read;
+                }
+
+                var inflated = inflate(inflater, b, off, len);
+                if (inflated > 0) {
+                    crc.update(b, off, inflated);
+                    uncompressed += inflated;
+                    return inflated;
+                }
+                if (!inflater.finished() && !inflater.needsInput()) {
+                    throw new ZipException("Corrupt gzip member");
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Decompresses the rest of the file.
+         *
+         * @return The checkpoints of the whole file.
+         * @throws ZipException If a member is corrupt.
+         */
+        GzipCheckpoints finish() throws IOException {
+            var output = new byte[BUFFER_BYTES];
+            while (read(output, 0, output.length) != -1) {
+                // Only the checkpoints and the size are kept
+            }
+            return new GzipCheckpoints(Arrays.copyOf(compressedOffsets, checkpoints), Arrays.copyOf(uncompressedOffsets, checkpoints), uncompressed);
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflater.end();
+            in.close();
+        }
+
+        private void startMember() throws IOException {
+            var header = readHeader(in, checkpoints == 0);
+            if (header == -1) {
+                ended = true;
+                return;
+            }
+
+            if (checkpoints == 0 || uncompressed - uncompressedOffsets[checkpoints - 1] >= spacing) {
+                if (checkpoints == compressedOffsets.length) {
+                    compressedOffsets = Arrays.copyOf(compressedOffsets, 2 * checkpoints);
+                    uncompressedOffsets = Arrays.copyOf(uncompressedOffsets, 2 * checkpoints);
+                }
+                compressedOffsets[checkpoints] = compressed;
+                uncompressedOffsets[checkpoints++] = uncompressed;
+            }
+
+            compressed += header;
+            memberStart = uncompressed;
+            inflater.reset();
+            crc.reset();
+            read = 0;
+            inMember = true;
+        }
+
+        /**
+         * Hands the bytes read past the end of the deflate stream back and checks the trailer.
+         */
+        private void endMember() throws IOException {
+            var remaining = inflater.getRemaining();
+            in.unread(input, read - remaining, remaining);
+            compressed -= remaining;
+
+            var trailer = ByteBuffer.wrap(in.readNBytes(TRAILER_BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+            if (trailer.remaining() < TRAILER_BYTES) {
+                throw new EOFException("Unexpected end of gzip trailer");
+            }
+            if (trailer.getInt() != (int) crc.getValue() || trailer.getInt() != (int) (uncompressed - memberStart)) {
+                throw new ZipException("Corrupt gzip trailer");
+            }
+            compressed += TRAILER_BYTES;
+            inMember = false;
+        }
+    }
+
+    /**
+     * Stream of the bytes of a channel from a given position on, read with positional reads, so that several
+     * streams can share the channel. Closing it leaves the channel open.
+     */
+    private static final class ChannelInput extends InputStream {
+        private final FileChannel channel;
+        private long position;
+
+        private ChannelInput(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            var b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            var n = channel.read(ByteBuffer.wrap(b, off, len), position);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+
+        /**
+         * {@link GZIPInputStream} only looks for a further member when bytes are available.
+         */
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(0, channel.size() - position));
+        }
+    }
+}
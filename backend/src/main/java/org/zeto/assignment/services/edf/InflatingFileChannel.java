@@ -0,0 +1,227 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Read-only {@link FileChannel} over the uncompressed content of a compressed EDF file, so that the readers of data
+ * records work on compressed files unchanged.
+ * <p>
+ * Positional reads decompress forward from the current position of an open stream. A read before that position, or
+ * beyond a later checkpoint of the {@link Source}, reopens the stream at the last checkpoint before the read, so a
+ * sequential scan decompresses the file once and a jump decompresses at most the distance from one checkpoint.
+ * Mapping, locking and writing are not supported. Reads are serialized.
+ */
+final class InflatingFileChannel extends FileChannel {
+    private static final int SCRATCH_BYTES = 64 * 1024;
+
+    /**
+     * Compressed content that can be decompressed from a number of checkpoints.
+     */
+    interface Source extends Closeable {
+        long size();
+
+        /**
+         * @return The uncompressed offset of the last checkpoint at or before {@code position}.
+         */
+        long checkpointAt(long position);
+
+        /**
+         * @return The uncompressed content from the checkpoint at {@code checkpoint} on.
+         */
+        InputStream open(long checkpoint) throws IOException;
+    }
+
+    private final Source source;
+    private InputStream stream;
+    private long streamPosition;
+    private long position;
+    private byte[] scratch;
+
+    InflatingFileChannel(Source source) {
+        this.source = source;
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst, long position) throws IOException {
+        ensureOpen();
+        var size = source.size();
+        if (position >= size) {
+            return -1;
+        }
+
+        seek(position);
+        var length = (int) Math.min(dst.remaining(), size - position);
+        var read = 0;
+        if (dst.hasArray()) {
+            read = stream.readNBytes(dst.array(), dst.arrayOffset() + dst.position(), length);
+            dst.position(dst.position() + read);
+        } else {
+            if (scratch == null) {
+                scratch = new byte[SCRATCH_BYTES];
+            }
+            while (read < length) {
+                var n = stream.read(scratch, 0, Math.min(scratch.length, length - read));
+                if (n == -1) {
+                    break;
+                }
+                dst.put(scratch, 0, n);
+                read += n;
+            }
+        }
+
+        streamPosition += read;
+        return read == 0 && length > 0 ? -1 : read;
+    }
+
+    /**
+     * Moves the stream to {@code target}, reopening it at a checkpoint when that is closer or the only way back.
+     */
+    private void seek(long target) throws IOException {
+        var checkpoint = source.checkpointAt(target);
+        if (stream == null || target < streamPosition || checkpoint > streamPosition) {
+            if (stream != null) {
+                stream.close();
+            }
+            stream = source.open(checkpoint);
+            streamPosition = checkpoint;
+        }
+        stream.skipNBytes(target - streamPosition);
+        streamPosition = target;
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        var n = read(dst, position);
+        if (n > 0) {
+            position += n;
+        }
+        return n;
+    }
+
+    @Override
+    public synchronized long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+        var total = 0L;
+        for (var i = offset; i < offset + length; i++) {
+            var n = read(dsts[i]);
+            if (n == -1) {
+                return total == 0 ? -1 : total;
+            }
+            total += n;
+            if (dsts[i].hasRemaining()) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized FileChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position");
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return source.size();
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+        var buffer = ByteBuffer.allocate((int) Math.min(SCRATCH_BYTES, Math.max(1, count)));
+        var transferred = 0L;
+        while (transferred < count) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), count - transferred));
+            var n = read(buffer, position + transferred);
+            if (n <= 0) {
+                break;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+            transferred += n;
+        }
+        return transferred;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public int write(ByteBuffer src, long position) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public FileChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel src, long position, long count) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public void force(boolean metaData) {
+        // Nothing is ever written
+    }
+
+    @Override
+    public MappedByteBuffer map(MapMode mode, long position, long size) {
+        throw new UnsupportedOperationException("Compressed files cannot be mapped");
+    }
+
+    @Override
+    public FileLock lock(long position, long size, boolean shared) {
+        throw new UnsupportedOperationException("Compressed files cannot be locked");
+    }
+
+    @Override
+    public FileLock tryLock(long position, long size, boolean shared) {
+        throw new UnsupportedOperationException("Compressed files cannot be locked");
+    }
+
+    @Override
+    protected synchronized void implCloseChannel() throws IOException {
+        try (source) {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (!isOpen()) {
+            throw new ClosedChannelException();
+        }
+    }
+}
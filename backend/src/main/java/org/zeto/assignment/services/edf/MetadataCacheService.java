@@ -0,0 +1,53 @@
+package org.zeto.assignment.services.edf;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+
+import org.zeto.assignment.models.edf.FileInfo;
+
+/**
+ * Persistent cache of parsed EDF metadata, keyed by file path, size and last-modified time,
+ * so that unchanged files do not have to be parsed again after a restart.
+ */
+public interface MetadataCacheService {
+    /**
+     * Loads the cache belonging to the given EDF directory. Entries of a missing or unreadable cache
+     * file are simply not available; loading never fails.
+     *
+     * @param dataDirectory The directory holding the EDF files.
+     */
+    void load(Path dataDirectory);
+
+    /**
+     * Returns the cached metadata of a file if the cache holds an entry for its path with the same size
+     * and last-modified time.
+     *
+     * @param file       The EDF file.
+     * @param attributes The current attributes of the file.
+     * @return The cached {@link FileInfo}, or an empty {@link Optional} if the file is new or has changed.
+     */
+    Optional<FileInfo> lookup(Path file, BasicFileAttributes attributes);
+
+    /**
+     * Stores freshly parsed metadata of a file.
+     *
+     * @param file       The EDF file.
+     * @param attributes The attributes of the file as they were before it was parsed.
+     * @param fileInfo   The parsed metadata.
+     */
+    void store(Path file, BasicFileAttributes attributes, FileInfo fileInfo);
+
+    /**
+     * Drops the entry of a file that was removed.
+     *
+     * @param file The removed EDF file.
+     */
+    void evict(Path file);
+
+    /**
+     * Writes all entries looked up or stored since {@link #load(Path)} back to the cache file.
+     * Entries of files that no longer exist are dropped. Nothing is written if no entry changed.
+     */
+    void persist();
+}
@@ -0,0 +1,262 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.AnnotationIndex;
+import org.zeto.assignment.models.edf.Channel;
+import org.zeto.assignment.models.edf.DataRecordLayout;
+import org.zeto.assignment.models.edf.FileInfo;
+
+/**
+ * {@link MetadataCacheService} backed by a compact binary file.
+ * <p>
+ * The whole cache file is read with a single sequential read at startup and decoded from memory.
+ * Each entry holds the absolute file path, its size and last-modified time, followed by the
+ * {@link FileInfo} fields, the serialized {@link AnnotationIndex} and the {@link DataRecordLayout}. The file starts with a magic
+ * number and a format version; a cache written by an incompatible version is ignored.
+ * <p>
+ * Cached {@link FileInfo}s are passed through a {@link MontageDictionary}, so entries of files recorded with the
+ * same montage share their channels and signal layout instead of each holding a copy.
+ * <p>
+ * The cache is rewritten through a temporary file that is atomically moved into place, so a crash
+ * while persisting never leaves a truncated cache behind. Every change bumps a generation counter, and the cache is
+ * only rewritten when its generation differs from the one last persisted. Persisting is serialized, so a writer
+ * holding an older snapshot never replaces the file written from a newer one.
+ */
+@Service
+@Slf4j
+public class MetadataCacheServiceImpl implements MetadataCacheService {
+    private static final String LOG_INFO_CACHE_LOADED = "Loaded {} cached EDF metadata entries from {}";
+    private static final String LOG_INFO_CACHE_PERSISTED = "Persisted {} EDF metadata entries to {}";
+    private static final String LOG_WARN_CACHE_UNREADABLE = "Ignoring unreadable EDF metadata cache {}: {}";
+    private static final String LOG_WARN_CACHE_NOT_WRITTEN = "Could not persist EDF metadata cache {}: {}";
+    private static final String DEFAULT_CACHE_FILE_NAME = "edf-metadata.cache";
+    private static final int MAGIC = 0x45444643;
+    private static final int FORMAT_VERSION = 2;
+
+    private final EdfProperties properties;
+    private final Map<String, Entry> loadedEntries = new ConcurrentHashMap<>();
+    private final Map<String, Entry> currentEntries = new ConcurrentHashMap<>();
+    private final MontageDictionary montages = new MontageDictionary();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Path cacheFile;
+    /**
+     * Generation of the entries last written to, or loaded from, the cache file. Guarded by {@code this}.
+     */
+    private long persistedGeneration;
+    /**
+     * Whether the entries of files looked up since loading have been compared with the loaded ones, which also
+     * hold files deleted while the application was stopped. Guarded by {@code this}.
+     */
+    private boolean reconciled;
+
+    public MetadataCacheServiceImpl(EdfProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public synchronized void load(Path dataDirectory) {
+        loadedEntries.clear();
+        currentEntries.clear();
+        persistedGeneration = generation.get();
+        reconciled = false;
+
+        if (!properties.getMetadataCache().isEnabled()) {
+            cacheFile = null;
+            return;
+        }
+
+        cacheFile = resolveCacheFile(dataDirectory);
+        if (!Files.isRegularFile(cacheFile)) {
+            return;
+        }
+
+        try {
+            var in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(cacheFile)));
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                log.warn(LOG_WARN_CACHE_UNREADABLE, cacheFile, "unsupported format");
+                return;
+            }
+
+            var count = in.readInt();
+            for (var i = 0; i < count; i++) {
+                var path = in.readUTF();
+                loadedEntries.put(path, new Entry(in.readLong(), in.readLong(), share(readFileInfo(in))));
+            }
+            log.info(LOG_INFO_CACHE_LOADED, count, cacheFile);
+        } catch (IOException | RuntimeException e) {
+            loadedEntries.clear();
+            log.warn(LOG_WARN_CACHE_UNREADABLE, cacheFile, e.getMessage());
+        }
+    }
+
+    @Override
+    public Optional<FileInfo> lookup(Path file, BasicFileAttributes attributes) {
+        var key = toKey(file);
+        var entry = loadedEntries.get(key);
+
+        if (entry == null || entry.size() != attributes.size() || entry.lastModified() != attributes.lastModifiedTime().toMillis()) {
+            return Optional.empty();
+        }
+
+        currentEntries.put(key, entry);
+        return Optional.of(entry.fileInfo());
+    }
+
+    @Override
+    public void store(Path file, BasicFileAttributes attributes, FileInfo fileInfo) {
+        if (cacheFile != null) {
+            currentEntries.put(toKey(file), new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), share(fileInfo)));
+            generation.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void evict(Path file) {
+        if (currentEntries.remove(toKey(file)) != null) {
+            generation.incrementAndGet();
+        }
+    }
+
+    @Override
+    public synchronized void persist() {
+        var target = cacheFile;
+        if (target == null) {
+            return;
+        }
+        if (!reconciled) {
+            reconciled = true;
+            if (!currentEntries.keySet().equals(loadedEntries.keySet())) {
+                generation.incrementAndGet();
+            }
+        }
+
+        // Read before the snapshot, so that changes made while writing are persisted by the next call
+        var snapshotGeneration = generation.get();
+        if (snapshotGeneration == persistedGeneration) {
+            return;
+        }
+
+        var entries = new ArrayList<>(currentEntries.entrySet());
+        try {
+            var tmp = Files.createTempFile(target.toAbsolutePath().getParent(), DEFAULT_CACHE_FILE_NAME, ".tmp");
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(entries.size());
+                for (var entry : entries) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue().size());
+                    out.writeLong(entry.getValue().lastModified());
+                    writeFileInfo(out, entry.getValue().fileInfo());
+                }
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            persistedGeneration = snapshotGeneration;
+            log.info(LOG_INFO_CACHE_PERSISTED, entries.size(), target);
+        } catch (IOException e) {
+            log.warn(LOG_WARN_CACHE_NOT_WRITTEN, target, e.getMessage());
+        }
+    }
+
+    /**
+     * Files are stored concurrently, while the dictionary is not thread-safe.
+     */
+    private FileInfo share(FileInfo fileInfo) {
+        synchronized (montages) {
+            return montages.share(fileInfo);
+        }
+    }
+
+    private Path resolveCacheFile(Path dataDirectory) {
+        var configured = properties.getMetadataCache().getFile();
+        if (configured != null && !configured.isBlank()) {
+            return Paths.get(configured);
+        }
+        return dataDirectory.toAbsolutePath().resolveSibling(DEFAULT_CACHE_FILE_NAME);
+    }
+
+    private static String toKey(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+    private static void writeFileInfo(DataOutput out, FileInfo fileInfo) throws IOException {
+        out.writeUTF(fileInfo.getFileName());
+        out.writeBoolean(fileInfo.isValid());
+        if (!fileInfo.isValid()) {
+            return;
+        }
+
+        out.writeUTF(fileInfo.getIdentifier());
+        out.writeUTF(fileInfo.getPatientName());
+        out.writeBoolean(fileInfo.getRecordingDate() != null);
+        if (fileInfo.getRecordingDate() != null) {
+            out.writeLong(fileInfo.getRecordingDate().toEpochSecond(ZoneOffset.UTC));
+        }
+        out.writeDouble(fileInfo.getRecordingLengthSeconds());
+        out.writeInt(fileInfo.getNumberOfAnnotations());
+        out.writeInt(fileInfo.getChannels().size());
+        for (var channel : fileInfo.getChannels()) {
+            out.writeUTF(channel.name());
+            out.writeUTF(channel.type());
+        }
+        fileInfo.getAnnotationIndex().writeTo(out);
+        out.writeBoolean(fileInfo.getDataRecordLayout() != null);
+        if (fileInfo.getDataRecordLayout() != null) {
+            fileInfo.getDataRecordLayout().writeTo(out);
+        }
+    }
+
+    private static FileInfo readFileInfo(DataInput in) throws IOException {
+        var builder = FileInfo.builder().fileName(in.readUTF());
+        if (!in.readBoolean()) {
+            return builder.valid(false).build();
+        }
+
+        builder.valid(true)
+               .identifier(in.readUTF())
+               .patientName(in.readUTF());
+        if (in.readBoolean()) {
+            builder.recordingDate(LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC));
+        }
+        builder.recordingLengthSeconds(in.readDouble())
+               .numberOfAnnotations(in.readInt());
+
+        var numChannels = in.readInt();
+        var channels = new ArrayList<Channel>(numChannels);
+        for (var i = 0; i < numChannels; i++) {
+            channels.add(new Channel(in.readUTF(), in.readUTF()));
+        }
+
+        builder.channels(channels)
+               .annotationIndex(AnnotationIndex.readFrom(in));
+        if (in.readBoolean()) {
+            builder.dataRecordLayout(DataRecordLayout.readFrom(in));
+        }
+        return builder.build();
+    }
+
+    private record Entry(long size, long lastModified, FileInfo fileInfo) {
+    }
+}
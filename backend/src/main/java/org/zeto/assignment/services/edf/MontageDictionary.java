@@ -0,0 +1,121 @@
+package org.zeto.assignment.services.edf;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.zeto.assignment.models.edf.Channel;
+import org.zeto.assignment.models.edf.DataRecordLayout;
+import org.zeto.assignment.models.edf.FileInfo;
+
+/**
+ * Dictionary of the montages of the processed files, shared by all files recorded with the same montage.
+ * <p>
+ * A montage is the channel list of a file together with the per-signal part of its {@link DataRecordLayout}.
+ * Montages are numbered in the order they are first seen; number 0 is {@link Montage#NONE}, the montage of
+ * files without channels or layout. Channel labels, transducer types and physical dimensions are kept in a
+ * dictionary of names as well, so montages that differ only in calibration or sampling still share their
+ * strings.
+ * <p>
+ * Montages are never removed: their number is bounded by the distinct montages ever ingested, which is tiny
+ * compared to the number of files. The dictionary is not thread-safe.
+ */
+final class MontageDictionary {
+    private final Map<String, String> names = new HashMap<>();
+    private final Map<Montage, Integer> ids = new HashMap<>();
+    private final List<Montage> montages = new ArrayList<>();
+
+    MontageDictionary() {
+        ids.put(Montage.NONE, 0);
+        montages.add(Montage.NONE);
+    }
+
+    /**
+     * @return The number of the montage made of {@code channels} and the signals of {@code layout}, either of
+     * which may be {@code null}.
+     */
+    int intern(List<Channel> channels, DataRecordLayout layout) {
+        var montage = new Montage(channels, layout == null ? null : layout.withRecords(0, 0, 0));
+        var id = ids.get(montage);
+        if (id != null) {
+            return id;
+        }
+
+        var shared = new Montage(channels == null ? null : channels.stream().map(this::intern).toList(),
+                                 montage.signals() == null ? null : montage.signals().withSignalNames(this::intern));
+        id = montages.size();
+        ids.put(shared, id);
+        montages.add(shared);
+        return id;
+    }
+
+    /**
+     * @return A copy of {@code fileInfo} that shares its channels and signal layout with the other files of its
+     * montage.
+     */
+    FileInfo share(FileInfo fileInfo) {
+        var layout = fileInfo.getDataRecordLayout();
+        var montage = get(intern(fileInfo.getChannels(), layout));
+        return FileInfo.builder()
+                       .fileName(fileInfo.getFileName())
+                       .valid(fileInfo.isValid())
+                       .identifier(intern(fileInfo.getIdentifier()))
+                       .patientName(fileInfo.getPatientName())
+                       .recordingDate(fileInfo.getRecordingDate())
+                       .recordingLengthSeconds(fileInfo.getRecordingLengthSeconds())
+                       .numberOfAnnotations(fileInfo.getNumberOfAnnotations())
+                       .ingestionState(fileInfo.getIngestionState())
+                       .channels(montage.channels())
+                       .annotationIndex(fileInfo.getAnnotationIndex())
+                       .dataRecordLayout(layout == null ? null : montage.layout(layout.getDataOffset(), layout.getNumDataRecords(), layout.getRecordDurationSec()))
+                       .build();
+    }
+
+    /**
+     * @return The shared instance of {@code name}.
+     */
+    String intern(String name) {
+        return name == null ? null : names.computeIfAbsent(name, n -> n);
+    }
+
+    Montage get(int id) {
+        return montages.get(id);
+    }
+
+    int size() {
+        return montages.size();
+    }
+
+    private Channel intern(Channel channel) {
+        return new Channel(intern(channel.name()), intern(channel.type()));
+    }
+
+    /**
+     * @param channels The data channels of the files, or {@code null}.
+     * @param signals  The layout of the files without data records, or {@code null}.
+     */
+    record Montage(List<Channel> channels, DataRecordLayout signals) {
+        static final Montage NONE = new Montage(null, null);
+
+        /**
+         * @return The layout of a file of this montage, or {@code null} if the montage has none.
+         */
+        DataRecordLayout layout(long dataOffset, int numDataRecords, double recordDurationSec) {
+            return signals == null ? null : signals.withRecords(dataOffset, numDataRecords, recordDurationSec);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Montage other
+                    && Objects.equals(channels, other.channels)
+                    && (signals == null ? other.signals == null : other.signals != null && signals.hasSameSignals(other.signals));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(channels) + (signals == null ? 0 : signals.signalsHashCode());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Meters of the EDF parse pipeline, exported with the other Micrometer meters on {@code /actuator/prometheus}.
+ * <ul>
+ *     <li>{@code edf.parser.header.read}: time spent decoding the general ({@code header=general}) and signal
+ *     ({@code header=signal}) headers. When a file is parsed in one go, the signal header read includes the
+ *     annotation scan.</li>
+ *     <li>{@code edf.parser.annotation.scan}: time spent scanning the data records for annotations in the
+ *     background.</li>
+ *     <li>{@code edf.parser.bytes.read}: bytes of headers and data records read by the parser.</li>
+ *     <li>{@code edf.parser.files}: parsed files, by {@code outcome} ({@code valid} or {@code invalid}).</li>
+ * </ul>
+ * Meters are created once and carry no per-file tags, so recording costs a clock read and a few atomic
+ * additions per parse. The {@code max} of the timers points at slow files, which are then found in the log.
+ */
+@Component
+public class ParserMetrics {
+    /**
+     * Metrics recorded nowhere, for parsers created outside of Spring.
+     */
+    public static final ParserMetrics NONE = new ParserMetrics(new CompositeMeterRegistry());
+
+    private final Timer generalHeaderReads;
+    private final Timer signalHeaderReads;
+    private final Timer annotationScans;
+    private final Counter bytesRead;
+    private final Counter validFiles;
+    private final Counter invalidFiles;
+
+    public ParserMetrics(MeterRegistry registry) {
+        generalHeaderReads = Timer.builder("edf.parser.header.read")
+                                  .description("Time spent decoding EDF headers")
+                                  .tag("header", "general")
+                                  .register(registry);
+        signalHeaderReads = Timer.builder("edf.parser.header.read")
+                                 .description("Time spent decoding EDF headers")
+                                 .tag("header", "signal")
+                                 .register(registry);
+        annotationScans = Timer.builder("edf.parser.annotation.scan")
+                               .description("Time spent scanning EDF+ data records for annotations")
+                               .register(registry);
+        bytesRead = Counter.builder("edf.parser.bytes.read")
+                           .description("Bytes of EDF files read by the parser")
+                           .baseUnit("bytes")
+                           .register(registry);
+        validFiles = Counter.builder("edf.parser.files")
+                            .description("EDF files parsed")
+                            .tag("outcome", "valid")
+                            .register(registry);
+        invalidFiles = Counter.builder("edf.parser.files")
+                              .description("EDF files parsed")
+                              .tag("outcome", "invalid")
+                              .register(registry);
+    }
+
+    <T> T timeGeneralHeader(IoCall<T> read) throws IOException {
+        return time(generalHeaderReads, read);
+    }
+
+    <T> T timeSignalHeader(IoCall<T> read) throws IOException {
+        return time(signalHeaderReads, read);
+    }
+
+    <T> T timeAnnotationScan(IoCall<T> scan) throws IOException {
+        return time(annotationScans, scan);
+    }
+
+    void bytesRead(long bytes) {
+        bytesRead.increment(bytes);
+    }
+
+    void fileParsed(boolean valid) {
+        (valid ? validFiles : invalidFiles).increment();
+    }
+
+    private static <T> T time(Timer timer, IoCall<T> call) throws IOException {
+        var start = System.nanoTime();
+        try {
+            return call.call();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @FunctionalInterface
+    interface IoCall<T> {
+        T call() throws IOException;
+    }
+}
@@ -1,7 +1,11 @@
 package org.zeto.assignment.services.edf;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 
+import org.zeto.assignment.models.edf.AnnotationIndex;
+import org.zeto.assignment.models.edf.DataRecordLayout;
 import org.zeto.assignment.models.edf.FileInfo;
 
 /**
@@ -11,7 +15,51 @@ import org.zeto.assignment.models.edf.FileInfo;
  * extracting details from the general header and signal headers, and returning the
  * parsed information in the form of a {@link FileInfo} object. It uses associated
  * services as necessary for header parsing and logging errors or invalid states.
+ * <p>
+ * Files can be parsed in one go with {@link #parse(File)}, or in two phases: {@link #parseHeaders(File)} reads
+ * only the headers, and {@link #parseAnnotations(File, DataRecordLayout)} later scans the data records for the
+ * EDF+ annotations.
  */
 public interface ParserService extends BaseService {
     FileInfo parse(File edfFile);
+
+    /**
+     * Parses an EDF/EDF+ file from a stream positioned at its first byte, reading the headers and the data records
+     * up to the end of the last annotation in a single forward pass.
+     *
+     * @param fileName The name of the EDF file, including its extension.
+     * @param is       The content of the file. Bytes after the data records declared by the headers are not read.
+     * @return The metadata of the file, or an invalid {@link FileInfo} if the content is not a readable EDF file.
+     */
+    FileInfo parse(String fileName, InputStream is);
+
+    /**
+     * Parses a gzip-compressed ({@code .edf.gz}) EDF/EDF+ file, or the first {@code .edf} entry of a zip archive, by
+     * decompressing it into {@link #parse(String, InputStream)}: headers and annotations are read in a single pass,
+     * without extracting the file.
+     *
+     * @param file The compressed file.
+     * @return The metadata of the file, named after {@code file}, or an invalid {@link FileInfo} if it cannot be
+     * decompressed or is not a readable EDF file.
+     */
+    FileInfo parseCompressed(File file);
+
+    /**
+     * Parses the headers of an EDF/EDF+ file without reading its data records.
+     *
+     * @param edfFile The EDF/EDF+ file to parse.
+     * @return The metadata of the file, {@link org.zeto.assignment.models.edf.IngestionState#PENDING} if the
+     * annotations of the file remain to be parsed, or an invalid {@link FileInfo} if the headers are unreadable.
+     */
+    FileInfo parseHeaders(File edfFile);
+
+    /**
+     * Parses the EDF+ annotations of a file whose headers were parsed by {@link #parseHeaders(File)}.
+     *
+     * @param edfFile The EDF/EDF+ file.
+     * @param layout  The data record layout read from the headers of the file.
+     * @return The annotations of the file.
+     * @throws IOException If the file cannot be read or is shorter than its headers declare.
+     */
+    AnnotationIndex parseAnnotations(File edfFile, DataRecordLayout layout) throws IOException;
 }
@@ -2,10 +2,21 @@ package org.zeto.assignment.services.edf;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.configuration.EdfProperties.ParserBackend;
+import org.zeto.assignment.models.edf.AnnotationIndex;
+import org.zeto.assignment.models.edf.DataRecordLayout;
 import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.models.edf.GeneralHeader;
+import org.zeto.assignment.models.edf.IngestionState;
+import org.zeto.assignment.models.edf.SignalHeader;
 
 /**
  * Spring-managed service that parses EDF/EDF+ files in pure Java.
@@ -14,12 +25,20 @@ import org.zeto.assignment.models.edf.FileInfo;
  * - Read the fixed-size general header (256 bytes) and signal headers according to the EDF spec.
  * - Identify data channels vs. the EDF+ annotation channel (label "EDF Annotations").
  * - Compute recording metadata (start date/time, duration, channel names/types).
- * - Optionally count annotations by scanning the annotation channel across data records.
+ * - Parse the EDF+ annotations (TALs) of the annotation channel into a per-file {@link org.zeto.assignment.models.edf.AnnotationIndex}.
+ * - Capture the {@link DataRecordLayout} so that samples can later be read without parsing the headers again.
+ * <p>
+ * The I/O strategy is selected with {@code edf.parser.backend}: a plain {@link FileInputStream},
+ * positional {@link FileChannel} reads, or memory-mapped regions of the file.
+ * <p>
+ * Besides parsing a file in one go, the headers and the annotations can be parsed separately, so that files
+ * can be listed before their data records have been scanned. Compressed files are decompressed into the stream
+ * parser and parsed in one go.
+ * <p>
+ * Header reads, annotation scans, bytes read and parse outcomes are recorded in {@link ParserMetrics}.
  * <p>
  * Notes and assumptions:
  * - Only basic identifier validation is performed (identifier[0] == '0').
- * - For annotation counting we use a lightweight heuristic by counting NUL terminators in the
- * annotation bytes; a full TAL parser is out of scope for this service.
  */
 @Service
 @Slf4j
@@ -28,10 +47,15 @@ public class ParserServiceImpl implements ParserService {
     private static final char INITIAL_IDENTIFIER_CHAR = '0';
     private final GeneralHeaderService generalHeaderService;
     private final SignalHeaderService signalHeaderService;
+    private final EdfProperties properties;
+    private final ParserMetrics metrics;
 
-    public ParserServiceImpl(GeneralHeaderService generalHeaderService, SignalHeaderService signalHeaderService) {
+    public ParserServiceImpl(GeneralHeaderService generalHeaderService, SignalHeaderService signalHeaderService, EdfProperties properties,
+                             ParserMetrics metrics) {
         this.generalHeaderService = generalHeaderService;
         this.signalHeaderService = signalHeaderService;
+        this.properties = properties;
+        this.metrics = metrics;
     }
 
     /**
@@ -47,38 +71,174 @@ public class ParserServiceImpl implements ParserService {
      */
     @Override
     public FileInfo parse(File file) {
+        try {
+            var backend = properties.getParser().getBackend();
+            var fileInfo = backend == ParserBackend.STREAM ? parseStream(file) : parseChannel(file, backend);
+            metrics.bytesRead(fileInfo.getDataRecordLayout() == null
+                                      ? GENERAL_HEADER_BYTES
+                                      : fileInfo.getDataRecordLayout().getDataOffset() + annotationScanBytes(fileInfo.getDataRecordLayout(), backend));
+            return parsed(fileInfo);
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return parsed(createInvalidEdfFileInfo(file.getName()));
+        }
+    }
+
+    private FileInfo parseStream(File file) throws IOException {
         try (var fis = new FileInputStream(file)) {
-            var generalHeader = generalHeaderService.read(fis);
+            return parseStream(file.getName(), fis);
+        }
+    }
+
+    private FileInfo parseStream(String fileName, InputStream is) throws IOException {
+        var generalHeader = metrics.timeGeneralHeader(() -> generalHeaderService.read(is));
+
+        if (isNotCorrectIdentifier(generalHeader.getIdentifier())) {
+            return createInvalidEdfFileInfo(fileName);
+        }
+
+        var signalHeader = metrics.timeSignalHeader(() -> signalHeaderService.read(is, generalHeader));
+        return createEdfFileInfo(fileName, generalHeader, signalHeader, IngestionState.COMPLETE);
+    }
+
+    @Override
+    public FileInfo parse(String fileName, InputStream is) {
+        try {
+            var fileInfo = parseStream(fileName, is);
+            metrics.bytesRead(fileInfo.getDataRecordLayout() == null
+                                      ? GENERAL_HEADER_BYTES
+                                      : fileInfo.getDataRecordLayout().getDataOffset() + annotationScanBytes(fileInfo.getDataRecordLayout(), ParserBackend.STREAM));
+            return parsed(fileInfo);
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return parsed(createInvalidEdfFileInfo(fileName));
+        }
+    }
+
+    @Override
+    public FileInfo parseCompressed(File file) {
+        try (var is = CompressedEdfFiles.openStream(file.toPath())) {
+            return parse(file.getName(), is);
+        } catch (IOException e) {
+            log.error(e.getMessage(), e);
+            return parsed(createInvalidEdfFileInfo(file.getName()));
+        }
+    }
+
+    private FileInfo parseChannel(File file, ParserBackend backend) throws IOException {
+        try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            var generalHeader = metrics.timeGeneralHeader(() -> backend == ParserBackend.MAPPED
+                    ? generalHeaderService.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), GENERAL_HEADER_BYTES)))
+                    : generalHeaderService.read(readBytes(channel, 0, GENERAL_HEADER_BYTES)));
 
             if (isNotCorrectIdentifier(generalHeader.getIdentifier())) {
-                return createInvalidEdfFileInfo(file);
+                return createInvalidEdfFileInfo(file.getName());
             }
 
-            var signalHeader = signalHeaderService.read(fis, generalHeader);
-
-            return FileInfo.builder()
-                           .fileName(file.getName())
-                           .valid(true)
-                           .identifier(generalHeader.getIdentifier())
-                           .recordingDate(generalHeader.getRecordingDate())
-                           .patientName(generalHeader.getPatientName())
-                           .channels(signalHeader.getChannels())
-                           .recordingLengthSeconds(generalHeader.getRecordingLengthSeconds())
-                           .numberOfAnnotations(signalHeader.getAnnotationChannelIndex())
-                           .build();
+            var signalHeader = metrics.timeSignalHeader(() -> backend == ParserBackend.MAPPED
+                    ? signalHeaderService.readMapped(channel, generalHeader)
+                    : signalHeaderService.read(channel, generalHeader));
+
+            return createEdfFileInfo(file.getName(), generalHeader, signalHeader, IngestionState.COMPLETE);
+        }
+    }
+
+    /**
+     * Reads the general and signal headers with positional reads, whatever the configured backend, since they
+     * take a single small read; the backend only applies to the annotation scan.
+     */
+    @Override
+    public FileInfo parseHeaders(File file) {
+        try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            var generalHeader = metrics.timeGeneralHeader(() -> generalHeaderService.read(readBytes(channel, 0, GENERAL_HEADER_BYTES)));
+
+            if (isNotCorrectIdentifier(generalHeader.getIdentifier())) {
+                metrics.bytesRead(GENERAL_HEADER_BYTES);
+                return parsed(createInvalidEdfFileInfo(file.getName()));
+            }
+
+            var signalHeader = metrics.timeSignalHeader(() -> signalHeaderService.readHeader(channel, generalHeader));
+            var pending = signalHeader.getAnnotationChannelIndex() != -1 && generalHeader.getNumDataRecords() > 0;
+            metrics.bytesRead(getDataOffset(generalHeader.getNumSignals()));
+            return parsed(createEdfFileInfo(file.getName(), generalHeader, signalHeader, pending ? IngestionState.PENDING : IngestionState.COMPLETE));
         } catch (Exception e) {
             log.error(e.getMessage(), e);
-            return createInvalidEdfFileInfo(file);
+            return parsed(createInvalidEdfFileInfo(file.getName()));
+        }
+    }
+
+    @Override
+    public AnnotationIndex parseAnnotations(File file, DataRecordLayout layout) throws IOException {
+        var backend = properties.getParser().getBackend();
+        return metrics.timeAnnotationScan(() -> scanAnnotations(file, layout, backend));
+    }
+
+    private AnnotationIndex scanAnnotations(File file, DataRecordLayout layout, ParserBackend backend) throws IOException {
+        if (backend == ParserBackend.STREAM) {
+            try (var fis = new FileInputStream(file)) {
+                fis.skipNBytes(layout.getDataOffset());
+                var annotationIndex = signalHeaderService.readAnnotations(fis, layout);
+                metrics.bytesRead(annotationScanBytes(layout, backend));
+                return annotationIndex;
+            }
+        }
+
+        try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (backend == ParserBackend.CHANNEL) {
+                return signalHeaderService.readAnnotations(channel, layout, metrics::bytesRead);
+            }
+
+            var annotationIndex = signalHeaderService.readAnnotationsMapped(channel, layout);
+            metrics.bytesRead(annotationScanBytes(layout, backend));
+            return annotationIndex;
         }
     }
 
+    /**
+     * Streams read every data record in full, while mapped reads only touch the annotation channel of each
+     * record. Positional reads report the bytes they transferred themselves, since they read whole records when
+     * the other channels are small.
+     */
+    private static long annotationScanBytes(DataRecordLayout layout, ParserBackend backend) {
+        var annotationChannel = layout.indexOfAnnotationChannel();
+        if (annotationChannel == -1) {
+            return 0;
+        }
+
+        var bytesPerRecord = backend == ParserBackend.STREAM
+                ? layout.getRecordBytes()
+                : layout.getSamplesPerRecord(annotationChannel) * DataRecordLayout.BYTES_PER_SAMPLE;
+        return (long) layout.getNumDataRecords() * bytesPerRecord;
+    }
+
+    private FileInfo parsed(FileInfo fileInfo) {
+        metrics.fileParsed(fileInfo.isValid());
+        return fileInfo;
+    }
+
     private static boolean isNotCorrectIdentifier(String identifier) {
         return identifier.isEmpty() || identifier.charAt(0) != INITIAL_IDENTIFIER_CHAR;
     }
 
-    private static FileInfo createInvalidEdfFileInfo(File edfFile) {
+    private FileInfo createEdfFileInfo(String fileName, GeneralHeader generalHeader, SignalHeader signalHeader, IngestionState ingestionState) {
+        return FileInfo.builder()
+                       .fileName(fileName)
+                       .valid(true)
+                       .identifier(generalHeader.getIdentifier())
+                       .recordingDate(generalHeader.getRecordingDate())
+                       .patientName(generalHeader.getPatientName())
+                       .channels(signalHeader.getChannels())
+                       .recordingLengthSeconds(generalHeader.getRecordingLengthSeconds())
+                       .numberOfAnnotations(signalHeader.getAnnotationIndex().size())
+                       .annotationIndex(signalHeader.getAnnotationIndex())
+                       .dataRecordLayout(DataRecordLayout.of(generalHeader, signalHeader, getDataOffset(generalHeader.getNumSignals())))
+                       .ingestionState(ingestionState)
+                       .build();
+    }
+
+    private static FileInfo createInvalidEdfFileInfo(String fileName) {
         return FileInfo.builder()
-                       .fileName(edfFile.getName())
+                       .fileName(fileName)
                        .valid(false)
                        .build();
     }
@@ -0,0 +1,95 @@
+package org.zeto.assignment.services.edf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Compressed prefix trie (radix tree) over a sorted array of patient names.
+ * <p>
+ * Because the names are sorted, all names sharing a prefix occupy a contiguous range of the array, so every
+ * node only records that range instead of the names below it. Edges are labelled with the longest prefix
+ * shared by all names of the node, which keeps the trie at fewer than two nodes per distinct name. A prefix
+ * lookup walks at most one node per character of the prefix.
+ */
+final class PatientNameTrie {
+    static final Range NO_NAMES = new Range(0, 0);
+
+    private final Node root;
+
+    /**
+     * @param sortedNames Names in natural {@link String} order.
+     */
+    PatientNameTrie(String[] sortedNames) {
+        this.root = sortedNames.length == 0 ? null : build(sortedNames, 0, sortedNames.length, 0);
+    }
+
+    /**
+     * @return The range of indexes of the names starting with {@code prefix}, or {@link #NO_NAMES}.
+     */
+    Range range(String prefix) {
+        var node = root;
+        var position = 0;
+
+        while (node != null) {
+            var length = Math.min(node.label.length(), prefix.length() - position);
+            if (!prefix.regionMatches(position, node.label, 0, length)) {
+                return NO_NAMES;
+            }
+
+            position += length;
+            if (position == prefix.length()) {
+                return new Range(node.start, node.end);
+            }
+            // The first character of a child's names is the key of the edge leading to it
+            node = node.child(prefix.charAt(position++));
+        }
+        return NO_NAMES;
+    }
+
+    /**
+     * Builds the node of {@code names[start, end)}, which share their first {@code depth} characters.
+     */
+    private static Node build(String[] names, int start, int end, int depth) {
+        var first = names[start];
+        var last = names[end - 1];
+        var prefixLength = depth;
+        // The common prefix of a sorted range is the common prefix of its first and last name
+        while (prefixLength < first.length() && prefixLength < last.length() && first.charAt(prefixLength) == last.charAt(prefixLength)) {
+            prefixLength++;
+        }
+
+        var keys = new StringBuilder();
+        var children = new ArrayList<Node>();
+        var i = start;
+        // Names equal to the prefix sort before all names extending it
+        while (i < end && names[i].length() == prefixLength) i++;
+
+        while (i < end) {
+            var key = names[i].charAt(prefixLength);
+            var j = i;
+            while (j < end && names[j].charAt(prefixLength) == key) j++;
+
+            keys.append(key);
+            children.add(build(names, i, j, prefixLength + 1));
+            i = j;
+        }
+
+        return new Node(first.substring(depth, prefixLength), start, end, keys.toString().toCharArray(), children.toArray(Node[]::new));
+    }
+
+    /**
+     * Half-open range {@code [start, end)} of indexes into the sorted names.
+     */
+    record Range(int start, int end) {
+        int size() {
+            return end - start;
+        }
+    }
+
+    private record Node(String label, int start, int end, char[] keys, Node[] children) {
+        Node child(char key) {
+            var index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+}
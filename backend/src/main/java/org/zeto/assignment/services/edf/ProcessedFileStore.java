@@ -0,0 +1,364 @@
+package org.zeto.assignment.services.edf;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.zeto.assignment.models.edf.AnnotationIndex;
+import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.models.edf.IngestionState;
+
+/**
+ * Thread-safe store of processed EDF files, kept sorted by recording date (files without a date last,
+ * ties broken by file name) and indexed by file name.
+ * <p>
+ * Files are stored column-wise: every file is one row of a set of parallel arrays holding its primitive fields
+ * and references to shared values. Channel lists and the per-signal part of the data record layouts are
+ * deduplicated by a {@link MontageDictionary}, so files recorded with the same montage share one copy of their
+ * labels, transducer types and calibration, and a row costs a few dozen bytes besides its path, names and
+ * annotations. Rows of removed files are reused. The {@link FileInfo}s returned by {@link #list()} and
+ * {@link #get(String)} are lightweight views built on demand.
+ * <p>
+ * Every put stamps the row of the file with the store version, so that results computed in the background for
+ * one version of a file, such as its annotations, are only applied while that version is still stored. Every
+ * change of a row also records the version it produced, which lets readers list the files changed since a version.
+ * <p>
+ * The sorted view is a tree of row numbers keyed by recording date and file name, so adding, replacing or removing
+ * a single file costs {@code O(log n)} instead of copying and re-sorting the whole collection, and readers can walk
+ * the files in chunks from any position. Writers are serialized by the write lock of a
+ * read-write lock; readers share its read lock and only wait for a single-file change in progress. Every
+ * change increments a version counter, which lets readers cache views derived from the store. A second counter
+ * only changes when a file is added, replaced or removed, for views that do not depend on annotations.
+ */
+final class ProcessedFileStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long NO_DATE = Long.MAX_VALUE;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final MontageDictionary montages = new MontageDictionary();
+    private final Map<String, Integer> rowsByName = new HashMap<>();
+    private final NavigableMap<SortKey, Integer> sortedRows = new TreeMap<>();
+    private int rowCount;
+    private int[] freeRows = new int[INITIAL_CAPACITY];
+    private int freeRowCount;
+    private volatile long version;
+    private volatile long filesVersion;
+
+    private Path[] paths = new Path[INITIAL_CAPACITY];
+    private String[] fileNames = new String[INITIAL_CAPACITY];
+    private String[] identifiers = new String[INITIAL_CAPACITY];
+    private String[] patientNames = new String[INITIAL_CAPACITY];
+    private boolean[] valid = new boolean[INITIAL_CAPACITY];
+    private long[] recordingDates = new long[INITIAL_CAPACITY];
+    private double[] recordingLengths = new double[INITIAL_CAPACITY];
+    private int[] annotationCounts = new int[INITIAL_CAPACITY];
+    private IngestionState[] ingestionStates = new IngestionState[INITIAL_CAPACITY];
+    private long[] stamps = new long[INITIAL_CAPACITY];
+    private long[] changes = new long[INITIAL_CAPACITY];
+    private AnnotationIndex[] annotationIndexes = new AnnotationIndex[INITIAL_CAPACITY];
+    private int[] montageIds = new int[INITIAL_CAPACITY];
+    private long[] dataOffsets = new long[INITIAL_CAPACITY];
+    private int[] numDataRecords = new int[INITIAL_CAPACITY];
+    private double[] recordDurations = new double[INITIAL_CAPACITY];
+
+    /**
+     * Adds a file or replaces the file previously stored under the same name. Files are identified by their name
+     * alone, so a file whose name is already taken by a file at another path is not stored.
+     *
+     * @return The stamp of the stored version of the file, or an empty {@link OptionalLong} if its name is taken.
+     */
+    OptionalLong put(Path path, FileInfo fileInfo) {
+        return write(() -> {
+            var row = rowsByName.get(fileInfo.getFileName());
+            if (row != null && !paths[row].equals(path)) {
+                return OptionalLong.empty();
+            }
+            if (row != null) {
+                sortedRows.remove(sortKey(row));
+            } else {
+                row = allocateRow();
+                rowsByName.put(fileInfo.getFileName(), row);
+            }
+
+            setRow(row, path, fileInfo);
+            sortedRows.put(sortKey(row), row);
+            stamps[row] = ++version;
+            changes[row] = version;
+            filesVersion++;
+            return OptionalLong.of(stamps[row]);
+        });
+    }
+
+    /**
+     * Sets the annotations of a file, unless it was removed or replaced since the put that returned {@code stamp}.
+     *
+     * @return The updated file, or an empty {@link Optional} if the stamped version is no longer stored.
+     */
+    Optional<FileInfo> setAnnotations(String fileName, long stamp, AnnotationIndex annotationIndex, IngestionState ingestionState) {
+        return write(() -> {
+            var row = rowsByName.get(fileName);
+            if (row == null || stamps[row] != stamp) {
+                return Optional.empty();
+            }
+
+            annotationIndexes[row] = annotationIndex;
+            annotationCounts[row] = annotationIndex.size();
+            ingestionStates[row] = ingestionState;
+            changes[row] = ++version;
+            return Optional.of(view(row));
+        });
+    }
+
+    /**
+     * @return The version of the file stamped with {@code stamp}, or an empty {@link Optional} if it was removed or
+     * replaced since.
+     */
+    Optional<FileInfo> get(String fileName, long stamp) {
+        return read(() -> Optional.ofNullable(rowsByName.get(fileName)).filter(row -> stamps[row] == stamp).map(this::view));
+    }
+
+    /**
+     * Removes the file stored for {@code path}, or all files below {@code path} if it denotes a directory.
+     *
+     * @return The paths of the removed files.
+     */
+    List<Path> remove(Path path) {
+        return write(() -> {
+            var row = rowsByName.get(path.getFileName().toString());
+            if (row != null && paths[row].equals(path)) {
+                removeRow(row);
+                return List.of(path);
+            }
+            return removeRows(stored -> stored.startsWith(path));
+        });
+    }
+
+    /**
+     * Removes all files whose path matches {@code predicate}.
+     *
+     * @return The paths of the removed files.
+     */
+    List<Path> removeIf(Predicate<Path> predicate) {
+        return write(() -> removeRows(predicate));
+    }
+
+    /**
+     * @return A snapshot of all files in recording-date order.
+     */
+    List<FileInfo> list() {
+        return read(() -> sortedRows.values().stream().map(this::view).toList());
+    }
+
+    /**
+     * Lists the next chunk of files added or changed after version {@code since}, in recording-date order.
+     *
+     * @param after The last file of the previous chunk, or {@code null} to start with the first file.
+     * @param limit The maximum number of files to return; fewer files mean that the end was reached.
+     * @return A snapshot of the files sorted after {@code after} whose last change produced a version above {@code since}.
+     */
+    List<FileInfo> listChangedSince(long since, FileInfo after, int limit) {
+        return read(() -> {
+            var rows = after == null ? sortedRows.values() : sortedRows.tailMap(SortKey.of(after), false).values();
+            var files = new ArrayList<FileInfo>(Math.min(limit, sortedRows.size()));
+            for (var row : rows) {
+                if (files.size() == limit) {
+                    break;
+                }
+                if (changes[row] > since) {
+                    files.add(view(row));
+                }
+            }
+            return files;
+        });
+    }
+
+    Optional<FileInfo> get(String fileName) {
+        return read(() -> Optional.ofNullable(rowsByName.get(fileName)).map(this::view));
+    }
+
+    Optional<Path> getPath(String fileName) {
+        return read(() -> Optional.ofNullable(rowsByName.get(fileName)).map(row -> paths[row]));
+    }
+
+    Collection<Path> paths() {
+        return read(() -> rowsByName.values().stream().map(row -> paths[row]).toList());
+    }
+
+    /**
+     * @return A counter incremented by every change to the stored files.
+     */
+    long version() {
+        return version;
+    }
+
+    /**
+     * @return A counter incremented whenever a file is added, replaced or removed, but not when its annotations are set.
+     */
+    long filesVersion() {
+        return filesVersion;
+    }
+
+    int size() {
+        return read(rowsByName::size);
+    }
+
+    /**
+     * @return The number of distinct montages of the files stored so far, including the empty montage.
+     */
+    int montageCount() {
+        return read(montages::size);
+    }
+
+    private SortKey sortKey(int row) {
+        return new SortKey(recordingDates[row], fileNames[row]);
+    }
+
+    private FileInfo view(int row) {
+        var montage = montages.get(montageIds[row]);
+        return FileInfo.builder()
+                       .fileName(fileNames[row])
+                       .valid(valid[row])
+                       .identifier(identifiers[row])
+                       .patientName(patientNames[row])
+                       .recordingDate(recordingDates[row] == NO_DATE ? null : LocalDateTime.ofEpochSecond(recordingDates[row], 0, ZoneOffset.UTC))
+                       .recordingLengthSeconds(recordingLengths[row])
+                       .numberOfAnnotations(annotationCounts[row])
+                       .ingestionState(ingestionStates[row])
+                       .channels(montage.channels())
+                       .annotationIndex(annotationIndexes[row])
+                       .dataRecordLayout(montage.layout(dataOffsets[row], numDataRecords[row], recordDurations[row]))
+                       .build();
+    }
+
+    /**
+     * Recording dates are stored with second resolution, the resolution of EDF headers.
+     */
+    private void setRow(int row, Path path, FileInfo fileInfo) {
+        var layout = fileInfo.getDataRecordLayout();
+
+        paths[row] = path;
+        fileNames[row] = fileInfo.getFileName();
+        identifiers[row] = montages.intern(fileInfo.getIdentifier());
+        patientNames[row] = fileInfo.getPatientName();
+        valid[row] = fileInfo.isValid();
+        recordingDates[row] = fileInfo.getRecordingDate() == null ? NO_DATE : fileInfo.getRecordingDate().toEpochSecond(ZoneOffset.UTC);
+        recordingLengths[row] = fileInfo.getRecordingLengthSeconds();
+        annotationCounts[row] = fileInfo.getNumberOfAnnotations();
+        ingestionStates[row] = fileInfo.getIngestionState();
+        annotationIndexes[row] = fileInfo.getAnnotationIndex();
+        montageIds[row] = montages.intern(fileInfo.getChannels(), layout);
+        dataOffsets[row] = layout == null ? 0 : layout.getDataOffset();
+        numDataRecords[row] = layout == null ? 0 : layout.getNumDataRecords();
+        recordDurations[row] = layout == null ? 0 : layout.getRecordDurationSec();
+    }
+
+    private List<Path> removeRows(Predicate<Path> predicate) {
+        var removed = new ArrayList<Integer>();
+        for (var row : rowsByName.values()) {
+            if (predicate.test(paths[row])) {
+                removed.add(row);
+            }
+        }
+
+        var removedPaths = new ArrayList<Path>(removed.size());
+        for (var row : removed) {
+            removedPaths.add(paths[row]);
+            removeRow(row);
+        }
+        return removedPaths;
+    }
+
+    private void removeRow(int row) {
+        sortedRows.remove(sortKey(row));
+        rowsByName.remove(fileNames[row]);
+
+        // Drop the references so that removed files can be collected before their row is reused
+        paths[row] = null;
+        fileNames[row] = null;
+        identifiers[row] = null;
+        patientNames[row] = null;
+        annotationIndexes[row] = null;
+
+        if (freeRowCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, 2 * freeRows.length);
+        }
+        freeRows[freeRowCount++] = row;
+        version++;
+        filesVersion++;
+    }
+
+    private int allocateRow() {
+        if (freeRowCount > 0) {
+            return freeRows[--freeRowCount];
+        }
+
+        if (rowCount == paths.length) {
+            var capacity = 2 * rowCount;
+            paths = Arrays.copyOf(paths, capacity);
+            fileNames = Arrays.copyOf(fileNames, capacity);
+            identifiers = Arrays.copyOf(identifiers, capacity);
+            patientNames = Arrays.copyOf(patientNames, capacity);
+            valid = Arrays.copyOf(valid, capacity);
+            recordingDates = Arrays.copyOf(recordingDates, capacity);
+            recordingLengths = Arrays.copyOf(recordingLengths, capacity);
+            annotationCounts = Arrays.copyOf(annotationCounts, capacity);
+            ingestionStates = Arrays.copyOf(ingestionStates, capacity);
+            stamps = Arrays.copyOf(stamps, capacity);
+            changes = Arrays.copyOf(changes, capacity);
+            annotationIndexes = Arrays.copyOf(annotationIndexes, capacity);
+            montageIds = Arrays.copyOf(montageIds, capacity);
+            dataOffsets = Arrays.copyOf(dataOffsets, capacity);
+            numDataRecords = Arrays.copyOf(numDataRecords, capacity);
+            recordDurations = Arrays.copyOf(recordDurations, capacity);
+        }
+        return rowCount++;
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T write(Supplier<T> writer) {
+        lock.writeLock().lock();
+        try {
+            return writer.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Position of a file in recording-date order: files without a date last, ties broken by file name.
+     */
+    private record SortKey(long recordingDate, String fileName) implements Comparable<SortKey> {
+        static SortKey of(FileInfo fileInfo) {
+            return new SortKey(fileInfo.getRecordingDate() == null ? NO_DATE : fileInfo.getRecordingDate().toEpochSecond(ZoneOffset.UTC),
+                               fileInfo.getFileName());
+        }
+
+        @Override
+        public int compareTo(SortKey other) {
+            var byDate = Long.compare(recordingDate, other.recordingDate);
+            return byDate != 0 ? byDate : fileName.compareTo(other.fileName);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.zeto.assignment.models.edf.RecordLocation;
+
+/**
+ * Service for locating the data records of processed EDF files by time.
+ */
+public interface RecordIndexService {
+    /**
+     * Locates the data record holding a point in time. For discontinuous EDF+ recordings, a time that falls into
+     * a gap between records is located in the record after the gap; times outside the recording are located in
+     * its first or last record.
+     *
+     * @param fileName The name of the EDF file, including its extension.
+     * @param seconds  The point in time, in seconds from the start of the recording.
+     * @return The location of the record, or an empty {@link Optional} if the file does not exist, is invalid or
+     * has no data records.
+     * @throws IOException If the file or its record index cannot be read.
+     */
+    Optional<RecordLocation> locate(String fileName, double seconds) throws IOException;
+}
@@ -0,0 +1,203 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.DataRecordLayout;
+import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.models.edf.RecordLocation;
+
+/**
+ * {@link RecordIndexService} backed by per-file {@link RecordIndexSidecar}s.
+ * <p>
+ * Only EDF+ files carry record onsets of their own, so only files with an annotation channel are indexed. Indexes
+ * are built one file at a time on a single background thread, for every file present once the application is
+ * ready and for every file ingested afterwards (see {@link FileIngestedEvent}); sidecars that still match their
+ * EDF file are kept across restarts.
+ * <p>
+ * Plain EDF files, and EDF+ files whose index is not built yet, are treated as continuous: their record onsets
+ * follow from the record duration, so a lookup is a division. Otherwise it is a binary search of the mapped
+ * onsets. Either way no data record is read.
+ */
+@Service
+@Slf4j
+public class RecordIndexServiceImpl implements RecordIndexService {
+    private static final String LOG_INFO_INDEX_BUILT = "Built record index of EDF file {} in {} ms";
+    private static final String LOG_WARN_INDEX_NOT_BUILT = "Could not build record index of EDF file {}: {}";
+    private static final String LOG_WARN_INDEX_NOT_DELETED = "Could not delete record index of EDF file {}: {}";
+    private static final String DEFAULT_DIRECTORY_NAME = "edf-record-index";
+    private static final String SIDECAR_EXTENSION = ".records";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private final FileProcessingService fileProcessingService;
+    private final EdfProperties properties;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("edf-record-indexer").daemon().factory());
+    private final Set<Path> scheduledFiles = ConcurrentHashMap.newKeySet();
+    private final Map<String, CachedTimeline> timelines = new ConcurrentHashMap<>();
+
+    public RecordIndexServiceImpl(FileProcessingService fileProcessingService, EdfProperties properties) {
+        this.fileProcessingService = fileProcessingService;
+        this.properties = properties;
+    }
+
+    /**
+     * Schedules the indexes of all files ingested during startup, before any listener was registered.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleProcessedFiles() {
+        for (var fileInfo : fileProcessingService.getProcessedFiles()) {
+            fileProcessingService.getProcessedFilePath(fileInfo.getFileName()).ifPresent(path -> schedule(path, fileInfo));
+        }
+    }
+
+    @EventListener
+    public void onFileIngested(FileIngestedEvent event) {
+        timelines.remove(event.fileInfo().getFileName());
+        schedule(event.path(), event.fileInfo());
+    }
+
+    /**
+     * Deletes the index of a removed file once the builds queued before it have run.
+     */
+    @EventListener
+    public void onFileRemoved(FileRemovedEvent event) {
+        timelines.remove(event.fileName());
+        executor.execute(() -> delete(event.fileName()));
+    }
+
+    /**
+     * Interrupts a running build and waits for it to remove its temporary file.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void schedule(Path path, FileInfo fileInfo) {
+        if (!properties.getRecordIndex().isEnabled() || !fileInfo.isValid() || fileInfo.getDataRecordLayout() == null
+                || RecordIndexSidecar.indexOfTimekeepingChannel(fileInfo.getDataRecordLayout()) == -1) {
+            return;
+        }
+
+        if (scheduledFiles.add(path)) {
+            executor.execute(() -> {
+                // Unmark first, so that a change arriving while this build runs schedules another one
+                scheduledFiles.remove(path);
+                build(path, fileInfo);
+            });
+        }
+    }
+
+    /**
+     * Builds the index of a file unless its sidecar is up to date. Failures are logged and leave lookups on the
+     * continuous fallback.
+     */
+    void build(Path path, FileInfo fileInfo) {
+        try {
+            var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            var sidecar = getSidecar(fileInfo.getFileName());
+            if (sidecar.matches(attributes)) {
+                return;
+            }
+
+            var start = System.nanoTime();
+            Files.createDirectories(sidecar.getFile().toAbsolutePath().getParent());
+            sidecar.write(path, attributes, fileInfo.getDataRecordLayout());
+            log.info(LOG_INFO_INDEX_BUILT, fileInfo.getFileName(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn(LOG_WARN_INDEX_NOT_BUILT, fileInfo.getFileName(), e.getMessage());
+        }
+    }
+
+    @Override
+    public Optional<RecordLocation> locate(String fileName, double seconds) throws IOException {
+        var layout = fileProcessingService.getProcessedFile(fileName)
+                                          .filter(FileInfo::isValid)
+                                          .map(FileInfo::getDataRecordLayout);
+        var path = fileProcessingService.getProcessedFilePath(fileName);
+        if (layout.isEmpty() || path.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var timeline = getTimeline(fileName, path.get(), layout.get());
+        var record = timeline.recordAt(seconds);
+        if (record == -1) {
+            return Optional.empty();
+        }
+
+        return Optional.of(RecordLocation.builder()
+                                         .fileName(fileName)
+                                         .record(record)
+                                         .offset(layout.get().getRecordPosition(record))
+                                         .onset(timeline.onset(record))
+                                         .duration(timeline.getRecordDuration())
+                                         .build());
+    }
+
+    /**
+     * @return The timeline of the records present in the file: the mapped index if it is up to date, or else
+     * the records laid out back to back. The mapped index is kept for as long as the size and modification time
+     * of the file stay the same, so lookups do not open the sidecar again; the fallback is not kept, so that
+     * lookups switch to the index as soon as it is built.
+     */
+    private RecordTimeline getTimeline(String fileName, Path path, DataRecordLayout layout) throws IOException {
+        var attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        var cached = timelines.get(fileName);
+        if (cached != null && cached.matches(attributes)) {
+            return cached.timeline();
+        }
+
+        if (RecordIndexSidecar.indexOfTimekeepingChannel(layout) != -1) {
+            var indexed = getSidecar(fileName).open(attributes, layout.getRecordDurationSec());
+            if (indexed.isPresent()) {
+                timelines.put(fileName, new CachedTimeline(attributes.size(), attributes.lastModifiedTime().toMillis(), indexed.get()));
+                return indexed.get();
+            }
+        }
+
+        var records = (int) SampleReader.getAvailableRecords(layout, CompressedEdfFiles.getSize(path, attributes));
+        return RecordTimeline.continuous(records, layout.getRecordDurationSec());
+    }
+
+    private void delete(String fileName) {
+        try {
+            Files.deleteIfExists(getSidecar(fileName).getFile());
+        } catch (IOException e) {
+            log.warn(LOG_WARN_INDEX_NOT_DELETED, fileName, e.getMessage());
+        }
+    }
+
+    private RecordIndexSidecar getSidecar(String fileName) {
+        var configured = properties.getRecordIndex().getDirectory();
+        var directory = configured != null && !configured.isBlank()
+                ? Paths.get(configured)
+                : fileProcessingService.getDataDirectory().toAbsolutePath().resolveSibling(DEFAULT_DIRECTORY_NAME);
+        return new RecordIndexSidecar(directory.resolve(fileName + SIDECAR_EXTENSION));
+    }
+
+    /**
+     * A mapped index with the size and modification time of the file it was built from.
+     */
+    private record CachedTimeline(long size, long lastModified, RecordTimeline timeline) {
+        boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+
+import org.zeto.assignment.models.edf.DataRecordLayout;
+import org.zeto.assignment.models.edf.SignalHeader;
+
+/**
+ * Sidecar file holding the onset of every data record of one EDF+ file, taken from the time-keeping TAL that
+ * starts the annotation channel of each record.
+ * <p>
+ * The byte position of a record is a closed-form expression of the {@link DataRecordLayout}, even in
+ * discontinuous (EDF+D) files, so only the onsets are stored: one little-endian double per record after a
+ * fixed {@value #HEADER_BYTES}-byte header. Building the sidecar reads just the first annotation channel of every
+ * record; records without a valid time-keeping TAL are assumed to follow the previous record without a gap.
+ * <p>
+ * The header records the size and modification time of the EDF file the index was built from; a sidecar that
+ * does not match the current file is treated as missing. The onsets are memory-mapped when opened, so they stay
+ * off the heap and a lookup touches only the pages visited by its binary search.
+ */
+final class RecordIndexSidecar implements BaseService {
+    static final int HEADER_BYTES = 32;
+
+    private static final int MAGIC = 0x45444652;
+    private static final int FORMAT_VERSION = 1;
+    private static final int WRITE_BUFFER_BYTES = 8192;
+
+    private final Path file;
+
+    RecordIndexSidecar(Path file) {
+        this.file = file;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Indexes the records of {@code source} and atomically replaces the sidecar file with the index.
+     *
+     * @param attributes The attributes of {@code source} as they were before the index was built.
+     * @throws IllegalArgumentException If the layout has no EDF+ annotation channel.
+     */
+    void write(Path source, BasicFileAttributes attributes, DataRecordLayout layout) throws IOException {
+        var annotationChannel = indexOfTimekeepingChannel(layout);
+        if (annotationChannel == -1) {
+            throw new IllegalArgumentException("No EDF+ annotation channel");
+        }
+
+        var tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+
+        try (var in = CompressedEdfFiles.openChannel(source);
+             var out = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            var records = (int) SampleReader.getAvailableRecords(layout, in.size());
+            var buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+            buffer.putInt(MAGIC)
+                  .putInt(FORMAT_VERSION)
+                  .putLong(attributes.size())
+                  .putLong(attributes.lastModifiedTime().toMillis())
+                  .putLong(records)
+                  .order(ByteOrder.LITTLE_ENDIAN);
+
+            var reader = new AnnotationChannelReader(in, layout.getDataOffset(), layout.getRecordBytes(),
+                                                     layout.getSignalOffsetBytes(annotationChannel),
+                                                     layout.getSamplesPerRecord(annotationChannel) * DataRecordLayout.BYTES_PER_SAMPLE);
+            var previous = new double[]{Double.NEGATIVE_INFINITY};
+            var position = new long[]{0};
+
+            reader.scan(0, records, (record, annotations, offset, length) -> {
+                var onset = TalParser.parseRecordOnset(annotations, offset, length);
+                var expected = record == 0 ? 0 : previous[0] + layout.getRecordDurationSec();
+                // Keep onsets non-decreasing, so that lookups can binary search them
+                previous[0] = Double.isNaN(onset) ? expected : Math.max(onset, previous[0]);
+
+                buffer.putDouble(previous[0]);
+                if (!buffer.hasRemaining()) {
+                    position[0] = flush(out, buffer, position[0]);
+                }
+            });
+
+            flush(out, buffer, position[0]);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return Whether the sidecar exists and was built from a file with the given attributes.
+     */
+    boolean matches(BasicFileAttributes sourceAttributes) {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readRecordCount(channel, sourceAttributes) >= 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Maps the onsets stored in the sidecar.
+     *
+     * @return The timeline of the indexed records, or an empty {@link Optional} if the sidecar is missing or stale.
+     */
+    Optional<RecordTimeline> open(BasicFileAttributes sourceAttributes, double recordDuration) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var records = readRecordCount(channel, sourceAttributes);
+            if (records < 0) {
+                return Optional.empty();
+            }
+
+            // The mapping stays valid after the channel is closed and the sidecar is replaced
+            var onsets = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, (long) records * Double.BYTES)
+                                .order(ByteOrder.LITTLE_ENDIAN)
+                                .asDoubleBuffer();
+            return Optional.of(RecordTimeline.of(onsets, recordDuration));
+        }
+    }
+
+    /**
+     * @return The number of indexed records, or -1 if the header does not match {@code sourceAttributes} or the
+     * file is truncated.
+     */
+    private int readRecordCount(FileChannel channel, BasicFileAttributes sourceAttributes) throws IOException {
+        if (channel.size() < HEADER_BYTES) {
+            return -1;
+        }
+
+        var header = readBytes(channel, 0, HEADER_BYTES);
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION
+                || header.getLong() != sourceAttributes.size() || header.getLong() != sourceAttributes.lastModifiedTime().toMillis()) {
+            return -1;
+        }
+
+        var records = header.getLong();
+        return records >= 0 && records <= Integer.MAX_VALUE && channel.size() == HEADER_BYTES + records * Double.BYTES ? (int) records : -1;
+    }
+
+    /**
+     * @return The signal whose TALs carry the record onsets: the first EDF+ annotation channel, or -1.
+     */
+    static int indexOfTimekeepingChannel(DataRecordLayout layout) {
+        for (var signal = 0; signal < layout.getNumSignals(); signal++) {
+            if (SignalHeader.ANNOTATION_CHANNEL_LABEL.equals(layout.getLabel(signal))) {
+                return signal;
+            }
+        }
+        return -1;
+    }
+
+    private static long flush(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer, position);
+        }
+        buffer.clear();
+        return position;
+    }
+}
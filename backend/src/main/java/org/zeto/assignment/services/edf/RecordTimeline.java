@@ -0,0 +1,78 @@
+package org.zeto.assignment.services.edf;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * Onsets of the data records of one EDF file, in seconds from the start of the recording.
+ * <p>
+ * The records of a continuous recording follow each other without gaps, so their onsets are multiples of the
+ * record duration and take no storage. The onsets of other recordings, such as EDF+D files, come from the
+ * time-keeping TALs and are read from a {@link DoubleBuffer}, typically mapping a {@link RecordIndexSidecar}.
+ * Onsets never decrease, so the record holding a point in time is found by binary search.
+ */
+final class RecordTimeline {
+    private final int size;
+    private final double recordDuration;
+    private final DoubleBuffer onsets;
+
+    private RecordTimeline(int size, double recordDuration, DoubleBuffer onsets) {
+        this.size = size;
+        this.recordDuration = recordDuration;
+        this.onsets = onsets;
+    }
+
+    /**
+     * @return The timeline of {@code size} gapless records of {@code recordDuration} seconds.
+     */
+    static RecordTimeline continuous(int size, double recordDuration) {
+        return new RecordTimeline(size, recordDuration, null);
+    }
+
+    /**
+     * @param onsets The non-decreasing onsets of the records, from position 0 to the limit of the buffer.
+     */
+    static RecordTimeline of(DoubleBuffer onsets, double recordDuration) {
+        return new RecordTimeline(onsets.limit(), recordDuration, onsets);
+    }
+
+    int size() {
+        return size;
+    }
+
+    double getRecordDuration() {
+        return recordDuration;
+    }
+
+    double onset(int record) {
+        return onsets == null ? record * recordDuration : onsets.get(record);
+    }
+
+    /**
+     * Finds the first record that ends after {@code seconds}: the record holding that point in time or, if it
+     * falls into a gap between records, the record after the gap. Times before the first record map to the first
+     * record and times after the last record to the last one.
+     *
+     * @return The index of the record, or -1 if there are no records.
+     */
+    int recordAt(double seconds) {
+        if (size == 0) {
+            return -1;
+        }
+        if (onsets == null) {
+            return recordDuration > 0 ? (int) Math.clamp(Math.floor(seconds / recordDuration), 0, size - 1) : 0;
+        }
+
+        // Last record starting at or before seconds
+        var low = 0;
+        var high = size - 1;
+        while (low < high) {
+            var mid = (low + high + 1) >>> 1;
+            if (onsets.get(mid) <= seconds) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low < size - 1 && seconds >= onsets.get(low) + recordDuration ? low + 1 : low;
+    }
+}
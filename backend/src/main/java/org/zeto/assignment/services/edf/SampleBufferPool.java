@@ -0,0 +1,86 @@
+package org.zeto.assignment.services.edf;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of direct {@link ByteBuffer}s that {@link SampleReader}s read data records into.
+ * <p>
+ * Positional reads into a direct buffer copy straight from the page cache, without the intermediate heap copy of
+ * a heap buffer, but direct buffers are expensive to allocate and only freed by the garbage collector. Readers
+ * therefore borrow a buffer for the duration of a scan and return it afterwards. Each buffer comes with a
+ * little-endian {@link ShortBuffer} view created once, so sustained reads allocate nothing.
+ * <p>
+ * At most {@code maxIdleBuffers} returned buffers are kept. Requests for more than {@code bufferBytes} bytes, i.e.
+ * data records larger than a pooled buffer, get a buffer of their own that is not pooled. The pool is thread-safe.
+ */
+final class SampleBufferPool {
+    static final int DEFAULT_BUFFER_BYTES = 1 << 20;
+    private static final int DEFAULT_MAX_IDLE_BUFFERS = 8;
+
+    /**
+     * The pool shared by all readers of the application.
+     */
+    static final SampleBufferPool SHARED = new SampleBufferPool(DEFAULT_BUFFER_BYTES, DEFAULT_MAX_IDLE_BUFFERS);
+
+    private final int bufferBytes;
+    private final int maxIdleBuffers;
+    private final Queue<SampleBuffer> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    SampleBufferPool(int bufferBytes, int maxIdleBuffers) {
+        this.bufferBytes = bufferBytes;
+        this.maxIdleBuffers = maxIdleBuffers;
+    }
+
+    /**
+     * @return A buffer of at least {@code minBytes} bytes, to be handed back with {@link #release(SampleBuffer)}.
+     */
+    SampleBuffer acquire(int minBytes) {
+        if (minBytes > bufferBytes) {
+            return new SampleBuffer(minBytes, false);
+        }
+
+        var buffer = idle.poll();
+        if (buffer == null) {
+            return new SampleBuffer(bufferBytes, true);
+        }
+        idleCount.decrementAndGet();
+        return buffer;
+    }
+
+    void release(SampleBuffer buffer) {
+        if (!buffer.pooled) {
+            return;
+        }
+        if (idleCount.incrementAndGet() <= maxIdleBuffers) {
+            idle.offer(buffer);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    int getIdleCount() {
+        return idleCount.get();
+    }
+
+    /**
+     * A direct buffer together with its 16-bit little-endian view. Both share position-independent content; callers
+     * read and write them with absolute indexes or reset them before use.
+     */
+    static final class SampleBuffer {
+        final ByteBuffer bytes;
+        final ShortBuffer samples;
+        private final boolean pooled;
+
+        private SampleBuffer(int capacity, boolean pooled) {
+            this.bytes = ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+            this.samples = bytes.asShortBuffer();
+            this.pooled = pooled;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+
+import org.zeto.assignment.models.edf.DataRecordLayout;
+
+/**
+ * Reads the samples of EDF data records in batches, with positional reads into direct buffers borrowed from a
+ * {@link SampleBufferPool}.
+ * <p>
+ * {@link #scan(long, long, RecordVisitor)} reads as many consecutive records as fit into the borrowed buffer and hands
+ * every one of them to a visitor as a little-endian {@link ShortBuffer} view, and
+ * {@link #decode(ShortBuffer, int, int, int, int, float[], int)} bulk-copies the samples of one signal out of it and
+ * converts them to physical values. {@link #read(int, long, int, float[], int)} combines both for a range of
+ * samples of one signal. Results go to arrays supplied by the caller, and the buffers and views are reused across
+ * reads, so a sustained scan allocates nothing per record. Readers reuse one scratch array and are not thread-safe.
+ */
+final class SampleReader implements BaseService {
+    private final FileChannel channel;
+    private final DataRecordLayout layout;
+    private final SampleBufferPool pool;
+    private final short[] digitalValues;
+
+    SampleReader(FileChannel channel, DataRecordLayout layout) {
+        this(channel, layout, SampleBufferPool.SHARED);
+    }
+
+    SampleReader(FileChannel channel, DataRecordLayout layout, SampleBufferPool pool) {
+        this.channel = channel;
+        this.layout = layout;
+        this.pool = pool;
+
+        var maxSamplesPerRecord = 0;
+        for (var signal = 0; signal < layout.getNumSignals(); signal++) {
+            maxSamplesPerRecord = Math.max(maxSamplesPerRecord, layout.getSamplesPerRecord(signal));
+        }
+        this.digitalValues = new short[maxSamplesPerRecord];
+    }
+
+    /**
+     * Number of complete data records present in the file. Files with an unknown record count (-1) or
+     * fewer records than declared are limited to what is actually on disk, so reads never run past the end.
+     */
+    long getAvailableRecords() throws IOException {
+        return getAvailableRecords(layout, channel.size());
+    }
+
+    /**
+     * Same as {@link #getAvailableRecords()} for a file of {@code fileSize} bytes.
+     */
+    static long getAvailableRecords(DataRecordLayout layout, long fileSize) {
+        if (layout.getRecordBytes() == 0) {
+            return 0;
+        }
+
+        var recordsOnDisk = Math.max(0, fileSize - layout.getDataOffset()) / layout.getRecordBytes();
+        return layout.getNumDataRecords() >= 0 ? Math.min(layout.getNumDataRecords(), recordsOnDisk) : recordsOnDisk;
+    }
+
+    /**
+     * Visits the data records {@code [fromRecord, toRecord)} in order. Each batch of records is visited completely
+     * before the next one is read into the same buffer, so visitors must not keep the buffer they are handed.
+     */
+    void scan(long fromRecord, long toRecord, RecordVisitor visitor) throws IOException {
+        var recordBytes = layout.getRecordBytes();
+        if (fromRecord >= toRecord || recordBytes == 0) {
+            return;
+        }
+
+        var recordSamples = recordBytes / DataRecordLayout.BYTES_PER_SAMPLE;
+        var buffer = pool.acquire(recordBytes);
+        try {
+            var recordsPerBatch = buffer.bytes.capacity() / recordBytes;
+
+            for (var batchStart = fromRecord; batchStart < toRecord; batchStart += recordsPerBatch) {
+                var records = (int) Math.min(recordsPerBatch, toRecord - batchStart);
+                buffer.bytes.clear().limit(records * recordBytes);
+                readFully(channel, layout.getRecordPosition(batchStart), buffer.bytes);
+
+                for (var i = 0; i < records; i++) {
+                    visitor.visit(batchStart + i, buffer.samples, i * recordSamples);
+                }
+            }
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    /**
+     * Decodes {@code length} consecutive samples of {@code signal} into {@code target} as physical values, reading
+     * only the data records that hold them.
+     *
+     * @param firstSample The index of the first sample, counted across data records from the first one.
+     */
+    void read(int signal, long firstSample, int length, float[] target, int targetOffset) throws IOException {
+        if (length == 0) {
+            return;
+        }
+
+        var samplesPerRecord = layout.getSamplesPerRecord(signal);
+        scan(firstSample / samplesPerRecord, (firstSample + length - 1) / samplesPerRecord + 1, (record, samples, recordStart) -> {
+            var recordFirstSample = record * samplesPerRecord;
+            var from = (int) Math.max(0, firstSample - recordFirstSample);
+            var offset = (int) Math.max(0, recordFirstSample - firstSample);
+
+            decode(samples, recordStart, signal, from, Math.min(samplesPerRecord - from, length - offset), target, targetOffset + offset);
+        });
+    }
+
+    /**
+     * Decodes {@code length} samples of {@code signal}, starting at sample {@code from} of the data record that
+     * begins at index {@code recordStart} of {@code samples}, into {@code target} as physical values.
+     */
+    void decode(ShortBuffer samples, int recordStart, int signal, int from, int length, float[] target, int targetOffset) {
+        var gain = layout.getGain(signal);
+        var offset = layout.getOffset(signal);
+
+        readDigital(samples, recordStart, signal, from, length, digitalValues);
+        for (var k = 0; k < length; k++) {
+            target[targetOffset + k] = (float) (gain * digitalValues[k] + offset);
+        }
+    }
+
+    /**
+     * Same as {@link #decode(ShortBuffer, int, int, int, int, float[], int)}, but copies the stored digital values.
+     */
+    void readDigital(ShortBuffer samples, int recordStart, int signal, int from, int length, short[] target) {
+        readDigital(samples, recordStart, signal, from, length, target, 0);
+    }
+
+    /**
+     * Same as {@link #readDigital(ShortBuffer, int, int, int, int, short[])}, starting at {@code targetOffset} of {@code target}.
+     */
+    void readDigital(ShortBuffer samples, int recordStart, int signal, int from, int length, short[] target, int targetOffset) {
+        samples.get(recordStart + layout.getSignalOffsetBytes(signal) / DataRecordLayout.BYTES_PER_SAMPLE + from, target, targetOffset, length);
+    }
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        /**
+         * @param record      The index of the data record in the file.
+         * @param samples     The buffer holding the record, valid only during the call.
+         * @param recordStart The index of the first sample of the record in {@code samples}.
+         */
+        void visit(long record, ShortBuffer samples, int recordStart) throws IOException;
+    }
+}
@@ -0,0 +1,18 @@
+package org.zeto.assignment.services.edf;
+
+/**
+ * {@link StatisticsKernel} adding one value at a time, used when the Vector API is not available.
+ */
+final class ScalarStatisticsKernel implements StatisticsKernel {
+    @Override
+    public void accumulate(short[] values, int length, ChannelStatisticsAccumulator accumulator) {
+        for (var k = 0; k < length; k++) {
+            accumulator.add(values[k]);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,24 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.zeto.assignment.models.edf.SignalWindow;
+
+/**
+ * Service for reading the sample data of processed EDF files.
+ */
+public interface SignalDataService {
+    /**
+     * Reads the physical values of one channel of a processed EDF file for the samples whose time lies in
+     * {@code [start, end)}. Windows are clipped to the recording and to a maximum number of samples.
+     *
+     * @param fileName The name of the EDF file, including its extension.
+     * @param label    The label of the data channel.
+     * @param start    Inclusive start of the window, in seconds from the start of the recording.
+     * @param end      Exclusive end of the window, in seconds from the start of the recording.
+     * @return The samples in the window, or an empty {@link Optional} if the file or channel does not exist.
+     * @throws IOException If the file cannot be read.
+     */
+    Optional<SignalWindow> getSamples(String fileName, String label, double start, double end) throws IOException;
+}
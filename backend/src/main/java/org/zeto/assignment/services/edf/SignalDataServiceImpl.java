@@ -0,0 +1,122 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+import org.zeto.assignment.models.edf.DataRecordLayout;
+import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.models.edf.RecordLocation;
+import org.zeto.assignment.models.edf.SignalWindow;
+
+/**
+ * {@link SignalDataService} that decodes samples straight from the data records with a {@link SampleReader}.
+ * <p>
+ * The {@link DataRecordLayout} captured while parsing gives the byte position of every sample, so a window
+ * is served by reading only the data records that overlap it into a pooled direct buffer and bulk-decoding the
+ * little-endian int16 samples of the requested channel. The cost of a request depends on the window, not on the size of the file.
+ * Digital values are converted to physical values with the calibration of the channel's signal header.
+ * <p>
+ * The bounds of the window are located with the {@link RecordIndexService}, so windows of discontinuous EDF+
+ * recordings start at the record actually holding the requested time. Samples of consecutive records are
+ * returned back to back, across any gap between them.
+ * <p>
+ * When the file has an up-to-date columnar export (see {@link ColumnarExportService}), samples are decoded from the
+ * chunks of the requested channel instead, so the bytes of the other channels are not read.
+ * <p>
+ * Decoded samples go through the {@link SignalWindowCache}, so repeated and neighbouring windows are copied from
+ * memory, and the file is not opened at all while it is unchanged and the window is cached.
+ */
+@Service
+public class SignalDataServiceImpl implements SignalDataService {
+    static final int MAX_WINDOW_SAMPLES = 1 << 20;
+
+    private final FileProcessingService fileProcessingService;
+    private final RecordIndexService recordIndexService;
+    private final ColumnarExportService columnarExportService;
+    private final SignalWindowCache signalWindowCache;
+
+    public SignalDataServiceImpl(FileProcessingService fileProcessingService, RecordIndexService recordIndexService,
+                                 ColumnarExportService columnarExportService, SignalWindowCache signalWindowCache) {
+        this.fileProcessingService = fileProcessingService;
+        this.recordIndexService = recordIndexService;
+        this.columnarExportService = columnarExportService;
+        this.signalWindowCache = signalWindowCache;
+    }
+
+    @Override
+    public Optional<SignalWindow> getSamples(String fileName, String label, double start, double end) throws IOException {
+        var layout = fileProcessingService.getProcessedFile(fileName)
+                                          .filter(FileInfo::isValid)
+                                          .map(FileInfo::getDataRecordLayout);
+        var path = fileProcessingService.getProcessedFilePath(fileName);
+        if (layout.isEmpty() || path.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var signal = layout.get().indexOfDataChannel(label);
+        if (signal == -1) {
+            return Optional.empty();
+        }
+
+        var from = recordIndexService.locate(fileName, start).orElse(null);
+        var to = recordIndexService.locate(fileName, end).orElse(null);
+
+        var attributes = Files.readAttributes(path.get(), BasicFileAttributes.class);
+        SignalWindowCache.SamplesOpener opener = () -> ChannelSamples.open(columnarExportService, fileName, path.get(), layout.get());
+        var version = signalWindowCache.getVersion(fileName, attributes, opener);
+        var samplesPerRecord = layout.get().getSamplesPerRecord(signal);
+        return Optional.of(readWindow(fileName, layout.get(), signal, start, end, from, to, version.records(),
+                                      (first, count, target) -> signalWindowCache.read(version, signal, samplesPerRecord, first, count, target, opener)));
+    }
+
+    /**
+     * @param records The number of data records present in the file.
+     * @param samples Decodes samples of the channel, through the cache.
+     */
+    private static SignalWindow readWindow(String fileName, DataRecordLayout layout, int signal, double start, double end,
+                                           RecordLocation from, RecordLocation to, long records, SampleSource samples) throws IOException {
+        var sampleRate = layout.getSampleRate(signal);
+        var samplesPerRecord = layout.getSamplesPerRecord(signal);
+        var totalSamples = sampleRate > 0 ? records * samplesPerRecord : 0;
+        var first = Math.clamp(sampleAt(from, start, samplesPerRecord, sampleRate), 0, totalSamples);
+        var requestedLast = Math.clamp(sampleAt(to, end, samplesPerRecord, sampleRate), first, totalSamples);
+        var last = Math.min(requestedLast, first + MAX_WINDOW_SAMPLES);
+        var firstTime = from == null || sampleRate == 0 ? 0 : from.getOnset() + (first - (long) from.getRecord() * samplesPerRecord) / sampleRate;
+
+        var values = new float[(int) (last - first)];
+        samples.read(first, values.length, values);
+
+        return SignalWindow.builder()
+                           .fileName(fileName)
+                           .label(layout.getLabel(signal))
+                           .physicalDimension(layout.getPhysicalDimension(signal))
+                           .sampleRate(sampleRate)
+                           .start(firstTime)
+                           .samples(values)
+                           .truncated(last < requestedLast)
+                           .build();
+    }
+
+    /**
+     * @return The index of the first sample at or after {@code seconds} within the record at {@code location},
+     * or 0 if the file has no records.
+     */
+    static long sampleAt(RecordLocation location, double seconds, int samplesPerRecord, double sampleRate) {
+        if (location == null) {
+            return 0;
+        }
+        var offset = Math.clamp((long) Math.ceil((seconds - location.getOnset()) * sampleRate), 0, samplesPerRecord);
+        return (long) location.getRecord() * samplesPerRecord + offset;
+    }
+
+    @FunctionalInterface
+    private interface SampleSource {
+        /**
+         * Decodes {@code count} samples of the channel, starting at sample {@code first}, into {@code target}.
+         */
+        void read(long first, int count, float[] target) throws IOException;
+    }
+}
@@ -2,7 +2,11 @@ package org.zeto.assignment.services.edf;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.function.LongConsumer;
 
+import org.zeto.assignment.models.edf.AnnotationIndex;
+import org.zeto.assignment.models.edf.DataRecordLayout;
 import org.zeto.assignment.models.edf.GeneralHeader;
 import org.zeto.assignment.models.edf.SignalHeader;
 
@@ -19,4 +23,64 @@ public interface SignalHeaderService extends BaseService {
      * @throws IOException If an I/O error occurs while reading from the input stream.
      */
     SignalHeader read(InputStream is, GeneralHeader generalHeader) throws IOException;
+
+    /**
+     * Reads and parses the EDF signal header data using positional reads on a {@link FileChannel}.
+     * The signal header block is fetched with a single read and the data records are scanned through
+     * one reusable buffer, so the channel's own position is never used or modified.
+     *
+     * @param channel       The channel of the EDF file; the signal header is expected right after the general header.
+     * @param generalHeader The parsed general header data that provides context, such as the number of signals.
+     * @return An instance of {@link SignalHeader} containing the parsed signal-specific header data.
+     * @throws IOException If an I/O error occurs while reading from the channel.
+     */
+    SignalHeader read(FileChannel channel, GeneralHeader generalHeader) throws IOException;
+
+    /**
+     * Reads and parses the EDF signal header data by memory-mapping the file and decoding the
+     * header fields and annotation bytes in place. Data records are mapped in windows so files
+     * larger than 2 GB are supported.
+     *
+     * @param channel       The channel of the EDF file; the signal header is expected right after the general header.
+     * @param generalHeader The parsed general header data that provides context, such as the number of signals.
+     * @return An instance of {@link SignalHeader} containing the parsed signal-specific header data.
+     * @throws IOException If an I/O error occurs while mapping or reading the file.
+     */
+    SignalHeader readMapped(FileChannel channel, GeneralHeader generalHeader) throws IOException;
+
+    /**
+     * Reads and parses the EDF signal header data like {@link #read(FileChannel, GeneralHeader)}, but without
+     * scanning the data records: the annotation index of the result is empty.
+     *
+     * @param channel       The channel of the EDF file; the signal header is expected right after the general header.
+     * @param generalHeader The parsed general header data that provides context, such as the number of signals.
+     * @return An instance of {@link SignalHeader} containing the parsed signal-specific header data.
+     * @throws IOException If an I/O error occurs while reading from the channel.
+     */
+    SignalHeader readHeader(FileChannel channel, GeneralHeader generalHeader) throws IOException;
+
+    /**
+     * Parses the EDF+ annotations of a file whose headers were read before.
+     *
+     * @param is     The input stream containing the EDF file data, positioned at the first data record.
+     * @param layout The layout of the file's data records.
+     * @return The annotations of the file, or an empty index if it has no annotation channel.
+     * @throws IOException If an I/O error occurs or the file is shorter than its headers declare.
+     */
+    AnnotationIndex readAnnotations(InputStream is, DataRecordLayout layout) throws IOException;
+
+    /**
+     * Same as {@link #readAnnotations(InputStream, DataRecordLayout)}, reading only the annotation channel bytes
+     * with positional reads.
+     *
+     * @param bytesRead Receives the number of bytes read from the channel, possibly in several parts and from
+     *                  several threads.
+     */
+    AnnotationIndex readAnnotations(FileChannel channel, DataRecordLayout layout, LongConsumer bytesRead) throws IOException;
+
+    /**
+     * Same as {@link #readAnnotations(InputStream, DataRecordLayout)}, decoding the annotation channel bytes of
+     * memory-mapped data records in place.
+     */
+    AnnotationIndex readAnnotationsMapped(FileChannel channel, DataRecordLayout layout) throws IOException;
 }
@@ -2,11 +2,21 @@ package org.zeto.assignment.services.edf;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongConsumer;
 
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.AnnotationIndex;
+import org.zeto.assignment.models.edf.DataRecordLayout;
 import org.zeto.assignment.models.edf.GeneralHeader;
 import org.zeto.assignment.models.edf.SignalHeader;
 
@@ -22,15 +32,25 @@ import org.zeto.assignment.models.edf.SignalHeader;
  * <p>
  * Responsibilities:
  * - Read signal header fields from the EDF file.
- * - Parse metadata for each signal, including labels, transducer types, and sample counts.
- * - Identify and process the EDF+ annotation channel for annotation tagging and counting.
+ * - Parse metadata for each signal, including labels, transducer types, calibration ranges and sample counts.
+ * - Identify the EDF+ annotation channel and parse its TALs into an {@link AnnotationIndex}.
+ * <p>
+ * The whole signal header block ({@code numSignals * 256} bytes) is fetched at once and decoded
+ * from a {@link ByteBuffer}, whether it comes from a stream, a positional channel read or a
+ * memory-mapped region. Numeric fields are decoded from the ASCII bytes into primitive arrays;
+ * only labels, transducer types and physical dimensions become strings.
+ * <p>
+ * Positional annotation scans of large files run in parallel: the data records are split into chunks on a
+ * dedicated {@link ForkJoinPool} of {@code edf.parser.annotation-scan-parallelism} threads, every chunk is scanned
+ * with its own {@link AnnotationChannelReader}, and the annotations of the chunks are merged in record order. The
+ * chunks block on file reads, so they are kept off the common pool. Files whose data records span less than
+ * {@value #PARALLEL_SCAN_THRESHOLD_BYTES} bytes are scanned by the calling thread alone; larger files are split
+ * into about four chunks per pool thread, each spanning at least a quarter of that threshold.
  */
 @Service
 public class SignalHeaderServiceImpl implements SignalHeaderService {
 
-    private static final String ANNOTATION_CHANNEL_LABEL = "EDF Annotations";
-    private static final byte TAL_TERMINATOR_BYTE = 0x00;
-    private static final int BYTES_PER_SAMPLE = 2;
+    private static final int MAX_MAPPED_WINDOW_BYTES = 1 << 30;
     private static final int SH_DIGITAL_MAX_LENGTH = 8;
     private static final int SH_DIGITAL_MIN_LENGTH = 8;
     private static final int SH_LABEL_LENGTH = 16;
@@ -41,6 +61,30 @@ public class SignalHeaderServiceImpl implements SignalHeaderService {
     private static final int SH_RESERVED_LENGTH = 32;
     private static final int SH_SAMPLES_PER_RECORD_LENGTH = 8;
     private static final int SH_TRANSDUCER_LENGTH = 80;
+    private static final long PARALLEL_SCAN_THRESHOLD_BYTES = 64L * 1024 * 1024;
+    private static final int CHUNKS_PER_CORE = 4;
+
+    private final long parallelScanThresholdBytes;
+    private final ForkJoinPool scanPool;
+
+    @Autowired
+    public SignalHeaderServiceImpl(EdfProperties properties) {
+        this(PARALLEL_SCAN_THRESHOLD_BYTES, properties.getParser().getAnnotationScanParallelism());
+    }
+
+    /**
+     * @param parallelScanThresholdBytes The span of data records from which positional annotation scans are split.
+     * @param parallelism                The number of threads scanning the chunks of a split scan.
+     */
+    SignalHeaderServiceImpl(long parallelScanThresholdBytes, int parallelism) {
+        this.parallelScanThresholdBytes = parallelScanThresholdBytes;
+        this.scanPool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    @PreDestroy
+    public void stop() {
+        scanPool.shutdownNow();
+    }
 
     /**
      * Reads and parses the signal header information from the given input stream and general header.
@@ -54,109 +98,388 @@ public class SignalHeaderServiceImpl implements SignalHeaderService {
      */
     @Override
     public SignalHeader read(InputStream is, GeneralHeader generalHeader) throws IOException {
-        var allSignalLabels = readSignalHeaderField(is, generalHeader.getNumSignals(), SH_LABEL_LENGTH);
-        var allTransducerTypes = readSignalHeaderField(is, generalHeader.getNumSignals(), SH_TRANSDUCER_LENGTH);
+        var numSignals = generalHeader.getNumSignals();
+        var fields = readFields(ByteBuffer.wrap(readBytes(is, numSignals * SIGNAL_HEADER_BYTES)), numSignals);
+
+        return toSignalHeader(fields, readAnnotations(is, generalHeader.getNumDataRecords(), AnnotationChannel.of(fields)));
+    }
+
+    /**
+     * Reads and parses the signal header with a single positional read of the header block and
+     * parses annotations from the annotation channel bytes only.
+     *
+     * @param channel       the channel of the EDF file
+     * @param generalHeader the general header containing metadata for the signal header
+     * @return a SignalHeader object containing parsed signal header information
+     * @throws IOException if an I/O error occurs or the file is shorter than its headers declare
+     */
+    @Override
+    public SignalHeader read(FileChannel channel, GeneralHeader generalHeader) throws IOException {
+        var numSignals = generalHeader.getNumSignals();
+        var fields = readFields(readBytes(channel, GENERAL_HEADER_BYTES, numSignals * SIGNAL_HEADER_BYTES), numSignals);
+
+        return toSignalHeader(fields, readAnnotations(channel, getDataOffset(numSignals), generalHeader.getNumDataRecords(), AnnotationChannel.of(fields), bytes -> { }));
+    }
+
+    /**
+     * Reads and parses the signal header from a memory-mapped region and parses annotations by
+     * inspecting only the annotation bytes of each mapped data record.
+     *
+     * @param channel       the channel of the EDF file
+     * @param generalHeader the general header containing metadata for the signal header
+     * @return a SignalHeader object containing parsed signal header information
+     * @throws IOException if an I/O error occurs or the file is shorter than its headers declare
+     */
+    @Override
+    public SignalHeader readMapped(FileChannel channel, GeneralHeader generalHeader) throws IOException {
+        var numSignals = generalHeader.getNumSignals();
+        var dataOffset = getDataOffset(numSignals);
+
+        requireFileSize(channel, dataOffset);
+        var fields = readFields(channel.map(FileChannel.MapMode.READ_ONLY, GENERAL_HEADER_BYTES, (long) numSignals * SIGNAL_HEADER_BYTES), numSignals);
+
+        return toSignalHeader(fields, readAnnotationsMapped(channel, dataOffset, generalHeader.getNumDataRecords(), AnnotationChannel.of(fields)));
+    }
+
+    /**
+     * Reads and parses the signal header with a single positional read of the header block, leaving the
+     * annotations for a later {@link #readAnnotations(FileChannel, DataRecordLayout, LongConsumer)}.
+     *
+     * @param channel       the channel of the EDF file
+     * @param generalHeader the general header containing metadata for the signal header
+     * @return a SignalHeader object with an empty annotation index
+     * @throws IOException if an I/O error occurs or the file is shorter than its headers declare
+     */
+    @Override
+    public SignalHeader readHeader(FileChannel channel, GeneralHeader generalHeader) throws IOException {
+        var numSignals = generalHeader.getNumSignals();
+        return toSignalHeader(readFields(readBytes(channel, GENERAL_HEADER_BYTES, numSignals * SIGNAL_HEADER_BYTES), numSignals), AnnotationIndex.EMPTY);
+    }
+
+    @Override
+    public AnnotationIndex readAnnotations(InputStream is, DataRecordLayout layout) throws IOException {
+        return readAnnotations(is, layout.getNumDataRecords(), AnnotationChannel.of(layout));
+    }
+
+    @Override
+    public AnnotationIndex readAnnotations(FileChannel channel, DataRecordLayout layout, LongConsumer bytesRead) throws IOException {
+        return readAnnotations(channel, layout.getDataOffset(), layout.getNumDataRecords(), AnnotationChannel.of(layout), bytesRead);
+    }
+
+    @Override
+    public AnnotationIndex readAnnotationsMapped(FileChannel channel, DataRecordLayout layout) throws IOException {
+        return readAnnotationsMapped(channel, layout.getDataOffset(), layout.getNumDataRecords(), AnnotationChannel.of(layout));
+    }
+
+    private SignalFields readFields(ByteBuffer buffer, int numSignals) {
+        var allSignalLabels = readSignalHeaderField(buffer, numSignals, SH_LABEL_LENGTH);
+        var allTransducerTypes = readSignalHeaderField(buffer, numSignals, SH_TRANSDUCER_LENGTH);
+
+        var physicalDimensions = readSignalHeaderField(buffer, numSignals, SH_PHYSICAL_DIMENSION_LENGTH);
+        var physicalMinimums = readSignalHeaderDecimals(buffer, numSignals, SH_PHYSICAL_MIN_LENGTH);
+        var physicalMaximums = readSignalHeaderDecimals(buffer, numSignals, SH_PHYSICAL_MAX_LENGTH);
+        var digitalMinimums = readSignalHeaderIntegers(buffer, numSignals, SH_DIGITAL_MIN_LENGTH);
+        var digitalMaximums = readSignalHeaderIntegers(buffer, numSignals, SH_DIGITAL_MAX_LENGTH);
 
-        readSignalHeaderField(is, generalHeader.getNumSignals(), SH_PHYSICAL_DIMENSION_LENGTH);
-        readSignalHeaderField(is, generalHeader.getNumSignals(), SH_PHYSICAL_MIN_LENGTH);
-        readSignalHeaderField(is, generalHeader.getNumSignals(), SH_PHYSICAL_MAX_LENGTH);
-        readSignalHeaderField(is, generalHeader.getNumSignals(), SH_DIGITAL_MIN_LENGTH);
-        readSignalHeaderField(is, generalHeader.getNumSignals(), SH_DIGITAL_MAX_LENGTH);
-        readSignalHeaderField(is, generalHeader.getNumSignals(), SH_PREFILTER_LENGTH);
+        skipSignalHeaderField(buffer, numSignals, SH_PREFILTER_LENGTH);
 
-        var samplesPerRecord = readSignalSamplesPerRecord(is, generalHeader.getNumSignals());
+        var samplesPerRecord = readSignalSamplesPerRecord(buffer, numSignals);
 
-        readBytes(is, generalHeader.getNumSignals() * SH_RESERVED_LENGTH);
+        skipSignalHeaderField(buffer, numSignals, SH_RESERVED_LENGTH);
 
-        var annotationChannelIndex = -1;
+        return new SignalFields(allSignalLabels, allTransducerTypes, physicalDimensions, physicalMinimums, physicalMaximums,
+                                digitalMinimums, digitalMaximums, samplesPerRecord, allSignalLabels.lastIndexOf(SignalHeader.ANNOTATION_CHANNEL_LABEL));
+    }
+
+    private static SignalHeader toSignalHeader(SignalFields fields, AnnotationIndex annotationIndex) {
         var dataChannelNames = new ArrayList<String>();
         var dataChannelTransducerTypes = new ArrayList<String>();
 
-        for (var i = 0; i < generalHeader.getNumSignals(); i++) {
-            var label = allSignalLabels.get(i);
+        for (var i = 0; i < fields.labels().size(); i++) {
+            var label = fields.labels().get(i);
 
-            if (ANNOTATION_CHANNEL_LABEL.equals(label)) {
-                annotationChannelIndex = i;
-            } else {
+            if (!SignalHeader.ANNOTATION_CHANNEL_LABEL.equals(label)) {
                 dataChannelNames.add(label);
-                dataChannelTransducerTypes.add(allTransducerTypes.get(i));
+                dataChannelTransducerTypes.add(fields.transducerTypes().get(i));
             }
         }
 
         return SignalHeader.builder()
-                           .numSignals(generalHeader.getNumSignals())
-                           .labels(allSignalLabels)
-                           .transducerTypes(allTransducerTypes)
-                           .samplesPerRecord(samplesPerRecord)
+                           .numSignals(fields.labels().size())
+                           .labels(fields.labels())
+                           .transducerTypes(fields.transducerTypes())
+                           .physicalDimensions(fields.physicalDimensions())
+                           .physicalMinimums(fields.physicalMinimums())
+                           .physicalMaximums(fields.physicalMaximums())
+                           .digitalMinimums(fields.digitalMinimums())
+                           .digitalMaximums(fields.digitalMaximums())
+                           .samplesPerRecord(fields.samplesPerRecord())
                            .dataChannelNames(dataChannelNames)
                            .dataChannelTransducerTypes(dataChannelTransducerTypes)
-                           .annotationChannelIndex(countAnnotations(is, generalHeader.getNumDataRecords(), samplesPerRecord, annotationChannelIndex))
+                           .annotationChannelIndex(fields.annotationChannelIndex())
+                           .annotationIndex(annotationIndex)
                            .build();
     }
 
-    private static String readAscii(byte[] source, int offset, int length) {
-        return new String(source, offset, length, StandardCharsets.US_ASCII).trim();
+    private List<String> readSignalHeaderField(ByteBuffer buffer, int numSignals, int fieldLength) {
+        var base = buffer.position();
+        var values = new ArrayList<String>(numSignals);
+
+        for (var i = 0; i < numSignals; i++) {
+            values.add(readAscii(buffer, base + i * fieldLength, fieldLength));
+        }
+
+        buffer.position(base + numSignals * fieldLength);
+        return values;
+    }
+
+    private static void skipSignalHeaderField(ByteBuffer buffer, int numSignals, int fieldLength) {
+        buffer.position(buffer.position() + numSignals * fieldLength);
     }
 
-    private List<String> readSignalHeaderField(InputStream is, int numSignals, int fieldLength) throws IOException {
-        var fieldBytes = readBytes(is, numSignals * fieldLength);
-        var values = new ArrayList<String>(numSignals);
+    /**
+     * Calibration fields are parsed leniently: the annotation channel and some recorders leave them blank or
+     * fill them with non-numeric text, which must not make an otherwise readable file invalid.
+     */
+    private double[] readSignalHeaderDecimals(ByteBuffer buffer, int numSignals, int fieldLength) {
+        var base = buffer.position();
+        var values = new double[numSignals];
+
+        for (var i = 0; i < numSignals; i++) {
+            values[i] = readAsciiDecimal(buffer, base + i * fieldLength, fieldLength);
+        }
+
+        buffer.position(base + numSignals * fieldLength);
+        return values;
+    }
+
+    private int[] readSignalHeaderIntegers(ByteBuffer buffer, int numSignals, int fieldLength) {
+        var decimals = readSignalHeaderDecimals(buffer, numSignals, fieldLength);
+        var values = new int[numSignals];
 
         for (var i = 0; i < numSignals; i++) {
-            values.add(readAscii(fieldBytes, i * fieldLength, fieldLength));
+            values[i] = Double.isNaN(decimals[i]) ? 0 : (int) Math.round(decimals[i]);
         }
 
         return values;
     }
 
-    private List<Integer> readSignalSamplesPerRecord(InputStream is, int numSignals) throws IOException {
-        var stringValues = readSignalHeaderField(is, numSignals, SH_SAMPLES_PER_RECORD_LENGTH);
-        var intValues = new ArrayList<Integer>(numSignals);
+    private int[] readSignalSamplesPerRecord(ByteBuffer buffer, int numSignals) {
+        var base = buffer.position();
+        var values = new int[numSignals];
 
-        for (var s : stringValues) {
-            intValues.add(Integer.parseInt(s.trim()));
+        for (var i = 0; i < numSignals; i++) {
+            values[i] = readAsciiInt(buffer, base + i * SH_SAMPLES_PER_RECORD_LENGTH, SH_SAMPLES_PER_RECORD_LENGTH);
         }
 
-        return intValues;
+        buffer.position(base + numSignals * SH_SAMPLES_PER_RECORD_LENGTH);
+        return values;
     }
 
     /**
-     * Count annotations across all data records by scanning the EDF+ annotation channel.
+     * Parse annotations across all data records by scanning the EDF+ annotation channel.
      * <p>
      * Approach:
      * - Compute the total number of samples per record and the offset of the annotation channel.
-     * - For each record, skip preceding channel samples, read the annotation bytes, and count
-     * NUL (0x00) terminators which separate TAL entries. Then skip remaining samples.
-     * - This is a lightweight heuristic suitable for a simple count; it does not fully parse TALs.
+     * - For each record, skip preceding channel samples, read the annotation bytes and feed them to
+     * the {@link TalParser}. Then skip remaining samples.
+     * <p>
+     * Skipped samples are never copied ({@link InputStream#skipNBytes(long)} seeks on file streams) and
+     * the annotation bytes of every record are read into the same buffer.
      */
-    private int countAnnotations(InputStream is, int numDataRecords, List<Integer> samplesPerRecord, int annotationChannelIndex) throws IOException {
-        if (annotationChannelIndex == -1) {
-            return 0;
+    private AnnotationIndex readAnnotations(InputStream is, int numDataRecords, AnnotationChannel annotationChannel) throws IOException {
+        if (annotationChannel == null) {
+            return AnnotationIndex.EMPTY;
         }
 
-        var annotationCount = 0;
-        var totalSamplesInRecord = samplesPerRecord.stream().mapToInt(Integer::intValue).sum();
-        var samplesBeforeAnnotation = 0;
+        var annotations = AnnotationIndex.builder();
+        var annotationBytes = new byte[annotationChannel.lengthBytes()];
+        var annotationBuffer = ByteBuffer.wrap(annotationBytes);
+        var samplesAfterAnnotationBytes = annotationChannel.recordBytes() - annotationChannel.offsetBytes() - annotationChannel.lengthBytes();
+
+        for (var record = 0; record < numDataRecords; record++) {
+            is.skipNBytes(annotationChannel.offsetBytes());
 
-        for (var i = 0; i < annotationChannelIndex; i++) {
-            samplesBeforeAnnotation += samplesPerRecord.get(i);
+            var n = is.readNBytes(annotationBytes, 0, annotationBytes.length);
+            if (n != annotationBytes.length) {
+                throw new IOException(UNEXPECTED_END_OF_FILE_MESSAGE.formatted(annotationBytes.length, n));
+            }
+
+            TalParser.parse(annotationBuffer, 0, annotationBytes.length, annotations::add);
+
+            is.skipNBytes(samplesAfterAnnotationBytes);
         }
 
-        for (var record = 0; record < numDataRecords; record++) {
-            readBytes(is, samplesBeforeAnnotation * BYTES_PER_SAMPLE);
+        return annotations.build();
+    }
+
+    /**
+     * Same as {@link #readAnnotations(InputStream, int, AnnotationChannel)}, but only the annotation channel bytes
+     * are read, using the strided, batched positional reads of {@link AnnotationChannelReader}. Large files are
+     * scanned in parallel chunks (see {@link #chunkRecords(int, int)}).
+     */
+    private AnnotationIndex readAnnotations(FileChannel channel, long dataOffset, int numDataRecords, AnnotationChannel annotationChannel,
+                                            LongConsumer bytesRead) throws IOException {
+        if (annotationChannel == null || numDataRecords <= 0) {
+            return AnnotationIndex.EMPTY;
+        }
+
+        var chunkRecords = chunkRecords(numDataRecords, annotationChannel.recordBytes());
+        if (chunkRecords >= numDataRecords) {
+            return scanAnnotations(channel, dataOffset, annotationChannel, 0, numDataRecords, bytesRead).build();
+        }
+
+        try {
+            return scanPool.invoke(new AnnotationScan(channel, dataOffset, annotationChannel, 0, numDataRecords, chunkRecords, bytesRead))
+                           .build();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Computes how many data records a chunk of a parallel scan covers: all of them when the records span less
+     * than the parallel scan threshold, otherwise enough for about {@value #CHUNKS_PER_CORE} chunks per thread of
+     * the scan pool, but no fewer than a quarter of the threshold worth of records.
+     */
+    private int chunkRecords(int numDataRecords, int recordBytes) {
+        var spanBytes = (long) numDataRecords * recordBytes;
+        if (spanBytes < parallelScanThresholdBytes) {
+            return numDataRecords;
+        }
+
+        var chunkBytes = Math.max(parallelScanThresholdBytes / 4, spanBytes / ((long) CHUNKS_PER_CORE * scanPool.getParallelism()));
+        return (int) Math.max(1, Math.min(numDataRecords, chunkBytes / Math.max(1, recordBytes)));
+    }
+
+    private static AnnotationIndex.Builder scanAnnotations(FileChannel channel, long dataOffset, AnnotationChannel annotationChannel,
+                                                           int fromRecord, int toRecord, LongConsumer bytesRead) throws IOException {
+        var annotations = AnnotationIndex.builder();
+        var reader = new AnnotationChannelReader(channel, dataOffset, annotationChannel.recordBytes(), annotationChannel.offsetBytes(), annotationChannel.lengthBytes());
+
+        bytesRead.accept(reader.scan(fromRecord, toRecord, (record, buffer, offset, length) -> TalParser.parse(buffer, offset, length, annotations::add)));
+
+        return annotations;
+    }
+
+    /**
+     * Same as {@link #readAnnotations(InputStream, int, AnnotationChannel)}, applied to data records mapped in
+     * windows of at most {@value #MAX_MAPPED_WINDOW_BYTES} bytes. Only the annotation bytes of each record
+     * are touched, so the pages holding signal samples are never faulted in by this scan.
+     */
+    private AnnotationIndex readAnnotationsMapped(FileChannel channel, long dataOffset, int numDataRecords, AnnotationChannel annotationChannel) throws IOException {
+        if (annotationChannel == null || numDataRecords <= 0) {
+            return AnnotationIndex.EMPTY;
+        }
 
-            var annotationSamples = samplesPerRecord.get(annotationChannelIndex);
-            var annotationBytes = readBytes(is, annotationSamples * BYTES_PER_SAMPLE);
+        var recordBytes = annotationChannel.recordBytes();
+        var recordsPerWindow = Math.max(1, MAX_MAPPED_WINDOW_BYTES / recordBytes);
+        var annotations = AnnotationIndex.builder();
 
-            for (var annotation : annotationBytes) {
-                if (annotation == TAL_TERMINATOR_BYTE) annotationCount++;
+        requireFileSize(channel, dataOffset + (long) numDataRecords * recordBytes);
+
+        for (var first = 0; first < numDataRecords; first += recordsPerWindow) {
+            var records = Math.min(recordsPerWindow, numDataRecords - first);
+            var window = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + (long) first * recordBytes, (long) records * recordBytes);
+
+            for (var i = 0; i < records; i++) {
+                TalParser.parse(window, i * recordBytes + annotationChannel.offsetBytes(), annotationChannel.lengthBytes(), annotations::add);
             }
+        }
 
-            var samplesAfterAnnotation = totalSamplesInRecord - samplesBeforeAnnotation - annotationSamples;
+        return annotations.build();
+    }
 
-            readBytes(is, samplesAfterAnnotation * BYTES_PER_SAMPLE);
+    private static void requireFileSize(FileChannel channel, long expectedSize) throws IOException {
+        var actualSize = channel.size();
+        if (actualSize < expectedSize) {
+            throw new IOException(UNEXPECTED_END_OF_FILE_MESSAGE.formatted(expectedSize, actualSize));
         }
+    }
+
+    /**
+     * Scans the annotations of data records {@code [fromRecord, toRecord)}, halving the range until it fits in a
+     * chunk. Positional reads do not move the position of the shared channel, so chunks read it concurrently.
+     * The left half's annotations come first, so the merged builder holds the annotations in record order.
+     */
+    private static final class AnnotationScan extends RecursiveTask<AnnotationIndex.Builder> {
+        private final FileChannel channel;
+        private final long dataOffset;
+        private final AnnotationChannel annotationChannel;
+        private final int fromRecord;
+        private final int toRecord;
+        private final int chunkRecords;
+        private final LongConsumer bytesRead;
+
+        private AnnotationScan(FileChannel channel, long dataOffset, AnnotationChannel annotationChannel, int fromRecord, int toRecord, int chunkRecords,
+                               LongConsumer bytesRead) {
+            this.channel = channel;
+            this.dataOffset = dataOffset;
+            this.annotationChannel = annotationChannel;
+            this.fromRecord = fromRecord;
+            this.toRecord = toRecord;
+            this.chunkRecords = chunkRecords;
+            this.bytesRead = bytesRead;
+        }
+
+        @Override
+        protected AnnotationIndex.Builder compute() {
+            if (toRecord - fromRecord <= chunkRecords) {
+                try {
+                    return scanAnnotations(channel, dataOffset, annotationChannel, fromRecord, toRecord, bytesRead);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
 
-        return annotationCount;
+            var middle = (fromRecord + toRecord) >>> 1;
+            var left = new AnnotationScan(channel, dataOffset, annotationChannel, fromRecord, middle, chunkRecords, bytesRead);
+            var right = new AnnotationScan(channel, dataOffset, annotationChannel, middle, toRecord, chunkRecords, bytesRead);
+            left.fork();
+            var rightAnnotations = right.compute();
+            return left.join().addAll(rightAnnotations);
+        }
+    }
+
+    /**
+     * Location of the EDF+ annotation channel within a data record.
+     */
+    private record AnnotationChannel(int recordBytes, int offsetBytes, int lengthBytes) {
+
+        /**
+         * @return The annotation channel described by the header fields, or {@code null} if there is none.
+         */
+        static AnnotationChannel of(SignalFields fields) {
+            var signal = fields.annotationChannelIndex();
+            return signal == -1 ? null : new AnnotationChannel(fields.samplesBefore(fields.samplesPerRecord().length) * DataRecordLayout.BYTES_PER_SAMPLE,
+                                                               fields.samplesBefore(signal) * DataRecordLayout.BYTES_PER_SAMPLE,
+                                                               fields.samplesPerRecord()[signal] * DataRecordLayout.BYTES_PER_SAMPLE);
+        }
+
+        /**
+         * @return The annotation channel of the layout, or {@code null} if there is none.
+         */
+        static AnnotationChannel of(DataRecordLayout layout) {
+            var signal = layout.indexOfAnnotationChannel();
+            return signal == -1 ? null : new AnnotationChannel(layout.getRecordBytes(), layout.getSignalOffsetBytes(signal),
+                                                               layout.getSamplesPerRecord(signal) * DataRecordLayout.BYTES_PER_SAMPLE);
+        }
+    }
+
+    /**
+     * Decoded per-signal header fields together with the data record layout they imply.
+     */
+    private record SignalFields(List<String> labels, List<String> transducerTypes, List<String> physicalDimensions,
+                                double[] physicalMinimums, double[] physicalMaximums,
+                                int[] digitalMinimums, int[] digitalMaximums,
+                                int[] samplesPerRecord, int annotationChannelIndex) {
+
+        private int samplesBefore(int signal) {
+            var samples = 0;
+            for (var i = 0; i < signal; i++) {
+                samples += samplesPerRecord[i];
+            }
+            return samples;
+        }
     }
 }
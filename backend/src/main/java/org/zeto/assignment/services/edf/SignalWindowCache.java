@@ -0,0 +1,336 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.zeto.assignment.configuration.EdfProperties;
+
+/**
+ * Size-bounded LRU cache of decoded physical samples, serving the windows that viewers request again and again
+ * while scrolling through a channel.
+ * <p>
+ * Samples are cached in blocks of whole data records of one channel, about {@value #BLOCK_SAMPLES} samples each and
+ * aligned to multiples of that size, so that overlapping and shifted windows share blocks. Blocks are keyed by file,
+ * channel and first record, weighed by the bytes of their samples, and the least recently used ones are evicted once
+ * the total exceeds {@code edf.signal-cache.max-size}. A window is served by copying from the blocks it overlaps;
+ * only missing blocks are decoded from the file.
+ * <p>
+ * After each read, the block next to the window in the direction the channel was scrolled since its previous read
+ * (forward at first) is decoded on a background thread, so the next step of a scroll is a hit as well.
+ * <p>
+ * Blocks are valid for the size and modification time of the file they were decoded from: a file that changed drops
+ * its blocks on its next read, or as soon as it is ingested again (see {@link FileIngestedEvent}). Lookups,
+ * evictions and prefetches are counted by meters exported on {@code /actuator/prometheus}.
+ */
+@Component
+@Slf4j
+public class SignalWindowCache {
+    private static final String LOG_DEBUG_PREFETCH_FAILED = "Could not prefetch samples of EDF file {}: {}";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    /**
+     * Number of samples per block, rounded down to whole data records, or a single record if larger.
+     */
+    static final int BLOCK_SAMPLES = 8192;
+
+    /**
+     * Approximate heap taken by a block besides its samples: the map entry, the key and the array header.
+     */
+    private static final long BLOCK_OVERHEAD_BYTES = 128;
+
+    private final boolean enabled;
+    private final long maxBytes;
+    private final boolean prefetch;
+    private final Map<String, FileVersion> versions = new ConcurrentHashMap<>();
+    private final Map<ChannelKey, Long> positions = new ConcurrentHashMap<>();
+    private final Set<BlockKey> scheduledBlocks = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("edf-signal-prefetcher").daemon().factory());
+
+    /**
+     * Blocks in access order, least recently used first. Guarded by itself, as is {@link #bytes}.
+     */
+    private final LinkedHashMap<BlockKey, float[]> blocks = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter prefetches;
+
+    public SignalWindowCache(EdfProperties properties, MeterRegistry registry) {
+        var settings = properties.getSignalCache();
+        this.enabled = settings.isEnabled();
+        this.maxBytes = settings.getMaxSize().toBytes();
+        this.prefetch = settings.isPrefetch();
+
+        hits = Counter.builder("edf.signal.cache.gets")
+                      .description("Lookups of sample blocks in the signal window cache")
+                      .tag("result", "hit")
+                      .register(registry);
+        misses = Counter.builder("edf.signal.cache.gets")
+                        .description("Lookups of sample blocks in the signal window cache")
+                        .tag("result", "miss")
+                        .register(registry);
+        evictions = Counter.builder("edf.signal.cache.evictions")
+                           .description("Sample blocks evicted from the signal window cache to stay within its size")
+                           .register(registry);
+        prefetches = Counter.builder("edf.signal.cache.prefetches")
+                            .description("Sample blocks decoded ahead of a scroll in the background")
+                            .register(registry);
+        Gauge.builder("edf.signal.cache.size", this, SignalWindowCache::getBytes)
+             .description("Heap taken by the blocks of the signal window cache")
+             .baseUnit("bytes")
+             .register(registry);
+        Gauge.builder("edf.signal.cache.blocks", this, SignalWindowCache::getBlockCount)
+             .description("Sample blocks in the signal window cache")
+             .register(registry);
+    }
+
+    @EventListener
+    public void onFileIngested(FileIngestedEvent event) {
+        evict(event.fileInfo().getFileName());
+    }
+
+    @EventListener
+    public void onFileRemoved(FileRemovedEvent event) {
+        evict(event.fileName());
+    }
+
+    private void evict(String fileName) {
+        versions.remove(fileName);
+        removeBlocks(fileName);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the version of a file that reads go through. The number of data records of the file is remembered
+     * for as long as its size and modification time stay the same; otherwise the file is opened to count them and
+     * the blocks of its previous version are dropped.
+     */
+    FileVersion getVersion(String fileName, BasicFileAttributes attributes, SamplesOpener opener) throws IOException {
+        var cached = versions.get(fileName);
+        if (enabled && cached != null && cached.matches(attributes)) {
+            return cached;
+        }
+
+        long records;
+        try (var samples = opener.open()) {
+            records = samples.getRecords();
+        }
+
+        var version = new FileVersion(fileName, attributes.size(), attributes.lastModifiedTime().toMillis(), records);
+        if (enabled && versions.put(fileName, version) != null) {
+            removeBlocks(fileName);
+        }
+        return version;
+    }
+
+    /**
+     * Copies {@code count} physical samples of a channel, starting at sample {@code first}, into the start of
+     * {@code target}, decoding the blocks that are not cached with samples opened by {@code opener}. Then schedules
+     * the prefetch of the next block in the direction of the scroll.
+     */
+    void read(FileVersion file, int signal, int samplesPerRecord, long first, int count, float[] target,
+              SamplesOpener opener) throws IOException {
+        if (!enabled) {
+            try (var samples = opener.open()) {
+                samples.read(signal, first, count, target, 0);
+            }
+            return;
+        }
+        if (count == 0) {
+            return;
+        }
+
+        var recordsPerBlock = Math.max(1, BLOCK_SAMPLES / samplesPerRecord);
+        var blockSamples = (long) recordsPerBlock * samplesPerRecord;
+        var end = first + count;
+        ChannelSamples samples = null;
+        try {
+            for (var block = first / blockSamples; block * blockSamples < end; block++) {
+                var key = new BlockKey(file.fileName(), signal, block * recordsPerBlock);
+                var values = get(key);
+                if (values == null) {
+                    if (samples == null) {
+                        samples = opener.open();
+                    }
+                    values = load(samples, file, key, samplesPerRecord, recordsPerBlock);
+                    put(file, key, values);
+                }
+
+                var blockStart = block * blockSamples;
+                var from = Math.max(first, blockStart);
+                var to = Math.min(end, blockStart + values.length);
+                System.arraycopy(values, (int) (from - blockStart), target, (int) (from - first), (int) (to - from));
+            }
+        } finally {
+            if (samples != null) {
+                samples.close();
+            }
+        }
+
+        if (prefetch) {
+            prefetch(file, signal, samplesPerRecord, recordsPerBlock, first, end, opener);
+        }
+    }
+
+    /**
+     * @return Whether the block of a channel starting at {@code firstRecord} is cached, without touching its recency.
+     */
+    boolean contains(String fileName, int signal, long firstRecord) {
+        synchronized (blocks) {
+            return blocks.containsKey(new BlockKey(fileName, signal, firstRecord));
+        }
+    }
+
+    long getBytes() {
+        synchronized (blocks) {
+            return bytes;
+        }
+    }
+
+    int getBlockCount() {
+        synchronized (blocks) {
+            return blocks.size();
+        }
+    }
+
+    /**
+     * Decodes the block after the window when the channel was scrolled forward, or before it when scrolled back.
+     */
+    private void prefetch(FileVersion file, int signal, int samplesPerRecord, int recordsPerBlock, long first, long end,
+                          SamplesOpener opener) {
+        var blockSamples = (long) recordsPerBlock * samplesPerRecord;
+        var previous = positions.put(new ChannelKey(file.fileName(), signal), first);
+        var block = previous != null && first < previous ? first / blockSamples - 1 : (end - 1) / blockSamples + 1;
+        if (block < 0 || block * recordsPerBlock >= file.records()) {
+            return;
+        }
+
+        var key = new BlockKey(file.fileName(), signal, block * recordsPerBlock);
+        if (contains(key.fileName(), signal, key.firstRecord()) || !scheduledBlocks.add(key)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try (var samples = opener.open()) {
+                    put(file, key, load(samples, file, key, samplesPerRecord, recordsPerBlock));
+                    prefetches.increment();
+                } catch (IOException | RuntimeException e) {
+                    log.debug(LOG_DEBUG_PREFETCH_FAILED, file.fileName(), e.getMessage());
+                } finally {
+                    scheduledBlocks.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            scheduledBlocks.remove(key);
+        }
+    }
+
+    private static float[] load(ChannelSamples samples, FileVersion file, BlockKey key, int samplesPerRecord,
+                                int recordsPerBlock) throws IOException {
+        var records = Math.min(recordsPerBlock, file.records() - key.firstRecord());
+        var values = new float[(int) records * samplesPerRecord];
+        samples.read(key.signal(), key.firstRecord() * samplesPerRecord, values.length, values, 0);
+        return values;
+    }
+
+    private float[] get(BlockKey key) {
+        float[] values;
+        synchronized (blocks) {
+            values = blocks.get(key);
+        }
+        (values == null ? misses : hits).increment();
+        return values;
+    }
+
+    /**
+     * Caches a block decoded from {@code file}, unless the file has changed since, and evicts the least recently
+     * used blocks beyond the maximum size. Blocks larger than the cache are not cached.
+     */
+    private void put(FileVersion file, BlockKey key, float[] values) {
+        var weight = weigh(values);
+        if (weight > maxBytes) {
+            return;
+        }
+
+        synchronized (blocks) {
+            if (versions.get(file.fileName()) != file) {
+                return;
+            }
+
+            var replaced = blocks.put(key, values);
+            bytes += weight - (replaced == null ? 0 : weigh(replaced));
+
+            var eldest = blocks.entrySet().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= weigh(eldest.next().getValue());
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private void removeBlocks(String fileName) {
+        positions.keySet().removeIf(channel -> channel.fileName().equals(fileName));
+        synchronized (blocks) {
+            var entries = blocks.entrySet().iterator();
+            while (entries.hasNext()) {
+                var entry = entries.next();
+                if (entry.getKey().fileName().equals(fileName)) {
+                    bytes -= weigh(entry.getValue());
+                    entries.remove();
+                }
+            }
+        }
+    }
+
+    private static long weigh(float[] values) {
+        return (long) values.length * Float.BYTES + BLOCK_OVERHEAD_BYTES;
+    }
+
+    /**
+     * Opens the samples of the file being read, for the blocks missing from the cache.
+     */
+    @FunctionalInterface
+    interface SamplesOpener {
+        ChannelSamples open() throws IOException;
+    }
+
+    /**
+     * A file with the size and modification time its number of data records and cached blocks belong to.
+     */
+    record FileVersion(String fileName, long size, long lastModified, long records) {
+        boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+        }
+    }
+
+    private record ChannelKey(String fileName, int signal) {
+    }
+
+    private record BlockKey(String fileName, int signal, long firstRecord) {
+    }
+}
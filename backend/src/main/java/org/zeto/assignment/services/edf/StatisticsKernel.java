@@ -0,0 +1,27 @@
+package org.zeto.assignment.services.edf;
+
+/**
+ * Adds blocks of digital values to a {@link ChannelStatisticsAccumulator}.
+ * <p>
+ * {@link #create()} returns the {@link VectorStatisticsKernel} when the incubating {@code jdk.incubator.vector}
+ * module was added to the JVM ({@code --add-modules jdk.incubator.vector}) and its preferred vectors have at most
+ * 64 lanes of 16 bits, and the {@link ScalarStatisticsKernel} otherwise. Both produce identical results.
+ */
+interface StatisticsKernel {
+    /**
+     * Adds {@code values[0, length)} to {@code accumulator}, in order.
+     */
+    void accumulate(short[] values, int length, ChannelStatisticsAccumulator accumulator);
+
+    /**
+     * @return A short name of the kernel, reported with the statistics.
+     */
+    String name();
+
+    static StatisticsKernel create() {
+        // Check the module first: loading the vector kernel without it fails
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent() && VectorStatisticsKernel.isSupported()
+                ? new VectorStatisticsKernel()
+                : new ScalarStatisticsKernel();
+    }
+}
@@ -0,0 +1,21 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.zeto.assignment.models.edf.FileStatistics;
+
+/**
+ * Service computing quality-control statistics of the data channels of processed EDF files.
+ */
+public interface StatisticsService {
+    /**
+     * Returns the statistics of every data channel of a file, computed in one pass over its data records. Results
+     * are cached until the file changes.
+     *
+     * @param fileName The name of the EDF file, including its extension.
+     * @return The statistics, or an empty {@link Optional} if the file has not been processed or is invalid.
+     * @throws IOException If the file cannot be read.
+     */
+    Optional<FileStatistics> getStatistics(String fileName) throws IOException;
+}
@@ -0,0 +1,159 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.zeto.assignment.models.edf.ChannelStatistics;
+import org.zeto.assignment.models.edf.DataRecordLayout;
+import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.models.edf.FileStatistics;
+import org.zeto.assignment.models.edf.SignalHeader;
+
+/**
+ * {@link StatisticsService} reading every data record of a file once through a {@link SampleReader} and feeding the
+ * digital values of each data channel to a {@link StatisticsKernel}.
+ * <p>
+ * All channels are accumulated in the same pass, so the cost of a file is one sequential read of its data
+ * records; with the vector kernel, the arithmetic keeps up with the page cache. Annotation channels are skipped.
+ * Files with an up-to-date columnar export (see {@link ColumnarExportService}) are read from it instead, one channel
+ * after the other.
+ * Results are cached per file together with the size and modification time they were computed from, and dropped
+ * when the file is ingested again (see {@link FileIngestedEvent}).
+ */
+@Service
+@Slf4j
+public class StatisticsServiceImpl implements StatisticsService {
+    private static final String LOG_INFO_STATISTICS_COMPUTED = "Computed statistics of EDF file {} with the {} kernel in {} ms";
+
+    /**
+     * Minimum duration of a run of identical samples for a channel to be flagged as a flat line.
+     */
+    static final double FLAT_LINE_SECONDS = 5;
+    /**
+     * Minimum fraction of samples at the digital minimum or maximum for a channel to be flagged as clipping.
+     */
+    static final double CLIPPING_FRACTION = 0.001;
+
+    private final FileProcessingService fileProcessingService;
+    private final ColumnarExportService columnarExportService;
+    private final StatisticsKernel kernel;
+    private final Map<String, CachedStatistics> cache = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StatisticsServiceImpl(FileProcessingService fileProcessingService, ColumnarExportService columnarExportService) {
+        this(fileProcessingService, columnarExportService, StatisticsKernel.create());
+    }
+
+    StatisticsServiceImpl(FileProcessingService fileProcessingService, ColumnarExportService columnarExportService, StatisticsKernel kernel) {
+        this.fileProcessingService = fileProcessingService;
+        this.columnarExportService = columnarExportService;
+        this.kernel = kernel;
+    }
+
+    @EventListener
+    public void onFileIngested(FileIngestedEvent event) {
+        cache.remove(event.fileInfo().getFileName());
+    }
+
+    @EventListener
+    public void onFileRemoved(FileRemovedEvent event) {
+        cache.remove(event.fileName());
+    }
+
+    @Override
+    public Optional<FileStatistics> getStatistics(String fileName) throws IOException {
+        var layout = fileProcessingService.getProcessedFile(fileName)
+                                          .filter(FileInfo::isValid)
+                                          .map(FileInfo::getDataRecordLayout);
+        var path = fileProcessingService.getProcessedFilePath(fileName);
+        if (layout.isEmpty() || path.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var attributes = Files.readAttributes(path.get(), BasicFileAttributes.class);
+        var cached = cache.get(fileName);
+        if (cached != null && cached.matches(attributes)) {
+            return Optional.of(cached.statistics());
+        }
+
+        var start = System.nanoTime();
+        var statistics = compute(fileName, path.get(), layout.get());
+        log.info(LOG_INFO_STATISTICS_COMPUTED, fileName, kernel.name(), (System.nanoTime() - start) / 1_000_000);
+
+        cache.put(fileName, new CachedStatistics(attributes.size(), attributes.lastModifiedTime().toMillis(), statistics));
+        return Optional.of(statistics);
+    }
+
+    private FileStatistics compute(String fileName, Path path, DataRecordLayout layout) throws IOException {
+        var signals = new ArrayList<Integer>();
+        var accumulators = new ArrayList<ChannelStatisticsAccumulator>();
+        var maxSamplesPerRecord = 0;
+        for (var signal = 0; signal < layout.getNumSignals(); signal++) {
+            if (!SignalHeader.ANNOTATION_CHANNEL_LABEL.equals(layout.getLabel(signal))) {
+                signals.add(signal);
+                accumulators.add(new ChannelStatisticsAccumulator(layout.getDigitalMinimum(signal), layout.getDigitalMaximum(signal)));
+                maxSamplesPerRecord = Math.max(maxSamplesPerRecord, layout.getSamplesPerRecord(signal));
+            }
+        }
+
+        var export = columnarExportService.open(fileName);
+        if (export.isPresent()) {
+            try (var columns = export.get()) {
+                for (var i = 0; i < signals.size(); i++) {
+                    var accumulator = accumulators.get(i);
+                    columns.scan(signals.get(i), (values, length) -> kernel.accumulate(values, length, accumulator));
+                }
+                return toStatistics(fileName, layout, columns.getRecords(), signals, accumulators);
+            }
+        }
+
+        long records;
+        try (var channel = CompressedEdfFiles.openChannel(path)) {
+            var reader = new SampleReader(channel, layout);
+            var values = new short[maxSamplesPerRecord];
+            records = reader.getAvailableRecords();
+
+            reader.scan(0, records, (record, samples, recordStart) -> {
+                for (var i = 0; i < signals.size(); i++) {
+                    var signal = signals.get(i);
+                    var length = layout.getSamplesPerRecord(signal);
+                    reader.readDigital(samples, recordStart, signal, 0, length, values);
+                    kernel.accumulate(values, length, accumulators.get(i));
+                }
+            });
+        }
+        return toStatistics(fileName, layout, records, signals, accumulators);
+    }
+
+    private FileStatistics toStatistics(String fileName, DataRecordLayout layout, long records, List<Integer> signals,
+                                        List<ChannelStatisticsAccumulator> accumulators) {
+        var channels = new ArrayList<ChannelStatistics>(signals.size());
+        for (var i = 0; i < signals.size(); i++) {
+            channels.add(accumulators.get(i).toStatistics(layout, signals.get(i), FLAT_LINE_SECONDS, CLIPPING_FRACTION));
+        }
+
+        return FileStatistics.builder()
+                             .fileName(fileName)
+                             .dataRecords(records)
+                             .engine(kernel.name())
+                             .channels(channels)
+                             .build();
+    }
+
+    private record CachedStatistics(long size, long lastModified, FileStatistics statistics) {
+        boolean matches(BasicFileAttributes attributes) {
+            return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+        }
+    }
+}
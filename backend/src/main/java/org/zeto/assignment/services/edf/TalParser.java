@@ -0,0 +1,142 @@
+package org.zeto.assignment.services.edf;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming parser for EDF+ Time-stamped Annotation Lists (TALs).
+ * <p>
+ * The annotation channel of every data record holds one or more TALs, each encoded as
+ * {@code +Onset[0x15 Duration]0x14 Text1 0x14 Text2 0x14 ... 0x00}, followed by NUL padding.
+ * The first TAL of a record is the time-keeping TAL, whose annotation text is empty; it marks the
+ * record's onset and is not reported as an annotation.
+ * <p>
+ * The parser works directly on the bytes of a buffer and reports every non-empty annotation text to an
+ * {@link AnnotationSink} as soon as it is decoded, so no intermediate collection or {@link String} for the
+ * text is created. Malformed TALs end parsing of the current record; the remaining records are unaffected.
+ */
+final class TalParser {
+
+    private static final byte TAL_DURATION_SEPARATOR = 0x15;
+    private static final byte TAL_TEXT_SEPARATOR = 0x14;
+    private static final byte TAL_TERMINATOR = 0x00;
+    private static final byte PLUS_SIGN = '+';
+    private static final byte MINUS_SIGN = '-';
+
+    /**
+     * Receives annotations decoded from TALs.
+     */
+    @FunctionalInterface
+    interface AnnotationSink {
+        /**
+         * @param onset      Onset in seconds relative to the start of the recording.
+         * @param duration   Duration in seconds, or {@link Double#NaN} when the TAL does not specify one.
+         * @param buffer     The buffer holding the UTF-8 annotation text.
+         * @param textOffset The absolute index of the first text byte in {@code buffer}.
+         * @param textLength The length of the text in bytes.
+         */
+        void annotation(double onset, double duration, ByteBuffer buffer, int textOffset, int textLength);
+    }
+
+    private TalParser() {
+    }
+
+    /**
+     * Parses the TALs stored in {@code buffer} at {@code [offset, offset + length)}, i.e. the annotation
+     * channel bytes of one data record, and reports each annotation to {@code sink}.
+     *
+     * @return The number of annotations reported.
+     */
+    static int parse(ByteBuffer buffer, int offset, int length, AnnotationSink sink) {
+        var end = offset + length;
+        var pos = offset;
+        var count = 0;
+
+        while (pos < end) {
+            var first = buffer.get(pos);
+            if (first == TAL_TERMINATOR) {
+                pos++;
+                continue;
+            }
+            if (first != PLUS_SIGN && first != MINUS_SIGN) {
+                return count;
+            }
+
+            var onsetEnd = indexOf(buffer, pos, end, TAL_TEXT_SEPARATOR, TAL_DURATION_SEPARATOR);
+            if (onsetEnd == end) {
+                return count;
+            }
+
+            var onset = parseSeconds(buffer, pos, onsetEnd);
+            var duration = Double.NaN;
+            pos = onsetEnd;
+
+            if (buffer.get(pos) == TAL_DURATION_SEPARATOR) {
+                var durationEnd = indexOf(buffer, pos + 1, end, TAL_TEXT_SEPARATOR, TAL_TEXT_SEPARATOR);
+                if (durationEnd == end) {
+                    return count;
+                }
+                duration = parseSeconds(buffer, pos + 1, durationEnd);
+                pos = durationEnd;
+            }
+
+            if (Double.isNaN(onset)) {
+                return count;
+            }
+
+            pos++; // onset/duration separator
+            while (pos < end && buffer.get(pos) != TAL_TERMINATOR) {
+                var textEnd = indexOf(buffer, pos, end, TAL_TEXT_SEPARATOR, TAL_TEXT_SEPARATOR);
+                if (textEnd > pos) {
+                    sink.annotation(onset, duration, buffer, pos, textEnd - pos);
+                    count++;
+                }
+                pos = textEnd + 1;
+            }
+            pos++; // TAL terminator
+        }
+
+        return count;
+    }
+
+    /**
+     * Parses the onset of the time-keeping TAL at the start of the annotation channel bytes of one data record,
+     * stored in {@code buffer} at {@code [offset, offset + length)}.
+     *
+     * @return The onset of the data record in seconds relative to the start of the recording, or
+     * {@link Double#NaN} if the record does not start with a valid TAL.
+     */
+    static double parseRecordOnset(ByteBuffer buffer, int offset, int length) {
+        var end = offset + length;
+        if (length <= 0 || (buffer.get(offset) != PLUS_SIGN && buffer.get(offset) != MINUS_SIGN)) {
+            return Double.NaN;
+        }
+
+        var onsetEnd = indexOf(buffer, offset, end, TAL_TEXT_SEPARATOR, TAL_DURATION_SEPARATOR);
+        return onsetEnd == end ? Double.NaN : parseSeconds(buffer, offset, onsetEnd);
+    }
+
+    private static int indexOf(ByteBuffer buffer, int from, int end, byte first, byte second) {
+        var pos = from;
+        while (pos < end) {
+            var b = buffer.get(pos);
+            if (b == first || b == second) return pos;
+            pos++;
+        }
+        return end;
+    }
+
+    /**
+     * Parses a signed decimal number of seconds such as {@code +12.5} or {@code -0.25}. Returns
+     * {@link Double#NaN} for values that are not valid decimals.
+     */
+    private static double parseSeconds(ByteBuffer buffer, int from, int to) {
+        var bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        try {
+            return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.zeto.assignment.services.edf;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Input stream that copies every byte read from the underlying stream to an output stream, so that a single
+ * pass over an upload both parses it and writes it to disk.
+ * <p>
+ * Skipped bytes are read and copied as well: parsers skip the samples between annotations, and those samples
+ * must still reach the copy. Marks are not supported, since a reset would copy bytes twice. The output stream
+ * is neither flushed nor closed by this stream.
+ */
+final class TeeInputStream extends FilterInputStream {
+    private static final int SKIP_BUFFER_BYTES = 8 * 1024;
+
+    private final OutputStream copy;
+    private byte[] skipBuffer;
+
+    TeeInputStream(InputStream in, OutputStream copy) {
+        super(in);
+        this.copy = copy;
+    }
+
+    @Override
+    public int read() throws IOException {
+        var b = in.read();
+        if (b != -1) {
+            copy.write(b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        var n = in.read(b, off, len);
+        if (n > 0) {
+            copy.write(b, off, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (skipBuffer == null) {
+            skipBuffer = new byte[SKIP_BUFFER_BYTES];
+        }
+
+        var skipped = 0L;
+        while (skipped < n) {
+            var read = read(skipBuffer, 0, (int) Math.min(skipBuffer.length, n - skipped));
+            if (read == -1) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        // Not supported, see markSupported()
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+}
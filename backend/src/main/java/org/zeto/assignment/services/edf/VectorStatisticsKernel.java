@@ -0,0 +1,132 @@
+package org.zeto.assignment.services.edf;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link StatisticsKernel} processing the values of a record a full {@link ShortVector} at a time with the
+ * incubating Vector API.
+ * <p>
+ * Minimum and maximum are lane-wise on the 16-bit values. Values are widened to 32-bit lanes for the sum and their
+ * squares to 64-bit lanes, and the 32-bit sums are folded into a {@code long} before they can overflow. Clipped
+ * values are counted from comparison masks. Runs of identical values are found from the mask of lanes that differ
+ * from their predecessor: only a block containing a change ends a run, and the runs inside a block are only
+ * measured while no run longer than a block has been seen. The values after the last full vector are added one at
+ * a time.
+ */
+final class VectorStatisticsKernel implements StatisticsKernel {
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final int INT_PARTS = SHORTS.length() / INTS.length();
+    private static final int LONG_PARTS = INTS.length() / LONGS.length();
+
+    /**
+     * Blocks after which the 32-bit lane sums are folded: each block adds {@link #INT_PARTS} values of at most
+     * 2^15 to a lane.
+     */
+    private static final int SUM_FLUSH_BLOCKS = (1 << 16) / INT_PARTS;
+
+    /**
+     * @return Whether the lanes of the preferred species fit into a {@code long} mask, which the run detection needs.
+     */
+    static boolean isSupported() {
+        return SHORTS.length() <= Long.SIZE;
+    }
+
+    @Override
+    public void accumulate(short[] values, int length, ChannelStatisticsAccumulator accumulator) {
+        if (length == 0) {
+            return;
+        }
+
+        // Every vector is compared with the one starting a value earlier, so the first value goes on its own
+        accumulator.add(values[0]);
+
+        var lanes = SHORTS.length();
+        var upper = 1 + SHORTS.loopBound(length - 1);
+        if (upper > 1) {
+            var clipsLow = accumulator.clipLow >= Short.MIN_VALUE;
+            var clipsHigh = accumulator.clipHigh <= Short.MAX_VALUE;
+            var clipLow = (short) accumulator.clipLow;
+            var clipHigh = (short) accumulator.clipHigh;
+
+            var min = ShortVector.broadcast(SHORTS, Short.MAX_VALUE);
+            var max = ShortVector.broadcast(SHORTS, Short.MIN_VALUE);
+            var sums = IntVector.zero(INTS);
+            var squares = LongVector.zero(LONGS);
+            var sum = 0L;
+            var clipped = 0L;
+            var blocks = 0;
+            var run = accumulator.run;
+            var longestRun = accumulator.longestRun;
+
+            for (var i = 1; i < upper; i += lanes) {
+                var v = ShortVector.fromArray(SHORTS, values, i);
+                min = min.min(v);
+                max = max.max(v);
+
+                for (var part = 0; part < INT_PARTS; part++) {
+                    var ints = (IntVector) v.convertShape(VectorOperators.S2I, INTS, part);
+                    sums = sums.add(ints);
+                    var intSquares = ints.mul(ints);
+                    for (var longPart = 0; longPart < LONG_PARTS; longPart++) {
+                        squares = squares.add(intSquares.convertShape(VectorOperators.I2L, LONGS, longPart));
+                    }
+                }
+                if (++blocks == SUM_FLUSH_BLOCKS) {
+                    sum += sums.reduceLanesToLong(VectorOperators.ADD);
+                    sums = IntVector.zero(INTS);
+                    blocks = 0;
+                }
+
+                if (clipsLow) {
+                    clipped += v.compare(VectorOperators.LE, clipLow).trueCount();
+                }
+                if (clipsHigh) {
+                    clipped += v.compare(VectorOperators.GE, clipHigh).trueCount();
+                }
+
+                // Bit k is set where value i + k starts a new run
+                var changes = v.compare(VectorOperators.NE, ShortVector.fromArray(SHORTS, values, i - 1)).toLong();
+                if (changes == 0) {
+                    run += lanes;
+                    continue;
+                }
+
+                var at = Long.numberOfTrailingZeros(changes);
+                longestRun = Math.max(longestRun, run + at);
+                if (longestRun < lanes) {
+                    for (var rest = changes & (changes - 1); rest != 0; rest &= rest - 1) {
+                        var next = Long.numberOfTrailingZeros(rest);
+                        longestRun = Math.max(longestRun, next - at);
+                        at = next;
+                    }
+                }
+                run = lanes - (Long.SIZE - 1 - Long.numberOfLeadingZeros(changes));
+            }
+
+            accumulator.count += upper - 1;
+            accumulator.sum += sum + sums.reduceLanesToLong(VectorOperators.ADD);
+            accumulator.sumOfSquares += squares.reduceLanes(VectorOperators.ADD);
+            accumulator.min = Math.min(accumulator.min, min.reduceLanes(VectorOperators.MIN));
+            accumulator.max = Math.max(accumulator.max, max.reduceLanes(VectorOperators.MAX));
+            accumulator.clipped += clipped;
+            accumulator.run = run;
+            accumulator.longestRun = longestRun;
+            accumulator.previous = values[upper - 1];
+        }
+
+        for (var k = upper; k < length; k++) {
+            accumulator.add(values[k]);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector";
+    }
+}
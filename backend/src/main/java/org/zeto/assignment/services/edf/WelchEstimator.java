@@ -0,0 +1,165 @@
+package org.zeto.assignment.services.edf;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Power spectral density estimate of a signal with Welch's method.
+ * <p>
+ * The signal is cut into segments of {@code segmentLength} samples starting every {@code step} samples. Each segment
+ * has its mean removed, is multiplied by a periodic Hann window, zero-padded to the next power of two and
+ * transformed with a {@link FastFourierTransform}; the squared magnitudes of all segments are summed and finally
+ * scaled to a one-sided density in squared units per Hz, so that summing it over a band times
+ * {@link #getFrequencyResolution()} gives the power in that band.
+ * <p>
+ * Segments are independent, so {@link #sum(float[], int)} splits them across the fork/join pool it runs in. Sums of
+ * consecutive blocks of a long signal can be added up before {@link #toDensity(double[], long)}. Instances are
+ * immutable and shared between threads.
+ */
+final class WelchEstimator {
+    /**
+     * Number of segments below which a task transforms its segments itself instead of splitting them.
+     */
+    private static final int SEQUENTIAL_SEGMENTS = 8;
+
+    private final double sampleRate;
+    private final int segmentLength;
+    private final int step;
+    private final double[] window;
+    private final double windowPower;
+    private final FastFourierTransform fft;
+
+    /**
+     * @param segmentLength The number of samples per segment, at least 2.
+     * @param step          The number of samples between the starts of consecutive segments, at least 1.
+     */
+    WelchEstimator(double sampleRate, int segmentLength, int step) {
+        this.sampleRate = sampleRate;
+        this.segmentLength = segmentLength;
+        this.step = step;
+        this.fft = new FastFourierTransform(Integer.highestOneBit(segmentLength - 1) << 1);
+        this.window = new double[segmentLength];
+
+        var power = 0.0;
+        for (var i = 0; i < segmentLength; i++) {
+            window[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / segmentLength);
+            power += window[i] * window[i];
+        }
+        this.windowPower = power;
+    }
+
+    int getSegmentLength() {
+        return segmentLength;
+    }
+
+    int getStep() {
+        return step;
+    }
+
+    /**
+     * @return The number of bins of the one-sided spectrum, from 0 Hz to the Nyquist frequency.
+     */
+    int getBins() {
+        return fft.size() / 2 + 1;
+    }
+
+    /**
+     * @return The distance between two bins of the spectrum, in Hz.
+     */
+    double getFrequencyResolution() {
+        return sampleRate / fft.size();
+    }
+
+    /**
+     * @return The number of whole segments in a signal of {@code samples} samples.
+     */
+    long countSegments(long samples) {
+        return samples < segmentLength ? 0 : (samples - segmentLength) / step + 1;
+    }
+
+    /**
+     * Sums the squared magnitude spectra of the first {@code segments} segments of {@code samples}, in parallel
+     * when called from a fork/join pool.
+     *
+     * @return The sum per bin, see {@link #getBins()}.
+     */
+    double[] sum(float[] samples, int segments) {
+        return new SegmentsTask(samples, 0, segments).invoke();
+    }
+
+    /**
+     * Scales summed spectra of {@code segments} segments to a one-sided power spectral density.
+     */
+    double[] toDensity(double[] sum, long segments) {
+        var density = new double[sum.length];
+        if (segments == 0) {
+            return density;
+        }
+
+        var scale = 1 / (sampleRate * windowPower * segments);
+        for (var k = 0; k < sum.length; k++) {
+            // Negative frequencies fold onto the positive ones, except for 0 Hz and the Nyquist frequency
+            var oneSided = k == 0 || k == sum.length - 1 ? 1 : 2;
+            density[k] = sum[k] * scale * oneSided;
+        }
+        return density;
+    }
+
+    private double[] accumulate(float[] samples, int fromSegment, int toSegment) {
+        var size = fft.size();
+        var re = new double[size];
+        var im = new double[size];
+        var sum = new double[getBins()];
+
+        for (var segment = fromSegment; segment < toSegment; segment++) {
+            var start = segment * step;
+            var mean = 0.0;
+            for (var i = 0; i < segmentLength; i++) {
+                mean += samples[start + i];
+            }
+            mean /= segmentLength;
+
+            for (var i = 0; i < segmentLength; i++) {
+                re[i] = (samples[start + i] - mean) * window[i];
+            }
+            Arrays.fill(re, segmentLength, size, 0);
+            Arrays.fill(im, 0);
+
+            fft.transform(re, im);
+            for (var k = 0; k < sum.length; k++) {
+                sum[k] += re[k] * re[k] + im[k] * im[k];
+            }
+        }
+        return sum;
+    }
+
+    private final class SegmentsTask extends RecursiveTask<double[]> {
+        private final float[] samples;
+        private final int fromSegment;
+        private final int toSegment;
+
+        private SegmentsTask(float[] samples, int fromSegment, int toSegment) {
+            this.samples = samples;
+            this.fromSegment = fromSegment;
+            this.toSegment = toSegment;
+        }
+
+        @Override
+        protected double[] compute() {
+            if (toSegment - fromSegment <= SEQUENTIAL_SEGMENTS) {
+                return accumulate(samples, fromSegment, toSegment);
+            }
+
+            var middle = (fromSegment + toSegment) >>> 1;
+            var left = new SegmentsTask(samples, fromSegment, middle);
+            var right = new SegmentsTask(samples, middle, toSegment);
+            left.fork();
+            var sum = right.compute();
+            var leftSum = left.join();
+            for (var k = 0; k < sum.length; k++) {
+                sum[k] += leftSum[k];
+            }
+            return sum;
+        }
+    }
+}
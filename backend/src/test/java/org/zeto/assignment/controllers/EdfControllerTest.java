@@ -1,38 +1,103 @@
 package org.zeto.assignment.controllers;
 
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.Annotation;
+import org.zeto.assignment.models.edf.AnnotationPage;
 import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.models.edf.ChannelBandPower;
+import org.zeto.assignment.models.edf.ChannelStatistics;
+import org.zeto.assignment.models.edf.FilePage;
+import org.zeto.assignment.models.edf.FileQuery;
+import org.zeto.assignment.models.edf.FileSortKey;
+import org.zeto.assignment.models.edf.FileBandPower;
+import org.zeto.assignment.models.edf.FileStatistics;
+import org.zeto.assignment.models.edf.FrequencyBand;
+import org.zeto.assignment.models.edf.RecordLocation;
+import org.zeto.assignment.models.edf.SignalEnvelope;
+import org.zeto.assignment.models.edf.SignalWindow;
+import org.zeto.assignment.services.edf.BandPowerService;
+import org.zeto.assignment.services.edf.ColumnarExportService;
+import org.zeto.assignment.services.edf.EnvelopeNotReadyException;
+import org.zeto.assignment.services.edf.EnvelopeService;
+import org.zeto.assignment.services.edf.FileListingServiceImpl;
 import org.zeto.assignment.services.edf.FileProcessingService;
+import org.zeto.assignment.services.edf.FileUploadService;
+import org.zeto.assignment.services.edf.RecordIndexService;
+import org.zeto.assignment.services.edf.SignalDataService;
+import org.zeto.assignment.services.edf.StatisticsService;
 
 @WebMvcTest(EdfController.class)
+@Import(FileListingServiceImpl.class)
+@EnableConfigurationProperties(EdfProperties.class)
 class EdfControllerTest {
 
+    private static long processedFilesVersion;
+
     @Autowired
     private MockMvc mockMvc;
 
     @MockBean
     private FileProcessingService fileProcessingService;
 
+    @MockBean
+    private SignalDataService signalDataService;
+
+    @MockBean
+    private EnvelopeService envelopeService;
+
+    @MockBean
+    private FileUploadService fileUploadService;
+
+    @MockBean
+    private RecordIndexService recordIndexService;
+
+    @MockBean
+    private StatisticsService statisticsService;
+
+    @MockBean
+    private ColumnarExportService columnarExportService;
+
+    @MockBean
+    private BandPowerService bandPowerService;
+
     @Test
     void testGetAllEdfFiles_WhenNoFilesExist_ShouldReturnEmptyList() throws Exception {
-        Mockito.when(fileProcessingService.getProcessedFiles()).thenReturn(Collections.emptyList());
+        mockProcessedFiles(Collections.emptyList());
 
         mockMvc.perform(get("/api/edf-files").contentType(MediaType.APPLICATION_JSON))
                .andExpect(status().isOk())
@@ -46,7 +111,7 @@ class EdfControllerTest {
         FileInfo file2 = FileInfo.builder().recordingDate(LocalDate.of(2025, 9, 15).atStartOfDay()).build();
         FileInfo file3 = FileInfo.builder().recordingDate(null).build();
 
-        Mockito.when(fileProcessingService.getProcessedFiles()).thenReturn(Arrays.asList(file1, file2, file3));
+        mockProcessedFiles(Arrays.asList(file1, file2, file3));
 
         mockMvc.perform(get("/api/edf-files").contentType(MediaType.APPLICATION_JSON))
                .andExpect(status().isOk())
@@ -56,4 +121,329 @@ class EdfControllerTest {
                .andExpect(jsonPath("$[1].recordingDate", is("2025-09-15T00:00:00")))
                .andExpect(jsonPath("$[2].recordingDate", is((String) null)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetAllEdfFiles_WhenETagMatches_ShouldReturnNotModified() throws Exception {
+        mockProcessedFiles(List.of(FileInfo.builder().fileName("a.edf").build()));
+
+        var etag = mockMvc.perform(get("/api/edf-files"))
+                          .andExpect(status().isOk())
+                          .andExpect(header().exists(HttpHeaders.ETAG))
+                          .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/edf-files").header(HttpHeaders.IF_NONE_MATCH, etag))
+               .andExpect(status().isNotModified())
+               .andExpect(header().string(HttpHeaders.ETAG, etag))
+               .andExpect(content().bytes(new byte[0]));
+
+        mockProcessedFiles(List.of(FileInfo.builder().fileName("b.edf").build()));
+
+        mockMvc.perform(get("/api/edf-files").header(HttpHeaders.IF_NONE_MATCH, etag))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$[0].fileName", is("b.edf")));
+        Mockito.verify(fileProcessingService, Mockito.times(2)).getProcessedFiles();
+    }
+
+    @Test
+    void testGetAllEdfFiles_WhenGzipAccepted_ShouldReturnCompressedListing() throws Exception {
+        mockProcessedFiles(List.of(FileInfo.builder().fileName("a.edf").build()));
+
+        var response = mockMvc.perform(get("/api/edf-files").header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8"))
+                              .andExpect(status().isOk())
+                              .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                              .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+                              .andReturn().getResponse();
+
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertTrue(new String(in.readAllBytes()).contains("\"fileName\":\"a.edf\""));
+        }
+
+        mockMvc.perform(get("/api/edf-files").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+               .andExpect(status().isOk())
+               .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+               .andExpect(jsonPath("$[0].fileName", is("a.edf")));
+    }
+
+    @Test
+    void testGetAllEdfFiles_WhenQueried_ShouldReturnPage() throws Exception {
+        var filePage = FilePage.builder()
+                               .files(List.of(FileInfo.builder().fileName("b.edf").patientName("Anna").build()))
+                               .page(1)
+                               .size(1)
+                               .totalElements(2)
+                               .build();
+        Mockito.when(fileProcessingService.queryProcessedFiles(Mockito.any())).thenReturn(filePage);
+
+        mockMvc.perform(get("/api/edf-files?patient=ann&valid=true&from=2025-01-01T00:00:00&sort=-fileName&page=1&size=5000"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.files", hasSize(1)))
+               .andExpect(jsonPath("$.files[0].fileName", is("b.edf")))
+               .andExpect(jsonPath("$.totalElements", is(2)));
+
+        var query = ArgumentCaptor.forClass(FileQuery.class);
+        Mockito.verify(fileProcessingService).queryProcessedFiles(query.capture());
+        assertEquals("ann", query.getValue().getPatientPrefix());
+        assertEquals(Boolean.TRUE, query.getValue().getValid());
+        assertEquals(LocalDateTime.parse("2025-01-01T00:00:00"), query.getValue().getFrom());
+        assertEquals(FileSortKey.FILE_NAME, query.getValue().getSortKey());
+        assertTrue(query.getValue().isDescending());
+        assertEquals(1000, query.getValue().getSize());
+    }
+
+    @Test
+    void testGetAllEdfFiles_WhenQueryIsInvalid_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/edf-files?sort=size"))
+               .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/edf-files?from=2025-01-02T00:00:00&to=2025-01-01T00:00:00"))
+               .andExpect(status().isBadRequest());
+        Mockito.verify(fileProcessingService, Mockito.never()).queryProcessedFiles(Mockito.any());
+    }
+
+    @Test
+    void testStreamEdfFiles_WhenNdjsonAccepted_ShouldStreamOneFilePerLine() throws Exception {
+        var file1 = FileInfo.builder().fileName("a.edf").build();
+        var file2 = FileInfo.builder().fileName("b.edf").build();
+        Mockito.when(fileProcessingService.getProcessedFilesChangedSince(Mockito.eq(Long.MIN_VALUE), Mockito.isNull(), Mockito.anyInt()))
+               .thenReturn(List.of(file1, file2));
+
+        var result = mockMvc.perform(get("/api/edf-files").accept(MediaType.APPLICATION_NDJSON))
+                            .andExpect(request().asyncStarted())
+                            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+               .andExpect(status().isOk())
+               .andExpect(content().contentType(MediaType.APPLICATION_NDJSON));
+        var lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"fileName\":\"a.edf\""));
+        assertTrue(lines[1].startsWith("{") && lines[1].contains("\"fileName\":\"b.edf\""));
+    }
+
+    @Test
+    void testStreamEdfFiles_WhenEventStreamAccepted_ShouldStreamEvents() throws Exception {
+        Mockito.when(fileProcessingService.getProcessedFilesChangedSince(Mockito.eq(Long.MIN_VALUE), Mockito.isNull(), Mockito.anyInt()))
+               .thenReturn(List.of(FileInfo.builder().fileName("a.edf").build()));
+
+        var result = mockMvc.perform(get("/api/edf-files").accept(MediaType.TEXT_EVENT_STREAM))
+                            .andExpect(request().asyncStarted())
+                            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+               .andExpect(status().isOk())
+               .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM));
+        var body = result.getResponse().getContentAsString();
+        assertTrue(body.startsWith("data: {") && body.contains("\"fileName\":\"a.edf\""));
+        assertTrue(body.endsWith("\n\nevent: end\ndata:\n\n"));
+    }
+
+    @Test
+    void testGetAnnotations_WhenFileExists_ShouldReturnPage() throws Exception {
+        var annotationPage = AnnotationPage.builder()
+                                           .annotations(List.of(new Annotation(1.5, 0.25, "Spike"), new Annotation(2.0, null, "Blink")))
+                                           .page(1)
+                                           .size(2)
+                                           .totalElements(5)
+                                           .build();
+
+        Mockito.when(fileProcessingService.getAnnotations("a.edf", 1.0, 10.0, 1, 2)).thenReturn(Optional.of(annotationPage));
+
+        mockMvc.perform(get("/api/edf-files/a.edf/annotations?from=1&to=10&page=1&size=2").contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+               .andExpect(jsonPath("$.annotations", hasSize(2)))
+               .andExpect(jsonPath("$.annotations[0].onset", is(1.5)))
+               .andExpect(jsonPath("$.annotations[0].duration", is(0.25)))
+               .andExpect(jsonPath("$.annotations[0].text", is("Spike")))
+               .andExpect(jsonPath("$.annotations[1].duration", is((Object) null)))
+               .andExpect(jsonPath("$.totalElements", is(5)));
+    }
+
+    @Test
+    void testGetAnnotations_WhenFileDoesNotExist_ShouldReturnNotFound() throws Exception {
+        Mockito.when(fileProcessingService.getAnnotations("missing.edf", Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0, 100))
+               .thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/edf-files/missing.edf/annotations"))
+               .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testLocateRecord_WhenFileExists_ShouldReturnLocation() throws Exception {
+        var location = RecordLocation.builder().fileName("a.edf").record(20820).offset(213_204_224L).onset(20880.0).duration(1.0).build();
+        Mockito.when(recordIndexService.locate("a.edf", 20820.5)).thenReturn(Optional.of(location));
+
+        mockMvc.perform(get("/api/edf-files/a.edf/records?at=20820.5"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.record", is(20820)))
+               .andExpect(jsonPath("$.offset", is(213_204_224)))
+               .andExpect(jsonPath("$.onset", is(20880.0)));
+        mockMvc.perform(get("/api/edf-files/missing.edf/records?at=0"))
+               .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/edf-files/a.edf/records?at=NaN"))
+               .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetStatistics_WhenFileExists_ShouldReturnChannelStatistics() throws Exception {
+        var channel = ChannelStatistics.builder().label("EEG Fp1").physicalDimension("uV").sampleCount(1000).min(-50).max(50)
+                                       .rms(12.5).clippedSamples(4).clipping(true).build();
+        var statistics = FileStatistics.builder().fileName("a.edf").dataRecords(10).engine("vector").channels(List.of(channel)).build();
+        Mockito.when(statisticsService.getStatistics("a.edf")).thenReturn(Optional.of(statistics));
+        Mockito.when(statisticsService.getStatistics("missing.edf")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/edf-files/a.edf/statistics"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.dataRecords", is(10)))
+               .andExpect(jsonPath("$.channels[0].label", is("EEG Fp1")))
+               .andExpect(jsonPath("$.channels[0].rms", is(12.5)))
+               .andExpect(jsonPath("$.channels[0].clipping", is(true)));
+        mockMvc.perform(get("/api/edf-files/missing.edf/statistics"))
+               .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testGetBandPower_ShouldParseBandsAndReturnChannelPower() throws Exception {
+        var alpha = FrequencyBand.builder().name("alpha").low(8).high(13).build();
+        var channel = ChannelBandPower.builder().label("EEG Fp1").segments(29).power(new double[]{1250}).relativePower(new double[]{0.99}).build();
+        var bandPower = FileBandPower.builder().fileName("a.edf").segmentSeconds(4).overlap(0.5).bands(List.of(alpha)).channels(List.of(channel)).build();
+        Mockito.when(bandPowerService.getDefaultBands()).thenReturn(List.of(alpha));
+        Mockito.when(bandPowerService.getBandPower("a.edf", List.of(alpha))).thenReturn(Optional.of(bandPower));
+        Mockito.when(bandPowerService.getAllBandPower(List.of(alpha))).thenReturn(List.of(bandPower));
+
+        mockMvc.perform(get("/api/edf-files/a.edf/band-power").param("bands", "alpha:8-13"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.bands[0].name", is("alpha")))
+               .andExpect(jsonPath("$.channels[0].power[0]", is(1250.0)));
+        mockMvc.perform(get("/api/edf-files/band-power"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(1)));
+        mockMvc.perform(get("/api/edf-files/missing.edf/band-power"))
+               .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/edf-files/a.edf/band-power").param("bands", "alpha:13-8"))
+               .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testExportEdfFile_ShouldScheduleKnownFiles() throws Exception {
+        Mockito.when(columnarExportService.export("a.edf")).thenReturn(true);
+        Mockito.when(columnarExportService.exportAll()).thenReturn(3);
+
+        mockMvc.perform(post("/api/edf-files/a.edf/export"))
+               .andExpect(status().isAccepted());
+        mockMvc.perform(post("/api/edf-files/missing.edf/export"))
+               .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/edf-files/export"))
+               .andExpect(status().isAccepted())
+               .andExpect(content().string("3"));
+    }
+
+    @Test
+    void testGetSamples_WhenChannelExists_ShouldReturnWindow() throws Exception {
+        var window = SignalWindow.builder()
+                                 .fileName("a.edf")
+                                 .label("EEG Fp1")
+                                 .physicalDimension("uV")
+                                 .sampleRate(256)
+                                 .start(1.0)
+                                 .samples(new float[]{1.5f, -2.0f})
+                                 .build();
+
+        Mockito.when(signalDataService.getSamples("a.edf", "EEG Fp1", 1.0, 2.0)).thenReturn(Optional.of(window));
+
+        mockMvc.perform(get("/api/edf-files/a.edf/channels/EEG Fp1/samples?start=1&end=2"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.label", is("EEG Fp1")))
+               .andExpect(jsonPath("$.sampleRate", is(256.0)))
+               .andExpect(jsonPath("$.samples", hasSize(2)))
+               .andExpect(jsonPath("$.samples[1]", is(-2.0)));
+    }
+
+    @Test
+    void testGetSamples_WhenChannelDoesNotExist_ShouldReturnNotFound() throws Exception {
+        Mockito.when(signalDataService.getSamples("a.edf", "missing", 0.0, 1.0)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/edf-files/a.edf/channels/missing/samples?start=0&end=1"))
+               .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testGetSamples_WhenWindowIsReversed_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/edf-files/a.edf/channels/EEG Fp1/samples?start=2&end=1"))
+               .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(signalDataService);
+    }
+
+    @Test
+    void testGetEnvelope_WithoutWindow_ShouldRequestWholeRecording() throws Exception {
+        var envelope = SignalEnvelope.builder()
+                                     .fileName("a.edf")
+                                     .label("EEG Fp1")
+                                     .decimation(100)
+                                     .bucketDuration(0.5)
+                                     .minimums(new float[]{-3.0f, -1.0f})
+                                     .maximums(new float[]{2.0f, 4.0f})
+                                     .build();
+
+        Mockito.when(envelopeService.getEnvelope("a.edf", "EEG Fp1", 0.0, Double.POSITIVE_INFINITY, 800)).thenReturn(Optional.of(envelope));
+
+        mockMvc.perform(get("/api/edf-files/a.edf/channels/EEG Fp1/envelope?width=800"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.decimation", is(100)))
+               .andExpect(jsonPath("$.minimums", hasSize(2)))
+               .andExpect(jsonPath("$.maximums[1]", is(4.0)));
+    }
+
+    @Test
+    void testGetEnvelope_WhenPyramidIsNotBuilt_ShouldReturnServiceUnavailable() throws Exception {
+        Mockito.when(envelopeService.getEnvelope("a.edf", "EEG Fp1", 0.0, Double.POSITIVE_INFINITY, 800))
+               .thenThrow(new EnvelopeNotReadyException("a.edf"));
+
+        mockMvc.perform(get("/api/edf-files/a.edf/channels/EEG Fp1/envelope?width=800"))
+               .andExpect(status().isServiceUnavailable())
+               .andExpect(header().string("Retry-After", "5"));
+    }
+
+    @Test
+    void testUploadEdfFile_WhenContentIsValid_ShouldReturnCreated() throws Exception {
+        var fileInfo = FileInfo.builder().fileName("new.edf").valid(true).numberOfAnnotations(3).build();
+        Mockito.when(fileUploadService.upload(Mockito.eq("new.edf"), Mockito.any(InputStream.class))).thenReturn(Optional.of(fileInfo));
+
+        mockMvc.perform(post("/api/edf-files?fileName=new.edf").contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[]{1, 2, 3}))
+               .andExpect(status().isCreated())
+               .andExpect(jsonPath("$.fileName", is("new.edf")))
+               .andExpect(jsonPath("$.numberOfAnnotations", is(3)));
+    }
+
+    @Test
+    void testUploadEdfFile_WhenUploadIsRejected_ShouldReturnConflictOrUnprocessableEntity() throws Exception {
+        Mockito.when(fileUploadService.upload(Mockito.eq("existing.edf"), Mockito.any(InputStream.class))).thenReturn(Optional.empty());
+        Mockito.when(fileUploadService.upload(Mockito.eq("broken.edf"), Mockito.any(InputStream.class)))
+               .thenReturn(Optional.of(FileInfo.builder().fileName("broken.edf").valid(false).build()));
+
+        mockMvc.perform(post("/api/edf-files?fileName=existing.edf").contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[]{1}))
+               .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/edf-files?fileName=broken.edf").contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[]{1}))
+               .andExpect(status().isUnprocessableEntity())
+               .andExpect(jsonPath("$.valid", is(false)));
+    }
+
+    @Test
+    void testUploadEdfFile_WhenFileNameIsNotPlain_ShouldReturnBadRequest() throws Exception {
+        for (var fileName : List.of("../escape.edf", ".hidden.edf", "notes.txt", "dir/a.edf")) {
+            mockMvc.perform(post("/api/edf-files").param("fileName", fileName).contentType(MediaType.APPLICATION_OCTET_STREAM).content(new byte[]{1}))
+                   .andExpect(status().isBadRequest());
+        }
+
+        Mockito.verifyNoInteractions(fileUploadService);
+    }
+
+    /**
+     * Stubs the processed files with a new version, as the store does on every change, so the listing cached
+     * by the shared {@link FileListingServiceImpl} bean is rebuilt.
+     */
+    private void mockProcessedFiles(List<FileInfo> files) {
+        Mockito.when(fileProcessingService.getProcessedFiles()).thenReturn(files);
+        Mockito.when(fileProcessingService.getProcessedFilesVersion()).thenReturn(++processedFilesVersion);
+    }
+}
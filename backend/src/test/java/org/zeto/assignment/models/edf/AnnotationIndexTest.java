@@ -0,0 +1,85 @@
+package org.zeto.assignment.models.edf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("AnnotationIndex tests")
+class AnnotationIndexTest {
+
+    @Test
+    @DisplayName("build sorts annotations by onset and keeps their texts and durations")
+    void build_sortsByOnset() {
+        var index = AnnotationIndex.builder();
+        add(index, 5.0, 1.0, "C");
+        add(index, 1.0, Double.NaN, "A");
+        add(index, 3.0, 0.5, "B");
+
+        var annotations = index.build();
+
+        assertEquals(3, annotations.size());
+        assertEquals(new Annotation(1.0, null, "A"), annotations.get(0));
+        assertEquals(new Annotation(3.0, 0.5, "B"), annotations.get(1));
+        assertEquals(new Annotation(5.0, 1.0, "C"), annotations.get(2));
+    }
+
+    @Test
+    @DisplayName("query returns the requested page of annotations with onset in [from, to)")
+    void query_pagesTimeRange() {
+        var builder = AnnotationIndex.builder();
+        for (var i = 0; i < 100; i++) {
+            add(builder, i, Double.NaN, "Event " + i);
+        }
+        var index = builder.build();
+
+        var firstPage = index.query(10, 20, 0, 4);
+        assertEquals(10, firstPage.getTotalElements());
+        assertEquals(List.of("Event 10", "Event 11", "Event 12", "Event 13"), texts(firstPage));
+
+        var lastPage = index.query(10, 20, 2, 4);
+        assertEquals(List.of("Event 18", "Event 19"), texts(lastPage));
+
+        assertEquals(List.of(), texts(index.query(10, 20, 3, 4)));
+        assertEquals(0, index.query(20, 10, 0, 4).getTotalElements());
+        assertEquals(100, index.query(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0, 1).getTotalElements());
+    }
+
+    @Test
+    @DisplayName("addAll appends the annotations of another builder after its own")
+    void addAll_appendsInOrder() {
+        var first = AnnotationIndex.builder();
+        add(first, 1.0, Double.NaN, "A");
+        add(first, 2.0, 0.5, "B");
+        var second = AnnotationIndex.builder();
+        add(second, 2.0, Double.NaN, "C");
+
+        var annotations = first.addAll(second).build();
+
+        assertEquals(3, annotations.size());
+        assertEquals(new Annotation(1.0, null, "A"), annotations.get(0));
+        assertEquals(new Annotation(2.0, 0.5, "B"), annotations.get(1));
+        assertEquals(new Annotation(2.0, null, "C"), annotations.get(2));
+    }
+
+    @Test
+    @DisplayName("build returns the shared empty index when no annotation was added")
+    void build_empty() {
+        assertSame(AnnotationIndex.EMPTY, AnnotationIndex.builder().build());
+        assertEquals(0, AnnotationIndex.EMPTY.query(0, 10, 0, 10).getTotalElements());
+    }
+
+    private static void add(AnnotationIndex.Builder builder, double onset, double duration, String text) {
+        var bytes = text.getBytes(StandardCharsets.UTF_8);
+        builder.add(onset, duration, ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    private static List<String> texts(AnnotationPage page) {
+        return page.getAnnotations().stream().map(Annotation::text).toList();
+    }
+}
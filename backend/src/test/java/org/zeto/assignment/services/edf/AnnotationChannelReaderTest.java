@@ -0,0 +1,103 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("AnnotationChannelReader tests")
+class AnnotationChannelReaderTest {
+
+    private static final int DATA_OFFSET = 512;
+    private static final int ANNOTATION_LENGTH = 6;
+
+    @Test
+    @DisplayName("scan visits and reads only the annotation bytes of each record when records are large (strided reads)")
+    void scan_strided() throws Exception {
+        assertVisitsAnnotationBytes(10_000, 100, 40, 40L * ANNOTATION_LENGTH);
+    }
+
+    @Test
+    @DisplayName("scan visits only the annotation bytes of each record but reads whole records when records are small (contiguous reads)")
+    void scan_contiguous() throws Exception {
+        assertVisitsAnnotationBytes(20, 10, 40_000, 40_000L * 20);
+    }
+
+    @Test
+    @DisplayName("scan honours the requested record range")
+    void scan_range() throws Exception {
+        var recordBytes = 20;
+        var file = createFile(recordBytes, 10, 100);
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var visited = new ArrayList<Integer>();
+            new AnnotationChannelReader(channel, DATA_OFFSET, recordBytes, 10, ANNOTATION_LENGTH)
+                    .scan(40, 45, (record, buffer, offset, length) -> visited.add(record));
+
+            assertEquals(List.of(40, 41, 42, 43, 44), visited);
+        }
+    }
+
+    @Test
+    @DisplayName("scan throws when the file ends before the requested records")
+    void scan_throwsOnTruncatedFile() throws Exception {
+        var file = createFile(10_000, 100, 3);
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var reader = new AnnotationChannelReader(channel, DATA_OFFSET, 10_000, 100, ANNOTATION_LENGTH);
+            var ex = assertThrows(IOException.class, () -> reader.scan(0, 4, (record, buffer, offset, length) -> {
+            }));
+            assertTrue(ex.getMessage().contains("Unexpected end of file"));
+        }
+    }
+
+    private static void assertVisitsAnnotationBytes(int recordBytes, int annotationOffset, int numRecords, long expectedBytesRead) throws IOException {
+        var file = createFile(recordBytes, annotationOffset, numRecords);
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var visited = new ArrayList<Integer>();
+            var reader = new AnnotationChannelReader(channel, DATA_OFFSET, recordBytes, annotationOffset, ANNOTATION_LENGTH);
+
+            var bytesRead = reader.scan(0, numRecords, (record, buffer, offset, length) -> {
+                var actual = new byte[length];
+                buffer.get(offset, actual);
+                assertArrayEquals(annotationBytes(record), actual, "Unexpected annotation bytes for record " + record);
+                visited.add(record);
+            });
+
+            assertEquals(numRecords, visited.size());
+            assertEquals(numRecords - 1, visited.getLast());
+            assertEquals(expectedBytesRead, bytesRead);
+        }
+    }
+
+    private static Path createFile(int recordBytes, int annotationOffset, int numRecords) throws IOException {
+        var bytes = new byte[DATA_OFFSET + recordBytes * numRecords];
+        Arrays.fill(bytes, (byte) 7);
+
+        for (var record = 0; record < numRecords; record++) {
+            var annotation = annotationBytes(record);
+            System.arraycopy(annotation, 0, bytes, DATA_OFFSET + record * recordBytes + annotationOffset, annotation.length);
+        }
+
+        var file = Files.createTempFile("edf", ".edf");
+        file.toFile().deleteOnExit();
+        return Files.write(file, bytes);
+    }
+
+    private static byte[] annotationBytes(int record) {
+        return new byte[]{'+', (byte) record, (byte) (record >> 8), 0x14, 0x14, 0x00};
+    }
+}
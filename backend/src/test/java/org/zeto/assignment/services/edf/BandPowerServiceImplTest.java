@@ -0,0 +1,173 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.DataRecordLayout;
+import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.models.edf.FrequencyBand;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("BandPowerServiceImpl tests")
+class BandPowerServiceImplTest {
+
+    private static final int DATA_OFFSET = SyntheticEdfFiles.dataOffset(3);
+    private static final int NUM_DATA_RECORDS = 60;
+    private static final int SAMPLE_RATE = 256;
+
+    // Fp1: 10 Hz sine of 50 uV; Fp2: 2 Hz sine of 20 uV; digital values are tenths of uV
+    private static final DataRecordLayout LAYOUT = new DataRecordLayout(DATA_OFFSET, NUM_DATA_RECORDS, 1.0,
+                                                                        new String[]{"Fp1", "Fp2", "EDF Annotations"},
+                                                                        new String[]{"uV", "uV", ""},
+                                                                        new int[]{SAMPLE_RATE, SAMPLE_RATE, 2},
+                                                                        new double[]{-3276.8, -3276.8, -1},
+                                                                        new double[]{3276.7, 3276.7, 1},
+                                                                        new int[]{-32768, -32768, -32768},
+                                                                        new int[]{32767, 32767, 32767});
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    FileProcessingService fileProcessingService;
+
+    private ColumnarExportServiceImpl columnarExportService;
+    private BandPowerServiceImpl bandPowerService;
+    private FileInfo fileInfo;
+    private Path edfFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        edfFile = SyntheticEdfFiles.write(tempDir.resolve("a.edf"), LAYOUT, (signal, n) -> signal == 0 ? sine(50, 10, n) : sine(20, 2, n));
+        fileInfo = SyntheticEdfFiles.mockProcessedFile(fileProcessingService, "a.edf", edfFile, LAYOUT);
+
+        var properties = new EdfProperties();
+        properties.getColumnarExport().setDirectory(tempDir.resolve("columns").toString());
+        properties.getBandPower().setParallelism(4);
+        columnarExportService = new ColumnarExportServiceImpl(fileProcessingService, properties);
+        bandPowerService = new BandPowerServiceImpl(fileProcessingService, columnarExportService, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bandPowerService.stop();
+    }
+
+    @Test
+    @DisplayName("getBandPower finds the power of a sine in its band and almost none elsewhere")
+    void getBandPower_sines() throws Exception {
+        var bandPower = bandPowerService.getBandPower("a.edf", bandPowerService.getDefaultBands()).orElseThrow();
+
+        assertEquals(List.of("delta", "theta", "alpha", "beta"), bandPower.getBands().stream().map(FrequencyBand::getName).toList());
+        assertEquals(2, bandPower.getChannels().size());
+
+        var fp1 = bandPower.getChannels().get(0);
+        assertEquals("Fp1", fp1.getLabel());
+        assertEquals(29, fp1.getSegments());
+        assertEquals(50.0 * 50 / 2, fp1.getPower()[2], 1250 * 0.02);
+        assertTrue(fp1.getRelativePower()[2] > 0.99);
+
+        var fp2 = bandPower.getChannels().get(1);
+        assertEquals(20.0 * 20 / 2, fp2.getPower()[0], 200 * 0.02);
+        assertTrue(fp2.getRelativePower()[0] > 0.99);
+        assertTrue(fp2.getRelativePower()[2] < 0.01);
+    }
+
+    @Test
+    @DisplayName("getBandPower caches results for the default bands until the file is ingested again or removed")
+    void getBandPower_cache() throws Exception {
+        var bands = bandPowerService.getDefaultBands();
+        var first = bandPowerService.getBandPower("a.edf", bands).orElseThrow();
+        assertSame(first, bandPowerService.getBandPower("a.edf", FrequencyBand.parseList("delta:0.5-4,theta:4-8,alpha:8-13,beta:13-30").orElseThrow()).orElseThrow());
+
+        var alphaBand = FrequencyBand.parseList("alpha:8-13").orElseThrow();
+        var alpha = bandPowerService.getBandPower("a.edf", alphaBand).orElseThrow();
+        assertEquals(1, alpha.getBands().size());
+        assertEquals(first.getChannels().get(0).getPower()[2], alpha.getChannels().get(0).getPower()[0]);
+        // Bands named by a request are not cached
+        assertNotSame(alpha, bandPowerService.getBandPower("a.edf", alphaBand).orElseThrow());
+        assertSame(first, bandPowerService.getBandPower("a.edf", bands).orElseThrow());
+
+        bandPowerService.onFileIngested(new FileIngestedEvent(edfFile, fileInfo));
+        var second = bandPowerService.getBandPower("a.edf", bands).orElseThrow();
+        assertNotSame(first, second);
+
+        bandPowerService.onFileRemoved(new FileRemovedEvent(edfFile, "a.edf"));
+        assertNotSame(second, bandPowerService.getBandPower("a.edf", bands).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("getBandPower gives the same result from the columnar export")
+    void getBandPower_columnarExport() throws Exception {
+        var fromRecords = bandPowerService.getBandPower("a.edf", bandPowerService.getDefaultBands()).orElseThrow();
+        columnarExportService.build(edfFile, fileInfo);
+        bandPowerService.onFileIngested(new FileIngestedEvent(edfFile, fileInfo));
+        var fromExport = bandPowerService.getBandPower("a.edf", bandPowerService.getDefaultBands()).orElseThrow();
+
+        for (var i = 0; i < fromRecords.getChannels().size(); i++) {
+            assertArrayEquals(fromRecords.getChannels().get(i).getPower(), fromExport.getChannels().get(i).getPower());
+        }
+    }
+
+    @Test
+    @DisplayName("getBandPower carries the windows of a long recording across blocks, from the records and the export alike")
+    void getBandPower_acrossBlocks() throws Exception {
+        bandPowerService.stop();
+        var properties = new EdfProperties();
+        properties.getColumnarExport().setDirectory(tempDir.resolve("columns").toString());
+        properties.getBandPower().setSegmentSeconds(0.25);
+        bandPowerService = new BandPowerServiceImpl(fileProcessingService, columnarExportService, properties);
+
+        var fromRecords = bandPowerService.getBandPower("a.edf", bandPowerService.getDefaultBands()).orElseThrow();
+        columnarExportService.build(edfFile, fileInfo);
+        bandPowerService.onFileIngested(new FileIngestedEvent(edfFile, fileInfo));
+        var fromExport = bandPowerService.getBandPower("a.edf", bandPowerService.getDefaultBands()).orElseThrow();
+
+        // 64-sample windows every 32 samples over 60 s: more than one block of windows
+        assertTrue(BandPowerServiceImpl.BLOCK_SEGMENTS < 479);
+        for (var i = 0; i < fromRecords.getChannels().size(); i++) {
+            assertEquals(479, fromRecords.getChannels().get(i).getSegments());
+            assertEquals(479, fromExport.getChannels().get(i).getSegments());
+            assertArrayEquals(fromRecords.getChannels().get(i).getPower(), fromExport.getChannels().get(i).getPower());
+        }
+        assertTrue(fromRecords.getChannels().get(0).getRelativePower()[2] > 0.8);
+    }
+
+    @Test
+    @DisplayName("getAllBandPower computes every valid file and getBandPower returns empty for unknown files")
+    void getAllBandPower_validFiles() throws Exception {
+        var invalid = FileInfo.builder().fileName("b.edf").valid(false).build();
+        when(fileProcessingService.getProcessedFiles()).thenReturn(List.of(fileInfo, invalid));
+
+        var all = bandPowerService.getAllBandPower(bandPowerService.getDefaultBands());
+
+        assertEquals(1, all.size());
+        assertEquals("a.edf", all.get(0).getFileName());
+        assertFalse(bandPowerService.getBandPower("missing.edf", bandPowerService.getDefaultBands()).isPresent());
+    }
+
+    private static short sine(double amplitude, double frequency, long n) {
+        return (short) Math.round(10 * amplitude * Math.sin(2 * Math.PI * frequency * n / SAMPLE_RATE));
+    }
+
+}
@@ -7,6 +7,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 
 import org.junit.jupiter.api.DisplayName;
@@ -43,4 +45,56 @@ class BaseServiceTest {
         var ex = assertThrows(IllegalArgumentException.class, () -> baseService.formatDate("19.09.19", "12.30"));
         assertTrue(ex.getMessage().contains("Invalid date format"));
     }
+
+    @Test
+    @DisplayName("formatDate rejects out-of-range dates")
+    void formatDate_rejectsInvalidDate() {
+        assertThrows(IllegalArgumentException.class, () -> baseService.formatDate("31.02.20", "12.30.00"));
+        assertThrows(IllegalArgumentException.class, () -> baseService.formatDate("1.9.25", "12.30.00"));
+        assertThrows(IllegalArgumentException.class, () -> baseService.formatDate("01-09-25", "12.30.00"));
+    }
+
+    @Test
+    @DisplayName("readAsciiInt decodes signed, space-padded integers and rejects anything else")
+    void readAsciiInt() {
+        assertEquals(256, baseService.readAsciiInt(ascii("256     "), 0, 8));
+        assertEquals(-1, baseService.readAsciiInt(ascii("  -1    "), 0, 8));
+        assertEquals(7, baseService.readAsciiInt(ascii("+7"), 0, 2));
+        assertEquals(12, baseService.readAsciiInt(ascii("xx12  xx"), 2, 4));
+
+        for (var invalid : new String[]{"        ", "-       ", "1.5     ", "12 3    ", "abc     ", "99999999999"}) {
+            assertThrows(NumberFormatException.class, () -> baseService.readAsciiInt(ascii(invalid), 0, invalid.length()), invalid);
+        }
+    }
+
+    @Test
+    @DisplayName("readAsciiDecimal decodes decimals exactly and returns NaN for non-numeric fields")
+    void readAsciiDecimal() {
+        assertEquals(-3200.0, baseService.readAsciiDecimal(ascii("-3200   "), 0, 8));
+        assertEquals(0.1, baseService.readAsciiDecimal(ascii("0.1     "), 0, 8));
+        assertEquals(-1.5, baseService.readAsciiDecimal(ascii("  -1.5  "), 0, 8));
+        assertEquals(0.5, baseService.readAsciiDecimal(ascii(".5"), 0, 2));
+        assertEquals(3.0, baseService.readAsciiDecimal(ascii("3."), 0, 2));
+        assertEquals(1.0E-3, baseService.readAsciiDecimal(ascii("1E-3    "), 0, 8));
+        assertEquals(Double.parseDouble("3276.7"), baseService.readAsciiDecimal(ascii("3276.7"), 0, 6));
+
+        assertTrue(Double.isNaN(baseService.readAsciiDecimal(ascii("        "), 0, 8)));
+        assertTrue(Double.isNaN(baseService.readAsciiDecimal(ascii("-       "), 0, 8)));
+        assertTrue(Double.isNaN(baseService.readAsciiDecimal(ascii("1.2.3   "), 0, 8)));
+        assertTrue(Double.isNaN(baseService.readAsciiDecimal(ascii("n/a     "), 0, 8)));
+    }
+
+    @Test
+    @DisplayName("readDateTime decodes start date and time fields from a direct buffer")
+    void readDateTime() {
+        var buffer = ByteBuffer.allocateDirect(20).put(ascii("xx02.01.8503:04:05xx")).clear();
+
+        assertEquals(LocalDateTime.parse("1985-01-02T03:04:05"), baseService.readDateTime(buffer, 2, 10));
+        var ex = assertThrows(IllegalArgumentException.class, () -> baseService.readDateTime(ascii("02.13.8503.04.05"), 0, 8));
+        assertEquals("Invalid date format: 02.13.85 03.04.05", ex.getMessage());
+    }
+
+    private static ByteBuffer ascii(String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.US_ASCII));
+    }
 }
@@ -0,0 +1,166 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.DataRecordLayout;
+import org.zeto.assignment.models.edf.FileInfo;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("ColumnarExportServiceImpl tests")
+class ColumnarExportServiceImplTest {
+
+    private static final int DATA_OFFSET = SyntheticEdfFiles.dataOffset(3);
+    private static final int NUM_DATA_RECORDS = 150;
+    private static final int SAMPLES_PER_RECORD = 1000;
+
+    // Fp1: 1000 samples per record of a slow sine, so its 150 records span three chunks; Flat: constant
+    private static final DataRecordLayout LAYOUT = new DataRecordLayout(DATA_OFFSET, NUM_DATA_RECORDS, 1.0,
+                                                                        new String[]{"Fp1", "Flat", "EDF Annotations"},
+                                                                        new String[]{"uV", "uV", ""},
+                                                                        new int[]{SAMPLES_PER_RECORD, 10, 2},
+                                                                        new double[]{-3276.8, -100, -1},
+                                                                        new double[]{3276.7, 100, 1},
+                                                                        new int[]{-32768, -1000, -32768},
+                                                                        new int[]{32767, 1000, 32767});
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    FileProcessingService fileProcessingService;
+
+    private ColumnarExportServiceImpl columnarExportService;
+    private FileInfo fileInfo;
+    private Path edfFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var properties = new EdfProperties();
+        properties.getColumnarExport().setDirectory(tempDir.resolve("columns").toString());
+        columnarExportService = new ColumnarExportServiceImpl(fileProcessingService, properties);
+        edfFile = SyntheticEdfFiles.write(tempDir.resolve("a.edf"), LAYOUT, (signal, n) -> signal == 0 ? sine(n) : 70);
+        fileInfo = SyntheticEdfFiles.mockProcessedFile(fileProcessingService, "a.edf", edfFile, LAYOUT);
+    }
+
+    @Test
+    @DisplayName("open reads any range of samples across chunks exactly as stored in the data records")
+    void open_readsSamplesAcrossChunks() throws Exception {
+        columnarExportService.build(edfFile, fileInfo);
+
+        var first = 64_000L;
+        var length = 70_000;
+        var expected = new float[length];
+        try (var channel = FileChannel.open(edfFile, StandardOpenOption.READ)) {
+            new SampleReader(channel, LAYOUT).read(0, first, length, expected, 0);
+        }
+
+        try (var export = columnarExportService.open("a.edf").orElseThrow()) {
+            var actual = new float[length];
+            export.read(0, first, length, actual, 0);
+
+            assertEquals(NUM_DATA_RECORDS, export.getRecords());
+            assertArrayEquals(expected, actual);
+
+            var flat = new float[3];
+            export.read(1, 1497, 3, flat, 0);
+            assertArrayEquals(new float[]{7, 7, 7}, flat, 1e-4f);
+            assertThrows(IllegalArgumentException.class, () -> export.read(2, 0, 1, new float[1], 0));
+        }
+    }
+
+    @Test
+    @DisplayName("scan visits every digital value of one channel and the export is smaller than the channel")
+    void open_scansChannel() throws Exception {
+        columnarExportService.build(edfFile, fileInfo);
+
+        var count = new long[1];
+        var mismatches = new int[1];
+        try (var export = columnarExportService.open("a.edf").orElseThrow()) {
+            export.scan(0, (values, length) -> {
+                for (var i = 0; i < length; i++) {
+                    mismatches[0] += values[i] == sine(count[0] + i) ? 0 : 1;
+                }
+                count[0] += length;
+            });
+        }
+
+        assertEquals((long) NUM_DATA_RECORDS * SAMPLES_PER_RECORD, count[0]);
+        assertEquals(0, mismatches[0]);
+        assertTrue(Files.size(tempDir.resolve("columns/a.edf.columns")) < (long) NUM_DATA_RECORDS * SAMPLES_PER_RECORD * 2);
+    }
+
+    @Test
+    @DisplayName("open returns empty until the file is exported and after the file changes")
+    void open_missingOrStaleExport() throws Exception {
+        assertFalse(columnarExportService.open("a.edf").isPresent());
+        assertFalse(columnarExportService.open("missing.edf").isPresent());
+
+        columnarExportService.build(edfFile, fileInfo);
+        columnarExportService.open("a.edf").orElseThrow().close();
+
+        Files.setLastModifiedTime(edfFile, FileTime.fromMillis(Files.getLastModifiedTime(edfFile).toMillis() + 10_000));
+        assertFalse(columnarExportService.open("a.edf").isPresent());
+    }
+
+    @Test
+    @DisplayName("the export of a file is deleted when the file is removed")
+    void onFileRemoved_deletesExport() throws Exception {
+        columnarExportService.build(edfFile, fileInfo);
+        var export = tempDir.resolve("columns").resolve("a.edf.columns");
+        assertTrue(Files.isRegularFile(export));
+
+        columnarExportService.onFileRemoved(new FileRemovedEvent(edfFile, "a.edf"));
+
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Files.exists(export)) {
+            assertTrue(System.nanoTime() < deadline, "The export should be deleted within 5 seconds");
+            Thread.sleep(10);
+        }
+        assertFalse(columnarExportService.open("a.edf").isPresent());
+    }
+
+    @Test
+    @DisplayName("export schedules only valid processed files")
+    void export_schedulesValidFiles() throws Exception {
+        var invalid = FileInfo.builder().fileName("b.edf").valid(false).build();
+        when(fileProcessingService.getProcessedFile("b.edf")).thenReturn(Optional.of(invalid));
+        when(fileProcessingService.getProcessedFilePath("b.edf")).thenReturn(Optional.of(tempDir.resolve("b.edf")));
+        when(fileProcessingService.getProcessedFiles()).thenReturn(List.of(fileInfo, invalid));
+
+        assertTrue(columnarExportService.export("a.edf"));
+        assertFalse(columnarExportService.export("b.edf"));
+        assertFalse(columnarExportService.export("missing.edf"));
+        assertEquals(1, columnarExportService.exportAll());
+        columnarExportService.stop();
+    }
+
+    private static short sine(long n) {
+        return (short) Math.round(2000 * Math.sin(n / 500.0));
+    }
+
+}
@@ -0,0 +1,189 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@DisplayName("CompressedEdfFiles tests")
+class CompressedEdfFilesTest {
+
+    private static final int MEMBER_BYTES = 50_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("isEdfFile accepts .edf, .edf.gz and .zip files in any case")
+    void isEdfFile_acceptsSupportedExtensions() {
+        assertTrue(CompressedEdfFiles.isEdfFile(Path.of("a.EDF")));
+        assertTrue(CompressedEdfFiles.isEdfFile(Path.of("a.edf.gz")));
+        assertTrue(CompressedEdfFiles.isEdfFile(Path.of("a.Zip")));
+        assertFalse(CompressedEdfFiles.isEdfFile(Path.of("a.gz")));
+        assertFalse(CompressedEdfFiles.isCompressed(Path.of("a.edf")));
+    }
+
+    @Test
+    @DisplayName("gzip checkpoints are placed at member boundaries at least the spacing apart")
+    void gzipCheckpoints_atMemberBoundaries() throws Exception {
+        var content = content(4 * MEMBER_BYTES);
+        var file = Files.write(tempDir.resolve("a.edf.gz"), gzipMembers(content));
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var checkpoints = GzipCheckpoints.build(channel, 2 * MEMBER_BYTES);
+
+            assertEquals(content.length, checkpoints.getUncompressedSize());
+            assertEquals(2, checkpoints.size());
+            assertEquals(0, checkpoints.getUncompressedOffset(checkpoints.indexAt(2 * MEMBER_BYTES - 1)));
+            assertEquals(2 * MEMBER_BYTES, checkpoints.getUncompressedOffset(checkpoints.indexAt(3 * MEMBER_BYTES)));
+
+            try (var in = checkpoints.open(channel, 1)) {
+                assertArrayEquals(Arrays.copyOfRange(content, 2 * MEMBER_BYTES, content.length), in.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("openStream records the gzip checkpoints of the version it reads, which removal evicts")
+    void openStream_recordsGzipCheckpoints() throws Exception {
+        var content = content(4 * MEMBER_BYTES);
+        var file = Files.write(tempDir.resolve("a.edf.gz"), gzipMembers(content));
+        var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        assertTrue(CompressedEdfFiles.needsCheckpoints(file, attributes));
+
+        try (var in = CompressedEdfFiles.openStream(file)) {
+            assertArrayEquals(Arrays.copyOf(content, 1_000), in.readNBytes(1_000));
+        }
+        assertFalse(CompressedEdfFiles.needsCheckpoints(file, attributes));
+        assertFalse(CompressedEdfFiles.needsCheckpoints(tempDir.resolve("b.edf"), attributes));
+        assertEquals(content.length, CompressedEdfFiles.getSize(file, attributes));
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(attributes.lastModifiedTime().toMillis() + 10_000));
+        assertTrue(CompressedEdfFiles.needsCheckpoints(file, Files.readAttributes(file, BasicFileAttributes.class)));
+
+        CompressedEdfFiles.evict(file);
+        assertTrue(CompressedEdfFiles.needsCheckpoints(file, attributes));
+    }
+
+    @Test
+    @DisplayName("the gzip checkpoint recorder reads every member and rejects a corrupt trailer")
+    void gzipRecorder_checksTrailers() throws Exception {
+        var content = content(3 * MEMBER_BYTES);
+        var gzip = gzipMembers(content);
+
+        try (var recorder = new GzipCheckpoints.Recorder(new ByteArrayInputStream(gzip), MEMBER_BYTES)) {
+            assertArrayEquals(content, recorder.readAllBytes());
+            var checkpoints = recorder.finish();
+            assertEquals(content.length, checkpoints.getUncompressedSize());
+            assertEquals(3, checkpoints.size());
+        }
+
+        // The CRC of the last member
+        gzip[gzip.length - 8] ^= 1;
+        try (var recorder = new GzipCheckpoints.Recorder(new ByteArrayInputStream(gzip), MEMBER_BYTES)) {
+            assertThrows(ZipException.class, recorder::readAllBytes);
+        }
+    }
+
+    @Test
+    @DisplayName("openChannel reads the uncompressed content of a gzip file at any position, forwards and backwards")
+    void openChannel_readsGzipAtAnyPosition() throws Exception {
+        var content = content(4 * MEMBER_BYTES);
+        var file = Files.write(tempDir.resolve("a.edf.gz"), gzipMembers(content));
+
+        try (var channel = CompressedEdfFiles.openChannel(file)) {
+            assertEquals(content.length, channel.size());
+            assertRange(content, channel, 150_000, 20_000, true);
+            assertRange(content, channel, 10, 70_000, false);
+            assertRange(content, channel, 199_000, 1_000, true);
+            assertEquals(-1, channel.read(ByteBuffer.allocate(1), content.length));
+        }
+    }
+
+    @Test
+    @DisplayName("openStream and openChannel read the first .edf entry of a zip archive")
+    void zipArchive_readsFirstEdfEntry() throws Exception {
+        var content = content(3 * MEMBER_BYTES);
+        var bytes = new ByteArrayOutputStream();
+        try (var zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("notes.txt"));
+            zip.write(new byte[]{1, 2, 3});
+            zip.putNextEntry(new ZipEntry("recordings/a.edf"));
+            zip.write(content);
+        }
+        var file = Files.write(tempDir.resolve("a.zip"), bytes.toByteArray());
+
+        try (var in = CompressedEdfFiles.openStream(file)) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        try (var channel = CompressedEdfFiles.openChannel(file)) {
+            assertEquals(content.length, channel.size());
+            assertRange(content, channel, 100_000, 5_000, true);
+            assertRange(content, channel, 1_000, 5_000, false);
+        }
+
+        var empty = new ByteArrayOutputStream();
+        try (var zip = new ZipOutputStream(empty)) {
+            zip.putNextEntry(new ZipEntry("notes.txt"));
+        }
+        var noEdf = Files.write(tempDir.resolve("b.zip"), empty.toByteArray());
+        assertThrows(ZipException.class, () -> CompressedEdfFiles.openStream(noEdf));
+        assertThrows(ZipException.class, () -> CompressedEdfFiles.openChannel(noEdf));
+    }
+
+    private static void assertRange(byte[] content, FileChannel channel, int position, int length, boolean direct) throws Exception {
+        var buffer = direct ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            channel.read(buffer, position + buffer.position());
+        }
+        var actual = new byte[length];
+        buffer.flip().get(actual);
+        assertArrayEquals(Arrays.copyOfRange(content, position, position + length), actual);
+    }
+
+    private static byte[] content(int length) {
+        var random = new Random(7);
+        var content = new byte[length];
+        for (var i = 0; i < length; i++) {
+            // Compressible, but not trivially
+            content[i] = (byte) (i % 251 < 200 ? i % 17 : random.nextInt());
+        }
+        return content;
+    }
+
+    /**
+     * Compresses {@code content} as concatenated gzip members of {@value #MEMBER_BYTES} bytes each, as block-gzip tools do.
+     */
+    private static byte[] gzipMembers(byte[] content) throws Exception {
+        var out = new ByteArrayOutputStream();
+        for (var offset = 0; offset < content.length; offset += MEMBER_BYTES) {
+            var member = new ByteArrayOutputStream();
+            try (var gzip = new GZIPOutputStream(member)) {
+                gzip.write(content, offset, Math.min(MEMBER_BYTES, content.length - offset));
+            }
+            member.writeTo(out);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,97 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.services.edf.DirectoryWatcherService.DirectoryChanges;
+
+@DisplayName("DirectoryWatcherServiceImpl tests")
+class DirectoryWatcherServiceImplTest {
+
+    @TempDir
+    Path directory;
+
+    private final EdfProperties properties = new EdfProperties();
+    private final DirectoryWatcherServiceImpl watcher = new DirectoryWatcherServiceImpl(properties);
+    private final LinkedBlockingQueue<DirectoryChanges> batches = new LinkedBlockingQueue<>();
+
+    @AfterEach
+    void tearDown() {
+        watcher.stop();
+    }
+
+    @Test
+    @DisplayName("created, modified and deleted files are coalesced into batches of changed and deleted paths")
+    void start_deliversCoalescedChanges() throws Exception {
+        var existing = Files.write(directory.resolve("existing.edf"), new byte[]{1});
+        properties.getWatch().setDebounce(Duration.ofMillis(200));
+        watcher.start(directory, batches::add);
+
+        var created = Files.write(directory.resolve("new.edf"), new byte[]{1});
+        Files.write(created, new byte[]{1, 2});
+        Files.delete(existing);
+
+        var changed = new HashSet<Path>();
+        var deleted = new HashSet<Path>();
+        collect(changed, deleted, Set.of(created), Set.of(existing));
+
+        assertEquals(Set.of(created), changed);
+        assertEquals(Set.of(existing), deleted);
+    }
+
+    @Test
+    @DisplayName("files in newly created subdirectories are reported")
+    void start_watchesNewSubdirectories() throws Exception {
+        properties.getWatch().setDebounce(Duration.ofMillis(200));
+        watcher.start(directory, batches::add);
+
+        var subdirectory = Files.createDirectory(directory.resolve("night"));
+        var created = Files.write(subdirectory.resolve("a.edf"), new byte[]{1});
+
+        var changed = new HashSet<Path>();
+        collect(changed, new HashSet<>(), Set.of(created), Set.of());
+
+        assertTrue(changed.contains(created));
+    }
+
+    @Test
+    @DisplayName("nothing is watched when watching is disabled")
+    void start_disabled() throws Exception {
+        properties.getWatch().setEnabled(false);
+        watcher.start(directory, batches::add);
+
+        Files.write(directory.resolve("a.edf"), new byte[]{1});
+
+        assertNull(batches.poll(1, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Collects delivered batches until the expected paths have been seen; polling platforms may split
+     * the events over several batches.
+     */
+    private void collect(Set<Path> changed, Set<Path> deleted, Set<Path> expectedChanged, Set<Path> expectedDeleted) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (!(changed.containsAll(expectedChanged) && deleted.containsAll(expectedDeleted)) && System.nanoTime() < deadline) {
+            var batch = batches.poll(1, TimeUnit.SECONDS);
+            if (batch != null) {
+                changed.addAll(batch.changed());
+                deleted.addAll(batch.deleted());
+                changed.removeAll(batch.deleted());
+            }
+        }
+    }
+}
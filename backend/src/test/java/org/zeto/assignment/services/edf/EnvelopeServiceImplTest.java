@@ -0,0 +1,181 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.DataRecordLayout;
+import org.zeto.assignment.models.edf.FileInfo;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("EnvelopeServiceImpl tests")
+class EnvelopeServiceImplTest {
+
+    private static final int DATA_OFFSET = SyntheticEdfFiles.dataOffset(2);
+    private static final int NUM_DATA_RECORDS = 25;
+    private static final int SAMPLES_PER_RECORD = 100;
+
+    // Fp1: 100 samples per record with value (i % 200) - 100; the annotation channel is not enveloped
+    private static final DataRecordLayout LAYOUT = new DataRecordLayout(DATA_OFFSET, NUM_DATA_RECORDS, 1.0,
+                                                                        new String[]{"Fp1", "EDF Annotations"},
+                                                                        new String[]{"uV", ""},
+                                                                        new int[]{SAMPLES_PER_RECORD, 2},
+                                                                        new double[]{-32768, -1},
+                                                                        new double[]{32767, 1},
+                                                                        new int[]{-32768, -32768},
+                                                                        new int[]{32767, 32767});
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    FileProcessingService fileProcessingService;
+
+    private final EdfProperties properties = new EdfProperties();
+
+    private RecordIndexServiceImpl recordIndexService;
+    private EnvelopeServiceImpl envelopeService;
+    private FileInfo fileInfo;
+    private Path edfFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties.getEnvelope().setDirectory(tempDir.resolve("envelopes").toString());
+        properties.getRecordIndex().setDirectory(tempDir.resolve("records").toString());
+        recordIndexService = new RecordIndexServiceImpl(fileProcessingService, properties);
+        envelopeService = new EnvelopeServiceImpl(fileProcessingService, recordIndexService, properties);
+        edfFile = SyntheticEdfFiles.write(tempDir.resolve("a.edf"), LAYOUT, (signal, n) -> (short) (n % 200 - 100));
+        fileInfo = SyntheticEdfFiles.mockProcessedFile(fileProcessingService, "a.edf", edfFile, LAYOUT);
+    }
+
+    @Test
+    @DisplayName("getEnvelope uses the coarsest level that still fills the requested width")
+    void getEnvelope_choosesCoarsestSufficientLevel() throws Exception {
+        envelopeService.build(edfFile, fileInfo);
+
+        var overview = envelopeService.getEnvelope("a.edf", "Fp1", 0, Double.POSITIVE_INFINITY, 2).orElseThrow();
+        assertEquals(1000, overview.getDecimation());
+        assertArrayEquals(new float[]{-100, -100}, overview.getMinimums());
+        assertArrayEquals(new float[]{99, 99}, overview.getMaximums());
+        assertEquals(12.5, overview.getBucketDuration());
+
+        assertEquals(100, envelopeService.getEnvelope("a.edf", "Fp1", 0, Double.POSITIVE_INFINITY, 20).orElseThrow().getDecimation());
+        assertEquals(1, envelopeService.getEnvelope("a.edf", "Fp1", 0, Double.POSITIVE_INFINITY, 5000).orElseThrow().getDecimation());
+    }
+
+    @Test
+    @DisplayName("getEnvelope reads exactly the bins of the requested window from the finest level")
+    void getEnvelope_readsWindowBins() throws Exception {
+        envelopeService.build(edfFile, fileInfo);
+
+        var envelope = envelopeService.getEnvelope("a.edf", "Fp1", 1.0, 2.0, 10).orElseThrow();
+
+        assertEquals(10, envelope.getDecimation());
+        assertEquals(1.0, envelope.getStart());
+        assertEquals(10, envelope.getMinimums().length);
+        for (var bin = 0; bin < 10; bin++) {
+            assertEquals(bin * 10, envelope.getMinimums()[bin]);
+            assertEquals(bin * 10 + 9, envelope.getMaximums()[bin]);
+        }
+    }
+
+    @Test
+    @DisplayName("getEnvelope folds raw samples only for windows too short for any level")
+    void getEnvelope_foldsRawSamplesOfShortWindows() throws Exception {
+        var raw = envelopeService.getEnvelope("a.edf", "Fp1", 1.0, 1.5, 10).orElseThrow();
+        assertEquals(1, raw.getDecimation());
+        assertEquals(10, raw.getMinimums().length);
+
+        envelopeService.build(edfFile, fileInfo);
+        var pyramid = envelopeService.getEnvelope("a.edf", "Fp1", 1.0, 2.0, 5).orElseThrow();
+        assertEquals(10, pyramid.getDecimation());
+        assertEquals(raw.getMinimums()[0], pyramid.getMinimums()[0]);
+        assertEquals(99, pyramid.getMaximums()[4]);
+    }
+
+    @Test
+    @DisplayName("getEnvelope is not ready while the level it needs is missing or stale, and empty when pyramids are disabled")
+    void getEnvelope_notReadyWithoutLevel() throws Exception {
+        assertThrows(EnvelopeNotReadyException.class, () -> envelopeService.getEnvelope("a.edf", "Fp1", 1.0, 2.0, 10));
+
+        envelopeService.build(edfFile, fileInfo);
+        assertEquals(10, envelopeService.getEnvelope("a.edf", "Fp1", 1.0, 2.0, 10).orElseThrow().getDecimation());
+
+        Files.setLastModifiedTime(edfFile, FileTime.fromMillis(Files.getLastModifiedTime(edfFile).toMillis() + 5_000));
+        assertThrows(EnvelopeNotReadyException.class, () -> envelopeService.getEnvelope("a.edf", "Fp1", 1.0, 2.0, 10));
+
+        properties.getEnvelope().setEnabled(false);
+        assertFalse(envelopeService.getEnvelope("a.edf", "Fp1", 1.0, 2.0, 10).isPresent());
+        assertEquals(1, envelopeService.getEnvelope("a.edf", "Fp1", 1.0, 1.5, 10).orElseThrow().getDecimation());
+        envelopeService.stop();
+    }
+
+    @Test
+    @DisplayName("getEnvelope locates the window of a discontinuous recording with the record index")
+    void getEnvelope_discontinuousRecording() throws Exception {
+        // Records at 0, 1, 10 and 11 s; the annotation channel is wide enough for their time-keeping TALs
+        var layout = new DataRecordLayout(DATA_OFFSET, 4, 1.0,
+                                          new String[]{"Fp1", "EDF Annotations"},
+                                          new String[]{"uV", ""},
+                                          new int[]{SAMPLES_PER_RECORD, 8},
+                                          new double[]{-32768, -1},
+                                          new double[]{32767, 1},
+                                          new int[]{-32768, -32768},
+                                          new int[]{32767, 32767});
+        var onsets = new int[]{0, 1, 10, 11};
+        var file = SyntheticEdfFiles.write(tempDir.resolve("b.edf"), layout, 4, (signal, n) -> (short) (n % 200 - 100),
+                                           record -> ("+" + onsets[record] + "\u0014\u0014").getBytes(StandardCharsets.US_ASCII));
+        var discontinuous = SyntheticEdfFiles.mockProcessedFile(fileProcessingService, "b.edf", file, layout);
+        recordIndexService.build(file, discontinuous);
+        envelopeService.build(file, discontinuous);
+
+        var envelope = envelopeService.getEnvelope("b.edf", "Fp1", 10.0, 12.0, 20).orElseThrow();
+        assertEquals(10, envelope.getDecimation());
+        assertEquals(10.0, envelope.getStart());
+        assertEquals(20, envelope.getMinimums().length);
+        assertEquals(-100, envelope.getMinimums()[0]);
+        assertEquals(99, envelope.getMaximums()[19]);
+
+        // 5 s falls into the gap, so the window starts with the record after it
+        assertEquals(10.0, envelopeService.getEnvelope("b.edf", "Fp1", 5.0, 10.5, 10).orElseThrow().getStart());
+    }
+
+    @Test
+    @DisplayName("getEnvelope returns empty for unknown channels and the annotation channel")
+    void getEnvelope_unknownChannel() throws Exception {
+        envelopeService.build(edfFile, fileInfo);
+
+        assertTrue(Files.isRegularFile(tempDir.resolve("envelopes").resolve("a.edf.envelope")));
+        assertFalse(envelopeService.getEnvelope("a.edf", "O1", 0, 1, 10).isPresent());
+        assertFalse(envelopeService.getEnvelope("a.edf", "EDF Annotations", 0, 1, 10).isPresent());
+    }
+
+    @Test
+    @DisplayName("chooseDecimationFactor picks the largest factor leaving at least width bins")
+    void chooseDecimationFactor() {
+        assertEquals(1000, EnvelopeServiceImpl.chooseDecimationFactor(7_372_800, 1920));
+        assertEquals(100, EnvelopeServiceImpl.chooseDecimationFactor(1_000_000, 1920));
+        assertEquals(10, EnvelopeServiceImpl.chooseDecimationFactor(19_200, 1920));
+        assertEquals(1, EnvelopeServiceImpl.chooseDecimationFactor(19_199, 1920));
+    }
+
+}
@@ -0,0 +1,144 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.zeto.assignment.models.edf.Channel;
+import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.models.edf.FileQuery;
+import org.zeto.assignment.models.edf.FileSortKey;
+
+@DisplayName("FileIndex tests")
+class FileIndexTest {
+
+    private static final LocalDateTime START = LocalDateTime.parse("2025-01-01T00:00:00");
+    private static final Comparator<FileInfo> RECORDING_DATE_ORDER = Comparator.comparing(FileInfo::getRecordingDate, Comparator.nullsLast(Comparator.naturalOrder()))
+                                                                               .thenComparing(FileInfo::getFileName);
+
+    @Test
+    @DisplayName("query without filters pages through all files in the requested order")
+    void query_pagesAllFiles() {
+        var index = new FileIndex(1, sorted(List.of(file("c.edf", 2, "Carl", true, "Fp1"),
+                                                    file("a.edf", 1, "anna", true, "Fp1", "Fp2"),
+                                                    file("b.edf", null, "Bob", false))));
+
+        var page = index.query(FileQuery.builder().page(0).size(2).build(), UnaryOperator.identity());
+        assertEquals(List.of("a.edf", "c.edf"), names(page.getFiles()));
+        assertEquals(3, page.getTotalElements());
+        assertEquals(List.of("b.edf"), names(index.query(FileQuery.builder().page(1).size(2).build(), UnaryOperator.identity()).getFiles()));
+        assertEquals(List.of(), names(index.query(FileQuery.builder().page(5).size(2).build(), UnaryOperator.identity()).getFiles()));
+
+        assertEquals(List.of("c.edf", "b.edf", "a.edf"),
+                     names(index.query(FileQuery.builder().sortKey(FileSortKey.FILE_NAME).descending(true).size(10).build(), UnaryOperator.identity()).getFiles()));
+    }
+
+    @Test
+    @DisplayName("query combines date range, patient prefix, channel and validity filters")
+    void query_combinesFilters() {
+        var index = new FileIndex(1, sorted(List.of(file("a.edf", 1, "Anna Smith", true, "Fp1", "Fp2"),
+                                                    file("b.edf", 2, "anne", true, "Fp1"),
+                                                    file("c.edf", 3, "Annabel", false, "Fp2"),
+                                                    file("d.edf", 4, "Bob", true, "Fp1"),
+                                                    file("e.edf", null, "Ann", true, "Fp1"))));
+
+        var query = FileQuery.builder().from(START.plusDays(1)).to(START.plusDays(4)).patientPrefix("ANN").channel("Fp1").size(10).build();
+        assertEquals(List.of("a.edf", "b.edf"), names(index.query(query, UnaryOperator.identity()).getFiles()));
+
+        assertEquals(List.of("e.edf", "b.edf", "a.edf"),
+                     names(index.query(FileQuery.builder().patientPrefix("ann").channel("Fp1").sortKey(FileSortKey.FILE_NAME).descending(true).size(10).build(), UnaryOperator.identity()).getFiles()));
+        assertEquals(List.of("c.edf"), names(index.query(FileQuery.builder().valid(false).size(10).build(), UnaryOperator.identity()).getFiles()));
+        assertEquals(0, index.query(FileQuery.builder().channel("O1").size(10).build(), UnaryOperator.identity()).getTotalElements());
+        assertEquals(4, index.query(FileQuery.builder().from(START).size(10).build(), UnaryOperator.identity()).getTotalElements(), "Undated files never match a date range");
+    }
+
+    @Test
+    @DisplayName("query agrees with filtering and sorting the whole list")
+    void query_agreesWithFullScan() {
+        var random = new Random(42);
+        var patients = List.of("Anna", "Annabel", "anne", "Bob", "Bobby", "Carl", "");
+        var labels = List.of("Fp1", "Fp2", "O1", "O2");
+        var files = new ArrayList<FileInfo>();
+        for (var i = 0; i < 300; i++) {
+            var channels = labels.stream().filter(l -> random.nextBoolean()).toArray(String[]::new);
+            files.add(file("f" + random.nextInt(1000) + "-" + i + ".edf", random.nextInt(10) == 0 ? null : random.nextInt(100),
+                           patients.get(random.nextInt(patients.size())), random.nextInt(5) > 0, channels));
+        }
+        var index = new FileIndex(1, sorted(files));
+
+        for (var i = 0; i < 500; i++) {
+            var from = random.nextBoolean() ? START.plusDays(random.nextInt(100)) : null;
+            var query = FileQuery.builder()
+                                 .from(from)
+                                 .to(random.nextBoolean() ? (from == null ? START : from).plusDays(random.nextInt(50)) : null)
+                                 .patientPrefix(random.nextBoolean() ? prefix(patients.get(random.nextInt(patients.size())), random.nextInt(4)) : null)
+                                 .channel(random.nextBoolean() ? labels.get(random.nextInt(labels.size())) : null)
+                                 .valid(random.nextBoolean() ? random.nextBoolean() : null)
+                                 .sortKey(FileSortKey.values()[random.nextInt(3)])
+                                 .descending(random.nextBoolean())
+                                 .page(random.nextInt(3))
+                                 .size(1 + random.nextInt(40))
+                                 .build();
+
+            var expected = new ArrayList<>(sorted(files).stream().filter(f -> matches(f, query)).sorted(comparator(query)).toList());
+            if (query.isDescending()) {
+                Collections.reverse(expected);
+            }
+            var page = index.query(query, UnaryOperator.identity());
+            var from0 = Math.min(expected.size(), query.getPage() * query.getSize());
+            assertEquals(expected.size(), page.getTotalElements());
+            assertEquals(names(expected.subList(from0, Math.min(expected.size(), from0 + query.getSize()))), names(page.getFiles()));
+        }
+    }
+
+    private static String prefix(String name, int length) {
+        return name.substring(0, Math.min(length, name.length()));
+    }
+
+    private static boolean matches(FileInfo file, FileQuery query) {
+        var date = file.getRecordingDate();
+        return (!query.hasDateRange() || date != null && (query.getFrom() == null || !date.isBefore(query.getFrom()))
+                && (query.getTo() == null || date.isBefore(query.getTo())))
+                && (query.getPatientPrefix() == null || file.getPatientName().toLowerCase(Locale.ROOT).startsWith(query.getPatientPrefix().toLowerCase(Locale.ROOT)))
+                && (query.getChannel() == null || file.getChannels().stream().anyMatch(c -> c.name().equals(query.getChannel())))
+                && (query.getValid() == null || file.isValid() == query.getValid());
+    }
+
+    /**
+     * Ascending order of files already in recording-date order: a stable sort breaks ties by recording date.
+     */
+    private static Comparator<FileInfo> comparator(FileQuery query) {
+        return switch (query.getSortKey()) {
+            case RECORDING_DATE -> (a, b) -> 0;
+            case FILE_NAME -> Comparator.comparing(FileInfo::getFileName);
+            case PATIENT_NAME -> Comparator.comparing(f -> f.getPatientName().toLowerCase(Locale.ROOT));
+        };
+    }
+
+    private static List<FileInfo> sorted(List<FileInfo> files) {
+        return files.stream().sorted(RECORDING_DATE_ORDER).toList();
+    }
+
+    private static List<String> names(List<FileInfo> files) {
+        return files.stream().map(FileInfo::getFileName).toList();
+    }
+
+    private static FileInfo file(String name, Integer day, String patient, boolean valid, String... channels) {
+        return FileInfo.builder()
+                       .fileName(name)
+                       .recordingDate(day == null ? null : START.plusDays(day))
+                       .patientName(patient)
+                       .valid(valid)
+                       .channels(List.of(channels).stream().map(label -> new Channel(label, "")).toList())
+                       .build();
+    }
+}
@@ -0,0 +1,115 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.models.edf.IngestionState;
+import org.zeto.assignment.services.edf.FileListingService.StreamFormat;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("FileListingServiceImpl tests")
+class FileListingServiceImplTest {
+
+    @Mock
+    FileProcessingService fileProcessingService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("getListing serializes the processed files once per version")
+    void getListing_cachesUntilVersionChanges() throws Exception {
+        var service = new FileListingServiceImpl(fileProcessingService, objectMapper);
+        when(fileProcessingService.getProcessedFilesVersion()).thenReturn(1L, 1L, 2L);
+        when(fileProcessingService.getProcessedFiles()).thenReturn(List.of(FileInfo.builder().fileName("a.edf").build()))
+                                                        .thenReturn(List.of(FileInfo.builder().fileName("b.edf").build()));
+
+        var first = service.getListing();
+        assertSame(first, service.getListing());
+
+        var second = service.getListing();
+        verify(fileProcessingService, times(2)).getProcessedFiles();
+        assertNotEquals(first.getEtag(), second.getEtag());
+        assertEquals("b.edf", objectMapper.readTree(second.getJson()).get(0).get("fileName").asText());
+    }
+
+    @Test
+    @DisplayName("getListing provides the gzip encoding of the JSON with its own strong ETag")
+    void getListing_gzip() throws Exception {
+        var service = new FileListingServiceImpl(fileProcessingService, objectMapper);
+        when(fileProcessingService.getProcessedFiles()).thenReturn(List.of(FileInfo.builder().fileName("a.edf").build()));
+
+        var listing = service.getListing();
+
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(listing.getGzip()))) {
+            assertArrayEquals(listing.getJson(), in.readAllBytes());
+        }
+        assertEquals(34, listing.getEtag().length());
+        assertEquals(listing.getEtag().replaceAll("\"$", "-gzip\""), listing.getGzipEtag());
+    }
+
+    @Test
+    @DisplayName("streamListing writes the processed files chunk by chunk as newline-delimited JSON")
+    void streamListing_ndjsonInChunks() throws Exception {
+        var service = new FileListingServiceImpl(fileProcessingService, objectMapper);
+        var chunk = IntStream.range(0, FileListingServiceImpl.STREAM_CHUNK_SIZE)
+                             .mapToObj(i -> FileInfo.builder().fileName(i + ".edf").build())
+                             .toList();
+        var last = FileInfo.builder().fileName("last.edf").build();
+        when(fileProcessingService.getProcessedFilesChangedSince(eq(Long.MIN_VALUE), isNull(), anyInt())).thenReturn(chunk);
+        when(fileProcessingService.getProcessedFilesChangedSince(eq(Long.MIN_VALUE), eq(chunk.getLast()), anyInt())).thenReturn(List.of(last));
+
+        var out = new ByteArrayOutputStream();
+        service.streamListing(out, StreamFormat.NDJSON);
+
+        var lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(FileListingServiceImpl.STREAM_CHUNK_SIZE + 1, lines.length);
+        assertEquals("0.edf", objectMapper.readTree(lines[0]).get("fileName").asText());
+        assertEquals("last.edf", objectMapper.readTree(lines[lines.length - 1]).get("fileName").asText());
+    }
+
+    @Test
+    @DisplayName("streamListing follows ingestion, sending changed files again until ingestion is over")
+    void streamListing_followsIngestion() throws Exception {
+        var service = new FileListingServiceImpl(fileProcessingService, objectMapper);
+        var pending = FileInfo.builder().fileName("a.edf").ingestionState(IngestionState.PENDING).build();
+        var complete = FileInfo.builder().fileName("a.edf").ingestionState(IngestionState.COMPLETE).build();
+        when(fileProcessingService.isIngesting()).thenReturn(true, true, false);
+        when(fileProcessingService.getProcessedFilesVersion()).thenReturn(1L, 1L, 2L, 2L);
+        when(fileProcessingService.getProcessedFilesChangedSince(eq(Long.MIN_VALUE), any(), anyInt())).thenReturn(List.of(pending));
+        when(fileProcessingService.getProcessedFilesChangedSince(eq(1L), any(), anyInt())).thenReturn(List.of(complete));
+
+        var out = new ByteArrayOutputStream();
+        service.streamListing(out, StreamFormat.SSE);
+
+        var events = out.toString(StandardCharsets.UTF_8).split("\n\n");
+        assertEquals(3, events.length);
+        assertEquals("PENDING", objectMapper.readTree(events[0].substring("data: ".length())).get("ingestionState").asText());
+        assertEquals("COMPLETE", objectMapper.readTree(events[1].substring("data: ".length())).get("ingestionState").asText());
+        assertEquals("event: end\ndata:", events[2]);
+        verify(fileProcessingService, times(2)).getProcessedFilesChangedSince(anyLong(), any(), anyInt());
+    }
+}
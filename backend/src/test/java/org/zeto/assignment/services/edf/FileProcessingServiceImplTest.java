@@ -1,23 +1,49 @@
 package org.zeto.assignment.services.edf;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.AnnotationIndex;
 import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.models.edf.FileQuery;
+import org.zeto.assignment.models.edf.IngestionState;
+import org.zeto.assignment.services.edf.DirectoryWatcherService.DirectoryChanges;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("FileProcessingServiceImpl Tests")
@@ -26,6 +52,21 @@ class FileProcessingServiceImplTest {
     @Mock
     ParserService parser;
 
+    @Mock
+    MetadataCacheService metadataCache;
+
+    @Mock
+    DirectoryWatcherService directoryWatcher;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    EdfProperties properties = new EdfProperties();
+
+    @Spy
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     FileProcessingServiceImpl fileProcessingService;
 
@@ -33,7 +74,7 @@ class FileProcessingServiceImplTest {
     @DisplayName("scanAndProcessFilesOnStartup parses all .edf files from classpath edf directory")
     void scanAndProcessFilesOnStartup_parsesAll() throws Exception {
 
-        when(parser.parse(any(File.class))).thenAnswer(invocation -> {
+        when(parser.parseHeaders(any(File.class))).thenAnswer(invocation -> {
             var f = (File) invocation.getArgument(0);
             return FileInfo.builder().fileName(f.getName()).valid(true).build();
         });
@@ -57,6 +98,217 @@ class FileProcessingServiceImplTest {
 
         assertEquals(expectedNames, actualNames);
 
-        verify(parser, times(6)).parse(any(File.class));
+        verify(parser, times(6)).parseHeaders(any(File.class));
+    }
+
+    @Test
+    @DisplayName("scanAndProcessFilesOnStartup never runs more parses at once than the configured concurrency")
+    void scanAndProcessFilesOnStartup_respectsMaxConcurrency() throws Exception {
+        properties.getIngestion().setMaxConcurrency(2);
+        var inFlight = new AtomicInteger();
+        var maxInFlight = new AtomicInteger();
+
+        when(parser.parseHeaders(any(File.class))).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            inFlight.decrementAndGet();
+            var f = (File) invocation.getArgument(0);
+            return FileInfo.builder().fileName(f.getName()).valid(true).build();
+        });
+
+        fileProcessingService.scanAndProcessFilesOnStartup();
+
+        assertTrue(maxInFlight.get() <= 2, "At most 2 files should be parsed concurrently");
+        assertEquals(0, inFlight.get());
+        verify(parser, times(fileProcessingService.getProcessedFiles().size())).parseHeaders(any(File.class));
+    }
+
+    @Test
+    @DisplayName("getAnnotations looks up the processed file by name and queries its annotation index")
+    void getAnnotations_queriesIndexByFileName() throws Exception {
+        var text = ByteBuffer.wrap("Spike".getBytes(StandardCharsets.UTF_8));
+        var annotationIndex = AnnotationIndex.builder()
+                                             .add(1.0, Double.NaN, text, 0, text.capacity())
+                                             .add(2.0, Double.NaN, text, 0, text.capacity())
+                                             .build();
+
+        when(parser.parseHeaders(any(File.class))).thenAnswer(invocation -> {
+            var f = (File) invocation.getArgument(0);
+            return FileInfo.builder().fileName(f.getName()).valid(true).annotationIndex(annotationIndex).build();
+        });
+
+        fileProcessingService.scanAndProcessFilesOnStartup();
+
+        var page = fileProcessingService.getAnnotations("invalid.edf", 1.5, 10, 0, 10);
+        assertTrue(page.isPresent());
+        assertEquals(1, page.get().getTotalElements());
+        assertEquals(2.0, page.get().getAnnotations().getFirst().onset());
+
+        assertFalse(fileProcessingService.getAnnotations("missing.edf", 0, 10, 0, 10).isPresent());
+    }
+
+    @Test
+    @DisplayName("scanAndProcessFilesOnStartup reuses cached metadata and only parses new or changed files")
+    void scanAndProcessFilesOnStartup_reusesCachedMetadata() throws Exception {
+        when(metadataCache.lookup(any(Path.class), any(BasicFileAttributes.class))).thenAnswer(invocation -> {
+            var path = (Path) invocation.getArgument(0);
+            return path.getFileName().toString().startsWith("invalid")
+                    ? Optional.empty()
+                    : Optional.of(FileInfo.builder().fileName(path.getFileName().toString()).valid(true).build());
+        });
+        when(parser.parseHeaders(any(File.class))).thenAnswer(invocation -> {
+            var f = (File) invocation.getArgument(0);
+            return FileInfo.builder().fileName(f.getName()).valid(false).build();
+        });
+
+        fileProcessingService.scanAndProcessFilesOnStartup();
+
+        verify(metadataCache).load(any(Path.class));
+        verify(parser, times(2)).parseHeaders(any(File.class));
+        verify(metadataCache, times(2)).store(any(Path.class), any(BasicFileAttributes.class), any(FileInfo.class));
+        verify(metadataCache, never()).store(any(Path.class), any(BasicFileAttributes.class), argThat(FileInfo::isValid));
+        verify(metadataCache).persist();
+        assertEquals(fileProcessingService.getProcessedFiles().size() - 2,
+                     fileProcessingService.getProcessedFiles().stream().filter(FileInfo::isValid).count());
+    }
+
+    @Test
+    @DisplayName("directory changes replace changed files and remove deleted files without a full rescan")
+    @SuppressWarnings("unchecked")
+    void applyChanges_updatesStoreIncrementally() throws Exception {
+        when(parser.parseHeaders(any(File.class))).thenAnswer(invocation -> {
+            var f = (File) invocation.getArgument(0);
+            return FileInfo.builder().fileName(f.getName()).valid(false).build();
+        });
+
+        fileProcessingService.scanAndProcessFilesOnStartup();
+
+        var listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(directoryWatcher).start(any(Path.class), listener.capture());
+
+        var initialSize = fileProcessingService.getProcessedFiles().size();
+        var directory = Path.of(getClass().getClassLoader().getResource("edf").toURI());
+
+        when(parser.parseHeaders(any(File.class))).thenAnswer(invocation -> {
+            var f = (File) invocation.getArgument(0);
+            return FileInfo.builder().fileName(f.getName()).valid(true).build();
+        });
+
+        listener.getValue().accept(new DirectoryChanges(Set.of(directory.resolve("invalid.edf"), directory.resolve("notes.txt")),
+                                                        Set.of(directory.resolve("invalid2.edf")),
+                                                        false));
+
+        assertEquals(initialSize - 1, fileProcessingService.getProcessedFiles().size());
+        assertTrue(fileProcessingService.getProcessedFile("invalid.edf").orElseThrow().isValid());
+        assertFalse(fileProcessingService.getProcessedFile("invalid2.edf").isPresent());
+        verify(metadataCache).evict(directory.resolve("invalid2.edf"));
+        verify(parser, times(initialSize + 1)).parseHeaders(any(File.class));
+        verify(eventPublisher, times(initialSize + 1)).publishEvent(any(FileIngestedEvent.class));
+        verify(eventPublisher).publishEvent(new FileRemovedEvent(directory.resolve("invalid2.edf"), "invalid2.edf"));
+    }
+
+    @Test
+    @DisplayName("gzip-compressed files and zip archives are parsed in one decompressing pass, other files are ignored")
+    @SuppressWarnings("unchecked")
+    void applyChanges_parsesCompressedFiles() throws Exception {
+        when(parser.parseHeaders(any(File.class))).thenAnswer(invocation -> {
+            var f = (File) invocation.getArgument(0);
+            return FileInfo.builder().fileName(f.getName()).valid(true).build();
+        });
+        when(parser.parseCompressed(any(File.class))).thenAnswer(invocation -> {
+            var f = (File) invocation.getArgument(0);
+            return FileInfo.builder().fileName(f.getName()).valid(true).build();
+        });
+
+        fileProcessingService.scanAndProcessFilesOnStartup();
+
+        var listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(directoryWatcher).start(any(Path.class), listener.capture());
+
+        var directory = Path.of(getClass().getClassLoader().getResource("edf").toURI());
+        listener.getValue().accept(new DirectoryChanges(Set.of(directory.resolve("night.EDF.gz"), directory.resolve("archive.zip"),
+                                                               directory.resolve("notes.gz")),
+                                                        Set.of(),
+                                                        false));
+
+        assertTrue(fileProcessingService.getProcessedFile("night.EDF.gz").isPresent());
+        assertTrue(fileProcessingService.getProcessedFile("archive.zip").isPresent());
+        assertFalse(fileProcessingService.getProcessedFile("notes.gz").isPresent());
+        verify(parser, times(2)).parseCompressed(any(File.class));
+    }
+
+    @Test
+    @DisplayName("files pending their annotations are listed first and completed by a background scan")
+    void scanAndProcessFilesOnStartup_scansAnnotationsInBackground() throws Exception {
+        var text = ByteBuffer.wrap("Spike".getBytes(StandardCharsets.UTF_8));
+        var annotationIndex = AnnotationIndex.builder().add(1.0, Double.NaN, text, 0, text.capacity()).build();
+
+        when(parser.parseHeaders(any(File.class))).thenAnswer(invocation -> {
+            var f = (File) invocation.getArgument(0);
+            return FileInfo.builder().fileName(f.getName()).valid(true).ingestionState(IngestionState.PENDING).build();
+        });
+        when(parser.parseAnnotations(any(File.class), any())).thenAnswer(invocation -> {
+            var f = (File) invocation.getArgument(0);
+            if (f.getName().equals("invalid.edf")) {
+                throw new IOException("Truncated data record");
+            }
+            return annotationIndex;
+        });
+
+        fileProcessingService.scanAndProcessFilesOnStartup();
+        var query = FileQuery.builder().size(100).build();
+        fileProcessingService.queryProcessedFiles(query);
+
+        var files = awaitIngestion();
+        assertEquals(files.size(), meterRegistry.get("edf.files.processed").gauge().value());
+        assertEquals(files.size() - 1, fileProcessingService.queryProcessedFiles(query).getFiles().stream()
+                                                           .filter(fileInfo -> fileInfo.getNumberOfAnnotations() == 1).count(),
+                     "Queries see completed annotation scans");
+        assertEquals(IngestionState.FAILED, fileProcessingService.getProcessedFile("invalid.edf").orElseThrow().getIngestionState());
+        assertTrue(fileProcessingService.getProcessedFile("invalid.edf").orElseThrow().isValid());
+        assertEquals(files.size() - 1, files.stream().filter(fileInfo -> fileInfo.getNumberOfAnnotations() == 1).count());
+
+        verify(metadataCache, times(files.size() - 1)).store(any(Path.class), any(BasicFileAttributes.class), argThat(fileInfo -> fileInfo.getIngestionState() == IngestionState.COMPLETE));
+        verify(metadataCache, never()).store(any(Path.class), any(BasicFileAttributes.class), argThat(fileInfo -> fileInfo.getIngestionState() != IngestionState.COMPLETE));
+        verify(metadataCache, timeout(1000).atLeast(2)).persist();
+    }
+
+    @Test
+    @DisplayName("ingest adds a file without parsing it, and the watcher notification of that file is ignored")
+    @SuppressWarnings("unchecked")
+    void ingest_skipsParsingOfIngestedFile() throws Exception {
+        when(parser.parseHeaders(any(File.class))).thenAnswer(invocation -> {
+            var f = (File) invocation.getArgument(0);
+            return FileInfo.builder().fileName(f.getName()).valid(true).build();
+        });
+
+        fileProcessingService.scanAndProcessFilesOnStartup();
+
+        var listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(directoryWatcher).start(any(Path.class), listener.capture());
+
+        var path = Path.of(getClass().getClassLoader().getResource("edf").toURI()).resolve("invalid.edf");
+        var uploaded = FileInfo.builder().fileName("invalid.edf").valid(true).numberOfAnnotations(7).build();
+        fileProcessingService.ingest(path, uploaded);
+
+        listener.getValue().accept(new DirectoryChanges(Set.of(path), Set.of(), false));
+
+        assertEquals(7, fileProcessingService.getProcessedFile("invalid.edf").orElseThrow().getNumberOfAnnotations());
+        verify(parser, times(fileProcessingService.getProcessedFiles().size())).parseHeaders(any(File.class));
+        verify(metadataCache).store(eq(path), any(BasicFileAttributes.class), eq(uploaded));
+    }
+
+    /**
+     * Waits until no processed file is pending its annotations any more.
+     */
+    private List<FileInfo> awaitIngestion() throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        var files = fileProcessingService.getProcessedFiles();
+        while (files.stream().anyMatch(fileInfo -> fileInfo.getIngestionState() == IngestionState.PENDING)) {
+            assertTrue(System.nanoTime() < deadline, "Annotation scans should finish within 5 seconds");
+            Thread.sleep(10);
+            files = fileProcessingService.getProcessedFiles();
+        }
+        return files;
     }
 }
@@ -0,0 +1,120 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.FileInfo;
+
+@DisplayName("FileUploadServiceImpl tests")
+class FileUploadServiceImplTest {
+
+    private static final String FILE_NAME = "ZE-970-003-287.edf";
+
+    @TempDir
+    Path directory;
+
+    private final ParserServiceImpl parser = new ParserServiceImpl(new GeneralHeaderServiceImpl(), new SignalHeaderServiceImpl(new EdfProperties()), new EdfProperties(), ParserMetrics.NONE);
+    private final FileProcessingService fileProcessingService = mock(FileProcessingService.class);
+    private final FileUploadServiceImpl uploadService = new FileUploadServiceImpl(parser, fileProcessingService);
+
+    @BeforeEach
+    void setUp() {
+        when(fileProcessingService.getDataDirectory()).thenReturn(directory);
+    }
+
+    @Test
+    @DisplayName("upload writes the file while parsing it and ingests the parsed metadata")
+    void upload_writesAndParsesInOnePass() throws Exception {
+        var content = readResource();
+
+        var fileInfo = uploadService.upload("upload.edf", new ByteArrayInputStream(content)).orElseThrow();
+
+        var target = directory.resolve("upload.edf");
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertTrue(fileInfo.isValid());
+        assertEquals("upload.edf", fileInfo.getFileName());
+
+        var parsedFromDisk = parser.parse(target.toFile());
+        assertEquals(parsedFromDisk.getNumberOfAnnotations(), fileInfo.getNumberOfAnnotations());
+        assertEquals(parsedFromDisk.getChannels(), fileInfo.getChannels());
+        assertEquals(parsedFromDisk.getRecordingDate(), fileInfo.getRecordingDate());
+
+        verify(fileProcessingService).ingest(target, fileInfo);
+        assertEquals(1, directoryEntries());
+    }
+
+    @Test
+    @DisplayName("upload discards content ending before the declared data records")
+    void upload_discardsTruncatedContent() throws Exception {
+        var content = readResource();
+
+        var fileInfo = uploadService.upload("upload.edf", new ByteArrayInputStream(Arrays.copyOf(content, content.length - 1))).orElseThrow();
+
+        assertFalse(fileInfo.isValid());
+        assertEquals(0, directoryEntries());
+        verify(fileProcessingService, never()).ingest(any(Path.class), any(FileInfo.class));
+    }
+
+    @Test
+    @DisplayName("upload refuses to replace an existing file")
+    void upload_refusesExistingFile() throws Exception {
+        when(fileProcessingService.getProcessedFile("upload.edf")).thenReturn(Optional.of(FileInfo.builder().fileName("upload.edf").build()));
+
+        assertTrue(uploadService.upload("upload.edf", new ByteArrayInputStream(readResource())).isEmpty());
+        assertEquals(0, directoryEntries());
+    }
+
+    @Test
+    @DisplayName("upload keeps a file of the same name that appeared during the upload")
+    void upload_keepsFileAppearedDuringUpload() throws Exception {
+        var target = directory.resolve("upload.edf");
+        var body = new SequenceInputStream(new ByteArrayInputStream(readResource()), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                // Another writer creates the file once the whole upload has been received
+                if (!Files.exists(target)) {
+                    Files.writeString(target, "other");
+                }
+                return -1;
+            }
+        });
+
+        assertTrue(uploadService.upload("upload.edf", body).isEmpty());
+        assertEquals("other", Files.readString(target));
+        assertEquals(1, directoryEntries());
+        verify(fileProcessingService, never()).ingest(any(Path.class), any(FileInfo.class));
+    }
+
+    private long directoryEntries() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private byte[] readResource() throws IOException {
+        try (var in = getClass().getClassLoader().getResourceAsStream("edf/" + FILE_NAME)) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -42,6 +43,41 @@ class GeneralHeaderServiceImplTest {
         assertEquals(3, generalHeader.getNumSignals());
     }
 
+    @Test
+    @DisplayName("read decodes the general header from a direct buffer at its current position")
+    void readBuffer_parsesFieldsAtPosition() throws Exception {
+        var header = new byte[256];
+        Arrays.fill(header, (byte) ' ');
+
+        putAscii(header, 0, 8, "0");
+        putAscii(header, 8, 80, "  Jane Roe  ");
+        putAscii(header, 168, 8, "01.02.99");
+        putAscii(header, 176, 8, "23.59.58");
+        putAscii(header, 236, 8, "100");
+        putAscii(header, 244, 8, "0.5");
+        putAscii(header, 252, 4, "12");
+
+        var buffer = ByteBuffer.allocateDirect(300);
+        buffer.position(10).put(header).position(10);
+
+        var generalHeader = generalHeaderService.read(buffer);
+
+        assertEquals("0", generalHeader.getIdentifier());
+        assertEquals("Jane Roe", generalHeader.getPatientName());
+        assertEquals(LocalDateTime.parse("1999-02-01T23:59:58"), generalHeader.getRecordingDate());
+        assertEquals(100, generalHeader.getNumDataRecords());
+        assertEquals(0.5, generalHeader.getRecordDurationSec());
+        assertEquals(12, generalHeader.getNumSignals());
+        assertEquals(266, buffer.position(), "Buffer position should be advanced past the general header");
+    }
+
+    @Test
+    @DisplayName("read throws when fewer than 256 bytes remain in the buffer")
+    void readBuffer_throwsOnShortBuffer() {
+        var ex = assertThrows(IOException.class, () -> generalHeaderService.read(ByteBuffer.allocate(255)));
+        assertTrue(ex.getMessage().contains("Unexpected end of file"));
+    }
+
     @Test
     @DisplayName("read throws when fewer than 256 bytes available")
     void read_throwsOnShortStream() {
@@ -0,0 +1,183 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.Annotation;
+import org.zeto.assignment.models.edf.AnnotationIndex;
+import org.zeto.assignment.models.edf.Channel;
+import org.zeto.assignment.models.edf.DataRecordLayout;
+import org.zeto.assignment.models.edf.FileInfo;
+
+@DisplayName("MetadataCacheServiceImpl tests")
+class MetadataCacheServiceImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final EdfProperties properties = new EdfProperties();
+
+    private Path dataDirectory;
+    private Path edfFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataDirectory = Files.createDirectory(tempDir.resolve("edf"));
+        edfFile = Files.write(dataDirectory.resolve("a.edf"), new byte[]{1, 2, 3});
+    }
+
+    @Test
+    @DisplayName("persisted entries are returned after a restart while the file is unchanged")
+    void persistAndLoad_roundTrip() throws Exception {
+        var cache = new MetadataCacheServiceImpl(properties);
+        cache.load(dataDirectory);
+        cache.store(edfFile, attributes(edfFile), createFileInfo());
+        cache.persist();
+
+        assertTrue(Files.isRegularFile(tempDir.resolve("edf-metadata.cache")), "Cache file should be written next to the EDF directory");
+
+        var restarted = new MetadataCacheServiceImpl(properties);
+        restarted.load(dataDirectory);
+        var cached = restarted.lookup(edfFile, attributes(edfFile));
+
+        assertTrue(cached.isPresent());
+        var fileInfo = cached.get();
+        assertEquals("a.edf", fileInfo.getFileName());
+        assertTrue(fileInfo.isValid());
+        assertEquals("0", fileInfo.getIdentifier());
+        assertEquals("Alice", fileInfo.getPatientName());
+        assertEquals(LocalDateTime.parse("2025-09-01T10:00:00"), fileInfo.getRecordingDate());
+        assertEquals(30.0, fileInfo.getRecordingLengthSeconds());
+        assertEquals(1, fileInfo.getNumberOfAnnotations());
+        assertEquals(List.of(new Channel("Fp1", "AgAgCl"), new Channel("Fp2", "AgAgCl")), fileInfo.getChannels());
+        assertEquals(new Annotation(1.5, null, "Spike"), fileInfo.getAnnotationIndex().get(0));
+
+        var layout = fileInfo.getDataRecordLayout();
+        assertEquals(768, layout.getDataOffset());
+        assertEquals(30, layout.getNumDataRecords());
+        assertEquals(1024, layout.getRecordBytes());
+        assertEquals("uV", layout.getPhysicalDimension(1));
+        assertEquals(0.1, layout.getGain(1));
+    }
+
+    @Test
+    @DisplayName("entries of files with the same montage share their channels after a restart")
+    void persistAndLoad_sharesMontages() throws Exception {
+        var otherFile = Files.write(dataDirectory.resolve("b.edf"), new byte[]{4, 5, 6});
+        var cache = new MetadataCacheServiceImpl(properties);
+        cache.load(dataDirectory);
+        cache.store(edfFile, attributes(edfFile), createFileInfo());
+        cache.store(otherFile, attributes(otherFile), createFileInfo());
+        cache.persist();
+
+        var restarted = new MetadataCacheServiceImpl(properties);
+        restarted.load(dataDirectory);
+        var a = restarted.lookup(edfFile, attributes(edfFile)).orElseThrow();
+        var b = restarted.lookup(otherFile, attributes(otherFile)).orElseThrow();
+
+        assertSame(a.getChannels(), b.getChannels());
+        assertNotSame(a.getDataRecordLayout(), b.getDataRecordLayout());
+        assertEquals(a.getDataRecordLayout().getGain(1), b.getDataRecordLayout().getGain(1));
+    }
+
+    @Test
+    @DisplayName("persist rewrites the cache file only when entries changed since the last write")
+    void persist_onlyWhenChanged() throws Exception {
+        var cacheFile = tempDir.resolve("edf-metadata.cache");
+        var cache = new MetadataCacheServiceImpl(properties);
+        cache.load(dataDirectory);
+        cache.store(edfFile, attributes(edfFile), createFileInfo());
+        cache.persist();
+
+        Files.delete(cacheFile);
+        cache.persist();
+        assertFalse(Files.exists(cacheFile));
+
+        cache.evict(edfFile);
+        cache.persist();
+        assertTrue(Files.isRegularFile(cacheFile));
+
+        var restarted = new MetadataCacheServiceImpl(properties);
+        restarted.load(dataDirectory);
+        assertFalse(restarted.lookup(edfFile, attributes(edfFile)).isPresent());
+    }
+
+    @Test
+    @DisplayName("lookup misses when the file size or modification time changed")
+    void lookup_missesChangedFile() throws Exception {
+        var cache = new MetadataCacheServiceImpl(properties);
+        cache.load(dataDirectory);
+        cache.store(edfFile, attributes(edfFile), createFileInfo());
+        cache.persist();
+
+        Files.setLastModifiedTime(edfFile, FileTime.fromMillis(attributes(edfFile).lastModifiedTime().toMillis() + 5_000));
+
+        var restarted = new MetadataCacheServiceImpl(properties);
+        restarted.load(dataDirectory);
+
+        assertFalse(restarted.lookup(edfFile, attributes(edfFile)).isPresent());
+    }
+
+    @Test
+    @DisplayName("load ignores a corrupted cache file")
+    void load_ignoresCorruptedCache() throws Exception {
+        Files.write(tempDir.resolve("edf-metadata.cache"), new byte[]{0x45, 0x44, 0x46, 0x43, 0, 0, 0, 1, 0, 0, 0, 5});
+
+        var cache = new MetadataCacheServiceImpl(properties);
+        cache.load(dataDirectory);
+
+        assertFalse(cache.lookup(edfFile, attributes(edfFile)).isPresent());
+    }
+
+    @Test
+    @DisplayName("nothing is cached or written when the cache is disabled")
+    void disabled_neverPersists() throws Exception {
+        properties.getMetadataCache().setEnabled(false);
+
+        var cache = new MetadataCacheServiceImpl(properties);
+        cache.load(dataDirectory);
+        cache.store(edfFile, attributes(edfFile), createFileInfo());
+        cache.persist();
+
+        assertFalse(Files.exists(tempDir.resolve("edf-metadata.cache")));
+    }
+
+    private static BasicFileAttributes attributes(Path file) throws Exception {
+        return Files.readAttributes(file, BasicFileAttributes.class);
+    }
+
+    private static FileInfo createFileInfo() {
+        var text = ByteBuffer.wrap("Spike".getBytes(StandardCharsets.UTF_8));
+        return FileInfo.builder()
+                       .fileName("a.edf")
+                       .valid(true)
+                       .identifier("0")
+                       .patientName("Alice")
+                       .recordingDate(LocalDateTime.parse("2025-09-01T10:00:00"))
+                       .recordingLengthSeconds(30.0)
+                       .numberOfAnnotations(1)
+                       .channels(List.of(new Channel("Fp1", "AgAgCl"), new Channel("Fp2", "AgAgCl")))
+                       .annotationIndex(AnnotationIndex.builder().add(1.5, Double.NaN, text, 0, text.capacity()).build())
+                       .dataRecordLayout(new DataRecordLayout(768, 30, 1.0, new String[]{"Fp1", "Fp2"}, new String[]{"uV", "uV"},
+                                                              new int[]{256, 256}, new double[]{-100, -100}, new double[]{100, 100},
+                                                              new int[]{-1000, -1000}, new int[]{1000, 1000}))
+                       .build();
+    }
+}
@@ -11,16 +11,27 @@ import static org.mockito.Mockito.when;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.time.LocalDateTime;
+import java.util.function.LongConsumer;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.configuration.EdfProperties.ParserBackend;
+import org.zeto.assignment.models.edf.AnnotationIndex;
 import org.zeto.assignment.models.edf.Channel;
 import org.zeto.assignment.models.edf.GeneralHeader;
+import org.zeto.assignment.models.edf.IngestionState;
 import org.zeto.assignment.models.edf.SignalHeader;
 
 @DisplayName("ParserServiceImpl tests")
@@ -33,6 +44,14 @@ class ParserServiceImplTest {
     @Mock
     SignalHeaderService signalHeaderService;
 
+    @Spy
+    EdfProperties properties = createProperties(ParserBackend.STREAM);
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    ParserMetrics metrics = new ParserMetrics(meterRegistry);
+
     @InjectMocks
     ParserServiceImpl parser;
 
@@ -51,9 +70,17 @@ class ParserServiceImplTest {
         when(generalHeaderService.read(any(InputStream.class))).thenReturn(generalHeader);
         when(signalHeaderService.read(any(InputStream.class), eq(generalHeader))).thenReturn(SignalHeader.builder()
                                                                                                          .numSignals(2)
+                                                                                                         .labels(of("Fp1", "Fp2", "EDF Annotations"))
+                                                                                                         .physicalDimensions(of("uV", "uV", ""))
+                                                                                                         .physicalMinimums(new double[]{-100.0, -100.0, -1.0})
+                                                                                                         .physicalMaximums(new double[]{100.0, 100.0, 1.0})
+                                                                                                         .digitalMinimums(new int[]{-1000, -1000, -32768})
+                                                                                                         .digitalMaximums(new int[]{1000, 1000, 32767})
+                                                                                                         .samplesPerRecord(new int[]{256, 256, 30})
                                                                                                          .dataChannelNames(of("Fp1", "Fp2"))
                                                                                                          .dataChannelTransducerTypes(of("T1", "T2"))
-                                                                                                         .annotationChannelIndex(3)
+                                                                                                         .annotationChannelIndex(2)
+                                                                                                         .annotationIndex(createAnnotationIndex(3))
                                                                                                          .build());
 
         var edtFile = createTempEdtFile();
@@ -68,6 +95,16 @@ class ParserServiceImplTest {
         assertEquals(of(new Channel("Fp1", "T1"), new Channel("Fp2", "T2")), actualFileInfo.getChannels());
         assertEquals(10.0, actualFileInfo.getRecordingLengthSeconds());
         assertEquals(3, actualFileInfo.getNumberOfAnnotations());
+        assertEquals(3, actualFileInfo.getAnnotationIndex().size());
+
+        var layout = actualFileInfo.getDataRecordLayout();
+        assertEquals(256 + 2 * 256, layout.getDataOffset());
+        assertEquals((256 + 256 + 30) * 2, layout.getRecordBytes());
+        assertEquals(512, layout.getSignalOffsetBytes(1));
+        assertEquals(51.2, layout.getSampleRate(0));
+        assertEquals(0.1, layout.getGain(1));
+        assertEquals(1, layout.indexOfDataChannel("Fp2"));
+        assertEquals(-1, layout.indexOfDataChannel("EDF Annotations"));
     }
 
     @Test
@@ -102,6 +139,168 @@ class ParserServiceImplTest {
         assertEquals(edtFile.getName(), actualFileInfo.getFileName());
     }
 
+    @Test
+    @DisplayName("parse with the CHANNEL backend decodes headers through positional FileChannel reads")
+    void parse_channelBackend() throws Exception {
+        properties.getParser().setBackend(ParserBackend.CHANNEL);
+        var generalHeader = createGeneralHeader();
+
+        when(generalHeaderService.read(any(ByteBuffer.class))).thenReturn(generalHeader);
+        when(signalHeaderService.read(any(FileChannel.class), eq(generalHeader))).thenReturn(createSignalHeader());
+
+        var edtFile = createTempEdtFile(256);
+        var actualFileInfo = parser.parse(edtFile);
+
+        assertTrue(actualFileInfo.isValid());
+        assertEquals(of(new Channel("Fp1", "T1")), actualFileInfo.getChannels());
+        assertEquals(4, actualFileInfo.getNumberOfAnnotations());
+    }
+
+    @Test
+    @DisplayName("parse with the MAPPED backend decodes headers from memory-mapped regions")
+    void parse_mappedBackend() throws Exception {
+        properties.getParser().setBackend(ParserBackend.MAPPED);
+        var generalHeader = createGeneralHeader();
+
+        when(generalHeaderService.read(any(ByteBuffer.class))).thenReturn(generalHeader);
+        when(signalHeaderService.readMapped(any(FileChannel.class), eq(generalHeader))).thenReturn(createSignalHeader());
+
+        var actualFileInfo = parser.parse(createTempEdtFile(256));
+
+        assertTrue(actualFileInfo.isValid());
+        assertEquals(4, actualFileInfo.getNumberOfAnnotations());
+    }
+
+    @Test
+    @DisplayName("parse with the CHANNEL backend returns invalid when the general header is truncated")
+    void parse_channelBackendTruncatedHeader() throws Exception {
+        properties.getParser().setBackend(ParserBackend.CHANNEL);
+
+        var edtFile = createTempEdtFile(100);
+        var actualFileInfo = parser.parse(edtFile);
+
+        assertFalse(actualFileInfo.isValid());
+        assertEquals(edtFile.getName(), actualFileInfo.getFileName());
+    }
+
+    @Test
+    @DisplayName("parseHeaders leaves the annotations of EDF+ files with data records pending")
+    void parseHeaders_pendingAnnotations() throws Exception {
+        var generalHeader = createGeneralHeader();
+
+        when(generalHeaderService.read(any(ByteBuffer.class))).thenReturn(generalHeader);
+        when(signalHeaderService.readHeader(any(FileChannel.class), eq(generalHeader)))
+                .thenReturn(createSignalHeader(AnnotationIndex.EMPTY));
+
+        var edtFile = createTempEdtFile(256);
+        var actualFileInfo = parser.parseHeaders(edtFile);
+
+        assertTrue(actualFileInfo.isValid());
+        assertEquals(IngestionState.PENDING, actualFileInfo.getIngestionState());
+        assertEquals(0, actualFileInfo.getNumberOfAnnotations());
+
+        var annotationIndex = createAnnotationIndex(4);
+        when(signalHeaderService.readAnnotations(any(InputStream.class), eq(actualFileInfo.getDataRecordLayout()))).thenReturn(annotationIndex);
+
+        assertEquals(annotationIndex, parser.parseAnnotations(edtFile, actualFileInfo.getDataRecordLayout()));
+    }
+
+    @Test
+    @DisplayName("parseHeaders and parseAnnotations record header and scan timers, bytes read and parse outcomes")
+    void parseHeaders_recordsMetrics() throws Exception {
+        var generalHeader = createGeneralHeader();
+
+        when(generalHeaderService.read(any(ByteBuffer.class))).thenReturn(generalHeader);
+        when(signalHeaderService.readHeader(any(FileChannel.class), eq(generalHeader))).thenReturn(createSignalHeader(AnnotationIndex.EMPTY));
+        when(signalHeaderService.readAnnotations(any(InputStream.class), any())).thenReturn(createAnnotationIndex(4));
+
+        var fileInfo = parser.parseHeaders(createTempEdtFile(1024));
+        parser.parseAnnotations(createTempEdtFile(1024), fileInfo.getDataRecordLayout());
+        parser.parseHeaders(createTempEdtFile(100));
+
+        assertEquals(1, meterRegistry.get("edf.parser.header.read").tag("header", "signal").timer().count());
+        assertEquals(1, meterRegistry.get("edf.parser.annotation.scan").timer().count());
+        assertEquals(1, meterRegistry.get("edf.parser.files").tag("outcome", "valid").counter().count());
+        assertEquals(1, meterRegistry.get("edf.parser.files").tag("outcome", "invalid").counter().count());
+        // 512 header bytes, then the whole 572 byte data record streamed for its annotations
+        assertEquals(512 + 572, meterRegistry.get("edf.parser.bytes.read").counter().count());
+    }
+
+    @Test
+    @DisplayName("parseAnnotations with the CHANNEL backend records the bytes the positional reads transferred")
+    void parseAnnotations_channelBackendRecordsBytesRead() throws Exception {
+        properties.getParser().setBackend(ParserBackend.CHANNEL);
+        var generalHeader = createGeneralHeader();
+
+        when(generalHeaderService.read(any(ByteBuffer.class))).thenReturn(generalHeader);
+        when(signalHeaderService.readHeader(any(FileChannel.class), eq(generalHeader))).thenReturn(createSignalHeader(AnnotationIndex.EMPTY));
+        when(signalHeaderService.readAnnotations(any(FileChannel.class), any(), any())).thenAnswer(invocation -> {
+            LongConsumer bytesRead = invocation.getArgument(2);
+            bytesRead.accept(300);
+            bytesRead.accept(272);
+            return createAnnotationIndex(4);
+        });
+
+        var fileInfo = parser.parseHeaders(createTempEdtFile(1024));
+        parser.parseAnnotations(createTempEdtFile(1024), fileInfo.getDataRecordLayout());
+
+        // 512 header bytes, then whatever the reader reported rather than the 6 annotation bytes of the layout
+        assertEquals(512 + 572, meterRegistry.get("edf.parser.bytes.read").counter().count());
+    }
+
+    private static GeneralHeader createGeneralHeader() {
+        return GeneralHeader.builder()
+                            .identifier("0IDENT")
+                            .patientName("Carol")
+                            .recordingDate(LocalDateTime.parse("2025-09-02T10:00:00"))
+                            .numDataRecords(1)
+                            .recordDurationSec(1.0)
+                            .numSignals(1)
+                            .build();
+    }
+
+    private static SignalHeader createSignalHeader() {
+        return createSignalHeader(createAnnotationIndex(4));
+    }
+
+    private static SignalHeader createSignalHeader(AnnotationIndex annotationIndex) {
+        return SignalHeader.builder()
+                           .numSignals(1)
+                           .labels(of("Fp1", "EDF Annotations"))
+                           .physicalDimensions(of("uV", ""))
+                           .physicalMinimums(new double[]{-100.0, -1.0})
+                           .physicalMaximums(new double[]{100.0, 1.0})
+                           .digitalMinimums(new int[]{-1000, -32768})
+                           .digitalMaximums(new int[]{1000, 32767})
+                           .samplesPerRecord(new int[]{256, 30})
+                           .dataChannelNames(of("Fp1"))
+                           .dataChannelTransducerTypes(of("T1"))
+                           .annotationChannelIndex(1)
+                           .annotationIndex(annotationIndex)
+                           .build();
+    }
+
+    private static AnnotationIndex createAnnotationIndex(int size) {
+        var text = ByteBuffer.wrap("Event".getBytes(StandardCharsets.UTF_8));
+        var builder = AnnotationIndex.builder();
+        for (var i = 0; i < size; i++) {
+            builder.add(i, Double.NaN, text, 0, text.capacity());
+        }
+        return builder.build();
+    }
+
+    private static EdfProperties createProperties(ParserBackend backend) {
+        var properties = new EdfProperties();
+        properties.getParser().setBackend(backend);
+        return properties;
+    }
+
+    private static File createTempEdtFile(int size) throws IOException {
+        var tmp = createTempEdtFile();
+        Files.write(tmp.toPath(), new byte[size]);
+        return tmp;
+    }
+
     private static File createTempEdtFile() throws IOException {
         var tmp = File.createTempFile("edf", ".edf");
         tmp.deleteOnExit();
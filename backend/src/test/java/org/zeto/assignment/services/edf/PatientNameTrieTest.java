@@ -0,0 +1,50 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("PatientNameTrie tests")
+class PatientNameTrieTest {
+
+    private static final String[] NAMES = {"", "ann", "anna", "anna", "anne", "bob", "bobby", "carl"};
+
+    private final PatientNameTrie trie = new PatientNameTrie(NAMES);
+
+    @Test
+    @DisplayName("range returns the contiguous range of names starting with the prefix")
+    void range_matchesPrefixes() {
+        assertEquals(new PatientNameTrie.Range(0, 8), trie.range(""));
+        assertEquals(new PatientNameTrie.Range(1, 5), trie.range("a"));
+        assertEquals(new PatientNameTrie.Range(1, 5), trie.range("ann"));
+        assertEquals(new PatientNameTrie.Range(2, 4), trie.range("anna"));
+        assertEquals(new PatientNameTrie.Range(4, 5), trie.range("anne"));
+        assertEquals(new PatientNameTrie.Range(5, 7), trie.range("bo"));
+        assertEquals(new PatientNameTrie.Range(6, 7), trie.range("bobb"));
+        assertEquals(new PatientNameTrie.Range(7, 8), trie.range("carl"));
+    }
+
+    @Test
+    @DisplayName("range agrees with a linear scan for every prefix of every name")
+    void range_agreesWithScan() {
+        for (var name : NAMES) {
+            for (var length = 0; length <= name.length() + 1; length++) {
+                var prefix = length <= name.length() ? name.substring(0, length) : name + "x";
+                var matching = Arrays.stream(NAMES).filter(n -> n.startsWith(prefix)).count();
+                assertEquals(matching, trie.range(prefix).size(), prefix);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("range returns no names for unknown prefixes or an empty trie")
+    void range_noMatches() {
+        assertEquals(PatientNameTrie.NO_NAMES, trie.range("annx"));
+        assertEquals(PatientNameTrie.NO_NAMES, trie.range("d"));
+        assertEquals(PatientNameTrie.NO_NAMES, trie.range("carla"));
+        assertEquals(PatientNameTrie.NO_NAMES, new PatientNameTrie(new String[0]).range(""));
+    }
+}
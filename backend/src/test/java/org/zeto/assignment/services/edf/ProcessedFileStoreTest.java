@@ -0,0 +1,216 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.zeto.assignment.models.edf.AnnotationIndex;
+import org.zeto.assignment.models.edf.Channel;
+import org.zeto.assignment.models.edf.DataRecordLayout;
+import org.zeto.assignment.models.edf.FileInfo;
+import org.zeto.assignment.models.edf.IngestionState;
+
+@DisplayName("ProcessedFileStore tests")
+class ProcessedFileStoreTest {
+
+    private final ProcessedFileStore store = new ProcessedFileStore();
+
+    @Test
+    @DisplayName("list keeps files sorted by recording date with undated files last, ordered by name")
+    void list_sortedByRecordingDate() {
+        store.put(Path.of("/data/c.edf"), fileInfo("c.edf", null));
+        store.put(Path.of("/data/b.edf"), fileInfo("b.edf", "2025-09-15T00:00:00"));
+        store.put(Path.of("/data/a.edf"), fileInfo("a.edf", null));
+        store.put(Path.of("/data/d.edf"), fileInfo("d.edf", "2025-09-10T00:00:00"));
+
+        assertEquals(List.of("d.edf", "b.edf", "a.edf", "c.edf"), names());
+    }
+
+    @Test
+    @DisplayName("put replaces the previous entry of the same file and re-sorts it")
+    void put_replacesExistingFile() {
+        store.put(Path.of("/data/a.edf"), fileInfo("a.edf", "2025-09-10T00:00:00"));
+        store.put(Path.of("/data/b.edf"), fileInfo("b.edf", "2025-09-15T00:00:00"));
+        store.put(Path.of("/data/a.edf"), fileInfo("a.edf", "2025-09-20T00:00:00"));
+
+        assertEquals(List.of("b.edf", "a.edf"), names());
+        assertEquals(2, store.size());
+        assertEquals(LocalDateTime.parse("2025-09-20T00:00:00"), store.get("a.edf").orElseThrow().getRecordingDate());
+    }
+
+    @Test
+    @DisplayName("remove drops a single file or every file below a removed directory")
+    void remove_fileOrDirectory() {
+        store.put(Path.of("/data/a.edf"), fileInfo("a.edf", null));
+        store.put(Path.of("/data/night/b.edf"), fileInfo("b.edf", null));
+        store.put(Path.of("/data/night/c.edf"), fileInfo("c.edf", null));
+
+        assertEquals(List.of(Path.of("/data/a.edf")), store.remove(Path.of("/data/a.edf")));
+        assertFalse(store.get("a.edf").isPresent());
+
+        assertEquals(Set.of(Path.of("/data/night/b.edf"), Path.of("/data/night/c.edf")), Set.copyOf(store.remove(Path.of("/data/night"))));
+        assertTrue(store.list().isEmpty());
+        assertEquals(List.of(), store.remove(Path.of("/data/unknown.edf")));
+    }
+
+    @Test
+    @DisplayName("put rejects a file whose name is taken by a file at another path")
+    void put_rejectsDuplicateName() {
+        store.put(Path.of("/data/a/rec.edf"), fileInfo("rec.edf", null));
+
+        assertTrue(store.put(Path.of("/data/b/rec.edf"), fileInfo("rec.edf", "2025-09-10T00:00:00")).isEmpty());
+        assertEquals(Path.of("/data/a/rec.edf"), store.getPath("rec.edf").orElseThrow());
+        assertNull(store.get("rec.edf").orElseThrow().getRecordingDate());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    @DisplayName("version changes with every put and removal, but not when nothing is removed")
+    void version_changesWithStore() {
+        var initial = store.version();
+        store.put(Path.of("/data/a.edf"), fileInfo("a.edf", null));
+        var afterPut = store.version();
+        store.remove(Path.of("/data/unknown.edf"));
+
+        assertNotEquals(initial, afterPut);
+        assertEquals(afterPut, store.version());
+
+        store.remove(Path.of("/data/a.edf"));
+        assertNotEquals(afterPut, store.version());
+    }
+
+    @Test
+    @DisplayName("filesVersion changes when files are added or removed, but not when annotations are set")
+    void filesVersion_ignoresAnnotations() {
+        var stamp = store.put(Path.of("/data/a.edf"), fileInfo("a.edf", null)).getAsLong();
+        var version = store.version();
+        var filesVersion = store.filesVersion();
+
+        store.setAnnotations("a.edf", stamp, AnnotationIndex.EMPTY, IngestionState.COMPLETE);
+        assertNotEquals(version, store.version());
+        assertEquals(filesVersion, store.filesVersion());
+
+        store.remove(Path.of("/data/a.edf"));
+        assertNotEquals(filesVersion, store.filesVersion());
+    }
+
+    @Test
+    @DisplayName("files with the same montage share their channels and signal layout")
+    void put_sharesMontages() {
+        store.put(Path.of("/data/a.edf"), recording("a.edf", 768, 30, "Fp1", "Fp2"));
+        store.put(Path.of("/data/b.edf"), recording("b.edf", 768, 60, "Fp1", "Fp2"));
+        store.put(Path.of("/data/c.edf"), recording("c.edf", 768, 30, "Fp1", "O1"));
+        store.put(Path.of("/data/d.edf"), fileInfo("d.edf", null));
+
+        assertEquals(3, store.montageCount(), "The empty montage and two distinct channel lists");
+
+        var a = store.get("a.edf").orElseThrow();
+        var b = store.get("b.edf").orElseThrow();
+        assertSame(a.getChannels(), b.getChannels());
+        assertSame(a.getChannels().get(0).name(), store.get("c.edf").orElseThrow().getChannels().get(0).name());
+        assertEquals(List.of(new Channel("Fp1", "AgAgCl"), new Channel("Fp2", "AgAgCl")), b.getChannels());
+
+        assertEquals(30, a.getDataRecordLayout().getNumDataRecords());
+        assertEquals(60, b.getDataRecordLayout().getNumDataRecords());
+        assertEquals(768, b.getDataRecordLayout().getDataOffset());
+        assertEquals("Fp2", b.getDataRecordLayout().getLabel(1));
+        assertEquals(0.5, b.getDataRecordLayout().getGain(1));
+        assertNull(store.get("d.edf").orElseThrow().getChannels());
+        assertNull(store.get("d.edf").orElseThrow().getDataRecordLayout());
+    }
+
+    @Test
+    @DisplayName("get with a stamp returns that version of a file only while it is stored")
+    void get_stampedVersion() {
+        var stamp = store.put(Path.of("/data/a.edf"), recording("a.edf", 768, 30, "Fp1", "Fp2")).getAsLong();
+        assertEquals(30, store.get("a.edf", stamp).orElseThrow().getDataRecordLayout().getNumDataRecords());
+
+        var replaced = store.put(Path.of("/data/a.edf"), recording("a.edf", 768, 60, "Fp1", "Fp2")).getAsLong();
+        assertFalse(store.get("a.edf", stamp).isPresent());
+        assertEquals(60, store.get("a.edf", replaced).orElseThrow().getDataRecordLayout().getNumDataRecords());
+
+        store.remove(Path.of("/data/a.edf"));
+        assertFalse(store.get("a.edf", replaced).isPresent());
+    }
+
+    @Test
+    @DisplayName("rows of removed files are reused without leaking their values")
+    void put_reusesRemovedRows() {
+        store.put(Path.of("/data/a.edf"), recording("a.edf", 768, 30, "Fp1", "Fp2"));
+        store.put(Path.of("/data/b.edf"), fileInfo("b.edf", "2025-09-10T00:00:00"));
+        store.remove(Path.of("/data/a.edf"));
+        store.put(Path.of("/data/c.edf"), fileInfo("c.edf", null));
+
+        var c = store.get("c.edf").orElseThrow();
+        assertNull(c.getChannels());
+        assertNull(c.getDataRecordLayout());
+        assertEquals(List.of("b.edf", "c.edf"), names());
+        assertEquals(Optional.of(Path.of("/data/c.edf")), store.getPath("c.edf"));
+    }
+
+    @Test
+    @DisplayName("listChangedSince walks the files changed after a version in chunks, in recording-date order")
+    void listChangedSince_chunks() {
+        store.put(Path.of("/data/c.edf"), fileInfo("c.edf", null));
+        var stamp = store.put(Path.of("/data/b.edf"), fileInfo("b.edf", "2025-09-15T00:00:00")).getAsLong();
+        store.put(Path.of("/data/a.edf"), fileInfo("a.edf", "2025-09-10T00:00:00"));
+
+        var first = store.listChangedSince(Long.MIN_VALUE, null, 2);
+        assertEquals(List.of("a.edf", "b.edf"), first.stream().map(FileInfo::getFileName).toList());
+        assertEquals(List.of("c.edf"), store.listChangedSince(Long.MIN_VALUE, first.getLast(), 2).stream().map(FileInfo::getFileName).toList());
+
+        var version = store.version();
+        assertTrue(store.listChangedSince(version, null, 2).isEmpty());
+
+        store.setAnnotations("b.edf", stamp, AnnotationIndex.EMPTY, IngestionState.COMPLETE);
+        store.put(Path.of("/data/d.edf"), fileInfo("d.edf", "2025-09-01T00:00:00"));
+        assertEquals(List.of("d.edf", "b.edf"), store.listChangedSince(version, null, 10).stream().map(FileInfo::getFileName).toList());
+    }
+
+    private List<String> names() {
+        return store.list().stream().map(FileInfo::getFileName).toList();
+    }
+
+    private static FileInfo fileInfo(String name, String recordingDate) {
+        return FileInfo.builder()
+                       .fileName(name)
+                       .recordingDate(recordingDate == null ? null : LocalDateTime.parse(recordingDate))
+                       .build();
+    }
+
+    private static FileInfo recording(String name, long dataOffset, int numDataRecords, String... labels) {
+        var signals = labels.length;
+        return FileInfo.builder()
+                       .fileName(name)
+                       .valid(true)
+                       .recordingDate(LocalDateTime.parse("2025-09-10T00:00:00"))
+                       .channels(Arrays.stream(labels).map(label -> new Channel(new String(label), new String("AgAgCl"))).toList())
+                       .dataRecordLayout(new DataRecordLayout(dataOffset, numDataRecords, 1.0, labels.clone(), Arrays.stream(labels).map(label -> "uV").toArray(String[]::new),
+                                                              ints(signals, 256), doubles(signals, -100), doubles(signals, 100), ints(signals, -200), ints(signals, 200)))
+                       .build();
+    }
+
+    private static int[] ints(int length, int value) {
+        var values = new int[length];
+        Arrays.fill(values, value);
+        return values;
+    }
+
+    private static double[] doubles(int length, double value) {
+        var values = new double[length];
+        Arrays.fill(values, value);
+        return values;
+    }
+}
@@ -0,0 +1,106 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.zeto.assignment.models.edf.DataRecordLayout;
+
+@DisplayName("RecordIndexSidecar tests")
+class RecordIndexSidecarTest {
+
+    private static final int NUM_DATA_RECORDS = 5;
+
+    // One sample per record of Fp1 and an annotation channel wide enough for the time-keeping TALs
+    private static final DataRecordLayout LAYOUT = new DataRecordLayout(SyntheticEdfFiles.dataOffset(2), NUM_DATA_RECORDS, 2.0,
+                                                                        new String[]{"Fp1", "EDF Annotations"},
+                                                                        new String[]{"uV", ""},
+                                                                        new int[]{1, 8},
+                                                                        new double[]{-100, -1},
+                                                                        new double[]{100, 1},
+                                                                        new int[]{-1000, -32768},
+                                                                        new int[]{1000, 32767});
+
+    // The third record has no valid TAL, the fifth goes back in time
+    private static final String[] TALS = {"+0\u0014\u0014", "+2\u0014\u0014", "abc", "+20\u0014\u0014", "+3\u0014\u0014"};
+
+    @TempDir
+    Path tempDir;
+
+    private Path edfFile;
+    private RecordIndexSidecar sidecar;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        edfFile = SyntheticEdfFiles.write(tempDir.resolve("a.edf"), LAYOUT, NUM_DATA_RECORDS, (signal, n) -> (short) n,
+                                          record -> TALS[record].getBytes(StandardCharsets.US_ASCII));
+        sidecar = new RecordIndexSidecar(tempDir.resolve("a.edf.records"));
+        sidecar.write(edfFile, attributes(), LAYOUT);
+    }
+
+    @Test
+    @DisplayName("open maps the onsets of the time-keeping TALs, following the previous record where a TAL is invalid")
+    void open_readsOnsets() throws Exception {
+        assertTrue(sidecar.matches(attributes()));
+        var timeline = sidecar.open(attributes(), LAYOUT.getRecordDurationSec()).orElseThrow();
+
+        assertEquals(NUM_DATA_RECORDS, timeline.size());
+        assertEquals(0.0, timeline.onset(0));
+        assertEquals(2.0, timeline.onset(1));
+        assertEquals(4.0, timeline.onset(2));
+        assertEquals(20.0, timeline.onset(3));
+        // Onsets never decrease, so that lookups can binary search them
+        assertEquals(20.0, timeline.onset(4));
+        assertEquals(RecordIndexSidecar.HEADER_BYTES + NUM_DATA_RECORDS * Double.BYTES, Files.size(sidecar.getFile()));
+    }
+
+    @Test
+    @DisplayName("a sidecar built from another version of the file is treated as missing")
+    void open_staleSidecar() throws Exception {
+        Files.setLastModifiedTime(edfFile, FileTime.fromMillis(Files.getLastModifiedTime(edfFile).toMillis() + 5_000));
+        assertFalse(sidecar.matches(attributes()));
+        assertFalse(sidecar.open(attributes(), LAYOUT.getRecordDurationSec()).isPresent());
+
+        Files.write(edfFile, new byte[1], StandardOpenOption.APPEND);
+        assertFalse(sidecar.open(attributes(), LAYOUT.getRecordDurationSec()).isPresent());
+    }
+
+    @Test
+    @DisplayName("a truncated sidecar is treated as missing")
+    void open_truncatedSidecar() throws Exception {
+        try (var channel = FileChannel.open(sidecar.getFile(), StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(sidecar.getFile()) - Double.BYTES);
+        }
+        assertFalse(sidecar.matches(attributes()));
+        assertFalse(sidecar.open(attributes(), LAYOUT.getRecordDurationSec()).isPresent());
+
+        try (var channel = FileChannel.open(sidecar.getFile(), StandardOpenOption.WRITE)) {
+            channel.truncate(RecordIndexSidecar.HEADER_BYTES - 1);
+        }
+        assertFalse(sidecar.open(attributes(), LAYOUT.getRecordDurationSec()).isPresent());
+    }
+
+    @Test
+    @DisplayName("open returns empty when the sidecar does not exist")
+    void open_missingSidecar() throws Exception {
+        var missing = new RecordIndexSidecar(tempDir.resolve("missing.edf.records"));
+        assertFalse(missing.matches(attributes()));
+        assertFalse(missing.open(attributes(), LAYOUT.getRecordDurationSec()).isPresent());
+    }
+
+    private BasicFileAttributes attributes() throws Exception {
+        return Files.readAttributes(edfFile, BasicFileAttributes.class);
+    }
+}
@@ -0,0 +1,61 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.DoubleBuffer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("RecordTimeline tests")
+class RecordTimelineTest {
+
+    // Records of 1 s at 0, 1, 10 and 11 s: an 8 s gap after the second record
+    private final RecordTimeline discontinuous = RecordTimeline.of(DoubleBuffer.wrap(new double[]{0, 1, 10, 11}), 1.0);
+
+    @Test
+    @DisplayName("recordAt finds the record holding a point in time")
+    void recordAt_insideRecord() {
+        assertEquals(0, discontinuous.recordAt(0));
+        assertEquals(1, discontinuous.recordAt(1.5));
+        assertEquals(2, discontinuous.recordAt(10));
+        assertEquals(3, discontinuous.recordAt(11.999));
+        assertEquals(10.0, discontinuous.onset(2));
+    }
+
+    @Test
+    @DisplayName("recordAt maps a point in a gap to the record after the gap")
+    void recordAt_insideGap() {
+        assertEquals(2, discontinuous.recordAt(2));
+        assertEquals(2, discontinuous.recordAt(5));
+        assertEquals(2, discontinuous.recordAt(9.999));
+    }
+
+    @Test
+    @DisplayName("recordAt maps points before the first record and after the last record to those records")
+    void recordAt_outsideRecording() {
+        var late = RecordTimeline.of(DoubleBuffer.wrap(new double[]{5, 6}), 1.0);
+        assertEquals(0, late.recordAt(0));
+        assertEquals(0, late.recordAt(-3));
+        assertEquals(1, late.recordAt(100));
+        assertEquals(3, discontinuous.recordAt(12));
+        assertEquals(3, discontinuous.recordAt(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    @DisplayName("a continuous timeline derives the onsets from the record duration")
+    void continuous() {
+        var continuous = RecordTimeline.continuous(4, 0.5);
+        assertEquals(1.5, continuous.onset(3));
+        assertEquals(2, continuous.recordAt(1.2));
+        assertEquals(0, continuous.recordAt(-1));
+        assertEquals(3, continuous.recordAt(10));
+    }
+
+    @Test
+    @DisplayName("recordAt returns -1 when there are no records")
+    void recordAt_empty() {
+        assertEquals(-1, RecordTimeline.continuous(0, 1.0).recordAt(0));
+        assertEquals(-1, RecordTimeline.of(DoubleBuffer.allocate(0), 1.0).recordAt(0));
+    }
+}
@@ -0,0 +1,71 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.zeto.assignment.models.edf.DataRecordLayout;
+
+@DisplayName("SampleReader tests")
+class SampleReaderTest {
+
+    private static final int DATA_OFFSET = SyntheticEdfFiles.dataOffset(2);
+    private static final int NUM_DATA_RECORDS = 10;
+
+    // Fp1: 5 samples per record, digital n -> physical n / 10; Fp2: 3 samples per record
+    private static final DataRecordLayout LAYOUT = new DataRecordLayout(DATA_OFFSET, NUM_DATA_RECORDS, 1.0,
+                                                                        new String[]{"Fp1", "Fp2"},
+                                                                        new String[]{"uV", "uV"},
+                                                                        new int[]{5, 3},
+                                                                        new double[]{-100, -100},
+                                                                        new double[]{100, 100},
+                                                                        new int[]{-1000, -1000},
+                                                                        new int[]{1000, 1000});
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("read decodes samples spanning several batches into the caller's array")
+    void read_acrossBatches() throws Exception {
+        // Three records per batch
+        var pool = new SampleBufferPool(3 * LAYOUT.getRecordBytes() + 1, 1);
+        var target = new float[30];
+        var file = SyntheticEdfFiles.write(tempDir.resolve("a.edf"), LAYOUT, (signal, n) -> (short) (signal == 0 ? n : -n));
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            new SampleReader(channel, LAYOUT, pool).read(0, 7, 29, target, 0);
+            new SampleReader(channel, LAYOUT, pool).read(1, 2, 1, target, 29);
+        }
+
+        for (var k = 0; k < 29; k++) {
+            assertEquals((7 + k) / 10f, target[k], 1e-6);
+        }
+        assertEquals(-0.2f, target[29], 1e-6);
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    @DisplayName("the pool hands out returned buffers again, up to its idle limit, and never pools oversized ones")
+    void pool_reusesBuffers() {
+        var pool = new SampleBufferPool(64, 1);
+
+        var first = pool.acquire(64);
+        var second = pool.acquire(16);
+        pool.release(first);
+        pool.release(second);
+        assertEquals(1, pool.getIdleCount());
+        assertSame(first, pool.acquire(32));
+
+        var oversized = pool.acquire(128);
+        assertEquals(128, oversized.bytes.capacity());
+        pool.release(oversized);
+        assertEquals(0, pool.getIdleCount());
+    }
+}
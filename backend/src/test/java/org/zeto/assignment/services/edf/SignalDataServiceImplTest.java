@@ -0,0 +1,187 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.DataRecordLayout;
+import org.zeto.assignment.models.edf.FileInfo;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("SignalDataServiceImpl tests")
+class SignalDataServiceImplTest {
+
+    private static final int DATA_OFFSET = SyntheticEdfFiles.dataOffset(3);
+    private static final int NUM_DATA_RECORDS = 3;
+
+    // Fp1: 4 samples per record, digital i * 10 -> physical i; Fp2: 2 samples per record, uncalibrated
+    private static final DataRecordLayout LAYOUT = new DataRecordLayout(DATA_OFFSET, NUM_DATA_RECORDS, 1.0,
+                                                                        new String[]{"Fp1", "Fp2", "EDF Annotations"},
+                                                                        new String[]{"uV", "", ""},
+                                                                        new int[]{4, 2, 3},
+                                                                        new double[]{-100, Double.NaN, -1},
+                                                                        new double[]{100, Double.NaN, 1},
+                                                                        new int[]{-1000, 0, -32768},
+                                                                        new int[]{1000, 0, 32767});
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    FileProcessingService fileProcessingService;
+
+    RecordIndexServiceImpl recordIndexService;
+
+    ColumnarExportServiceImpl columnarExportService;
+
+    SignalWindowCache signalWindowCache;
+
+    SignalDataServiceImpl signalDataService;
+
+    private Path edfFile;
+    private FileInfo fileInfo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        edfFile = writeEdfFile(NUM_DATA_RECORDS);
+        fileInfo = SyntheticEdfFiles.mockProcessedFile(fileProcessingService, "a.edf", edfFile, LAYOUT);
+
+        var properties = new EdfProperties();
+        properties.getRecordIndex().setDirectory(tempDir.resolve("records").toString());
+        properties.getColumnarExport().setDirectory(tempDir.resolve("columns").toString());
+        recordIndexService = new RecordIndexServiceImpl(fileProcessingService, properties);
+        columnarExportService = new ColumnarExportServiceImpl(fileProcessingService, properties);
+        signalWindowCache = new SignalWindowCache(properties, new SimpleMeterRegistry());
+        signalDataService = new SignalDataServiceImpl(fileProcessingService, recordIndexService, columnarExportService, signalWindowCache);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        signalWindowCache.stop();
+    }
+
+    @Test
+    @DisplayName("getSamples decodes a window spanning several data records into physical values")
+    void getSamples_decodesWindowAcrossRecords() throws Exception {
+        var window = signalDataService.getSamples("a.edf", "Fp1", 1.25, 2.5).orElseThrow();
+
+        assertEquals("Fp1", window.getLabel());
+        assertEquals("uV", window.getPhysicalDimension());
+        assertEquals(4.0, window.getSampleRate());
+        assertEquals(1.25, window.getStart());
+        assertArrayEquals(new float[]{5, 6, 7, 8, 9}, window.getSamples(), 1e-4f);
+    }
+
+    @Test
+    @DisplayName("getSamples returns raw digital values for a channel without a usable calibration")
+    void getSamples_uncalibratedChannel() throws Exception {
+        var window = signalDataService.getSamples("a.edf", "Fp2", 0, 1).orElseThrow();
+
+        assertArrayEquals(new float[]{-1, -2}, window.getSamples());
+    }
+
+    @Test
+    @DisplayName("getSamples clips the window to the data records present in the file")
+    void getSamples_clipsToRecording() throws Exception {
+        Files.write(edfFile, Files.readAllBytes(writeEdfFile(2)));
+
+        var window = signalDataService.getSamples("a.edf", "Fp1", -5, 100).orElseThrow();
+
+        assertEquals(0.0, window.getStart());
+        assertEquals(8, window.getSamples().length);
+        assertEquals(7.0f, window.getSamples()[7], 1e-4f);
+        assertFalse(window.isTruncated());
+    }
+
+    @Test
+    @DisplayName("getSamples cuts a window beyond the maximum number of samples and flags it as truncated")
+    void getSamples_truncatesLongWindow() throws Exception {
+        var samplesPerRecord = 1 << 16;
+        var layout = new DataRecordLayout(SyntheticEdfFiles.dataOffset(1), 17, 1.0,
+                                          new String[]{"Fp1"}, new String[]{"uV"}, new int[]{samplesPerRecord},
+                                          new double[]{-32768}, new double[]{32767}, new int[]{-32768}, new int[]{32767});
+        var file = SyntheticEdfFiles.write(tempDir.resolve("b.edf"), layout, (signal, n) -> (short) (n % 1000));
+        SyntheticEdfFiles.mockProcessedFile(fileProcessingService, "b.edf", file, layout);
+
+        var window = signalDataService.getSamples("b.edf", "Fp1", 0, 17).orElseThrow();
+        assertEquals(SignalDataServiceImpl.MAX_WINDOW_SAMPLES, window.getSamples().length);
+        assertTrue(window.isTruncated());
+
+        var rest = signalDataService.getSamples("b.edf", "Fp1", 16, 17).orElseThrow();
+        assertEquals(samplesPerRecord, rest.getSamples().length);
+        assertFalse(rest.isTruncated());
+    }
+
+    @Test
+    @DisplayName("getSamples locates the window of a discontinuous recording with the record index")
+    void getSamples_discontinuousRecording() throws Exception {
+        Files.write(edfFile, Files.readAllBytes(writeEdfFile(NUM_DATA_RECORDS, 0, 1, 10)));
+        recordIndexService.build(edfFile, fileInfo);
+
+        var window = signalDataService.getSamples("a.edf", "Fp1", 10.25, 20).orElseThrow();
+        assertEquals(10.25, window.getStart());
+        assertArrayEquals(new float[]{9, 10, 11}, window.getSamples(), 1e-4f);
+
+        var afterGap = signalDataService.getSamples("a.edf", "Fp1", 5, 10.5).orElseThrow();
+        assertEquals(10.0, afterGap.getStart());
+        assertArrayEquals(new float[]{8, 9}, afterGap.getSamples(), 1e-4f);
+
+        var location = recordIndexService.locate("a.edf", 1.5).orElseThrow();
+        assertEquals(1, location.getRecord());
+        assertEquals(DATA_OFFSET + LAYOUT.getRecordBytes(), location.getOffset());
+        assertEquals(1.0, location.getOnset());
+    }
+
+    @Test
+    @DisplayName("getSamples decodes the same values from the columnar export once it is built")
+    void getSamples_readsColumnarExport() throws Exception {
+        columnarExportService.build(edfFile, fileInfo);
+        try (var export = columnarExportService.open("a.edf").orElseThrow()) {
+            assertEquals(NUM_DATA_RECORDS, export.getRecords());
+        }
+
+        var window = signalDataService.getSamples("a.edf", "Fp1", 1.25, 2.5).orElseThrow();
+        assertEquals(1.25, window.getStart());
+        assertArrayEquals(new float[]{5, 6, 7, 8, 9}, window.getSamples(), 1e-4f);
+        assertArrayEquals(new float[]{-1, -2}, signalDataService.getSamples("a.edf", "Fp2", 0, 1).orElseThrow().getSamples());
+    }
+
+    @Test
+    @DisplayName("getSamples returns empty for unknown files, unknown channels and the annotation channel")
+    void getSamples_unknownFileOrChannel() throws Exception {
+        assertFalse(signalDataService.getSamples("missing.edf", "Fp1", 0, 1).isPresent());
+        assertFalse(signalDataService.getSamples("a.edf", "O1", 0, 1).isPresent());
+        assertFalse(signalDataService.getSamples("a.edf", "EDF Annotations", 0, 1).isPresent());
+    }
+
+    private Path writeEdfFile(int numDataRecords) throws Exception {
+        return writeEdfFile(numDataRecords, new int[0]);
+    }
+
+    /**
+     * Writes the data records, starting the annotation channel of each with a time-keeping TAL of the given onset.
+     */
+    private Path writeEdfFile(int numDataRecords, int... onsets) throws Exception {
+        return SyntheticEdfFiles.write(tempDir.resolve("a-" + numDataRecords + "-" + onsets.length + ".edf"), LAYOUT, numDataRecords,
+                                       (signal, n) -> (short) (signal == 0 ? n * 10 : -1 - n % 2),
+                                       record -> record < onsets.length ? ("+" + onsets[record] + "\u0014\u0014").getBytes(StandardCharsets.US_ASCII) : null);
+    }
+}
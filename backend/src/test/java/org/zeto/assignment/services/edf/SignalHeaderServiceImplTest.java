@@ -4,24 +4,132 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.List;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.Annotation;
 import org.zeto.assignment.models.edf.GeneralHeader;
 import org.zeto.assignment.models.edf.SignalHeader;
 
 class SignalHeaderServiceImplTest {
 
-    private final SignalHeaderServiceImpl service = new SignalHeaderServiceImpl();
+    private static final int NUM_SIGNALS = 3;
+    private static final int NUM_DATA_RECORDS = 2;
+
+    private final SignalHeaderServiceImpl service = new SignalHeaderServiceImpl(new EdfProperties());
+
+    private final GeneralHeader generalHeader = GeneralHeader.builder()
+                                                             .numSignals(NUM_SIGNALS)
+                                                             .numDataRecords(NUM_DATA_RECORDS)
+                                                             .build();
 
     @Test
     @DisplayName("read parses signal metadata and counts annotations across data records")
     void read_parsesAndCountsAnnotations() throws Exception {
-        var numSignals = 3;
-        var numDataRecords = 2;
+        var is = new ByteArrayInputStream(buildSignalHeaderAndDataRecords());
+
+        assertSignalHeader(service.read(is, generalHeader));
+    }
+
+    @Test
+    @DisplayName("read via FileChannel parses signal metadata and counts annotations with positional reads")
+    void readChannel_parsesAndCountsAnnotations() throws Exception {
+        try (var channel = FileChannel.open(createTempEdfFile(), StandardOpenOption.READ)) {
+            assertSignalHeader(service.read(channel, generalHeader));
+            assertEquals(0, channel.position(), "Positional reads must not move the channel position");
+        }
+    }
+
+    @Test
+    @DisplayName("read via FileChannel scans chunks of data records in parallel and merges them in order")
+    void readChannel_parallelScan() throws Exception {
+        var parallelService = new SignalHeaderServiceImpl(1, 4);
+
+        try (var channel = FileChannel.open(createTempEdfFile(), StandardOpenOption.READ)) {
+            assertSignalHeader(parallelService.read(channel, generalHeader));
+        }
+    }
+
+    @Test
+    @DisplayName("read via FileChannel rethrows the I/O error of a failed parallel chunk")
+    void readChannel_parallelScanThrowsOnTruncatedFile() throws Exception {
+        var parallelService = new SignalHeaderServiceImpl(1, 4);
+        var truncated = Files.readAllBytes(createTempEdfFile());
+        var file = Files.createTempFile("edf", ".edf");
+        file.toFile().deleteOnExit();
+        Files.write(file, Arrays.copyOf(truncated, truncated.length - 1));
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var ex = assertThrows(IOException.class, () -> parallelService.read(channel, generalHeader));
+            assertTrue(ex.getMessage().contains("Unexpected end of file"));
+        }
+    }
+
+    @Test
+    @DisplayName("readMapped parses signal metadata and counts annotations from mapped regions")
+    void readMapped_parsesAndCountsAnnotations() throws Exception {
+        try (var channel = FileChannel.open(createTempEdfFile(), StandardOpenOption.READ)) {
+            assertSignalHeader(service.readMapped(channel, generalHeader));
+        }
+    }
+
+    @Test
+    @DisplayName("readMapped throws when the file is shorter than the declared data records")
+    void readMapped_throwsOnTruncatedFile() throws Exception {
+        var truncated = Files.readAllBytes(createTempEdfFile());
+        var file = Files.createTempFile("edf", ".edf");
+        file.toFile().deleteOnExit();
+        Files.write(file, Arrays.copyOf(truncated, truncated.length - 1));
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var ex = assertThrows(IOException.class, () -> service.readMapped(channel, generalHeader));
+            assertTrue(ex.getMessage().contains("Unexpected end of file"));
+        }
+    }
+
+    private static void assertSignalHeader(SignalHeader sh) {
+        assertEquals(3, sh.getNumSignals());
+        assertEquals(List.of("Fp1", "Fp2", "EDF Annotations"), sh.getLabels());
+        assertEquals(List.of("Type1", "Type2", "AnnType"), sh.getTransducerTypes());
+        assertArrayEquals(new int[]{2, 3, 16}, sh.getSamplesPerRecord());
+        assertEquals(List.of("uV", "mV", ""), sh.getPhysicalDimensions());
+        assertArrayEquals(new double[]{-3200.0, -1.5, Double.NaN}, sh.getPhysicalMinimums());
+        assertArrayEquals(new double[]{3200.0, 1.5, Double.NaN}, sh.getPhysicalMaximums());
+        assertArrayEquals(new int[]{-32768, -2048, 0}, sh.getDigitalMinimums());
+        assertArrayEquals(new int[]{32767, 2047, 0}, sh.getDigitalMaximums());
+        assertEquals(List.of("Fp1", "Fp2"), sh.getDataChannelNames());
+        assertEquals(List.of("Type1", "Type2"), sh.getDataChannelTransducerTypes());
+        assertEquals(2, sh.getAnnotationChannelIndex());
+
+        var annotations = sh.getAnnotationIndex();
+        assertEquals(3, annotations.size(), "Time-keeping TALs must not be counted as annotations");
+        assertEquals(new Annotation(0.5, 0.2, "Spike"), annotations.get(0));
+        assertEquals(new Annotation(1.25, null, "Eyes open"), annotations.get(1));
+        assertEquals(new Annotation(1.25, null, "Blink"), annotations.get(2));
+    }
+
+    private static Path createTempEdfFile() throws IOException {
+        var bout = new ByteArrayOutputStream();
+        repeatWriteSpaces(bout, 256); // general header, not decoded by this service
+        bout.writeBytes(buildSignalHeaderAndDataRecords());
+
+        var file = Files.createTempFile("edf", ".edf");
+        file.toFile().deleteOnExit();
+        Files.write(file, bout.toByteArray());
+        return file;
+    }
+
+    private static byte[] buildSignalHeaderAndDataRecords() {
+        var numSignals = NUM_SIGNALS;
 
         // Build input bytes: signal header blocks then data records
         var bout = new ByteArrayOutputStream();
@@ -36,56 +144,58 @@ class SignalHeaderServiceImplTest {
         writePaddedAscii(bout, "Type2", 80);
         writePaddedAscii(bout, "AnnType", 80);
 
-        // physical dim, min, max, digital min, max, prefilter (ignored values)
-        repeatWriteSpaces(bout, numSignals * 8);  // phys dim
-        repeatWriteSpaces(bout, numSignals * 8);  // phys min
-        repeatWriteSpaces(bout, numSignals * 8);  // phys max
-        repeatWriteSpaces(bout, numSignals * 8);  // digital min
-        repeatWriteSpaces(bout, numSignals * 8);  // digital max
-        repeatWriteSpaces(bout, numSignals * 80); // prefilter
-
-        // samples per record (8 bytes ascii each) -> [2,3,4]
+        // physical dim, min, max, digital min, max; left blank for the annotation channel
+        writePaddedAscii(bout, "uV", 8);
+        writePaddedAscii(bout, "mV", 8);
+        repeatWriteSpaces(bout, 8);
+        writePaddedAscii(bout, "-3200", 8);
+        writePaddedAscii(bout, "-1.5", 8);
+        repeatWriteSpaces(bout, 8);
+        writePaddedAscii(bout, "3200", 8);
+        writePaddedAscii(bout, "1.5", 8);
+        repeatWriteSpaces(bout, 8);
+        writePaddedAscii(bout, "-32768", 8);
+        writePaddedAscii(bout, "-2048", 8);
+        repeatWriteSpaces(bout, 8);
+        writePaddedAscii(bout, "32767", 8);
+        writePaddedAscii(bout, "2047", 8);
+        repeatWriteSpaces(bout, 8);
+
+        // prefilter (ignored values)
+        repeatWriteSpaces(bout, numSignals * 80);
+
+        // samples per record (8 bytes ascii each) -> [2,3,16]
         writePaddedAscii(bout, "2", 8);
         writePaddedAscii(bout, "3", 8);
-        writePaddedAscii(bout, "4", 8);
+        writePaddedAscii(bout, "16", 8);
 
         // reserved (32 bytes each)
         repeatWriteSpaces(bout, numSignals * 32);
 
         // Data records
-        // total samples per record = 2 + 3 + 4 = 9; bytes per sample = 2
+        // total samples per record = 2 + 3 + 16 = 21; bytes per sample = 2
         // samples before annotation (channel index 2) = 2 + 3 = 5 -> 10 bytes to skip
-        // annotation samples = 4 -> 8 bytes to read and count 0x00
-        // We'll make record1 have 2 zeros, record2 have 1 zero
+        // annotation samples = 16 -> 32 bytes of TALs, NUL padded
+        // Each record starts with a time-keeping TAL followed by regular TALs
         var before = new byte[10];
         Arrays.fill(before, (byte) 7);
-        var ann1 = new byte[] {0x00, 1, 2, 0x00, 3, 4, 5, 6}; // 2 zeros
-        var ann2 = new byte[] {9, 8, 7, 6, 5, 4, 3, 0x00};     // 1 zero
 
-        // record 1
-        bout.write(before);
-        bout.write(ann1);
+        // record 1: one annotation with a duration
+        bout.writeBytes(before);
+        writeTals(bout, "+0\u0014\u0014\u0000+0.5\u00150.2\u0014Spike\u0014\u0000", 32);
         // samples after annotation = 0 in this layout
-        // record 2
-        bout.write(before);
-        bout.write(ann2);
-
-        var is = new ByteArrayInputStream(bout.toByteArray());
+        // record 2: one TAL with two annotations and no duration
+        bout.writeBytes(before);
+        writeTals(bout, "+1\u0014\u0014\u0000+1.25\u0014Eyes open\u0014Blink\u0014\u0000", 32);
 
-        var g = GeneralHeader.builder()
-                              .numSignals(numSignals)
-                              .numDataRecords(numDataRecords)
-                              .build();
+        return bout.toByteArray();
+    }
 
-        SignalHeader sh = service.read(is, g);
-        assertEquals(3, sh.getNumSignals());
-        assertEquals(List.of("Fp1", "Fp2", "EDF Annotations"), sh.getLabels());
-        assertEquals(List.of("Type1", "Type2", "AnnType"), sh.getTransducerTypes());
-        assertEquals(List.of(2, 3, 4), sh.getSamplesPerRecord());
-        assertEquals(List.of("Fp1", "Fp2"), sh.getDataChannelNames());
-        assertEquals(List.of("Type1", "Type2"), sh.getDataChannelTransducerTypes());
-        // The implementation stores the annotation count in the annotationChannelIndex field
-        assertEquals(3, sh.getAnnotationChannelIndex());
+    private static void writeTals(ByteArrayOutputStream bout, String tals, int len) {
+        var buf = new byte[len];
+        var sb = tals.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(sb, 0, buf, 0, sb.length);
+        bout.writeBytes(buf);
     }
 
     private static void writePaddedAscii(ByteArrayOutputStream bout, String s, int len) {
@@ -0,0 +1,153 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import org.zeto.assignment.configuration.EdfProperties;
+
+@DisplayName("SignalWindowCache tests")
+class SignalWindowCacheTest {
+
+    private static final int SAMPLES_PER_RECORD = 256;
+    private static final int RECORDS_PER_BLOCK = SignalWindowCache.BLOCK_SAMPLES / SAMPLES_PER_RECORD;
+    private static final long BLOCK_BYTES = SignalWindowCache.BLOCK_SAMPLES * Float.BYTES + 128;
+
+    @TempDir
+    Path tempDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger opens = new AtomicInteger();
+    private final EdfProperties properties = new EdfProperties();
+    private SignalWindowCache cache;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = Files.write(tempDir.resolve("a.edf"), new byte[10]);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        cache.stop();
+    }
+
+    @Test
+    @DisplayName("read serves a repeated window from memory until the file changes")
+    void read_repeatedWindow() throws Exception {
+        properties.getSignalCache().setPrefetch(false);
+        cache = new SignalWindowCache(properties, meterRegistry);
+
+        assertArrayEquals(expected(8000, 500), read(8000, 500));
+        assertEquals(2, opens.get());
+        assertArrayEquals(expected(8000, 500), read(8000, 500));
+        assertArrayEquals(expected(8100, 10), read(8100, 10));
+
+        assertEquals(2, opens.get());
+        assertEquals(3, meterRegistry.get("edf.signal.cache.gets").tag("result", "hit").counter().count());
+        assertEquals(2, meterRegistry.get("edf.signal.cache.gets").tag("result", "miss").counter().count());
+        assertEquals(2 * BLOCK_BYTES, meterRegistry.get("edf.signal.cache.size").gauge().value());
+
+        Files.write(file, new byte[20]);
+        assertArrayEquals(expected(8000, 500), read(8000, 500));
+        assertEquals(4, opens.get());
+    }
+
+    @Test
+    @DisplayName("read evicts the least recently used blocks beyond the maximum size")
+    void read_evictsLeastRecentlyUsed() throws Exception {
+        properties.getSignalCache().setPrefetch(false);
+        properties.getSignalCache().setMaxSize(DataSize.ofBytes(2 * BLOCK_BYTES));
+        cache = new SignalWindowCache(properties, meterRegistry);
+
+        read(0, 10);
+        read(SignalWindowCache.BLOCK_SAMPLES, 10);
+        read(0, 10);
+        read(2 * SignalWindowCache.BLOCK_SAMPLES, 10);
+
+        assertTrue(cache.contains("a.edf", 0, 0));
+        assertFalse(cache.contains("a.edf", 0, RECORDS_PER_BLOCK));
+        assertTrue(cache.contains("a.edf", 0, 2 * RECORDS_PER_BLOCK));
+        assertEquals(2 * BLOCK_BYTES, cache.getBytes());
+        assertEquals(1, meterRegistry.get("edf.signal.cache.evictions").counter().count());
+    }
+
+    @Test
+    @DisplayName("read prefetches the block next to the window in the direction of the scroll")
+    void read_prefetchesInScrollDirection() throws Exception {
+        cache = new SignalWindowCache(properties, meterRegistry);
+
+        read(2 * SignalWindowCache.BLOCK_SAMPLES + 500, 100);
+        awaitBlock(3 * RECORDS_PER_BLOCK);
+        assertFalse(cache.contains("a.edf", 0, RECORDS_PER_BLOCK));
+
+        read(2 * SignalWindowCache.BLOCK_SAMPLES + 400, 100);
+        awaitBlock(RECORDS_PER_BLOCK);
+
+        assertEquals(2, meterRegistry.get("edf.signal.cache.prefetches").counter().count());
+
+        assertArrayEquals(expected(SignalWindowCache.BLOCK_SAMPLES, 3 * SignalWindowCache.BLOCK_SAMPLES),
+                          read(SignalWindowCache.BLOCK_SAMPLES, 3 * SignalWindowCache.BLOCK_SAMPLES));
+        assertEquals(1, meterRegistry.get("edf.signal.cache.gets").tag("result", "miss").counter().count());
+    }
+
+    private float[] read(long first, int count) throws Exception {
+        SignalWindowCache.SamplesOpener opener = this::open;
+        var version = cache.getVersion("a.edf", Files.readAttributes(file, BasicFileAttributes.class), opener);
+        var target = new float[count];
+        cache.read(version, 0, SAMPLES_PER_RECORD, first, count, target, opener);
+        return target;
+    }
+
+    private void awaitBlock(long firstRecord) throws InterruptedException {
+        for (var i = 0; i < 500 && !cache.contains("a.edf", 0, firstRecord); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(cache.contains("a.edf", 0, firstRecord));
+    }
+
+    private static float[] expected(long first, int count) {
+        var values = new float[count];
+        for (var i = 0; i < count; i++) {
+            values[i] = first + i;
+        }
+        return values;
+    }
+
+    /**
+     * Samples of 128 data records whose values are their index.
+     */
+    private ChannelSamples open() {
+        opens.incrementAndGet();
+        return new ChannelSamples() {
+            @Override
+            public long getRecords() {
+                return 4 * RECORDS_PER_BLOCK;
+            }
+
+            @Override
+            public void read(int signal, long first, int length, float[] target, int targetOffset) {
+                for (var i = 0; i < length; i++) {
+                    target[targetOffset + i] = first + i;
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
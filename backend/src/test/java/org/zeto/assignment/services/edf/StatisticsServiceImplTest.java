@@ -0,0 +1,149 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.zeto.assignment.configuration.EdfProperties;
+import org.zeto.assignment.models.edf.DataRecordLayout;
+import org.zeto.assignment.models.edf.FileInfo;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("StatisticsServiceImpl tests")
+class StatisticsServiceImplTest {
+
+    private static final int DATA_OFFSET = SyntheticEdfFiles.dataOffset(3);
+    private static final int NUM_DATA_RECORDS = 6;
+
+    // Fp1: sawtooth touching the digital minimum every 200 samples; Flat: constant for the whole recording
+    private static final DataRecordLayout LAYOUT = new DataRecordLayout(DATA_OFFSET, NUM_DATA_RECORDS, 1.0,
+                                                                        new String[]{"Fp1", "Flat", "EDF Annotations"},
+                                                                        new String[]{"uV", "uV", ""},
+                                                                        new int[]{100, 64, 3},
+                                                                        new double[]{-100, -100, -1},
+                                                                        new double[]{100, 100, 1},
+                                                                        new int[]{-1000, -1000, -32768},
+                                                                        new int[]{1000, 1000, 32767});
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    FileProcessingService fileProcessingService;
+
+    private ColumnarExportServiceImpl columnarExportService;
+    private FileInfo fileInfo;
+    private Path edfFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        edfFile = SyntheticEdfFiles.write(tempDir.resolve("a.edf"), LAYOUT, (signal, n) -> signal == 0 ? sawtooth(n) : 70);
+        fileInfo = SyntheticEdfFiles.mockProcessedFile(fileProcessingService, "a.edf", edfFile, LAYOUT);
+
+        var properties = new EdfProperties();
+        properties.getColumnarExport().setDirectory(tempDir.resolve("columns").toString());
+        columnarExportService = new ColumnarExportServiceImpl(fileProcessingService, properties);
+    }
+
+    @Test
+    @DisplayName("getStatistics computes physical statistics and quality flags of every data channel")
+    void getStatistics_computesChannelStatistics() throws Exception {
+        var statistics = new StatisticsServiceImpl(fileProcessingService, columnarExportService).getStatistics("a.edf").orElseThrow();
+
+        assertEquals(NUM_DATA_RECORDS, statistics.getDataRecords());
+        assertEquals(2, statistics.getChannels().size());
+
+        var sum = 0.0;
+        var sumOfSquares = 0.0;
+        for (var n = 0; n < NUM_DATA_RECORDS * 100; n++) {
+            var physical = 0.1 * sawtooth(n);
+            sum += physical;
+            sumOfSquares += physical * physical;
+        }
+
+        var fp1 = statistics.getChannels().get(0);
+        assertEquals("Fp1", fp1.getLabel());
+        assertEquals(600, fp1.getSampleCount());
+        assertEquals(-100.0, fp1.getMin(), 1e-9);
+        assertEquals(99.0, fp1.getMax(), 1e-9);
+        assertEquals(sum / 600, fp1.getMean(), 1e-9);
+        assertEquals(Math.sqrt(sumOfSquares / 600), fp1.getRms(), 1e-9);
+        assertEquals(3, fp1.getClippedSamples());
+        assertTrue(fp1.isClipping());
+        assertFalse(fp1.isFlatLine());
+
+        var flat = statistics.getChannels().get(1);
+        assertEquals("Flat", flat.getLabel());
+        assertEquals(7.0, flat.getMin(), 1e-9);
+        assertEquals(7.0, flat.getMax(), 1e-9);
+        assertEquals(6.0, flat.getLongestFlatLineSeconds(), 1e-9);
+        assertTrue(flat.isFlatLine());
+        assertFalse(flat.isClipping());
+    }
+
+    @Test
+    @DisplayName("getStatistics gives identical results with the scalar kernel and caches them until the file changes")
+    void getStatistics_scalarKernelAndCache() throws Exception {
+        var scalar = new StatisticsServiceImpl(fileProcessingService, columnarExportService, new ScalarStatisticsKernel());
+        var first = scalar.getStatistics("a.edf").orElseThrow();
+        var preferred = new StatisticsServiceImpl(fileProcessingService, columnarExportService).getStatistics("a.edf").orElseThrow();
+
+        assertEquals("scalar", first.getEngine());
+        for (var i = 0; i < first.getChannels().size(); i++) {
+            assertEquals(first.getChannels().get(i).getMean(), preferred.getChannels().get(i).getMean());
+            assertEquals(first.getChannels().get(i).getRms(), preferred.getChannels().get(i).getRms());
+            assertEquals(first.getChannels().get(i).getClippedSamples(), preferred.getChannels().get(i).getClippedSamples());
+        }
+
+        assertSame(first, scalar.getStatistics("a.edf").orElseThrow());
+        Files.write(edfFile, new byte[LAYOUT.getRecordBytes()], StandardOpenOption.APPEND);
+        assertEquals(NUM_DATA_RECORDS, scalar.getStatistics("a.edf").orElseThrow().getDataRecords());
+        assertNotSame(first, scalar.getStatistics("a.edf").orElseThrow());
+    }
+
+    @Test
+    @DisplayName("getStatistics reads the columnar export once it is built and gives the same results")
+    void getStatistics_columnarExport() throws Exception {
+        var fromRecords = new StatisticsServiceImpl(fileProcessingService, columnarExportService).getStatistics("a.edf").orElseThrow();
+        columnarExportService.build(edfFile, fileInfo);
+        var fromExport = new StatisticsServiceImpl(fileProcessingService, columnarExportService).getStatistics("a.edf").orElseThrow();
+
+        assertEquals(NUM_DATA_RECORDS, fromExport.getDataRecords());
+        for (var i = 0; i < fromRecords.getChannels().size(); i++) {
+            var expected = fromRecords.getChannels().get(i);
+            var actual = fromExport.getChannels().get(i);
+            assertEquals(expected.getMin(), actual.getMin());
+            assertEquals(expected.getMax(), actual.getMax());
+            assertEquals(expected.getMean(), actual.getMean());
+            assertEquals(expected.getClippedSamples(), actual.getClippedSamples());
+            assertEquals(expected.getLongestFlatLineSeconds(), actual.getLongestFlatLineSeconds());
+        }
+    }
+
+    @Test
+    @DisplayName("getStatistics returns empty for unknown files")
+    void getStatistics_unknownFile() throws Exception {
+        assertFalse(new StatisticsServiceImpl(fileProcessingService, columnarExportService).getStatistics("missing.edf").isPresent());
+    }
+
+    private static short sawtooth(long n) {
+        return (short) ((n % 200) * 10 - 1000);
+    }
+
+}
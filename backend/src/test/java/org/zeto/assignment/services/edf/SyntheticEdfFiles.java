@@ -0,0 +1,97 @@
+package org.zeto.assignment.services.edf;
+
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+import org.zeto.assignment.models.edf.DataRecordLayout;
+import org.zeto.assignment.models.edf.FileInfo;
+
+/**
+ * Synthetic EDF files for the tests of the services that read data records. Only the data records are written; the
+ * header bytes before {@link DataRecordLayout#getDataOffset()} are left zero, since these services take the layout
+ * from the processed file instead of parsing it.
+ */
+final class SyntheticEdfFiles {
+
+    private SyntheticEdfFiles() {
+    }
+
+    /**
+     * Digital values of the data channels.
+     */
+    @FunctionalInterface
+    interface Samples {
+        /**
+         * @param signal The index of the signal in the layout.
+         * @param n      The index of the sample of that signal, counted from the start of the recording.
+         * @return The digital value of the sample.
+         */
+        short sample(int signal, long n);
+    }
+
+    /**
+     * @return The offset of the data records of a file with {@code numSignals} signals.
+     */
+    static int dataOffset(int numSignals) {
+        return 256 + numSignals * 256;
+    }
+
+    /**
+     * Writes all data records of {@code layout}, leaving the EDF+ annotation channel empty.
+     */
+    static Path write(Path file, DataRecordLayout layout, Samples samples) throws IOException {
+        return write(file, layout, layout.getNumDataRecords(), samples, record -> null);
+    }
+
+    /**
+     * Writes {@code numDataRecords} data records of {@code layout}. The EDF+ annotation channel of every record starts
+     * with the bytes returned by {@code annotations} for it, if any, and is zero-padded.
+     */
+    static Path write(Path file, DataRecordLayout layout, int numDataRecords, Samples samples,
+                      IntFunction<byte[]> annotations) throws IOException {
+        var annotationChannel = layout.indexOfAnnotationChannel();
+        var buffer = ByteBuffer.allocate((int) layout.getDataOffset() + numDataRecords * layout.getRecordBytes())
+                               .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position((int) layout.getDataOffset());
+        for (var record = 0; record < numDataRecords; record++) {
+            for (var signal = 0; signal < layout.getNumSignals(); signal++) {
+                var samplesPerRecord = layout.getSamplesPerRecord(signal);
+                if (signal == annotationChannel) {
+                    var bytes = new byte[samplesPerRecord * Short.BYTES];
+                    var tal = annotations.apply(record);
+                    if (tal != null) {
+                        System.arraycopy(tal, 0, bytes, 0, tal.length);
+                    }
+                    buffer.put(bytes);
+                    continue;
+                }
+
+                for (var i = 0; i < samplesPerRecord; i++) {
+                    buffer.putShort(samples.sample(signal, (long) record * samplesPerRecord + i));
+                }
+            }
+        }
+        return Files.write(file, buffer.array());
+    }
+
+    /**
+     * Makes the mocked {@code fileProcessingService} return a valid processed file named {@code fileName}, stored at
+     * {@code path} with {@code layout}.
+     *
+     * @return The processed file.
+     */
+    static FileInfo mockProcessedFile(FileProcessingService fileProcessingService, String fileName, Path path,
+                                      DataRecordLayout layout) {
+        var fileInfo = FileInfo.builder().fileName(fileName).valid(true).dataRecordLayout(layout).build();
+        when(fileProcessingService.getProcessedFile(fileName)).thenReturn(Optional.of(fileInfo));
+        when(fileProcessingService.getProcessedFilePath(fileName)).thenReturn(Optional.of(path));
+        return fileInfo;
+    }
+}
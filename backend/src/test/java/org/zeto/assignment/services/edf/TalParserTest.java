@@ -0,0 +1,82 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.zeto.assignment.models.edf.Annotation;
+
+@DisplayName("TalParser tests")
+class TalParserTest {
+
+    @Test
+    @DisplayName("parse skips time-keeping TALs and reports every annotation text with its onset and duration")
+    void parse_reportsAnnotations() {
+        var annotations = parse("+120\u0014\u0014\u0000+121.5\u00152\u0014Seizure\u0014\u0000-0.5\u0014Pre\u0014Post\u0014\u0000\u0000\u0000");
+
+        assertEquals(List.of(new Annotation(121.5, 2.0, "Seizure"),
+                             new Annotation(-0.5, null, "Pre"),
+                             new Annotation(-0.5, null, "Post")), annotations);
+    }
+
+    @Test
+    @DisplayName("parse decodes UTF-8 annotation text")
+    void parse_utf8Text() {
+        assertEquals(List.of(new Annotation(3.0, null, "Ärger µV")), parse("+0\u0014\u0014\u0000+3\u0014Ärger µV\u0014\u0000"));
+    }
+
+    @Test
+    @DisplayName("parse stops at a malformed TAL and keeps annotations decoded before it")
+    void parse_stopsAtMalformedTal() {
+        assertEquals(List.of(new Annotation(1.0, null, "Ok")), parse("+1\u0014Ok\u0014\u0000garbage\u0014Lost\u0014\u0000"));
+        assertEquals(List.of(), parse("+abc\u0014Lost\u0014\u0000"));
+        assertEquals(List.of(), parse("+12"));
+    }
+
+    @Test
+    @DisplayName("parse only reads the requested range of the buffer")
+    void parse_respectsRange() {
+        var bytes = "+9\u0014Outside\u0014\u0000+1\u0014Inside\u0014\u0000".getBytes(StandardCharsets.UTF_8);
+        var annotations = new ArrayList<Annotation>();
+
+        var count = TalParser.parse(ByteBuffer.wrap(bytes), 12, bytes.length - 12, collector(annotations));
+
+        assertEquals(1, count);
+        assertEquals(List.of(new Annotation(1.0, null, "Inside")), annotations);
+    }
+
+    @Test
+    @DisplayName("parseRecordOnset returns the onset of the time-keeping TAL, or NaN if the record has none")
+    void parseRecordOnset() {
+        assertEquals(3600.25, recordOnset("+3600.25\u0014\u0014\u0000+3601\u0014Spike\u0014\u0000"));
+        assertEquals(-1.0, recordOnset("-1\u0015\u0014\u0014\u0000"));
+        assertEquals(Double.NaN, recordOnset("\u0000\u0000\u0000"));
+        assertEquals(Double.NaN, recordOnset("+12"));
+    }
+
+    private static double recordOnset(String tals) {
+        var bytes = tals.getBytes(StandardCharsets.UTF_8);
+        return TalParser.parseRecordOnset(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    private static List<Annotation> parse(String tals) {
+        var bytes = tals.getBytes(StandardCharsets.UTF_8);
+        var annotations = new ArrayList<Annotation>();
+        var count = TalParser.parse(ByteBuffer.wrap(bytes), 0, bytes.length, collector(annotations));
+        assertEquals(annotations.size(), count);
+        return annotations;
+    }
+
+    private static TalParser.AnnotationSink collector(List<Annotation> annotations) {
+        return (onset, duration, buffer, offset, length) -> {
+            var text = new byte[length];
+            buffer.get(offset, text);
+            annotations.add(new Annotation(onset, Double.isNaN(duration) ? null : duration, new String(text, StandardCharsets.UTF_8)));
+        };
+    }
+}
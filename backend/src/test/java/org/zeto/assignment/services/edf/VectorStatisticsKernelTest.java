@@ -0,0 +1,49 @@
+package org.zeto.assignment.services.edf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("VectorStatisticsKernel tests")
+class VectorStatisticsKernelTest {
+
+    @Test
+    @DisplayName("accumulate matches the scalar kernel for blocks of any length, with runs spanning blocks")
+    void accumulate_matchesScalarKernel() {
+        var random = new Random(42);
+        var vector = new VectorStatisticsKernel();
+        var scalar = new ScalarStatisticsKernel();
+
+        for (var trial = 0; trial < 50; trial++) {
+            var expected = new ChannelStatisticsAccumulator(-2000, 2000);
+            var actual = new ChannelStatisticsAccumulator(-2000, 2000);
+            var value = (short) 0;
+
+            for (var block = 0; block < 20; block++) {
+                var values = new short[random.nextInt(300)];
+                for (var k = 0; k < values.length; k++) {
+                    // Mostly changing values, with occasional long plateaus and values at the digital limits
+                    if (random.nextInt(trial % 5 + 2) == 0) {
+                        value = (short) Math.clamp(random.nextInt(4400) - 2200, -2000, 2000);
+                    }
+                    values[k] = random.nextInt(1000) == 0 ? Short.MIN_VALUE : value;
+                }
+
+                scalar.accumulate(values, values.length, expected);
+                vector.accumulate(values, values.length, actual);
+            }
+
+            assertEquals(expected.count, actual.count);
+            assertEquals(expected.sum, actual.sum);
+            assertEquals(expected.sumOfSquares, actual.sumOfSquares);
+            assertEquals(expected.min, actual.min);
+            assertEquals(expected.max, actual.max);
+            assertEquals(expected.clipped, actual.clipped);
+            assertEquals(expected.run, actual.run);
+            assertEquals(Math.max(expected.longestRun, expected.run), Math.max(actual.longestRun, actual.run));
+        }
+    }
+}